@@ -0,0 +1,628 @@
+package librarymanagementsystem.audit;
+
+import librarymanagementsystem.events.EventType;
+import librarymanagementsystem.utils.IsbnKeys;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Logger;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Append-only, on-disk store of library activity kept for compliance.
+ * <p>
+ * Records are collected into blocks of up to {@link #getBlockRecords()} entries; each block is
+ * deflate-compressed and appended to the current segment file through a {@link FileChannel}.
+ * A segment is closed once it reaches its size limit and a new one is started, so old history
+ * can be archived or expired one file at a time. Every block header carries the first and last
+ * timestamp it covers, and these headers form a sparse in-memory time index: range queries only
+ * read and decompress the blocks that overlap the requested interval. Queries pick their blocks
+ * under the log's monitor but read and inflate them outside it, so they never hold up appends.
+ * <p>
+ * Opening a directory that already holds segments rebuilds the index from the block headers and
+ * cuts off any partially written block left behind by a crash.
+ */
+public class AuditLog implements Closeable {
+    private static final Logger logger = Logger.getLogger(AuditLog.class.getName());
+    
+    /** Default number of records per compressed block. */
+    public static final int DEFAULT_BLOCK_RECORDS = 1024;
+    /** Default size at which a segment file is closed and a new one started. */
+    public static final long DEFAULT_SEGMENT_BYTES = 64L * 1024 * 1024;
+    
+    // Block header: magic, compressed length, raw length, record count (4 bytes each),
+    // first and last timestamp (8 bytes each)
+    private static final int BLOCK_MAGIC = 0x41554454; // "AUDT"
+    private static final int HEADER_SIZE = 32;
+    private static final String SEGMENT_PREFIX = "audit-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final EventType[] TYPES = EventType.values();
+    
+    private final Path directory;
+    private final int blockRecords;
+    private final long segmentBytes;
+    private final IsbnKeys isbns; // resolves the local identifier keys of appended records
+    private final List<Segment> segments; // oldest first
+    private final Deflater deflater;
+    private final ByteBuffer header;
+    private FileChannel out; // channel of the newest segment
+    
+    // Records not yet written as a block
+    private final ByteArrayOutputStream pendingBytes;
+    private final DataOutputStream pending;
+    private int pendingCount;
+    private long pendingFirst;
+    private long pendingLast;
+    
+    private byte[] compressed;
+    private long recordCount;
+    private boolean closed;
+    
+    /**
+     * Constructor with default block and segment sizes.
+     *
+     * @param directory The directory holding the segment files; created if missing
+     * @throws IOException if the directory or its segments cannot be opened
+     */
+    public AuditLog(Path directory) throws IOException {
+        this(directory, new IsbnKeys());
+    }
+    
+    /**
+     * Constructor with default block and segment sizes for the records of one library.
+     *
+     * @param directory The directory holding the segment files; created if missing
+     * @param isbns The ISBN keys of the library whose activity is recorded
+     * @throws IOException if the directory or its segments cannot be opened
+     */
+    public AuditLog(Path directory, IsbnKeys isbns) throws IOException {
+        this(directory, DEFAULT_BLOCK_RECORDS, DEFAULT_SEGMENT_BYTES, isbns);
+    }
+    
+    /**
+     * Constructor with explicit block and segment sizes.
+     *
+     * @param directory The directory holding the segment files; created if missing
+     * @param blockRecords The number of records compressed together in one block
+     * @param segmentBytes The size at which a new segment file is started
+     * @throws IOException if the directory or its segments cannot be opened
+     */
+    public AuditLog(Path directory, int blockRecords, long segmentBytes) throws IOException {
+        this(directory, blockRecords, segmentBytes, new IsbnKeys());
+    }
+    
+    /**
+     * Constructor with explicit block and segment sizes for the records of one library.
+     *
+     * @param directory The directory holding the segment files; created if missing
+     * @param blockRecords The number of records compressed together in one block
+     * @param segmentBytes The size at which a new segment file is started
+     * @param isbns The ISBN keys of the library whose activity is recorded
+     * @throws IOException if the directory or its segments cannot be opened
+     */
+    public AuditLog(Path directory, int blockRecords, long segmentBytes, IsbnKeys isbns) throws IOException {
+        if (directory == null || isbns == null) {
+            logger.warning("Attempted to open audit log with null directory or ISBN keys");
+            throw new IllegalArgumentException("Directory and ISBN keys cannot be null");
+        }
+        if (blockRecords <= 0 || segmentBytes <= 0) {
+            logger.warning("Attempted to open audit log with invalid sizes: " + blockRecords + ", " + segmentBytes);
+            throw new IllegalArgumentException("Block records and segment bytes must be positive");
+        }
+        
+        this.directory = directory;
+        this.blockRecords = blockRecords;
+        this.segmentBytes = segmentBytes;
+        this.isbns = isbns;
+        this.segments = new ArrayList<>();
+        this.deflater = new Deflater(Deflater.BEST_SPEED);
+        this.header = ByteBuffer.allocate(HEADER_SIZE);
+        this.pendingBytes = new ByteArrayOutputStream();
+        this.pending = new DataOutputStream(pendingBytes);
+        this.compressed = new byte[4096];
+        
+        Files.createDirectories(directory);
+        recover();
+        logger.info("Audit log opened in " + directory + " with " + recordCount + " records");
+    }
+    
+    /**
+     * Appends a record. The record is buffered in memory and written with its block;
+     * call {@link #flush()} to write a partial block.
+     *
+     * @param type The kind of activity
+     * @param isbnKey The ISBN key of the book in this log's {@link #getIsbnKeys()}
+     * @param patronId The ID of the patron involved, or null for catalog events
+     * @param timestamp The time of the activity in milliseconds since the epoch
+     * @throws IOException if a completed block cannot be written
+     */
+    public synchronized void append(EventType type, long isbnKey, String patronId, long timestamp) throws IOException {
+        if (type == null) {
+            throw new IllegalArgumentException("Event type cannot be null");
+        }
+        if (closed) {
+            throw new IllegalStateException("Audit log is closed");
+        }
+        
+        pending.writeByte(type.ordinal());
+        pending.writeLong(timestamp);
+        pending.writeLong(isbnKey);
+        if (isbnKey < 0) {
+            // Local identifier keys are only meaningful within one library, so keep the text
+            pending.writeUTF(isbns.toIsbnString(isbnKey));
+        }
+        pending.writeBoolean(patronId != null);
+        if (patronId != null) {
+            pending.writeUTF(patronId);
+        }
+        
+        if (pendingCount == 0) {
+            pendingFirst = timestamp;
+            pendingLast = timestamp;
+        } else {
+            pendingFirst = Math.min(pendingFirst, timestamp);
+            pendingLast = Math.max(pendingLast, timestamp);
+        }
+        pendingCount++;
+        recordCount++;
+        
+        if (pendingCount >= blockRecords) {
+            writeBlock();
+        }
+    }
+    
+    /**
+     * Writes any buffered records as a block.
+     *
+     * @throws IOException if the block cannot be written
+     */
+    public synchronized void flush() throws IOException {
+        if (!closed) {
+            writeBlock();
+        }
+    }
+    
+    /**
+     * Writes any buffered records and forces the newest segment to the storage device.
+     *
+     * @throws IOException if the block cannot be written or synced
+     */
+    public synchronized void sync() throws IOException {
+        flush();
+        if (!closed && out != null) {
+            out.force(false);
+        }
+    }
+    
+    /**
+     * Finds all records logged in a time range, in the order they were appended.
+     *
+     * @param from The start of the range (inclusive)
+     * @param to The end of the range (exclusive)
+     * @return The matching records
+     * @throws IOException if a segment cannot be read
+     */
+    public List<AuditRecord> findBetween(Instant from, Instant to) throws IOException {
+        validateRange(from, to);
+        return query(from.toEpochMilli(), to.toEpochMilli(), null, IsbnKeys.NO_KEY, null);
+    }
+    
+    /**
+     * Finds the records of one patron in a time range, in the order they were appended.
+     *
+     * @param patronId The ID of the patron
+     * @param from The start of the range (inclusive)
+     * @param to The end of the range (exclusive)
+     * @return The matching records
+     * @throws IOException if a segment cannot be read
+     */
+    public List<AuditRecord> findByPatron(String patronId, Instant from, Instant to) throws IOException {
+        if (patronId == null || patronId.isEmpty()) {
+            logger.warning("Attempted to query audit log with null or empty patron ID");
+            throw new IllegalArgumentException("Patron ID cannot be null or empty");
+        }
+        validateRange(from, to);
+        return query(from.toEpochMilli(), to.toEpochMilli(), patronId, IsbnKeys.NO_KEY, null);
+    }
+    
+    /**
+     * Finds the records of one book in a time range, in the order they were appended.
+     *
+     * @param isbn The ISBN of the book
+     * @param from The start of the range (inclusive)
+     * @param to The end of the range (exclusive)
+     * @return The matching records
+     * @throws IOException if a segment cannot be read
+     */
+    public List<AuditRecord> findByIsbn(String isbn, Instant from, Instant to) throws IOException {
+        if (isbn == null || isbn.isEmpty()) {
+            logger.warning("Attempted to query audit log with null or empty ISBN");
+            throw new IllegalArgumentException("ISBN cannot be null or empty");
+        }
+        validateRange(from, to);
+        // An identifier the library never registered can still be in older records, which
+        // keep it unregistered, so match those by their stored text instead of a key
+        long isbnKey = isbns.existingKeyOf(isbn);
+        String localId = isbnKey == IsbnKeys.NO_KEY ? isbn : null;
+        return query(from.toEpochMilli(), to.toEpochMilli(), null, isbnKey, localId);
+    }
+    
+    /**
+     * Deletes whole segments whose records are all older than a cutoff, e.g. once they fall
+     * outside the retention period. The newest segment is never deleted.
+     *
+     * @param cutoff The retention cutoff
+     * @return The number of segments deleted
+     * @throws IOException if a segment cannot be deleted
+     */
+    public synchronized int deleteSegmentsBefore(Instant cutoff) throws IOException {
+        if (cutoff == null) {
+            throw new IllegalArgumentException("Cutoff cannot be null");
+        }
+        
+        long cutoffMillis = cutoff.toEpochMilli();
+        int deleted = 0;
+        while (segments.size() > 1 && segments.get(0).lastTimestamp < cutoffMillis) {
+            Segment segment = segments.remove(0);
+            Files.delete(segment.path);
+            recordCount -= segment.recordCount;
+            deleted++;
+            logger.info("Deleted expired audit segment " + segment.path.getFileName());
+        }
+        return deleted;
+    }
+    
+    // Getters
+    public synchronized long getRecordCount() {
+        return recordCount;
+    }
+    
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+    
+    public int getBlockRecords() {
+        return blockRecords;
+    }
+    
+    public IsbnKeys getIsbnKeys() {
+        return isbns;
+    }
+    
+    public Path getDirectory() {
+        return directory;
+    }
+    
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            writeBlock();
+            if (out != null) {
+                out.force(false);
+                out.close();
+            }
+        } finally {
+            closed = true;
+            deflater.end();
+        }
+        logger.info("Audit log closed with " + recordCount + " records");
+    }
+    
+    private void validateRange(Instant from, Instant to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Time range cannot be null");
+        }
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Time range end cannot be before its start");
+        }
+    }
+    
+    private List<AuditRecord> query(long from, long to, String patronId, long isbnKey, String localId)
+            throws IOException {
+        // Pick the blocks and copy the unwritten records under the monitor; blocks are never
+        // changed once written, so they can be read and inflated without holding up appends
+        List<Segment> selected = new ArrayList<>();
+        byte[] pendingRaw = null;
+        int pendingRecords = 0;
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("Audit log is closed");
+            }
+            for (Segment segment : segments) {
+                if (segment.blocks.isEmpty() || segment.lastTimestamp < from || segment.firstTimestamp >= to) {
+                    continue;
+                }
+                Segment overlapping = new Segment(segment.number, segment.path);
+                for (Block block : segment.blocks) {
+                    if (block.lastTimestamp >= from && block.firstTimestamp < to) {
+                        overlapping.add(block);
+                    }
+                }
+                selected.add(overlapping);
+            }
+            if (pendingCount > 0 && pendingLast >= from && pendingFirst < to) {
+                pending.flush();
+                pendingRaw = pendingBytes.toByteArray();
+                pendingRecords = pendingCount;
+            }
+        }
+        
+        List<AuditRecord> results = new ArrayList<>();
+        Inflater inflater = new Inflater();
+        try {
+            for (Segment segment : selected) {
+                try (FileChannel in = FileChannel.open(segment.path, StandardOpenOption.READ)) {
+                    for (Block block : segment.blocks) {
+                        byte[] raw = readBlock(in, block, inflater);
+                        decode(raw, block.recordCount, from, to, patronId, isbnKey, localId, results);
+                    }
+                } catch (NoSuchFileException e) {
+                    // Expired and deleted after its blocks were picked
+                    logger.fine("Skipping deleted audit segment " + segment.path.getFileName());
+                }
+            }
+        } finally {
+            inflater.end();
+        }
+        if (pendingRaw != null) {
+            decode(pendingRaw, pendingRecords, from, to, patronId, isbnKey, localId, results);
+        }
+        return results;
+    }
+    
+    private static byte[] readBlock(FileChannel in, Block block, Inflater inflater) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(block.compressedLength);
+        readFully(in, buffer, block.offset + HEADER_SIZE);
+        
+        byte[] raw = new byte[block.rawLength];
+        inflater.reset();
+        inflater.setInput(buffer.array());
+        try {
+            int length = 0;
+            while (length < raw.length) {
+                int inflated = inflater.inflate(raw, length, raw.length - length);
+                if (inflated == 0) {
+                    // Finished early, out of input or waiting for a dictionary: the block is
+                    // truncated or corrupt, and inflating again would make no progress
+                    throw new IOException("Truncated or corrupt audit block at offset " + block.offset);
+                }
+                length += inflated;
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt audit block at offset " + block.offset, e);
+        }
+        return raw;
+    }
+    
+    private void decode(byte[] raw, int count, long from, long to, String patronId, long isbnKey, String isbnId,
+                        List<AuditRecord> results) throws IOException {
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(raw));
+        for (int i = 0; i < count; i++) {
+            EventType type = TYPES[input.readUnsignedByte()];
+            long timestamp = input.readLong();
+            long key = input.readLong();
+            String localId = null;
+            if (key < 0) {
+                localId = input.readUTF();
+                key = isbns.existingKeyOf(localId);
+            }
+            String patron = input.readBoolean() ? input.readUTF() : null;
+            
+            if (timestamp < from || timestamp >= to) {
+                continue;
+            }
+            if (patronId != null && !patronId.equals(patron)) {
+                continue;
+            }
+            if (isbnKey != IsbnKeys.NO_KEY && isbnKey != key) {
+                continue;
+            }
+            if (isbnId != null && (key != IsbnKeys.NO_KEY || !isbnId.equals(localId))) {
+                continue;
+            }
+            String isbn = localId != null ? localId : Long.toString(key);
+            results.add(new AuditRecord(type, key, isbn, patron, timestamp));
+        }
+    }
+    
+    private void writeBlock() throws IOException {
+        if (pendingCount == 0) {
+            return;
+        }
+        
+        pending.flush();
+        byte[] raw = pendingBytes.toByteArray();
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+        int length = 0;
+        while (!deflater.finished()) {
+            if (length == compressed.length) {
+                compressed = Arrays.copyOf(compressed, compressed.length * 2);
+            }
+            length += deflater.deflate(compressed, length, compressed.length - length);
+        }
+        
+        Segment segment = currentSegment(HEADER_SIZE + length);
+        long offset = segment.size;
+        header.clear();
+        header.putInt(BLOCK_MAGIC).putInt(length).putInt(raw.length).putInt(pendingCount)
+                .putLong(pendingFirst).putLong(pendingLast);
+        header.flip();
+        writeFully(header, offset);
+        writeFully(ByteBuffer.wrap(compressed, 0, length), offset + HEADER_SIZE);
+        
+        segment.add(new Block(offset, length, raw.length, pendingCount, pendingFirst, pendingLast));
+        pendingBytes.reset();
+        pendingCount = 0;
+    }
+    
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += out.write(buffer, position);
+        }
+    }
+    
+    private static void readFully(FileChannel in, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = in.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of audit segment at offset " + position);
+            }
+            position += read;
+        }
+    }
+    
+    /**
+     * Gets the segment the next block goes to, starting a new one if the block would push
+     * the newest segment past its size limit.
+     */
+    private Segment currentSegment(int blockSize) throws IOException {
+        Segment newest = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (newest != null && (newest.blocks.isEmpty() || newest.size + blockSize <= segmentBytes)) {
+            return newest;
+        }
+        
+        int number = newest == null ? 1 : newest.number + 1;
+        Path path = directory.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+        if (out != null) {
+            out.force(false);
+            out.close();
+        }
+        out = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        Segment segment = new Segment(number, path);
+        segments.add(segment);
+        logger.info("Started audit segment " + path.getFileName());
+        return segment;
+    }
+    
+    /**
+     * Rebuilds the time index from existing segments and reopens the newest one for appending.
+     */
+    private void recover() throws IOException {
+        List<Path> paths = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path path : files) {
+                paths.add(path);
+            }
+        }
+        paths.sort(null);
+        
+        for (Path path : paths) {
+            String name = path.getFileName().toString();
+            int number;
+            try {
+                number = Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+            } catch (NumberFormatException e) {
+                logger.warning("Ignoring unrecognized file in audit directory: " + name);
+                continue;
+            }
+            Segment segment = new Segment(number, path);
+            scan(segment);
+            segments.add(segment);
+            recordCount += segment.recordCount;
+        }
+        
+        if (!segments.isEmpty()) {
+            out = FileChannel.open(segments.get(segments.size() - 1).path, StandardOpenOption.WRITE);
+        }
+    }
+    
+    private void scan(Segment segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment.path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long fileSize = channel.size();
+            long offset = 0;
+            while (offset + HEADER_SIZE <= fileSize) {
+                header.clear();
+                readFully(channel, header, offset);
+                header.flip();
+                if (header.getInt() != BLOCK_MAGIC) {
+                    break;
+                }
+                int length = header.getInt();
+                int rawLength = header.getInt();
+                int count = header.getInt();
+                long first = header.getLong();
+                long last = header.getLong();
+                if (length < 0 || offset + HEADER_SIZE + length > fileSize) {
+                    break;
+                }
+                segment.add(new Block(offset, length, rawLength, count, first, last));
+                offset += HEADER_SIZE + length;
+            }
+            
+            if (offset < fileSize) {
+                logger.warning("Truncating incomplete audit block at offset " + offset + " in " + segment.path.getFileName());
+                channel.truncate(offset);
+            }
+        }
+    }
+    
+    /**
+     * Index entry for one compressed block.
+     */
+    private static class Block {
+        final long offset;
+        final int compressedLength;
+        final int rawLength;
+        final int recordCount;
+        final long firstTimestamp;
+        final long lastTimestamp;
+        
+        Block(long offset, int compressedLength, int rawLength, int recordCount, long firstTimestamp, long lastTimestamp) {
+            this.offset = offset;
+            this.compressedLength = compressedLength;
+            this.rawLength = rawLength;
+            this.recordCount = recordCount;
+            this.firstTimestamp = firstTimestamp;
+            this.lastTimestamp = lastTimestamp;
+        }
+    }
+    
+    /**
+     * One segment file and the index of its blocks.
+     */
+    private static class Segment {
+        final int number;
+        final Path path;
+        final List<Block> blocks;
+        long size;
+        long recordCount;
+        long firstTimestamp = Long.MAX_VALUE;
+        long lastTimestamp = Long.MIN_VALUE;
+        
+        Segment(int number, Path path) {
+            this.number = number;
+            this.path = path;
+            this.blocks = new ArrayList<>();
+        }
+        
+        void add(Block block) {
+            blocks.add(block);
+            size = block.offset + HEADER_SIZE + block.compressedLength;
+            recordCount += block.recordCount;
+            firstTimestamp = Math.min(firstTimestamp, block.firstTimestamp);
+            lastTimestamp = Math.max(lastTimestamp, block.lastTimestamp);
+        }
+    }
+}
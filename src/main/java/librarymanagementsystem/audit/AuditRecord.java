@@ -0,0 +1,107 @@
+package librarymanagementsystem.audit;
+
+import librarymanagementsystem.events.EventType;
+import librarymanagementsystem.utils.IsbnKeys;
+
+import java.util.Objects;
+
+/**
+ * One entry read back from the {@link AuditLog}.
+ */
+public class AuditRecord {
+    private final EventType type;
+    private final long isbnKey;
+    private final String isbn;
+    private final String patronId;
+    private final long timestamp;
+    
+    /**
+     * Constructor for a record of a book with a valid ISBN.
+     *
+     * @param type The kind of activity
+     * @param isbnKey The ISBN key of the book, see IsbnKeys
+     * @param patronId The ID of the patron involved, or null for catalog events
+     * @param timestamp The time of the activity in milliseconds since the epoch
+     */
+    public AuditRecord(EventType type, long isbnKey, String patronId, long timestamp) {
+        this(type, isbnKey, isbnKey > 0 ? Long.toString(isbnKey) : null, patronId, timestamp);
+    }
+    
+    /**
+     * Constructor for AuditRecord.
+     *
+     * @param type The kind of activity
+     * @param isbnKey The ISBN key of the book, see IsbnKeys
+     * @param isbn The 13-digit ISBN or local identifier the key stands for
+     * @param patronId The ID of the patron involved, or null for catalog events
+     * @param timestamp The time of the activity in milliseconds since the epoch
+     */
+    public AuditRecord(EventType type, long isbnKey, String isbn, String patronId, long timestamp) {
+        this.type = type;
+        this.isbnKey = isbnKey;
+        this.isbn = isbn;
+        this.patronId = patronId;
+        this.timestamp = timestamp;
+    }
+    
+    /**
+     * Constructor for a record of a local identifier that has no key in this process, e.g.
+     * one read back from an older segment. Its ISBN key is IsbnKeys.NO_KEY.
+     *
+     * @param type The kind of activity
+     * @param localId The local identifier of the book
+     * @param patronId The ID of the patron involved, or null for catalog events
+     * @param timestamp The time of the activity in milliseconds since the epoch
+     */
+    public AuditRecord(EventType type, String localId, String patronId, long timestamp) {
+        this(type, IsbnKeys.NO_KEY, localId, patronId, timestamp);
+    }
+    
+    // Getters
+    public EventType getType() {
+        return type;
+    }
+    
+    public long getIsbnKey() {
+        return isbnKey;
+    }
+    
+    public String getIsbn() {
+        return isbn;
+    }
+    
+    public String getPatronId() {
+        return patronId;
+    }
+    
+    public long getTimestamp() {
+        return timestamp;
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        AuditRecord that = (AuditRecord) o;
+        return isbnKey == that.isbnKey &&
+                timestamp == that.timestamp &&
+                type == that.type &&
+                Objects.equals(isbn, that.isbn) &&
+                Objects.equals(patronId, that.patronId);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, isbnKey, isbn, patronId, timestamp);
+    }
+    
+    @Override
+    public String toString() {
+        return "AuditRecord{" +
+                "type=" + type +
+                ", isbn='" + getIsbn() + '\'' +
+                ", patronId='" + patronId + '\'' +
+                ", timestamp=" + timestamp +
+                '}';
+    }
+}
@@ -0,0 +1,185 @@
+package librarymanagementsystem.audit;
+
+import librarymanagementsystem.events.ActivityEvent;
+import librarymanagementsystem.events.ActivityStream;
+import librarymanagementsystem.events.EventHandler;
+import librarymanagementsystem.events.Subscription;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+/**
+ * Feeds an {@link AuditLog} from an {@link ActivityStream} on a background thread.
+ * <p>
+ * Checkouts, returns and other activity only pay for publishing to the ring buffer; encoding,
+ * compression and file I/O all happen on the writer thread. Partial blocks are flushed at a
+ * fixed interval so a quiet library still reaches the disk promptly. The writer reads through
+ * a lossless subscription, so no event is ever dropped: if it falls a full buffer behind,
+ * publishers wait for it. If the log cannot be written, the writer halts the stream, and
+ * checkouts, returns and catalog changes fail with IllegalStateException instead of going
+ * on unaudited.
+ */
+public class AuditWriter implements Closeable {
+    private static final Logger logger = Logger.getLogger(AuditWriter.class.getName());
+    
+    /** Default interval at which partial blocks are written. */
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 1000;
+    
+    private static final int POLL_BATCH = 1024;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+    
+    private final ActivityStream stream;
+    private final AuditLog log;
+    private final long flushIntervalMillis;
+    private final EventHandler handler;
+    private final Thread thread;
+    private volatile Subscription subscription;
+    private volatile boolean running;
+    private volatile IOException failure;
+    
+    /**
+     * Constructor with the default flush interval.
+     *
+     * @param stream The stream to record
+     * @param log The log to write to
+     */
+    public AuditWriter(ActivityStream stream, AuditLog log) {
+        this(stream, log, DEFAULT_FLUSH_INTERVAL_MILLIS);
+    }
+    
+    /**
+     * Constructor for AuditWriter. Events published after {@link #start()} are recorded.
+     *
+     * @param stream The stream to record
+     * @param log The log to write to
+     * @param flushIntervalMillis The interval at which partial blocks are written
+     */
+    public AuditWriter(ActivityStream stream, AuditLog log, long flushIntervalMillis) {
+        if (stream == null || log == null) {
+            logger.warning("Attempted to create audit writer with null stream or log");
+            throw new IllegalArgumentException("Stream and log cannot be null");
+        }
+        if (flushIntervalMillis <= 0) {
+            throw new IllegalArgumentException("Flush interval must be positive");
+        }
+        if (log.getIsbnKeys() != stream.getIsbnKeys()) {
+            logger.warning("Attempted to create audit writer for a log of another library");
+            throw new IllegalArgumentException("Log must use the ISBN keys of the stream");
+        }
+        
+        this.stream = stream;
+        this.log = log;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.handler = this::write;
+        this.thread = new Thread(this::run, "audit-writer");
+        this.thread.setDaemon(true);
+    }
+    
+    /**
+     * Subscribes to the stream and starts the writer thread.
+     */
+    public synchronized void start() {
+        if (subscription != null) {
+            return;
+        }
+        subscription = stream.subscribeLossless();
+        running = true;
+        thread.start();
+        logger.info("Audit writer started");
+    }
+    
+    /**
+     * Gets the number of events that were overwritten before the writer could record them.
+     * The writer's subscription is lossless, so this stays zero.
+     *
+     * @return The number of missed events
+     */
+    public long getMissedCount() {
+        Subscription current = subscription;
+        return current != null ? current.getMissedCount() : 0;
+    }
+    
+    /**
+     * Gets the error that stopped the writer, if any. The same error halts the stream, see
+     * {@link ActivityStream#getHaltCause()}.
+     *
+     * @return The error, or null while the writer is healthy
+     */
+    public IOException getFailure() {
+        return failure;
+    }
+    
+    /**
+     * Stops the writer after recording every event already published and flushing the log.
+     * The log itself stays open.
+     *
+     * @throws IOException if the writer stopped because the log could not be written
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (running) {
+            running = false;
+            LockSupport.unpark(thread);
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            subscription.close();
+            logger.info("Audit writer stopped");
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+    
+    private void run() {
+        long lastFlush = System.currentTimeMillis();
+        try {
+            while (running) {
+                int delivered = subscription.poll(handler, POLL_BATCH);
+                
+                long now = System.currentTimeMillis();
+                if (now - lastFlush >= flushIntervalMillis) {
+                    log.flush();
+                    lastFlush = now;
+                }
+                if (delivered == 0) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+            }
+            
+            // Drain what was published before close
+            while (subscription.poll(handler, POLL_BATCH) > 0) {
+                // keep draining
+            }
+            log.flush();
+        } catch (UncheckedIOException e) {
+            fail(e.getCause());
+        } catch (IOException e) {
+            fail(e);
+        } catch (RuntimeException e) {
+            // e.g. the log was closed underneath the writer
+            fail(new IOException("Audit log rejected a record: " + e.getMessage(), e));
+        }
+    }
+    
+    private void write(ActivityEvent event) {
+        try {
+            log.append(event.getType(), event.getIsbnKey(), event.getPatronId(), event.getTimestamp());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private void fail(IOException e) {
+        failure = e;
+        running = false;
+        subscription.halt(e);
+        logger.severe("Audit writer stopped after write failure: " + e.getMessage());
+    }
+}
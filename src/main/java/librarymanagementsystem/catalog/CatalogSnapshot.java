@@ -0,0 +1,140 @@
+package librarymanagementsystem.catalog;
+
+import librarymanagementsystem.model.Book;
+import librarymanagementsystem.utils.LongMap;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable, versioned view of a {@link SnapshotCatalog}.
+ * A snapshot never changes after it is published, so it can be read from any number of
+ * threads without locking and gives reports a consistent view across many calls.
+ * Successive versions share every trie node that a change did not touch.
+ */
+public final class CatalogSnapshot implements LongMap<Book> {
+    static final CatalogSnapshot EMPTY = new CatalogSnapshot(TrieNode.EMPTY, 0, 0);
+    
+    private final TrieNode root;
+    private final int size;
+    private final long version;
+    
+    CatalogSnapshot(TrieNode root, int size, long version) {
+        this.root = root;
+        this.size = size;
+        this.version = version;
+    }
+    
+    @Override
+    public Book get(long key) {
+        return TrieNode.get(root, key);
+    }
+    
+    @Override
+    public boolean containsKey(long key) {
+        return TrieNode.get(root, key) != null;
+    }
+    
+    @Override
+    public int size() {
+        return size;
+    }
+    
+    @Override
+    public void forEach(EntryConsumer<? super Book> consumer) {
+        TrieNode.forEach(root, consumer);
+    }
+    
+    @Override
+    public Collection<Book> values() {
+        return new AbstractCollection<Book>() {
+            @Override
+            public Iterator<Book> iterator() {
+                return new ValueIterator(root);
+            }
+            
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+    
+    /**
+     * Snapshots are read-only; change the catalog through {@link SnapshotCatalog}.
+     */
+    @Override
+    public Book put(long key, Book value) {
+        throw new UnsupportedOperationException("Catalog snapshots are read-only");
+    }
+    
+    /**
+     * Snapshots are read-only; change the catalog through {@link SnapshotCatalog}.
+     */
+    @Override
+    public Book remove(long key) {
+        throw new UnsupportedOperationException("Catalog snapshots are read-only");
+    }
+    
+    // Getters
+    public long getVersion() {
+        return version;
+    }
+    
+    TrieNode getRoot() {
+        return root;
+    }
+    
+    /**
+     * Depth-first iteration over the trie with an explicit stack.
+     */
+    private static class ValueIterator implements Iterator<Book> {
+        private static final int MAX_DEPTH = 64 / TrieNode.BITS + 1;
+        
+        private final TrieNode[] nodes = new TrieNode[MAX_DEPTH];
+        private final int[] positions = new int[MAX_DEPTH];
+        private int depth;
+        private Book next;
+        
+        ValueIterator(TrieNode root) {
+            nodes[0] = root;
+            advance();
+        }
+        
+        private void advance() {
+            next = null;
+            while (depth >= 0) {
+                TrieNode node = nodes[depth];
+                if (positions[depth] == node.slots.length) {
+                    depth--;
+                    continue;
+                }
+                Object slot = node.slots[positions[depth]++];
+                if (slot instanceof TrieNode.Leaf) {
+                    next = ((TrieNode.Leaf) slot).value;
+                    return;
+                }
+                depth++;
+                nodes[depth] = (TrieNode) slot;
+                positions[depth] = 0;
+            }
+        }
+        
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+        
+        @Override
+        public Book next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Book value = next;
+            advance();
+            return value;
+        }
+    }
+}
@@ -0,0 +1,457 @@
+package librarymanagementsystem.catalog;
+
+import librarymanagementsystem.model.Book;
+import librarymanagementsystem.utils.BookFactory;
+import librarymanagementsystem.utils.IsbnKeys;
+import librarymanagementsystem.utils.LongMap;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Column-oriented catalog storage for very large collections (ISBN key -> Book).
+ * Instead of keeping a Book object and its strings per title, every field lives in a
+ * primitive column:
+ * - ISBN digits packed into a long, with the hyphen positions kept in a small format word
+ * - Authors dictionary-encoded, so each distinct author name is stored once
+ * - Book type stored as a one-byte tag instead of a subclass instance
+ * - Titles stored as UTF-8 bytes in a shared arena
+ *
+ * Books returned by this map are flyweight views built on demand from the columns.
+ * ISBN keys come from the catalog's {@link IsbnKeys}; the original ISBN string is rebuilt from the packed
+ * digits and hyphen positions, so views report the ISBN exactly as it was added.
+ * Changes made to a returned Book are not written back; put the book again to update it.
+ */
+public class CompactCatalog implements LongMap<Book> {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int MAX_PACKED_DIGITS = 18;
+    private static final int DIGIT_COUNT_BITS = 5;
+    private static final int DIGIT_COUNT_MASK = (1 << DIGIT_COUNT_BITS) - 1;
+    private static final int NOT_PACKABLE = 0;
+    private static final BookFactory.BookType[] BOOK_TYPES = BookFactory.BookType.values();
+
+    private final IsbnKeys isbns;
+    private StringDictionary authors;
+
+    // Columns, indexed by row
+    private long[] keys;
+    private long[] isbnDigits;
+    private int[] isbnFormats; // digit count and hyphen positions, 0 for free or unpackable rows
+    private int[] titleOffsets;
+    private int[] titleLengths; // -1 for a null title
+    private int[] authorCodes;
+    private int[] publicationYears;
+    private byte[] bookTypes;
+    private boolean[] occupied;
+
+    private byte[] titleArena;
+    private int arenaSize;
+    private int deadArenaBytes;
+
+    private int rowCount; // rows ever handed out
+    private int size;
+    private int[] freeRows;
+    private int freeRowCount;
+
+    // Open-addressing index over ISBN keys; each slot holds row + 1, 0 means empty
+    private int[] index;
+    // ISBNs that cannot be packed (letters, stray hyphens, too many digits) fall back to strings
+    private Map<Integer, String> unpackedByRow;
+
+    /**
+     * Constructor initializes empty columns, with ISBN keys of its own.
+     */
+    public CompactCatalog() {
+        this(new IsbnKeys());
+    }
+
+    /**
+     * Constructor initializes empty columns.
+     *
+     * @param isbns The ISBN keys the catalog is keyed by
+     */
+    public CompactCatalog(IsbnKeys isbns) {
+        this.isbns = isbns;
+        this.authors = new StringDictionary();
+        this.keys = new long[INITIAL_CAPACITY];
+        this.isbnDigits = new long[INITIAL_CAPACITY];
+        this.isbnFormats = new int[INITIAL_CAPACITY];
+        this.titleOffsets = new int[INITIAL_CAPACITY];
+        this.titleLengths = new int[INITIAL_CAPACITY];
+        this.authorCodes = new int[INITIAL_CAPACITY];
+        this.publicationYears = new int[INITIAL_CAPACITY];
+        this.bookTypes = new byte[INITIAL_CAPACITY];
+        this.occupied = new boolean[INITIAL_CAPACITY];
+        this.titleArena = new byte[INITIAL_CAPACITY * 32];
+        this.freeRows = new int[INITIAL_CAPACITY];
+        this.index = new int[INITIAL_CAPACITY * 2];
+        this.unpackedByRow = new HashMap<>();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(long key) {
+        return findRow(key) >= 0;
+    }
+
+    @Override
+    public Book get(long key) {
+        int row = findRow(key);
+        return row >= 0 ? view(row) : null;
+    }
+
+    /**
+     * Stores a book under the given ISBN key. The key is authoritative for the stored ISBN:
+     * the book's own ISBN string is kept verbatim only if it resolves to the same key.
+     *
+     * @param key The ISBN key to store the book under
+     * @param book The book whose fields are copied into the columns
+     * @return The previous book stored under the key, or null
+     */
+    @Override
+    public Book put(long key, Book book) {
+        if (book == null) {
+            throw new IllegalArgumentException("Book cannot be null");
+        }
+
+        int row = findRow(key);
+        Book previous = null;
+        if (row >= 0) {
+            previous = view(row);
+            releaseTitle(row);
+        } else {
+            row = allocateRow();
+            String isbn = book.getIsbn();
+            if (isbns.existingKeyOf(isbn) != key) {
+                isbn = isbns.toIsbnString(key);
+            }
+            keys[row] = key;
+            isbnDigits[row] = packDigits(isbn);
+            isbnFormats[row] = packFormat(isbn);
+            if (isbnFormats[row] == NOT_PACKABLE) {
+                unpackedByRow.put(row, isbn);
+            }
+            insertIntoIndex(row);
+            occupied[row] = true;
+            size++;
+        }
+
+        storeTitle(row, book.getTitle());
+        authorCodes[row] = authors.encode(book.getAuthor());
+        publicationYears[row] = book.getPublicationYear();
+        bookTypes[row] = (byte) BookFactory.typeOf(book).ordinal();
+        return previous;
+    }
+
+    @Override
+    public Book remove(long key) {
+        int row = findRow(key);
+        if (row < 0) {
+            return null;
+        }
+        Book previous = view(row);
+        removeRow(row);
+        return previous;
+    }
+
+    /**
+     * Removes all books.
+     */
+    public void clear() {
+        for (int row = 0; row < rowCount; row++) {
+            if (occupied[row]) {
+                removeRow(row);
+            }
+        }
+    }
+
+    @Override
+    public void forEach(EntryConsumer<? super Book> consumer) {
+        for (int row = 0; row < rowCount; row++) {
+            if (occupied[row]) {
+                consumer.accept(keys[row], view(row));
+            }
+        }
+    }
+
+    @Override
+    public Collection<Book> values() {
+        return new AbstractCollection<Book>() {
+            @Override
+            public Iterator<Book> iterator() {
+                return new RowIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Gets the number of distinct authors referenced by the catalog.
+     *
+     * @return The size of the author dictionary
+     */
+    public int getDistinctAuthorCount() {
+        return authors.size();
+    }
+
+    // Row storage
+
+    private int allocateRow() {
+        if (freeRowCount > 0) {
+            return freeRows[--freeRowCount];
+        }
+        if (rowCount == occupied.length) {
+            int capacity = rowCount + (rowCount >> 1) + 1;
+            keys = Arrays.copyOf(keys, capacity);
+            isbnDigits = Arrays.copyOf(isbnDigits, capacity);
+            isbnFormats = Arrays.copyOf(isbnFormats, capacity);
+            titleOffsets = Arrays.copyOf(titleOffsets, capacity);
+            titleLengths = Arrays.copyOf(titleLengths, capacity);
+            authorCodes = Arrays.copyOf(authorCodes, capacity);
+            publicationYears = Arrays.copyOf(publicationYears, capacity);
+            bookTypes = Arrays.copyOf(bookTypes, capacity);
+            occupied = Arrays.copyOf(occupied, capacity);
+        }
+        return rowCount++;
+    }
+
+    private void removeRow(int row) {
+        if (isbnFormats[row] == NOT_PACKABLE) {
+            unpackedByRow.remove(row);
+        }
+        removeFromIndex(row);
+        releaseTitle(row);
+        occupied[row] = false;
+        isbnFormats[row] = NOT_PACKABLE;
+        size--;
+
+        if (freeRowCount == freeRows.length) {
+            freeRows = Arrays.copyOf(freeRows, freeRowCount * 2);
+        }
+        freeRows[freeRowCount++] = row;
+    }
+
+    private Book view(int row) {
+        String title = titleLengths[row] < 0 ? null
+                : new String(titleArena, titleOffsets[row], titleLengths[row], StandardCharsets.UTF_8);
+        return BookFactory.createBook(title, authors.decode(authorCodes[row]), isbnOf(row),
+                publicationYears[row], BOOK_TYPES[bookTypes[row]]);
+    }
+
+    private String isbnOf(int row) {
+        int format = isbnFormats[row];
+        if (format == NOT_PACKABLE) {
+            return unpackedByRow.get(row);
+        }
+
+        int digitCount = format & DIGIT_COUNT_MASK;
+        int hyphens = format >>> DIGIT_COUNT_BITS;
+        char[] chars = new char[digitCount + Integer.bitCount(hyphens)];
+        long digits = isbnDigits[row];
+        int pos = chars.length;
+        for (int i = digitCount - 1; i >= 0; i--) {
+            if ((hyphens & (1 << i)) != 0) {
+                chars[--pos] = '-';
+            }
+            chars[--pos] = (char) ('0' + digits % 10);
+            digits /= 10;
+        }
+        return new String(chars);
+    }
+
+    // Title arena
+
+    private void storeTitle(int row, String title) {
+        if (title == null) {
+            titleLengths[row] = -1;
+            return;
+        }
+
+        byte[] bytes = title.getBytes(StandardCharsets.UTF_8);
+        if (deadArenaBytes > arenaSize / 2 && deadArenaBytes > titleArena.length / 4) {
+            compactArena();
+        }
+        if (arenaSize + bytes.length > titleArena.length) {
+            int capacity = Math.max(arenaSize + bytes.length, titleArena.length + (titleArena.length >> 1));
+            titleArena = Arrays.copyOf(titleArena, capacity);
+        }
+        System.arraycopy(bytes, 0, titleArena, arenaSize, bytes.length);
+        titleOffsets[row] = arenaSize;
+        titleLengths[row] = bytes.length;
+        arenaSize += bytes.length;
+    }
+
+    private void releaseTitle(int row) {
+        if (titleLengths[row] > 0) {
+            deadArenaBytes += titleLengths[row];
+        }
+        titleLengths[row] = -1;
+    }
+
+    private void compactArena() {
+        byte[] compacted = new byte[Math.max(INITIAL_CAPACITY, arenaSize - deadArenaBytes)];
+        int offset = 0;
+        for (int row = 0; row < rowCount; row++) {
+            if (occupied[row] && titleLengths[row] > 0) {
+                System.arraycopy(titleArena, titleOffsets[row], compacted, offset, titleLengths[row]);
+                titleOffsets[row] = offset;
+                offset += titleLengths[row];
+            }
+        }
+        titleArena = compacted;
+        arenaSize = offset;
+        deadArenaBytes = 0;
+    }
+
+    // ISBN packing
+
+    /**
+     * Packs the digits of an ISBN made of digits and single hyphens into a long.
+     */
+    private static long packDigits(String isbn) {
+        long digits = 0;
+        for (int i = 0; i < isbn.length(); i++) {
+            char c = isbn.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits = digits * 10 + (c - '0');
+            }
+        }
+        return digits;
+    }
+
+    /**
+     * Encodes the digit count and hyphen positions of an ISBN, or NOT_PACKABLE if the
+     * ISBN cannot be rebuilt exactly from its packed digits.
+     */
+    private static int packFormat(String isbn) {
+        int digitCount = 0;
+        int hyphens = 0;
+        boolean lastWasHyphen = true; // rejects a leading hyphen
+        for (int i = 0; i < isbn.length(); i++) {
+            char c = isbn.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (++digitCount > MAX_PACKED_DIGITS) {
+                    return NOT_PACKABLE;
+                }
+                lastWasHyphen = false;
+            } else if (c == '-' && !lastWasHyphen) {
+                hyphens |= 1 << (digitCount - 1);
+                lastWasHyphen = true;
+            } else {
+                return NOT_PACKABLE;
+            }
+        }
+        return digitCount == 0 ? NOT_PACKABLE : digitCount | (hyphens << DIGIT_COUNT_BITS);
+    }
+
+    // ISBN key index (linear probing with backward-shift deletion)
+
+    private int findRow(long key) {
+        int mask = index.length - 1;
+        for (int slot = hash(key) & mask; index[slot] != 0; slot = (slot + 1) & mask) {
+            int row = index[slot] - 1;
+            if (keys[row] == key) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    private void insertIntoIndex(int row) {
+        if ((size + 1) * 2 > index.length) {
+            rehash(index.length * 2);
+        }
+        int mask = index.length - 1;
+        int slot = hash(keys[row]) & mask;
+        while (index[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        index[slot] = row + 1;
+    }
+
+    private void removeFromIndex(int row) {
+        int mask = index.length - 1;
+        int slot = hash(keys[row]) & mask;
+        while (index[slot] != row + 1) {
+            slot = (slot + 1) & mask;
+        }
+
+        // Shift back later entries of the probe sequence so lookups never see a gap
+        int next = (slot + 1) & mask;
+        while (index[next] != 0) {
+            int candidate = index[next] - 1;
+            int home = hash(keys[candidate]) & mask;
+            if (((next - home) & mask) >= ((next - slot) & mask)) {
+                index[slot] = index[next];
+                slot = next;
+            }
+            next = (next + 1) & mask;
+        }
+        index[slot] = 0;
+    }
+
+    private void rehash(int capacity) {
+        int[] old = index;
+        index = new int[capacity];
+        int mask = capacity - 1;
+        for (int entry : old) {
+            if (entry != 0) {
+                int row = entry - 1;
+                int slot = hash(keys[row]) & mask;
+                while (index[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                index[slot] = entry;
+            }
+        }
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Iterates occupied rows, materializing a view for each book.
+     */
+    private class RowIterator implements Iterator<Book> {
+        private int nextRow = advance(0);
+
+        private int advance(int from) {
+            int row = from;
+            while (row < rowCount && !occupied[row]) {
+                row++;
+            }
+            return row;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextRow < rowCount;
+        }
+
+        @Override
+        public Book next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Book book = view(nextRow);
+            nextRow = advance(nextRow + 1);
+            return book;
+        }
+    }
+}
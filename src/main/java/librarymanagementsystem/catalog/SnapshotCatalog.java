@@ -0,0 +1,303 @@
+package librarymanagementsystem.catalog;
+
+import librarymanagementsystem.model.Book;
+import librarymanagementsystem.utils.LongMap;
+
+import java.util.Collection;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Copy-on-write catalog for read-heavy workloads.
+ * <p>
+ * Readers always go through the current {@link CatalogSnapshot}, which is published with a
+ * single volatile write, so lookups and scans never lock or wait and never see a half-applied
+ * change. Writers are serialized; each write, or each {@link #update(Consumer)} batch, builds
+ * the next version by copying only the trie nodes on the changed paths. Nodes created within a
+ * batch are changed in place until the batch is published, so a bulk import costs little more
+ * than filling a mutable map.
+ */
+public class SnapshotCatalog implements LongMap<Book> {
+    private static final Logger logger = Logger.getLogger(SnapshotCatalog.class.getName());
+    
+    private volatile CatalogSnapshot current;
+    
+    public SnapshotCatalog() {
+        this.current = CatalogSnapshot.EMPTY;
+    }
+    
+    /**
+     * Gets the current version of the catalog. The snapshot stays unchanged however the
+     * catalog is modified afterwards.
+     *
+     * @return The current snapshot
+     */
+    public CatalogSnapshot snapshot() {
+        return current;
+    }
+    
+    @Override
+    public Book get(long key) {
+        return current.get(key);
+    }
+    
+    @Override
+    public boolean containsKey(long key) {
+        return current.containsKey(key);
+    }
+    
+    @Override
+    public int size() {
+        return current.size();
+    }
+    
+    @Override
+    public Collection<Book> values() {
+        return current.values();
+    }
+    
+    @Override
+    public void forEach(EntryConsumer<? super Book> consumer) {
+        current.forEach(consumer);
+    }
+    
+    @Override
+    public synchronized Book put(long key, Book value) {
+        Batch batch = new Batch(current);
+        Book previous = batch.put(key, value);
+        publish(batch);
+        return previous;
+    }
+    
+    @Override
+    public synchronized Book remove(long key) {
+        Batch batch = new Batch(current);
+        Book previous = batch.remove(key);
+        publish(batch);
+        return previous;
+    }
+    
+    /**
+     * Applies several changes as one new version. Readers see either none or all of them.
+     * The batch passed to the callback reads its own writes and must not be used after
+     * the callback returns. If the callback throws, nothing is published.
+     *
+     * @param edits The changes to apply
+     * @return The published snapshot
+     */
+    public synchronized CatalogSnapshot update(Consumer<? super LongMap<Book>> edits) {
+        if (edits == null) {
+            logger.warning("Attempted to update catalog with null edits");
+            throw new IllegalArgumentException("Edits cannot be null");
+        }
+        
+        Batch batch = new Batch(current);
+        try {
+            edits.accept(batch);
+        } finally {
+            batch.closed = true;
+        }
+        publish(batch);
+        return current;
+    }
+    
+    private void publish(Batch batch) {
+        batch.closed = true;
+        if (batch.changed) {
+            current = new CatalogSnapshot(batch.root, batch.size, current.getVersion() + 1);
+        }
+    }
+    
+    /**
+     * Mutable view used to build the next version.
+     */
+    private static class Batch implements LongMap<Book> {
+        private final Object edit = new Object();
+        private TrieNode root;
+        private int size;
+        private boolean changed;
+        private boolean closed;
+        private Book previous;
+        
+        Batch(CatalogSnapshot base) {
+            this.root = base.getRoot();
+            this.size = base.size();
+        }
+        
+        @Override
+        public Book get(long key) {
+            checkOpen();
+            return TrieNode.get(root, key);
+        }
+        
+        @Override
+        public boolean containsKey(long key) {
+            return get(key) != null;
+        }
+        
+        @Override
+        public int size() {
+            checkOpen();
+            return size;
+        }
+        
+        @Override
+        public Collection<Book> values() {
+            checkOpen();
+            return new CatalogSnapshot(root, size, 0).values();
+        }
+        
+        @Override
+        public void forEach(EntryConsumer<? super Book> consumer) {
+            checkOpen();
+            TrieNode.forEach(root, consumer);
+        }
+        
+        @Override
+        public Book put(long key, Book value) {
+            checkOpen();
+            if (value == null) {
+                throw new IllegalArgumentException("Value cannot be null");
+            }
+            
+            previous = null;
+            root = put(root, 0, TrieNode.mix(key), key, value);
+            return previous;
+        }
+        
+        @Override
+        public Book remove(long key) {
+            checkOpen();
+            previous = null;
+            TrieNode result = remove(root, 0, TrieNode.mix(key), key);
+            root = result != null ? result : TrieNode.EMPTY;
+            return previous;
+        }
+        
+        private void checkOpen() {
+            if (closed) {
+                throw new IllegalStateException("Catalog batch has already been published");
+            }
+        }
+        
+        private TrieNode put(TrieNode node, int shift, long hash, long key, Book value) {
+            int bit = TrieNode.bitFor(hash, shift);
+            int index = node.indexOf(bit);
+            if ((node.bitmap & bit) == 0) {
+                TrieNode target = node.edit == edit ? node : new TrieNode(node.bitmap, node.slots, edit);
+                target.slots = insert(node.slots, index, new TrieNode.Leaf(key, value));
+                target.bitmap |= bit;
+                size++;
+                changed = true;
+                return target;
+            }
+            
+            Object slot = node.slots[index];
+            Object replacement;
+            if (slot instanceof TrieNode.Leaf) {
+                TrieNode.Leaf leaf = (TrieNode.Leaf) slot;
+                if (leaf.key == key) {
+                    previous = leaf.value;
+                    if (leaf.value == value) {
+                        return node;
+                    }
+                    replacement = new TrieNode.Leaf(key, value);
+                } else {
+                    replacement = split(leaf, shift + TrieNode.BITS, hash, new TrieNode.Leaf(key, value));
+                    size++;
+                }
+            } else {
+                TrieNode child = (TrieNode) slot;
+                replacement = put(child, shift + TrieNode.BITS, hash, key, value);
+                if (replacement == child) {
+                    return node; // unchanged, or changed in place within this batch
+                }
+            }
+            
+            TrieNode target = editable(node);
+            target.slots[index] = replacement;
+            changed = true;
+            return target;
+        }
+        
+        private TrieNode split(TrieNode.Leaf existing, int shift, long hash, TrieNode.Leaf added) {
+            int existingBit = TrieNode.bitFor(TrieNode.mix(existing.key), shift);
+            int addedBit = TrieNode.bitFor(hash, shift);
+            if (existingBit == addedBit) {
+                return new TrieNode(addedBit, new Object[] {split(existing, shift + TrieNode.BITS, hash, added)}, edit);
+            }
+            Object[] slots = Integer.compareUnsigned(existingBit, addedBit) < 0
+                    ? new Object[] {existing, added}
+                    : new Object[] {added, existing};
+            return new TrieNode(existingBit | addedBit, slots, edit);
+        }
+        
+        /**
+         * Removes a key below a node.
+         *
+         * @return The node to keep in the parent, or null if the node became empty
+         */
+        private TrieNode remove(TrieNode node, int shift, long hash, long key) {
+            int bit = TrieNode.bitFor(hash, shift);
+            if ((node.bitmap & bit) == 0) {
+                return node;
+            }
+            
+            int index = node.indexOf(bit);
+            Object slot = node.slots[index];
+            Object replacement;
+            if (slot instanceof TrieNode.Leaf) {
+                TrieNode.Leaf leaf = (TrieNode.Leaf) slot;
+                if (leaf.key != key) {
+                    return node;
+                }
+                previous = leaf.value;
+                size--;
+                replacement = null;
+            } else {
+                TrieNode child = (TrieNode) slot;
+                TrieNode result = remove(child, shift + TrieNode.BITS, hash, key);
+                if (result == child) {
+                    return node;
+                }
+                // Pull a lone remaining entry up so lookups stay short
+                replacement = result != null && result.slots.length == 1 && result.slots[0] instanceof TrieNode.Leaf
+                        ? result.slots[0]
+                        : result;
+            }
+            
+            changed = true;
+            if (replacement == null && node.slots.length == 1) {
+                return null;
+            }
+            if (replacement == null) {
+                TrieNode target = node.edit == edit ? node : new TrieNode(node.bitmap, node.slots, edit);
+                target.slots = delete(node.slots, index);
+                target.bitmap &= ~bit;
+                return target;
+            }
+            TrieNode target = editable(node);
+            target.slots[index] = replacement;
+            return target;
+        }
+        
+        private TrieNode editable(TrieNode node) {
+            return node.edit == edit ? node : new TrieNode(node.bitmap, node.slots.clone(), edit);
+        }
+        
+        private static Object[] insert(Object[] slots, int index, Object value) {
+            Object[] result = new Object[slots.length + 1];
+            System.arraycopy(slots, 0, result, 0, index);
+            result[index] = value;
+            System.arraycopy(slots, index, result, index + 1, slots.length - index);
+            return result;
+        }
+        
+        private static Object[] delete(Object[] slots, int index) {
+            Object[] result = new Object[slots.length - 1];
+            System.arraycopy(slots, 0, result, 0, index);
+            System.arraycopy(slots, index + 1, result, index, slots.length - index - 1);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package librarymanagementsystem.catalog;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dictionary encoding for frequently repeated strings such as author names.
+ * Each distinct value is stored once and referred to by a small integer code,
+ * so thousands of titles by the same author share a single String instance.
+ */
+public class StringDictionary {
+    private Map<String, Integer> codes;
+    private List<String> values;
+
+    public StringDictionary() {
+        this.codes = new HashMap<>();
+        this.values = new ArrayList<>();
+    }
+
+    /**
+     * Returns the code for a value, adding it to the dictionary if it is new.
+     *
+     * @param value The value to encode
+     * @return The code for the value, or -1 for null
+     */
+    public int encode(String value) {
+        if (value == null) {
+            return -1;
+        }
+
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = values.size();
+            codes.put(value, code);
+            values.add(value);
+        }
+        return code;
+    }
+
+    /**
+     * Returns the shared value for a code.
+     *
+     * @param code The code returned by {@link #encode(String)}
+     * @return The value, or null for code -1
+     */
+    public String decode(int code) {
+        return code < 0 ? null : values.get(code);
+    }
+
+    /**
+     * Gets the number of distinct values in the dictionary.
+     *
+     * @return The number of distinct values
+     */
+    public int size() {
+        return values.size();
+    }
+}
@@ -0,0 +1,84 @@
+package librarymanagementsystem.catalog;
+
+import librarymanagementsystem.model.Book;
+import librarymanagementsystem.utils.LongMap;
+
+/**
+ * Node of the hash array mapped trie behind {@link CatalogSnapshot}.
+ * Each level consumes five bits of the mixed key; a bitmap records which of the 32 branches
+ * are present, so the slot array only holds the branches in use. Slots are either child nodes
+ * or {@link Leaf} entries.
+ * <p>
+ * Nodes are immutable once published. A node may only be changed in place by the batch that
+ * created it, identified by its edit token.
+ */
+final class TrieNode {
+    static final int BITS = 5;
+    static final int MASK = (1 << BITS) - 1;
+    static final TrieNode EMPTY = new TrieNode(0, new Object[0], null);
+    
+    int bitmap;
+    Object[] slots;
+    final Object edit; // batch allowed to change this node in place, or null
+    
+    TrieNode(int bitmap, Object[] slots, Object edit) {
+        this.bitmap = bitmap;
+        this.slots = slots;
+        this.edit = edit;
+    }
+    
+    static long mix(long key) {
+        // Bijective, so distinct keys always diverge before the bits run out
+        long h = key * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+    
+    static int bitFor(long hash, int shift) {
+        return 1 << ((int) (hash >>> shift) & MASK);
+    }
+    
+    int indexOf(int bit) {
+        return Integer.bitCount(bitmap & (bit - 1));
+    }
+    
+    static Book get(TrieNode root, long key) {
+        long hash = mix(key);
+        TrieNode node = root;
+        for (int shift = 0; ; shift += BITS) {
+            int bit = bitFor(hash, shift);
+            if ((node.bitmap & bit) == 0) {
+                return null;
+            }
+            Object slot = node.slots[node.indexOf(bit)];
+            if (slot instanceof Leaf) {
+                Leaf leaf = (Leaf) slot;
+                return leaf.key == key ? leaf.value : null;
+            }
+            node = (TrieNode) slot;
+        }
+    }
+    
+    static void forEach(TrieNode node, LongMap.EntryConsumer<? super Book> consumer) {
+        for (Object slot : node.slots) {
+            if (slot instanceof Leaf) {
+                Leaf leaf = (Leaf) slot;
+                consumer.accept(leaf.key, leaf.value);
+            } else {
+                forEach((TrieNode) slot, consumer);
+            }
+        }
+    }
+    
+    /**
+     * One catalog entry.
+     */
+    static final class Leaf {
+        final long key;
+        final Book value;
+        
+        Leaf(long key, Book value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+}
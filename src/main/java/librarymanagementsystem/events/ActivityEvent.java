@@ -0,0 +1,95 @@
+package librarymanagementsystem.events;
+
+import librarymanagementsystem.utils.IsbnKeys;
+
+/**
+ * One library activity: what happened, to which book, by which patron and when.
+ * <p>
+ * Subscriptions hand their handlers a reused instance that is refilled for every event,
+ * so polling does not allocate; call {@link #copy()} to keep an event beyond the callback.
+ */
+public class ActivityEvent {
+    private final IsbnKeys isbns;
+    private long sequence;
+    private EventType type;
+    private long isbnKey;
+    private String patronId;
+    private long timestamp;
+    
+    /**
+     * Constructor for an event to be filled in by a subscription.
+     *
+     * @param isbns The ISBN keys the event's key refers to
+     */
+    public ActivityEvent(IsbnKeys isbns) {
+        this.isbns = isbns;
+    }
+    
+    /**
+     * Constructor for a standalone event.
+     *
+     * @param isbns The ISBN keys the event's key refers to
+     * @param sequence The position of the event in the stream
+     * @param type The kind of activity
+     * @param isbnKey The ISBN key of the book, see IsbnKeys
+     * @param patronId The ID of the patron involved, or null for catalog events
+     * @param timestamp The time of the event in milliseconds since the epoch
+     */
+    public ActivityEvent(IsbnKeys isbns, long sequence, EventType type, long isbnKey, String patronId, long timestamp) {
+        this.isbns = isbns;
+        set(sequence, type, isbnKey, patronId, timestamp);
+    }
+    
+    void set(long sequence, EventType type, long isbnKey, String patronId, long timestamp) {
+        this.sequence = sequence;
+        this.type = type;
+        this.isbnKey = isbnKey;
+        this.patronId = patronId;
+        this.timestamp = timestamp;
+    }
+    
+    // Getters
+    public long getSequence() {
+        return sequence;
+    }
+    
+    public EventType getType() {
+        return type;
+    }
+    
+    public long getIsbnKey() {
+        return isbnKey;
+    }
+    
+    public String getIsbn() {
+        return isbns.toIsbnString(isbnKey);
+    }
+    
+    public String getPatronId() {
+        return patronId;
+    }
+    
+    public long getTimestamp() {
+        return timestamp;
+    }
+    
+    /**
+     * Copies the event, e.g. to keep it after a poll callback returns.
+     *
+     * @return An independent copy
+     */
+    public ActivityEvent copy() {
+        return new ActivityEvent(isbns, sequence, type, isbnKey, patronId, timestamp);
+    }
+    
+    @Override
+    public String toString() {
+        return "ActivityEvent{" +
+                "sequence=" + sequence +
+                ", type=" + type +
+                ", isbn='" + getIsbn() + '\'' +
+                ", patronId='" + patronId + '\'' +
+                ", timestamp=" + timestamp +
+                '}';
+    }
+}
@@ -0,0 +1,330 @@
+package librarymanagementsystem.events;
+
+import librarymanagementsystem.utils.IsbnKeys;
+
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+/**
+ * In-process, ordered stream of library activity backed by a preallocated ring buffer.
+ * <p>
+ * Publishers claim a sequence number with one atomic increment and write the event into
+ * primitive slot arrays, so publishing never allocates. Each consumer reads through its own
+ * {@link Subscription} cursor at its own pace. Ordinary subscriptions do not hold the buffer
+ * back: when such a consumer falls more than one buffer behind, the oldest events are
+ * overwritten and the subscription counts them as missed.
+ * <p>
+ * Consumers that must see every event, such as the audit trail, use a
+ * {@link #subscribeLossless() lossless} subscription instead. A publisher about to overwrite
+ * an event such a subscription has not read yet waits for it, so a slow consumer slows
+ * publishing down rather than losing events. If a lossless consumer fails it
+ * {@link Subscription#halt(Throwable) halts} the stream; publishers check
+ * {@link #checkAccepting()} before changing the state an event describes, so activity the
+ * consumer would have missed is refused instead.
+ */
+public class ActivityStream {
+    private static final Logger logger = Logger.getLogger(ActivityStream.class.getName());
+    
+    /** Default number of events kept in the buffer. */
+    public static final int DEFAULT_CAPACITY = 4096;
+    
+    private static final long IN_PROGRESS = -1L;
+    private static final EventType[] TYPES = EventType.values();
+    private static final Subscription[] NO_GATES = new Subscription[0];
+    private static final int GATE_SPINS = 100;
+    private static final long GATE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    
+    private final IsbnKeys isbns;
+    private final int capacity;
+    private final int mask;
+    private final AtomicLong nextSequence;
+    private final AtomicLongArray published; // sequence held by each slot, or IN_PROGRESS
+    private final byte[] types;
+    private final long[] isbnKeys;
+    private final String[] patronIds;
+    private final long[] timestamps;
+    private volatile Subscription[] gates; // lossless subscriptions publishers wait for
+    private volatile Throwable haltCause;
+    
+    public ActivityStream() {
+        this(DEFAULT_CAPACITY);
+    }
+    
+    /**
+     * Constructor with an explicit buffer size.
+     *
+     * @param capacity The number of events kept, rounded up to a power of two
+     * @throws IllegalArgumentException if capacity is not positive
+     */
+    public ActivityStream(int capacity) {
+        this(capacity, new IsbnKeys());
+    }
+    
+    /**
+     * Constructor with an explicit buffer size and the ISBN keys the events refer to.
+     *
+     * @param capacity The number of events kept, rounded up to a power of two
+     * @param isbns The ISBN keys of the library publishing to the stream
+     * @throws IllegalArgumentException if capacity is not positive or isbns is null
+     */
+    public ActivityStream(int capacity, IsbnKeys isbns) {
+        if (isbns == null) {
+            logger.warning("Attempted to create activity stream with null ISBN keys");
+            throw new IllegalArgumentException("ISBN keys cannot be null");
+        }
+        if (capacity <= 0) {
+            logger.warning("Attempted to create activity stream with non-positive capacity");
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.isbns = isbns;
+        this.capacity = size;
+        this.mask = this.capacity - 1;
+        this.nextSequence = new AtomicLong();
+        this.published = new AtomicLongArray(this.capacity);
+        for (int i = 0; i < this.capacity; i++) {
+            published.set(i, IN_PROGRESS);
+        }
+        this.types = new byte[this.capacity];
+        this.isbnKeys = new long[this.capacity];
+        this.patronIds = new String[this.capacity];
+        this.timestamps = new long[this.capacity];
+        this.gates = NO_GATES;
+    }
+    
+    /**
+     * Publishes an event stamped with the current time.
+     *
+     * @param type The kind of activity
+     * @param isbnKey The ISBN key of the book, see IsbnKeys
+     * @param patronId The ID of the patron involved, or null for catalog events
+     * @return The sequence number of the event
+     */
+    public long publish(EventType type, long isbnKey, String patronId) {
+        long sequence = nextSequence.getAndIncrement();
+        int slot = (int) sequence & mask;
+        awaitGates(sequence);
+        
+        // Mark the slot as being written so readers of its previous event notice the overwrite
+        published.set(slot, IN_PROGRESS);
+        VarHandle.storeStoreFence();
+        types[slot] = (byte) type.ordinal();
+        isbnKeys[slot] = isbnKey;
+        patronIds[slot] = patronId;
+        timestamps[slot] = System.currentTimeMillis();
+        published.set(slot, sequence);
+        return sequence;
+    }
+    
+    /**
+     * Subscribes to events published from now on.
+     *
+     * @return A subscription with its own cursor
+     */
+    public Subscription subscribe() {
+        return new Subscription(this, nextSequence.get());
+    }
+    
+    /**
+     * Subscribes to every event published from now on. Publishers wait rather than overwrite
+     * an event this subscription has not read, so it must be polled steadily and
+     * {@link Subscription#close() closed} once it is no longer read.
+     *
+     * @return A lossless subscription with its own cursor
+     */
+    public Subscription subscribeLossless() {
+        return subscribeLossless(null);
+    }
+    
+    /**
+     * Subscribes losslessly like {@link #subscribeLossless()}, for a consumer that only runs
+     * when asked to. A publisher held back by the subscription calls the wake-up, which
+     * should start or unpark the consumer without blocking.
+     *
+     * @param wakeUp Called by publishers waiting for the subscription, or null
+     * @return A lossless subscription with its own cursor
+     */
+    public synchronized Subscription subscribeLossless(Runnable wakeUp) {
+        Subscription subscription = new Subscription(this, 0, wakeUp);
+        Subscription[] current = gates;
+        Subscription[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = subscription;
+        gates = updated;
+        // Read the start only after the gate is visible, so every later publisher waits for it
+        subscription.startAt(nextSequence.get());
+        return subscription;
+    }
+    
+    /**
+     * Checks that the stream still accepts activity. Publishers call this before changing the
+     * state that the event they are about to publish describes.
+     *
+     * @throws IllegalStateException if a lossless consumer failed and halted the stream
+     */
+    public void checkAccepting() {
+        Throwable cause = haltCause;
+        if (cause != null) {
+            throw new IllegalStateException("Activity stream halted after a consumer failed: " + cause.getMessage(), cause);
+        }
+    }
+    
+    /**
+     * Gets the failure that halted the stream, if any.
+     *
+     * @return The failure, or null while the stream accepts activity
+     */
+    public Throwable getHaltCause() {
+        return haltCause;
+    }
+    
+    /**
+     * Subscribes starting from the oldest event still in the buffer.
+     *
+     * @return A subscription with its own cursor
+     */
+    public Subscription subscribeFromOldest() {
+        return new Subscription(this, Math.max(0, nextSequence.get() - capacity));
+    }
+    
+    // Getters
+    public int getCapacity() {
+        return capacity;
+    }
+    
+    /**
+     * Gets the ISBN keys that the ISBN keys of events refer to.
+     *
+     * @return The ISBN keys of the library publishing to the stream
+     */
+    public IsbnKeys getIsbnKeys() {
+        return isbns;
+    }
+    
+    /**
+     * Gets the sequence number the next published event will receive.
+     *
+     * @return The number of events published so far
+     */
+    public long getPublishedCount() {
+        return nextSequence.get();
+    }
+    
+    /**
+     * Reads the event with a given sequence number into a reusable event. For a lossless
+     * reader the slot cannot have been reused, even if later sequences were already claimed.
+     *
+     * @return {@link ReadResult#OK}, {@link ReadResult#NOT_PUBLISHED} if the event has not been
+     *         written yet, or {@link ReadResult#OVERWRITTEN} if it is no longer in the buffer
+     */
+    ReadResult read(long sequence, ActivityEvent into, boolean lossless) {
+        int slot = (int) sequence & mask;
+        long held = published.get(slot);
+        if (held == sequence) {
+            EventType type = TYPES[types[slot]];
+            long isbnKey = isbnKeys[slot];
+            String patronId = patronIds[slot];
+            long timestamp = timestamps[slot];
+            VarHandle.loadLoadFence();
+            if (published.get(slot) == sequence) {
+                into.set(sequence, type, isbnKey, patronId, timestamp);
+                return ReadResult.OK;
+            }
+            return ReadResult.OVERWRITTEN;
+        }
+        if (held > sequence || (!lossless && nextSequence.get() - sequence > capacity)) {
+            return ReadResult.OVERWRITTEN;
+        }
+        return ReadResult.NOT_PUBLISHED;
+    }
+    
+    /**
+     * Stops waiting for a lossless subscription.
+     */
+    synchronized void removeGate(Subscription subscription) {
+        Subscription[] current = gates;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == subscription) {
+                Subscription[] updated = new Subscription[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                gates = updated;
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Refuses further activity after a lossless consumer failed.
+     */
+    synchronized void halt(Subscription subscription, Throwable cause) {
+        if (haltCause == null) {
+            haltCause = cause;
+            logger.severe("Activity stream halted after a consumer failed: " + cause);
+        }
+        removeGate(subscription);
+    }
+    
+    /**
+     * Waits until every lossless subscription has read the event one buffer before a sequence,
+     * so the slot can be reused. Subscriptions half a buffer behind are woken up early, so a
+     * consumer that only runs when asked to usually catches up before anyone has to wait.
+     * Spins briefly, then parks, re-reading the gates each time so that closed or failed
+     * subscriptions stop holding publishers back.
+     */
+    private void awaitGates(long sequence) {
+        for (Subscription gate : gates) {
+            if (sequence - gate.getPosition() >= capacity >> 1) {
+                gate.wakeUp();
+            }
+        }
+        long reused = sequence - capacity;
+        if (reused < 0) {
+            return;
+        }
+        Subscription blocking;
+        for (int spins = 0; (blocking = blockingGate(reused)) != null; spins++) {
+            if (spins % GATE_SPINS == 0) {
+                blocking.wakeUp();
+            }
+            if (spins < GATE_SPINS) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(GATE_PARK_NANOS);
+            }
+        }
+    }
+    
+    private Subscription blockingGate(long sequence) {
+        for (Subscription gate : gates) {
+            if (gate.getPosition() <= sequence) {
+                return gate;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Gets the oldest sequence number that can still be in the buffer.
+     */
+    long oldestAvailable() {
+        return Math.max(0, nextSequence.get() - capacity);
+    }
+    
+    /**
+     * Outcome of reading one slot.
+     */
+    enum ReadResult {
+        OK,
+        NOT_PUBLISHED,
+        OVERWRITTEN
+    }
+}
@@ -0,0 +1,14 @@
+package librarymanagementsystem.events;
+
+/**
+ * Callback for events polled from a {@link Subscription}.
+ */
+@FunctionalInterface
+public interface EventHandler {
+    /**
+     * Handles one event.
+     *
+     * @param event The event; the instance is reused for the next event, see {@link ActivityEvent#copy()}
+     */
+    void onEvent(ActivityEvent event);
+}
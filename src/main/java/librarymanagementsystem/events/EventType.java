@@ -0,0 +1,12 @@
+package librarymanagementsystem.events;
+
+/**
+ * Kinds of activity published on the {@link ActivityStream}.
+ */
+public enum EventType {
+    BOOK_ADDED,
+    BOOK_REMOVED,
+    CHECKOUT,
+    RETURN,
+    RESERVATION
+}
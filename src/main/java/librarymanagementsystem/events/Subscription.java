@@ -0,0 +1,129 @@
+package librarymanagementsystem.events;
+
+/**
+ * A consumer's position in an {@link ActivityStream}.
+ * Each subscription is meant to be polled by one thread; separate subscriptions are independent.
+ * A lossless subscription also holds publishers back until it has read their slot's previous
+ * event, see {@link ActivityStream#subscribeLossless()}.
+ */
+public class Subscription {
+    private final ActivityStream stream;
+    private final ActivityEvent event;
+    private final boolean lossless;
+    private final Runnable wakeUp; // asks a lossless consumer to poll, or null
+    private volatile long cursor; // next sequence to read; read by waiting publishers
+    private long missed;
+    
+    Subscription(ActivityStream stream, long cursor) {
+        this(stream, cursor, false, null);
+    }
+    
+    Subscription(ActivityStream stream, long cursor, Runnable wakeUp) {
+        this(stream, cursor, true, wakeUp);
+    }
+    
+    private Subscription(ActivityStream stream, long cursor, boolean lossless, Runnable wakeUp) {
+        this.stream = stream;
+        this.event = new ActivityEvent(stream.getIsbnKeys());
+        this.cursor = cursor;
+        this.lossless = lossless;
+        this.wakeUp = wakeUp;
+    }
+    
+    /**
+     * Delivers up to a batch of available events, oldest first.
+     * If the subscription fell so far behind that events were overwritten, it skips ahead to
+     * the oldest event still available and adds the skipped events to {@link #getMissedCount()}.
+     *
+     * @param handler The handler to call for each event
+     * @param maxEvents The maximum number of events to deliver
+     * @return The number of events delivered
+     */
+    public int poll(EventHandler handler, int maxEvents) {
+        int delivered = 0;
+        while (delivered < maxEvents) {
+            ActivityStream.ReadResult result = stream.read(cursor, event, lossless);
+            if (result == ActivityStream.ReadResult.NOT_PUBLISHED) {
+                break;
+            }
+            if (result == ActivityStream.ReadResult.OVERWRITTEN) {
+                long oldest = Math.max(cursor + 1, stream.oldestAvailable());
+                missed += oldest - cursor;
+                cursor = oldest;
+                continue;
+            }
+            cursor++;
+            delivered++;
+            handler.onEvent(event);
+        }
+        return delivered;
+    }
+    
+    /**
+     * Gets the number of events published but not yet delivered to this subscription.
+     *
+     * @return The backlog size
+     */
+    public long getBacklog() {
+        return Math.max(0, stream.getPublishedCount() - cursor);
+    }
+    
+    /**
+     * Gets the number of events this subscription lost because it fell too far behind.
+     * Always zero for a lossless subscription.
+     *
+     * @return The number of missed events
+     */
+    public long getMissedCount() {
+        return missed;
+    }
+    
+    public boolean isLossless() {
+        return lossless;
+    }
+    
+    /**
+     * Stops reading. A lossless subscription no longer holds publishers back; events
+     * published afterwards are not delivered to it.
+     */
+    public void close() {
+        if (lossless) {
+            stream.removeGate(this);
+        }
+    }
+    
+    /**
+     * Reports that the consumer of a lossless subscription failed and cannot record any more
+     * events. The subscription stops holding publishers back and the stream is halted, so
+     * publishers refuse further activity instead of losing it, see
+     * {@link ActivityStream#checkAccepting()}.
+     *
+     * @param cause The failure
+     * @throws IllegalStateException if the subscription is not lossless
+     */
+    public void halt(Throwable cause) {
+        if (!lossless) {
+            throw new IllegalStateException("Only a lossless subscription can halt its stream");
+        }
+        stream.halt(this, cause);
+    }
+    
+    void startAt(long sequence) {
+        cursor = sequence;
+    }
+    
+    /**
+     * Gets the sequence number of the next event to deliver.
+     *
+     * @return The position of the subscription in the stream
+     */
+    public long getPosition() {
+        return cursor;
+    }
+    
+    void wakeUp() {
+        if (wakeUp != null) {
+            wakeUp.run();
+        }
+    }
+}
@@ -0,0 +1,356 @@
+package librarymanagementsystem.export;
+
+import librarymanagementsystem.model.Book;
+import librarymanagementsystem.utils.BookFactory;
+import librarymanagementsystem.utils.LongMap;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.logging.Logger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams the catalog to a channel in one of the {@link ExportFormat}s.
+ * <p>
+ * Books are taken from the catalog in chunks, and each chunk is encoded, and compressed if
+ * requested, into a single buffer on a {@link ForkJoinPool}. Finished chunks are written to
+ * the channel in catalog order while later ones are still being encoded, and only a couple
+ * of chunks per worker are held at a time, so memory use depends on the chunk size rather
+ * than on the size of the catalog.
+ * <p>
+ * Compressed exports are a series of gzip members, one per chunk, which gzip readers
+ * (including {@link java.util.zip.GZIPInputStream}) decompress as one continuous stream.
+ */
+public class CatalogExporter {
+    private static final Logger logger = Logger.getLogger(CatalogExporter.class.getName());
+    
+    /** Default number of books encoded together. */
+    public static final int DEFAULT_CHUNK_BOOKS = 1024;
+    /** First four bytes of a binary export, followed by {@link #BINARY_VERSION}. */
+    public static final int BINARY_MAGIC = 0x4C424B53; // "LBKS"
+    /** Version of the binary record layout. */
+    public static final int BINARY_VERSION = 2;
+    
+    private static final String CSV_HEADER = "isbn,title,author,publicationYear,type\n";
+    private static final int TITLE_PRESENT = 1;
+    private static final int AUTHOR_PRESENT = 2;
+    
+    private final ExportFormat format;
+    private final boolean gzip;
+    private final int chunkBooks;
+    private final ForkJoinPool pool;
+    
+    /**
+     * Constructor encoding default-sized chunks on the common fork/join pool.
+     *
+     * @param format The format to write
+     * @param gzip true to compress the output
+     */
+    public CatalogExporter(ExportFormat format, boolean gzip) {
+        this(format, gzip, DEFAULT_CHUNK_BOOKS, ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Constructor with an explicit chunk size and pool.
+     *
+     * @param format The format to write
+     * @param gzip true to compress the output
+     * @param chunkBooks The number of books encoded together
+     * @param pool The pool to encode chunks on
+     */
+    public CatalogExporter(ExportFormat format, boolean gzip, int chunkBooks, ForkJoinPool pool) {
+        if (format == null || pool == null) {
+            throw new IllegalArgumentException("Format and pool cannot be null");
+        }
+        if (chunkBooks <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        
+        this.format = format;
+        this.gzip = gzip;
+        this.chunkBooks = chunkBooks;
+        this.pool = pool;
+    }
+    
+    /**
+     * Writes every book of a catalog to a channel. The catalog must not change while it is
+     * exported; pass a snapshot if other threads may update it. The channel is left open.
+     *
+     * @param catalog The catalog to export
+     * @param channel The channel to write to
+     * @return The number of books written
+     * @throws IOException if the channel cannot be written
+     */
+    public long export(LongMap<Book> catalog, WritableByteChannel channel) throws IOException {
+        if (catalog == null || channel == null) {
+            throw new IllegalArgumentException("Catalog and channel cannot be null");
+        }
+        
+        ChunkWriter writer = new ChunkWriter(channel);
+        try {
+            writer.writeHeader();
+            catalog.forEach((key, book) -> writer.add(book));
+            writer.finish();
+        } catch (UncheckedIOException e) {
+            writer.cancel();
+            throw e.getCause();
+        }
+        logger.info("Exported " + writer.count + " books as " + format + (gzip ? " (gzip)" : ""));
+        return writer.count;
+    }
+    
+    public ExportFormat getFormat() {
+        return format;
+    }
+    
+    public boolean isGzip() {
+        return gzip;
+    }
+    
+    public int getChunkBooks() {
+        return chunkBooks;
+    }
+    
+    private byte[] encodeHeader() throws IOException {
+        switch (format) {
+            case CSV:
+                return CSV_HEADER.getBytes(StandardCharsets.UTF_8);
+            case BINARY:
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream(8);
+                DataOutputStream data = new DataOutputStream(bytes);
+                data.writeInt(BINARY_MAGIC);
+                data.writeInt(BINARY_VERSION);
+                return bytes.toByteArray();
+            default:
+                return new byte[0];
+        }
+    }
+    
+    private byte[] encode(Book[] books, int size) {
+        try {
+            if (format == ExportFormat.BINARY) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream(size * 64);
+                DataOutputStream data = new DataOutputStream(bytes);
+                for (int i = 0; i < size; i++) {
+                    writeBinary(data, books[i]);
+                }
+                return seal(bytes.toByteArray());
+            }
+            
+            StringBuilder text = new StringBuilder(size * 96);
+            for (int i = 0; i < size; i++) {
+                if (format == ExportFormat.CSV) {
+                    appendCsv(text, books[i]);
+                } else {
+                    appendJson(text, books[i]);
+                }
+            }
+            return seal(text.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    /**
+     * Compresses encoded bytes into a gzip member if the export is compressed.
+     */
+    private byte[] seal(byte[] encoded) throws IOException {
+        if (!gzip) {
+            return encoded;
+        }
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(encoded.length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed, 8192)) {
+            out.write(encoded);
+        }
+        return compressed.toByteArray();
+    }
+    
+    private static void writeBinary(DataOutputStream data, Book book) throws IOException {
+        writeString(data, book.getIsbn());
+        data.writeByte((book.getTitle() != null ? TITLE_PRESENT : 0) | (book.getAuthor() != null ? AUTHOR_PRESENT : 0));
+        if (book.getTitle() != null) {
+            writeString(data, book.getTitle());
+        }
+        if (book.getAuthor() != null) {
+            writeString(data, book.getAuthor());
+        }
+        data.writeInt(book.getPublicationYear());
+        data.writeByte(BookFactory.typeOf(book).ordinal());
+    }
+    
+    /**
+     * Writes a string as its UTF-8 length and bytes. Unlike writeUTF, which stops at 65,535
+     * bytes, this has no limit below the size of a chunk.
+     */
+    private static void writeString(DataOutputStream data, String value) throws IOException {
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        data.writeInt(utf8.length);
+        data.write(utf8);
+    }
+    
+    private static void appendCsv(StringBuilder text, Book book) {
+        appendCsvField(text, book.getIsbn());
+        text.append(',');
+        appendCsvField(text, book.getTitle());
+        text.append(',');
+        appendCsvField(text, book.getAuthor());
+        text.append(',').append(book.getPublicationYear())
+                .append(',').append(BookFactory.typeOf(book)).append('\n');
+    }
+    
+    private static void appendCsvField(StringBuilder text, String value) {
+        if (value == null) {
+            return;
+        }
+        boolean quoted = false;
+        for (int i = 0; i < value.length() && !quoted; i++) {
+            char c = value.charAt(i);
+            quoted = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quoted) {
+            text.append(value);
+            return;
+        }
+        text.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                text.append('"');
+            }
+            text.append(c);
+        }
+        text.append('"');
+    }
+    
+    private static void appendJson(StringBuilder text, Book book) {
+        text.append("{\"isbn\":");
+        appendJsonString(text, book.getIsbn());
+        text.append(",\"title\":");
+        appendJsonString(text, book.getTitle());
+        text.append(",\"author\":");
+        appendJsonString(text, book.getAuthor());
+        text.append(",\"publicationYear\":").append(book.getPublicationYear())
+                .append(",\"type\":\"").append(BookFactory.typeOf(book)).append("\"}\n");
+    }
+    
+    private static void appendJsonString(StringBuilder text, String value) {
+        if (value == null) {
+            text.append("null");
+            return;
+        }
+        text.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    text.append("\\\"");
+                    break;
+                case '\\':
+                    text.append("\\\\");
+                    break;
+                case '\n':
+                    text.append("\\n");
+                    break;
+                case '\r':
+                    text.append("\\r");
+                    break;
+                case '\t':
+                    text.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        text.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        text.append(c);
+                    }
+            }
+        }
+        text.append('"');
+    }
+    
+    /**
+     * Collects books into chunks, hands them to the pool and writes the encoded chunks in
+     * the order they were collected. Runs on the exporting thread; I/O errors surface as
+     * UncheckedIOException so they can cross the catalog's forEach.
+     */
+    private final class ChunkWriter {
+        private final WritableByteChannel channel;
+        private final ArrayDeque<ForkJoinTask<byte[]>> inFlight;
+        private final int maxInFlight;
+        private Book[] chunk;
+        private int chunkSize;
+        private long count;
+        
+        ChunkWriter(WritableByteChannel channel) {
+            this.channel = channel;
+            this.inFlight = new ArrayDeque<>();
+            this.maxInFlight = 2 * pool.getParallelism();
+            this.chunk = new Book[chunkBooks];
+        }
+        
+        void writeHeader() {
+            try {
+                byte[] header = encodeHeader();
+                if (header.length > 0) {
+                    write(seal(header));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        
+        void add(Book book) {
+            chunk[chunkSize++] = book;
+            count++;
+            if (chunkSize == chunkBooks) {
+                submitChunk();
+            }
+        }
+        
+        void finish() {
+            if (chunkSize > 0) {
+                submitChunk();
+            }
+            while (!inFlight.isEmpty()) {
+                write(inFlight.poll().join());
+            }
+        }
+        
+        void cancel() {
+            for (ForkJoinTask<byte[]> task : inFlight) {
+                task.cancel(false);
+            }
+            inFlight.clear();
+        }
+        
+        private void submitChunk() {
+            Book[] books = chunk;
+            int size = chunkSize;
+            inFlight.add(pool.submit(() -> encode(books, size)));
+            chunk = new Book[chunkBooks];
+            chunkSize = 0;
+            while (inFlight.size() > maxInFlight) {
+                write(inFlight.poll().join());
+            }
+        }
+        
+        private void write(byte[] bytes) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            try {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package librarymanagementsystem.export;
+
+/**
+ * Encodings the catalog can be exported in, see {@link CatalogExporter}.
+ */
+public enum ExportFormat {
+    /** Comma-separated values with a header row, quoted as in RFC 4180. */
+    CSV,
+    /** One JSON object per line. */
+    JSON_LINES,
+    /**
+     * Binary records after a magic number and version: the ISBN, a byte flagging which of
+     * title and author are present, those strings, the publication year as an int and the
+     * book type as a byte. Each string is its length in bytes as an int followed by its
+     * UTF-8 bytes, so strings of any length can be written.
+     */
+    BINARY
+}
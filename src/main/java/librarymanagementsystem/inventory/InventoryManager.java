@@ -1,45 +1,127 @@
 package librarymanagementsystem.inventory;
 
+import librarymanagementsystem.events.ActivityStream;
+import librarymanagementsystem.events.EventType;
+import librarymanagementsystem.metrics.MetricsRegistry;
+import librarymanagementsystem.metrics.Timer;
 import librarymanagementsystem.model.Book;
+import librarymanagementsystem.utils.BookFactory.BookType;
+import librarymanagementsystem.utils.IsbnKeys;
+import librarymanagementsystem.utils.LongIntHashMap;
+import librarymanagementsystem.utils.LongList;
+import librarymanagementsystem.utils.LongMap;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.ArrayList;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * Manages library inventory including tracking available and borrowed books.
  * This class follows the Single Responsibility Principle by focusing only on inventory management.
+ * <p>
+ * Each tracked book occupies a slot; the book's current borrower, type and lending flags
+ * are kept in arrays indexed by slot, and slots of removed books are reused.
  */
 public class InventoryManager {
     private static final Logger logger = Logger.getLogger(InventoryManager.class.getName());
+    private static final int INITIAL_SLOTS = 16;
     
-    // Maps ISBN to list of patron IDs who have borrowed the book
-    private Map<String, List<String>> borrowedBooks;
-    // Maps patron ID to list of ISBNs they have borrowed
-    private Map<String, List<String>> patronBorrowedBooks;
+    /** Returned by {@link #findSlot(long)} for books that are not tracked. */
+    public static final int NO_SLOT = LongIntHashMap.NO_VALUE;
+    
+    // Maps ISBN key to the book's inventory slot
+    private LongIntHashMap slotsByKey;
+    private long[] slotKeys;
+    private String[] slotIsbns; // the ISBN as the book was registered
+    private String[] borrowers; // ID of the patron holding the book, null if available
+    private BookType[] bookTypes;
+    private byte[] lendingFlags; // resolved from the lending policy, see LendingPolicy
+    private int slotCount;
+    private int[] freeSlots;
+    private int freeSlotCount;
+    private LendingPolicy lendingPolicy;
+    
+    // Operation timers, inactive unless metrics are enabled
+    private Timer recordCheckoutTimer;
+    private Timer recordReturnTimer;
+    private Timer recordCheckoutsTimer;
+    private Timer recordReturnsTimer;
+    // Maps patron ID to the ISBN keys they have borrowed and their active-loan counter
+    private Map<String, PatronLoans> patronLoans;
+    private ActivityStream events; // receives checkout and return events
+    private final IsbnKeys isbns;
     
     /**
      * Constructor initializes the inventory tracking data structures.
      */
     public InventoryManager() {
-        this.borrowedBooks = new HashMap<>();
-        this.patronBorrowedBooks = new HashMap<>();
+        this(new ActivityStream());
+    }
+    
+    /**
+     * Constructor that publishes checkouts and returns to a shared activity stream.
+     *
+     * @param events The stream to publish to
+     * @throws IllegalArgumentException if events is null
+     */
+    public InventoryManager(ActivityStream events) {
+        if (events == null) {
+            logger.warning("Attempted to create inventory manager with null activity stream");
+            throw new IllegalArgumentException("Activity stream cannot be null");
+        }
+        
+        this.events = events;
+        this.isbns = events.getIsbnKeys();
+        this.slotsByKey = new LongIntHashMap();
+        this.slotKeys = new long[INITIAL_SLOTS];
+        this.slotIsbns = new String[INITIAL_SLOTS];
+        this.borrowers = new String[INITIAL_SLOTS];
+        this.bookTypes = new BookType[INITIAL_SLOTS];
+        this.lendingFlags = new byte[INITIAL_SLOTS];
+        this.freeSlots = new int[INITIAL_SLOTS];
+        this.lendingPolicy = new LendingPolicy();
+        
+        MetricsRegistry metrics = MetricsRegistry.getDefault();
+        this.recordCheckoutTimer = metrics.timer("inventory.recordCheckout");
+        this.recordReturnTimer = metrics.timer("inventory.recordReturn");
+        this.recordCheckoutsTimer = metrics.timer("inventory.recordCheckouts");
+        this.recordReturnsTimer = metrics.timer("inventory.recordReturns");
+        this.patronLoans = new HashMap<>();
         logger.info("Inventory manager initialized");
     }
     
     /**
-     * Initializes inventory tracking for a new book.
+     * Initializes inventory tracking for a new book of the general type.
      *
      * @param isbn The ISBN of the book to initialize
      */
     public void initializeBookInventory(String isbn) {
+        initializeBookInventory(isbn, BookType.GENERAL);
+    }
+    
+    /**
+     * Initializes inventory tracking for a new book, resolving its lending flags from its type.
+     *
+     * @param isbn The ISBN of the book to initialize
+     * @param type The type of the book
+     */
+    public void initializeBookInventory(String isbn, BookType type) {
         if (isbn == null || isbn.isEmpty()) {
             logger.warning("Attempted to initialize inventory for null or empty ISBN");
             throw new IllegalArgumentException("ISBN cannot be null or empty");
         }
         
-        borrowedBooks.putIfAbsent(isbn, new ArrayList<>());
+        if (type == null) {
+            logger.warning("Attempted to initialize inventory with null book type");
+            throw new IllegalArgumentException("Book type cannot be null");
+        }
+        
+        int slot = slotOf(isbns.keyOf(isbn), isbn);
+        bookTypes[slot] = type;
+        lendingFlags[slot] = lendingPolicy.getFlags(type);
         logger.info("Initialized inventory for book with ISBN: " + isbn);
     }
     
@@ -54,7 +136,10 @@ public class InventoryManager {
             throw new IllegalArgumentException("ISBN cannot be null or empty");
         }
         
-        borrowedBooks.remove(isbn);
+        int slot = slotsByKey.remove(isbns.existingKeyOf(isbn));
+        if (slot != NO_SLOT) {
+            releaseSlot(slot);
+        }
         logger.info("Removed inventory for book with ISBN: " + isbn);
     }
     
@@ -77,19 +162,41 @@ public class InventoryManager {
         }
         
         // Initialize if not already present
-        borrowedBooks.putIfAbsent(isbn, new ArrayList<>());
-        patronBorrowedBooks.putIfAbsent(patronId, new ArrayList<>());
-        
+        int slot = slotOf(isbns.keyOf(isbn), isbn);
+        return recordCheckout(slot, getPatronLoans(patronId));
+    }
+    
+    /**
+     * Records a book checkout using handles resolved by the caller.
+     *
+     * @param slot The book's slot, see {@link #findSlot(long)}
+     * @param patron The borrowing patron's loans, see {@link #getPatronLoans(String)}
+     * @return true if checkout was recorded successfully, false if the book is already borrowed
+     */
+    public boolean recordCheckout(int slot, PatronLoans patron) {
+        long start = recordCheckoutTimer.start();
+        try {
+            return processCheckout(slot, patron);
+        } finally {
+            recordCheckoutTimer.stop(start);
+        }
+    }
+    
+    private boolean processCheckout(int slot, PatronLoans patron) {
         // Check if book is already borrowed
-        if (!borrowedBooks.get(isbn).isEmpty()) {
-            logger.info("Book with ISBN " + isbn + " is already borrowed");
+        if (borrowers[slot] != null) {
+            logger.info("Book with ISBN " + slotIsbns[slot] + " is already borrowed");
             return false;
         }
         
         // Record the checkout
-        borrowedBooks.get(isbn).add(patronId);
-        patronBorrowedBooks.get(patronId).add(isbn);
-        logger.info("Recorded checkout of book " + isbn + " by patron " + patronId);
+        events.checkAccepting();
+        borrowers[slot] = patron.getPatronId();
+        patron.add(slotKeys[slot]);
+        events.publish(EventType.CHECKOUT, slotKeys[slot], patron.getPatronId());
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine("Recorded checkout of book " + slotIsbns[slot] + " by patron " + patron.getPatronId());
+        }
         return true;
     }
     
@@ -111,23 +218,112 @@ public class InventoryManager {
             throw new IllegalArgumentException("Patron ID cannot be null or empty");
         }
         
-        List<String> borrowedBy = borrowedBooks.get(isbn);
-        if (borrowedBy == null || !borrowedBy.contains(patronId)) {
+        int slot = slotsByKey.get(isbns.existingKeyOf(isbn));
+        PatronLoans patron = patronLoans.get(patronId);
+        if (slot == NO_SLOT || patron == null) {
             logger.warning("Patron " + patronId + " has not borrowed book with ISBN " + isbn);
             return false;
         }
+        return recordReturn(slot, patron);
+    }
+    
+    /**
+     * Records a book return using handles resolved by the caller.
+     *
+     * @param slot The book's slot, see {@link #findSlot(long)}
+     * @param patron The returning patron's loans, see {@link #getPatronLoans(String)}
+     * @return true if return was recorded successfully, false if the patron does not hold the book
+     */
+    public boolean recordReturn(int slot, PatronLoans patron) {
+        long start = recordReturnTimer.start();
+        try {
+            return processReturn(slot, patron);
+        } finally {
+            recordReturnTimer.stop(start);
+        }
+    }
+    
+    private boolean processReturn(int slot, PatronLoans patron) {
+        if (!patron.getPatronId().equals(borrowers[slot])) {
+            logger.warning("Patron " + patron.getPatronId() + " has not borrowed book with ISBN " + slotIsbns[slot]);
+            return false;
+        }
         
         // Record the return
-        borrowedBy.remove(patronId);
-        List<String> patronBooks = patronBorrowedBooks.get(patronId);
-        if (patronBooks != null) {
-            patronBooks.remove(isbn);
+        events.checkAccepting();
+        borrowers[slot] = null;
+        patron.remove(slotKeys[slot]);
+        events.publish(EventType.RETURN, slotKeys[slot], patron.getPatronId());
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine("Recorded return of book " + slotIsbns[slot] + " by patron " + patron.getPatronId());
         }
-        
-        logger.info("Recorded return of book " + isbn + " by patron " + patronId);
         return true;
     }
     
+    /**
+     * Finds the slot of a tracked book, for use with the slot-based checkout and return methods.
+     *
+     * @param isbnKey The ISBN key of the book, see IsbnKeys
+     * @return The slot, or {@link #NO_SLOT} if the book is not tracked
+     */
+    public int findSlot(long isbnKey) {
+        return slotsByKey.get(isbnKey);
+    }
+    
+    /**
+     * Gets the ISBN keys that this inventory's keys refer to, those of its activity stream.
+     *
+     * @return The ISBN keys
+     */
+    public IsbnKeys getIsbnKeys() {
+        return isbns;
+    }
+    
+    /**
+     * Gets the ISBN key of the book in a slot.
+     *
+     * @param slot The book's slot
+     * @return The ISBN key
+     */
+    public long getSlotKey(int slot) {
+        return slotKeys[slot];
+    }
+    
+    /**
+     * Checks if the book in a slot is available.
+     *
+     * @param slot The book's slot
+     * @return true if nobody holds the book
+     */
+    public boolean isSlotAvailable(int slot) {
+        return borrowers[slot] == null;
+    }
+    
+    /**
+     * Checks if the book in a slot circulates under the lending policy for its type.
+     *
+     * @param slot The book's slot
+     * @return true if the book may be checked out
+     */
+    public boolean isSlotCirculating(int slot) {
+        return (lendingFlags[slot] & LendingPolicy.CIRCULATING) != 0;
+    }
+    
+    /**
+     * Gets the inventory-side loan state of a patron, creating it on first use.
+     *
+     * @param patronId The ID of the patron
+     * @return The patron's loans
+     */
+    public PatronLoans getPatronLoans(String patronId) {
+        PatronLoans loans = patronLoans.get(patronId);
+        if (loans == null) {
+            loans = new PatronLoans(patronId);
+            patronLoans.put(patronId, loans);
+        }
+        return loans;
+    }
+    
     /**
      * Checks if a book is available (not borrowed by anyone).
      *
@@ -139,8 +335,177 @@ public class InventoryManager {
             return false;
         }
         
-        List<String> borrowedBy = borrowedBooks.get(isbn);
-        return borrowedBy != null && borrowedBy.isEmpty();
+        return isBookAvailable(isbns.existingKeyOf(isbn));
+    }
+    
+    /**
+     * Checks if a book is available (not borrowed by anyone), by ISBN key.
+     *
+     * @param isbnKey The ISBN key of the book, see IsbnKeys
+     * @return true if the book is available, false otherwise
+     */
+    public boolean isBookAvailable(long isbnKey) {
+        int slot = slotsByKey.get(isbnKey);
+        return slot != NO_SLOT && borrowers[slot] == null;
+    }
+    
+    /**
+     * Checks if inventory is tracked for a book.
+     *
+     * @param isbnKey The ISBN key of the book, see IsbnKeys
+     * @return true if the book has been initialized in the inventory
+     */
+    public boolean isTracked(long isbnKey) {
+        return slotsByKey.containsKey(isbnKey);
+    }
+    
+    /**
+     * Checks if a book may be checked out under the lending policy for its type.
+     *
+     * @param isbnKey The ISBN key of the book, see IsbnKeys
+     * @return true if the book is tracked and circulates
+     */
+    public boolean isCirculating(long isbnKey) {
+        int slot = slotsByKey.get(isbnKey);
+        return slot != NO_SLOT && (lendingFlags[slot] & LendingPolicy.CIRCULATING) != 0;
+    }
+    
+    /**
+     * Checks if loans of a book may be renewed under the lending policy for its type.
+     *
+     * @param isbnKey The ISBN key of the book, see IsbnKeys
+     * @return true if the book is tracked and renewable
+     */
+    public boolean isRenewable(long isbnKey) {
+        int slot = slotsByKey.get(isbnKey);
+        return slot != NO_SLOT && (lendingFlags[slot] & LendingPolicy.RENEWABLE) != 0;
+    }
+    
+    /**
+     * Changes the lending flags for a book type, re-resolving the flags of books already tracked.
+     *
+     * @param type The book type
+     * @param flags The combination of {@link LendingPolicy#CIRCULATING} and {@link LendingPolicy#RENEWABLE}
+     */
+    public void setLendingFlags(BookType type, byte flags) {
+        lendingPolicy.setFlags(type, flags);
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (bookTypes[slot] == type) {
+                lendingFlags[slot] = flags;
+            }
+        }
+        logger.info("Lending flags for " + type + " set to " + flags);
+    }
+    
+    public ActivityStream getActivityStream() {
+        return events;
+    }
+    
+    public LendingPolicy getLendingPolicy() {
+        return lendingPolicy;
+    }
+    
+    /**
+     * Gets the patron currently holding a book.
+     *
+     * @param isbnKey The ISBN key of the book, see IsbnKeys
+     * @return The ID of the borrowing patron, or null if the book is not borrowed
+     */
+    public String getCurrentBorrower(long isbnKey) {
+        int slot = slotsByKey.get(isbnKey);
+        return slot != NO_SLOT ? borrowers[slot] : null;
+    }
+    
+    /**
+     * Records checkouts of several books by one patron in a single pass.
+     * The patron's loan list is looked up once for the whole batch.
+     *
+     * @param patronId The ID of the patron checking out the books
+     * @param isbnKeys The ISBN keys of the books, see IsbnKeys
+     * @param include Which entries to record; entries set to false are skipped
+     * @return For each entry, whether the checkout was recorded
+     */
+    public boolean[] recordCheckouts(String patronId, long[] isbnKeys, boolean[] include) {
+        long start = recordCheckoutsTimer.start();
+        try {
+            return processCheckouts(patronId, isbnKeys, include);
+        } finally {
+            recordCheckoutsTimer.stop(start);
+        }
+    }
+    
+    private boolean[] processCheckouts(String patronId, long[] isbnKeys, boolean[] include) {
+        if (patronId == null || patronId.isEmpty()) {
+            logger.warning("Attempted to record checkouts with null or empty patron ID");
+            throw new IllegalArgumentException("Patron ID cannot be null or empty");
+        }
+        
+        events.checkAccepting();
+        boolean[] recorded = new boolean[isbnKeys.length];
+        PatronLoans patron = getPatronLoans(patronId);
+        for (int i = 0; i < isbnKeys.length; i++) {
+            if (!include[i]) {
+                continue;
+            }
+            int slot = slotsByKey.get(isbnKeys[i]);
+            if (slot != NO_SLOT && borrowers[slot] == null) {
+                borrowers[slot] = patronId;
+                patron.add(isbnKeys[i]);
+                events.publish(EventType.CHECKOUT, isbnKeys[i], patronId);
+                recorded[i] = true;
+            }
+        }
+        logger.info("Recorded batch checkout of " + isbnKeys.length + " books by patron " + patronId);
+        return recorded;
+    }
+    
+    /**
+     * Records returns of several books in a single pass, whoever borrowed them.
+     *
+     * @param isbnKeys The ISBN keys of the books, see IsbnKeys
+     * @param include Which entries to record; entries set to false are skipped
+     * @return For each entry, the ID of the patron who had borrowed the book, or null if
+     *         the entry was skipped or the book was not borrowed
+     */
+    public String[] recordReturns(long[] isbnKeys, boolean[] include) {
+        long start = recordReturnsTimer.start();
+        try {
+            return processReturns(isbnKeys, include);
+        } finally {
+            recordReturnsTimer.stop(start);
+        }
+    }
+    
+    private String[] processReturns(long[] isbnKeys, boolean[] include) {
+        events.checkAccepting();
+        String[] returnedBy = new String[isbnKeys.length];
+        for (int i = 0; i < isbnKeys.length; i++) {
+            if (!include[i]) {
+                continue;
+            }
+            int slot = slotsByKey.get(isbnKeys[i]);
+            if (slot == NO_SLOT || borrowers[slot] == null) {
+                continue;
+            }
+            String patronId = borrowers[slot];
+            borrowers[slot] = null;
+            getPatronLoans(patronId).remove(isbnKeys[i]);
+            events.publish(EventType.RETURN, isbnKeys[i], patronId);
+            returnedBy[i] = patronId;
+        }
+        logger.info("Recorded batch return of " + isbnKeys.length + " books");
+        return returnedBy;
+    }
+    
+    /**
+     * Gets the number of books a patron currently has on loan, from a maintained counter.
+     *
+     * @param patronId The ID of the patron
+     * @return The number of active loans
+     */
+    public int getActiveLoanCount(String patronId) {
+        PatronLoans loans = patronLoans.get(patronId);
+        return loans != null ? loans.getActiveLoanCount() : 0;
     }
     
     /**
@@ -161,14 +526,15 @@ public class InventoryManager {
     /**
      * Gets all currently borrowed books.
      *
-     * @param allBooks Map of all books in the library (ISBN -> Book)
+     * @param allBooks Map of all books in the library (ISBN key -> Book)
      * @return List of borrowed books
      */
-    public List<Book> getBorrowedBooks(Map<String, Book> allBooks) {
+    public List<Book> getBorrowedBooks(LongMap<Book> allBooks) {
         List<Book> borrowed = new ArrayList<>();
-        for (Map.Entry<String, List<String>> entry : borrowedBooks.entrySet()) {
-            if (!entry.getValue().isEmpty() && allBooks.containsKey(entry.getKey())) {
-                borrowed.add(allBooks.get(entry.getKey()));
+        for (int slot = 0; slot < slotCount; slot++) {
+            Book book = borrowers[slot] != null ? allBooks.get(slotKeys[slot]) : null;
+            if (book != null) {
+                borrowed.add(book);
             }
         }
         return borrowed;
@@ -177,14 +543,15 @@ public class InventoryManager {
     /**
      * Gets all currently available books.
      *
-     * @param allBooks Map of all books in the library (ISBN -> Book)
+     * @param allBooks Map of all books in the library (ISBN key -> Book)
      * @return List of available books
      */
-    public List<Book> getAvailableBooks(Map<String, Book> allBooks) {
+    public List<Book> getAvailableBooks(LongMap<Book> allBooks) {
         List<Book> available = new ArrayList<>();
-        for (Map.Entry<String, List<String>> entry : borrowedBooks.entrySet()) {
-            if (entry.getValue().isEmpty() && allBooks.containsKey(entry.getKey())) {
-                available.add(allBooks.get(entry.getKey()));
+        for (int slot = 0; slot < slotCount; slot++) {
+            Book book = bookTypes[slot] != null && borrowers[slot] == null ? allBooks.get(slotKeys[slot]) : null;
+            if (book != null) {
+                available.add(book);
             }
         }
         return available;
@@ -201,12 +568,16 @@ public class InventoryManager {
             return new ArrayList<>();
         }
         
-        List<String> borrowers = borrowedBooks.get(isbn);
-        return borrowers != null ? new ArrayList<>(borrowers) : new ArrayList<>();
+        List<String> result = new ArrayList<>();
+        String borrower = getCurrentBorrower(isbns.existingKeyOf(isbn));
+        if (borrower != null) {
+            result.add(borrower);
+        }
+        return result;
     }
     
     /**
-     * Gets the ISBNs of books borrowed by a specific patron.
+     * Gets the ISBNs of books borrowed by a specific patron, as the books were registered.
      *
      * @param patronId The ID of the patron
      * @return List of ISBNs
@@ -216,7 +587,55 @@ public class InventoryManager {
             return new ArrayList<>();
         }
         
-        List<String> books = patronBorrowedBooks.get(patronId);
-        return books != null ? new ArrayList<>(books) : new ArrayList<>();
+        List<String> result = new ArrayList<>();
+        PatronLoans loans = patronLoans.get(patronId);
+        LongList keys = loans != null ? loans.getIsbnKeys() : null;
+        if (keys != null) {
+            for (int i = 0; i < keys.size(); i++) {
+                result.add(slotIsbns[slotsByKey.get(keys.get(i))]);
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Gets the slot of a book, allocating one for a book that is not tracked yet.
+     */
+    private int slotOf(long key, String isbn) {
+        int slot = slotsByKey.get(key);
+        if (slot != NO_SLOT) {
+            return slot;
+        }
+        
+        if (freeSlotCount > 0) {
+            slot = freeSlots[--freeSlotCount];
+        } else {
+            if (slotCount == slotKeys.length) {
+                int capacity = slotCount * 2;
+                slotKeys = Arrays.copyOf(slotKeys, capacity);
+                slotIsbns = Arrays.copyOf(slotIsbns, capacity);
+                borrowers = Arrays.copyOf(borrowers, capacity);
+                bookTypes = Arrays.copyOf(bookTypes, capacity);
+                lendingFlags = Arrays.copyOf(lendingFlags, capacity);
+            }
+            slot = slotCount++;
+        }
+        slotKeys[slot] = key;
+        slotIsbns[slot] = isbn;
+        bookTypes[slot] = BookType.GENERAL;
+        lendingFlags[slot] = lendingPolicy.getFlags(BookType.GENERAL);
+        slotsByKey.put(key, slot);
+        return slot;
+    }
+    
+    private void releaseSlot(int slot) {
+        borrowers[slot] = null;
+        slotIsbns[slot] = null;
+        bookTypes[slot] = null; // marks the slot as free for scans
+        lendingFlags[slot] = 0;
+        if (freeSlotCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlotCount * 2);
+        }
+        freeSlots[freeSlotCount++] = slot;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,60 @@
+package librarymanagementsystem.inventory;
+
+import librarymanagementsystem.utils.BookFactory.BookType;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Lending rules for each type of book, expressed as compact flags.
+ * The inventory resolves a book's flags once when the book is added, so the checkout
+ * path tests a bit instead of fetching the Book and inspecting its class.
+ */
+public class LendingPolicy {
+    private static final Logger logger = Logger.getLogger(LendingPolicy.class.getName());
+    
+    /** The book may be checked out. */
+    public static final byte CIRCULATING = 1;
+    /** Loans of the book may be renewed. */
+    public static final byte RENEWABLE = 1 << 1;
+    
+    private Map<BookType, Byte> flagsByType;
+    
+    /**
+     * Constructor initializes the default policy: reference books do not circulate,
+     * everything else circulates and can be renewed.
+     */
+    public LendingPolicy() {
+        this.flagsByType = new EnumMap<>(BookType.class);
+        for (BookType type : BookType.values()) {
+            flagsByType.put(type, (byte) (CIRCULATING | RENEWABLE));
+        }
+        flagsByType.put(BookType.REFERENCE, (byte) 0);
+    }
+    
+    /**
+     * Gets the lending flags for a book type.
+     *
+     * @param type The book type
+     * @return The combination of {@link #CIRCULATING} and {@link #RENEWABLE}
+     */
+    public byte getFlags(BookType type) {
+        return flagsByType.get(type);
+    }
+    
+    /**
+     * Sets the lending flags for a book type.
+     *
+     * @param type The book type
+     * @param flags The combination of {@link #CIRCULATING} and {@link #RENEWABLE}
+     * @throws IllegalArgumentException if type is null
+     */
+    public void setFlags(BookType type, byte flags) {
+        if (type == null) {
+            logger.warning("Attempted to set lending flags for null book type");
+            throw new IllegalArgumentException("Book type cannot be null");
+        }
+        flagsByType.put(type, flags);
+    }
+}
@@ -0,0 +1,46 @@
+package librarymanagementsystem.inventory;
+
+import librarymanagementsystem.utils.LongList;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Inventory-side state of one patron: the ISBN keys they hold and an active-loan counter.
+ * The lending path resolves this handle once per operation and passes it through,
+ * instead of looking the patron up again at every step.
+ */
+public class PatronLoans {
+    private final String patronId;
+    private final LongList isbnKeys;
+    private final AtomicInteger activeLoans;
+    
+    PatronLoans(String patronId) {
+        this.patronId = patronId;
+        this.isbnKeys = new LongList();
+        this.activeLoans = new AtomicInteger();
+    }
+    
+    // Getters
+    public String getPatronId() {
+        return patronId;
+    }
+    
+    public int getActiveLoanCount() {
+        return activeLoans.get();
+    }
+    
+    void add(long isbnKey) {
+        isbnKeys.add(isbnKey);
+        activeLoans.incrementAndGet();
+    }
+    
+    void remove(long isbnKey) {
+        if (isbnKeys.removeValue(isbnKey)) {
+            activeLoans.decrementAndGet();
+        }
+    }
+    
+    LongList getIsbnKeys() {
+        return isbnKeys;
+    }
+}
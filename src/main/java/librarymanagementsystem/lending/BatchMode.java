@@ -0,0 +1,11 @@
+package librarymanagementsystem.lending;
+
+/**
+ * How a batch of checkouts or returns handles items that cannot be processed.
+ */
+public enum BatchMode {
+    /** Process nothing unless every item in the batch can be processed. */
+    ALL_OR_NOTHING,
+    /** Process every item that can be processed and report the rest. */
+    BEST_EFFORT
+}
@@ -0,0 +1,95 @@
+package librarymanagementsystem.lending;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Per-item results of a batch checkout or return, in the order the ISBNs were given.
+ */
+public class BatchResult {
+    private List<String> isbns;
+    private LendingStatus[] statuses;
+    private long[] isbnKeys;
+    
+    public BatchResult(List<String> isbns, LendingStatus[] statuses) {
+        this(isbns, statuses, new long[statuses.length]);
+    }
+    
+    /**
+     * Constructor for a result that also reports the ISBN key each item resolved to, so
+     * callers can act on the successful items without resolving the ISBNs again.
+     *
+     * @param isbns The ISBNs, in the order given
+     * @param statuses The status of each ISBN
+     * @param isbnKeys The ISBN key of each ISBN, IsbnKeys.NO_KEY where it was not resolved
+     */
+    public BatchResult(List<String> isbns, LendingStatus[] statuses, long[] isbnKeys) {
+        if (isbns.size() != statuses.length || isbnKeys.length != statuses.length) {
+            throw new IllegalArgumentException("Each ISBN needs exactly one status and key");
+        }
+        this.isbns = Collections.unmodifiableList(new ArrayList<>(isbns));
+        this.statuses = statuses.clone();
+        this.isbnKeys = isbnKeys.clone();
+    }
+    
+    // Getters
+    public List<String> getIsbns() {
+        return isbns;
+    }
+    
+    public int size() {
+        return statuses.length;
+    }
+    
+    public LendingStatus getStatus(int index) {
+        return statuses[index];
+    }
+    
+    public List<LendingStatus> getStatuses() {
+        return Collections.unmodifiableList(Arrays.asList(statuses));
+    }
+    
+    public boolean isSuccess(int index) {
+        return statuses[index] == LendingStatus.SUCCESS;
+    }
+    
+    /**
+     * Gets the ISBN key an item resolved to. Every successful item has one.
+     *
+     * @param index The position of the item in the batch
+     * @return The ISBN key, or IsbnKeys.NO_KEY if the ISBN was not resolved
+     */
+    public long getIsbnKey(int index) {
+        return isbnKeys[index];
+    }
+    
+    /**
+     * Gets the number of items that were processed successfully.
+     *
+     * @return The success count
+     */
+    public int getSuccessCount() {
+        int count = 0;
+        for (LendingStatus status : statuses) {
+            if (status == LendingStatus.SUCCESS) {
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    public boolean isAllSuccessful() {
+        return getSuccessCount() == statuses.length;
+    }
+    
+    @Override
+    public String toString() {
+        return "BatchResult{" +
+                "items=" + statuses.length +
+                ", successful=" + getSuccessCount() +
+                ", statuses=" + Arrays.toString(statuses) +
+                '}';
+    }
+}
@@ -0,0 +1,219 @@
+package librarymanagementsystem.lending;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Accrues late fines incrementally instead of recomputing them over every loan.
+ * A fine of a fixed amount is charged for each full day past the due day.
+ * <p>
+ * For each patron the engine keeps the fines already settled plus two counters over the
+ * loans that are currently overdue: how many there are and the sum of their due days.
+ * The outstanding balance on day T is then {@code settled + rate * (count * T - dueDaySum)},
+ * so reading it is O(1). A {@link #tick(long)} only visits loans whose due day was crossed
+ * since the previous tick, and returns settle the exact fine for the loan being closed.
+ * Amounts are in cents.
+ */
+public class FineEngine {
+    private static final Logger logger = Logger.getLogger(FineEngine.class.getName());
+    
+    /** Default fine per overdue day, in cents. */
+    public static final long DEFAULT_DAILY_FINE_CENTS = 25;
+    /** Default balance at which a patron may no longer borrow, in cents. */
+    public static final long DEFAULT_BLOCK_THRESHOLD_CENTS = 1000;
+    
+    private LoanIndex loans;
+    private Map<String, PatronFines> finesByPatron;
+    private long currentDay; // loans due before this day are counted as overdue
+    private long dailyFineCents;
+    private long blockThresholdCents;
+    
+    /**
+     * Constructor for a fine engine over a set of active loans.
+     *
+     * @param loans The active loans
+     * @param now The current time in milliseconds since the epoch
+     */
+    public FineEngine(LoanIndex loans, long now) {
+        this.loans = loans;
+        this.finesByPatron = new HashMap<>();
+        this.currentDay = LoanIndex.dayOf(now);
+        this.dailyFineCents = DEFAULT_DAILY_FINE_CENTS;
+        this.blockThresholdCents = DEFAULT_BLOCK_THRESHOLD_CENTS;
+        
+        // Loans that were already overdue when the engine started
+        for (Loan loan : loans.findOverdue(currentDay * LoanIndex.DAY_MILLIS)) {
+            countOverdue(loan.getPatronId(), LoanIndex.dayOf(loan.getDueTimeMillis()));
+        }
+    }
+    
+    /**
+     * Advances the engine to a new time, counting the loans that became overdue since the last tick.
+     * Meant to be run on a schedule, e.g. shortly after midnight; ticks that do not cross a day do nothing.
+     *
+     * @param now The current time in milliseconds since the epoch
+     * @return The number of loans that became overdue
+     */
+    public int tick(long now) {
+        long day = LoanIndex.dayOf(now);
+        if (day <= currentDay) {
+            return 0;
+        }
+        
+        List<Loan> crossed = loans.findDueBetween(currentDay * LoanIndex.DAY_MILLIS, day * LoanIndex.DAY_MILLIS);
+        for (Loan loan : crossed) {
+            countOverdue(loan.getPatronId(), LoanIndex.dayOf(loan.getDueTimeMillis()));
+        }
+        currentDay = day;
+        logger.fine(crossed.size() + " loans became overdue");
+        return crossed.size();
+    }
+    
+    /**
+     * Notifies the engine that a loan was opened or its due date was moved.
+     * A loan that is already past due (such as a renewal of a long-overdue loan) starts accruing at once.
+     *
+     * @param patronId The ID of the borrowing patron
+     * @param dueTime The due time in milliseconds since the epoch
+     */
+    public void loanOpened(String patronId, long dueTime) {
+        long dueDay = LoanIndex.dayOf(dueTime);
+        if (dueDay < currentDay) {
+            countOverdue(patronId, dueDay);
+        }
+    }
+    
+    /**
+     * Notifies the engine that a loan was closed, settling its fine.
+     *
+     * @param patronId The ID of the borrowing patron
+     * @param dueTime The due time in milliseconds since the epoch
+     * @param closedAt The time the loan was closed in milliseconds since the epoch
+     * @return The fine charged for the loan, in cents
+     */
+    public long loanClosed(String patronId, long dueTime, long closedAt) {
+        long dueDay = LoanIndex.dayOf(dueTime);
+        PatronFines fines = finesByPatron.get(patronId);
+        if (dueDay < currentDay && fines != null) {
+            fines.overdueLoans--;
+            fines.dueDaySum -= dueDay;
+        }
+        
+        long daysLate = LoanIndex.dayOf(closedAt) - dueDay;
+        if (daysLate <= 0) {
+            return 0;
+        }
+        
+        long fine = daysLate * dailyFineCents;
+        fines(patronId).settledCents += fine;
+        return fine;
+    }
+    
+    /**
+     * Records a payment against a patron's balance.
+     *
+     * @param patronId The ID of the paying patron
+     * @param amountCents The amount paid, in cents
+     * @throws IllegalArgumentException if patronId is null/empty or the amount is not positive
+     */
+    public void recordPayment(String patronId, long amountCents) {
+        if (patronId == null || patronId.isEmpty()) {
+            logger.warning("Attempted to record payment with null or empty patron ID");
+            throw new IllegalArgumentException("Patron ID cannot be null or empty");
+        }
+        
+        if (amountCents <= 0) {
+            logger.warning("Attempted to record non-positive payment for patron " + patronId);
+            throw new IllegalArgumentException("Payment amount must be positive");
+        }
+        
+        fines(patronId).settledCents -= amountCents;
+    }
+    
+    /**
+     * Gets a patron's outstanding balance as of the last tick, including fines still accruing.
+     *
+     * @param patronId The ID of the patron
+     * @return The balance in cents
+     */
+    public long getBalance(String patronId) {
+        PatronFines fines = finesByPatron.get(patronId);
+        if (fines == null) {
+            return 0;
+        }
+        return fines.settledCents + dailyFineCents * (fines.overdueLoans * currentDay - fines.dueDaySum);
+    }
+    
+    /**
+     * Checks if a patron's balance has reached the blocking threshold.
+     *
+     * @param patronId The ID of the patron
+     * @return true if the patron may not borrow
+     */
+    public boolean isBlocked(String patronId) {
+        return getBalance(patronId) >= blockThresholdCents;
+    }
+    
+    /**
+     * Sets the fine per overdue day. Applies to fines that are still accruing as well as future ones.
+     *
+     * @param dailyFineCents The fine per day, in cents
+     * @throws IllegalArgumentException if the fine is negative
+     */
+    public void setDailyFineCents(long dailyFineCents) {
+        if (dailyFineCents < 0) {
+            logger.warning("Attempted to set negative daily fine");
+            throw new IllegalArgumentException("Daily fine cannot be negative");
+        }
+        this.dailyFineCents = dailyFineCents;
+    }
+    
+    /**
+     * Sets the balance at which patrons are blocked from borrowing.
+     *
+     * @param blockThresholdCents The threshold, in cents
+     * @throws IllegalArgumentException if the threshold is not positive
+     */
+    public void setBlockThresholdCents(long blockThresholdCents) {
+        if (blockThresholdCents <= 0) {
+            logger.warning("Attempted to set non-positive block threshold");
+            throw new IllegalArgumentException("Block threshold must be positive");
+        }
+        this.blockThresholdCents = blockThresholdCents;
+    }
+    
+    // Getters
+    public long getDailyFineCents() {
+        return dailyFineCents;
+    }
+    
+    public long getBlockThresholdCents() {
+        return blockThresholdCents;
+    }
+    
+    private void countOverdue(String patronId, long dueDay) {
+        PatronFines fines = fines(patronId);
+        fines.overdueLoans++;
+        fines.dueDaySum += dueDay;
+    }
+    
+    private PatronFines fines(String patronId) {
+        PatronFines fines = finesByPatron.get(patronId);
+        if (fines == null) {
+            fines = new PatronFines();
+            finesByPatron.put(patronId, fines);
+        }
+        return fines;
+    }
+    
+    /**
+     * Per-patron fine counters.
+     */
+    private static class PatronFines {
+        private long settledCents;
+        private long overdueLoans;
+        private long dueDaySum;
+    }
+}
@@ -1,10 +1,20 @@
 package librarymanagementsystem.lending;
 
 import librarymanagementsystem.inventory.InventoryManager;
+import librarymanagementsystem.inventory.PatronLoans;
+import librarymanagementsystem.metrics.MetricsRegistry;
+import librarymanagementsystem.metrics.Timer;
 import librarymanagementsystem.patron.PatronManager;
-import librarymanagementsystem.model.Book;
 import librarymanagementsystem.model.Patron;
+import librarymanagementsystem.utils.IsbnKeys;
+import librarymanagementsystem.utils.LongHashSet;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -14,8 +24,28 @@ import java.util.logging.Logger;
 public class LendingManager {
     private static final Logger logger = Logger.getLogger(LendingManager.class.getName());
     
+    /** Default time a book may be kept before it is due. */
+    public static final Duration DEFAULT_LOAN_PERIOD = Duration.ofDays(14);
+    /** Default number of times a loan may be renewed. */
+    public static final int DEFAULT_MAX_RENEWALS = 2;
+    
     private InventoryManager inventoryManager;
     private PatronManager patronManager;
+    private IsbnKeys isbnKeys; // those of the inventory
+    private Clock clock;
+    private Duration loanPeriod;
+    private int maxRenewals;
+    private LoanIndex loans;
+    private FineEngine fines;
+    private LoanLimits loanLimits;
+    
+    // Operation timers, inactive unless metrics are enabled
+    private Timer checkoutTimer;
+    private Timer checkinTimer;
+    private Timer checkoutBatchTimer;
+    private Timer returnBatchTimer;
+    private Timer renewTimer;
+    private Timer accrueFinesTimer;
     
     /**
      * Constructor initializes the lending manager with required dependencies.
@@ -24,8 +54,47 @@ public class LendingManager {
      * @param patronManager The patron manager to use
      */
     public LendingManager(InventoryManager inventoryManager, PatronManager patronManager) {
+        this(inventoryManager, patronManager, Clock.systemUTC(), DEFAULT_LOAN_PERIOD);
+    }
+    
+    /**
+     * Constructor with an explicit clock and loan period, e.g. for tests or branch-specific policies.
+     *
+     * @param inventoryManager The inventory manager to use
+     * @param patronManager The patron manager to use
+     * @param clock The clock used for checkout times and due dates
+     * @param loanPeriod The time a book may be kept before it is due
+     * @throws IllegalArgumentException if clock is null or loanPeriod is null/not positive
+     */
+    public LendingManager(InventoryManager inventoryManager, PatronManager patronManager,
+                          Clock clock, Duration loanPeriod) {
+        if (clock == null) {
+            logger.warning("Attempted to create lending manager with null clock");
+            throw new IllegalArgumentException("Clock cannot be null");
+        }
+        
+        if (loanPeriod == null || loanPeriod.isNegative() || loanPeriod.isZero()) {
+            logger.warning("Attempted to create lending manager with invalid loan period");
+            throw new IllegalArgumentException("Loan period must be positive");
+        }
+        
         this.inventoryManager = inventoryManager;
         this.patronManager = patronManager;
+        this.clock = clock;
+        this.loanPeriod = loanPeriod;
+        this.maxRenewals = DEFAULT_MAX_RENEWALS;
+        this.isbnKeys = inventoryManager.getIsbnKeys();
+        this.loans = new LoanIndex(isbnKeys);
+        this.fines = new FineEngine(loans, clock.millis());
+        this.loanLimits = new LoanLimits();
+        
+        MetricsRegistry metrics = MetricsRegistry.getDefault();
+        this.checkoutTimer = metrics.timer("lending.checkout");
+        this.checkinTimer = metrics.timer("lending.checkin");
+        this.checkoutBatchTimer = metrics.timer("lending.checkoutBatch");
+        this.returnBatchTimer = metrics.timer("lending.returnBatch");
+        this.renewTimer = metrics.timer("lending.renew");
+        this.accrueFinesTimer = metrics.timer("lending.accrueFines");
         logger.info("Lending manager initialized");
     }
     
@@ -49,31 +118,69 @@ public class LendingManager {
             throw new IllegalArgumentException("Patron ID cannot be null or empty");
         }
         
-        // Check if book exists (this would typically be checked by the service layer)
-        // For now, we'll assume the service layer has already validated this
-        
-        // Check if patron exists
-        if (!patronManager.patronExists(patronId)) {
+        Patron patron = patronManager.findPatronById(patronId);
+        if (patron == null) {
             logger.warning("Patron with ID " + patronId + " not found");
             return false;
         }
+        return checkout(patron, isbnKeys.existingKeyOf(isbn)) == LendingStatus.SUCCESS;
+    }
+    
+    /**
+     * Processes a checkout for a patron that the caller has already resolved.
+     * The book's inventory slot and the patron's loan state are looked up once and used
+     * for every check, and a successful checkout does not allocate.
+     *
+     * @param patron The patron checking out the book
+     * @param isbnKey The ISBN key of the book, see IsbnKeys
+     * @return The outcome of the checkout
+     */
+    public LendingStatus checkout(Patron patron, long isbnKey) {
+        long start = checkoutTimer.start();
+        try {
+            return processCheckout(patron, isbnKey);
+        } finally {
+            checkoutTimer.stop(start);
+        }
+    }
+    
+    private LendingStatus processCheckout(Patron patron, long isbnKey) {
+        String patronId = patron.getPatronId();
+        int slot = inventoryManager.findSlot(isbnKey);
+        if (slot == InventoryManager.NO_SLOT) {
+            logger.info("Book to checkout is not in the inventory");
+            return LendingStatus.BOOK_NOT_FOUND;
+        }
+        
+        // Check the patron's loan limit against the maintained active-loan counter
+        PatronLoans patronLoans = inventoryManager.getPatronLoans(patronId);
+        if (patronLoans.getActiveLoanCount() >= loanLimits.getLimit(patron.getPatronType())) {
+            logger.info("Patron with ID " + patronId + " has reached their loan limit");
+            return LendingStatus.LOAN_LIMIT_REACHED;
+        }
+        
+        // Check if patron owes too much in fines to borrow
+        if (fines.isBlocked(patronId)) {
+            logger.info("Patron with ID " + patronId + " is blocked by outstanding fines");
+            return LendingStatus.PATRON_BLOCKED;
+        }
+        
+        // Check the lending flags resolved for the book's type, e.g. reference-only books
+        if (!inventoryManager.isSlotCirculating(slot)) {
+            logger.info("Book with ISBN " + isbnKeys.toIsbnString(isbnKey) + " does not circulate");
+            return LendingStatus.NOT_CIRCULATING;
+        }
         
         // Check if book is available (not borrowed by anyone)
-        if (!inventoryManager.isBookAvailable(isbn)) {
-            logger.info("Book with ISBN " + isbn + " is already borrowed");
-            return false;
+        if (!inventoryManager.recordCheckout(slot, patronLoans)) {
+            return LendingStatus.ALREADY_BORROWED;
         }
         
-        // Process checkout through inventory manager
-        boolean checkoutSuccess = inventoryManager.recordCheckout(isbn, patronId);
-        if (checkoutSuccess) {
-            Patron patron = patronManager.findPatronById(patronId);
-            Book book = new Book("", "", isbn, 0); // In a real system, we'd get the actual book from a book manager
-            // Note: In a more complete implementation, we would retrieve the actual book object
-            // For now, we're just adding to history based on ISBN
-            logger.info("Book with ISBN " + isbn + " checked out by " + patron.getName());
+        openLoan(isbnKey, patronId, clock.millis());
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine("Book with ISBN " + isbnKeys.toIsbnString(isbnKey) + " checked out by " + patron.getName());
         }
-        return checkoutSuccess;
+        return LendingStatus.SUCCESS;
     }
     
     /**
@@ -96,18 +203,444 @@ public class LendingManager {
             throw new IllegalArgumentException("Patron ID cannot be null or empty");
         }
         
-        // Check if patron exists
-        if (!patronManager.patronExists(patronId)) {
+        Patron patron = patronManager.findPatronById(patronId);
+        if (patron == null) {
             logger.warning("Patron with ID " + patronId + " not found");
             return false;
         }
+        return checkin(patron, isbnKeys.existingKeyOf(isbn)) == LendingStatus.SUCCESS;
+    }
+    
+    /**
+     * Processes a return by a patron that the caller has already resolved.
+     *
+     * @param patron The patron returning the book
+     * @param isbnKey The ISBN key of the book, see IsbnKeys
+     * @return The outcome of the return
+     */
+    public LendingStatus checkin(Patron patron, long isbnKey) {
+        long start = checkinTimer.start();
+        try {
+            return processCheckin(patron, isbnKey);
+        } finally {
+            checkinTimer.stop(start);
+        }
+    }
+    
+    private LendingStatus processCheckin(Patron patron, long isbnKey) {
+        int slot = inventoryManager.findSlot(isbnKey);
+        if (slot == InventoryManager.NO_SLOT) {
+            logger.warning("Book to return is not in the inventory");
+            return LendingStatus.BOOK_NOT_FOUND;
+        }
         
-        // Process return through inventory manager
-        boolean returnSuccess = inventoryManager.recordReturn(isbn, patronId);
-        if (returnSuccess) {
+        if (!inventoryManager.recordReturn(slot, inventoryManager.getPatronLoans(patron.getPatronId()))) {
+            return LendingStatus.NOT_BORROWED;
+        }
+        
+        closeLoan(isbnKey, clock.millis());
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine("Book with ISBN " + isbnKeys.toIsbnString(isbnKey) + " returned by " + patron.getName());
+        }
+        return LendingStatus.SUCCESS;
+    }
+    
+    /**
+     * Processes checkouts of several books by one patron, such as a stack scanned at a kiosk.
+     * The patron is resolved and validated once, and inventory is updated in a single pass.
+     *
+     * @param patronId The ID of the patron checking out the books
+     * @param isbns The ISBNs of the books to checkout
+     * @param mode Whether to checkout nothing unless every book can be checked out
+     * @return The result for each ISBN, in the order given
+     * @throws IllegalArgumentException if patronId is null/empty or isbns/mode is null
+     */
+    public BatchResult checkoutBooks(String patronId, List<String> isbns, BatchMode mode) {
+        long start = checkoutBatchTimer.start();
+        try {
+            if (patronId == null || patronId.isEmpty()) {
+                logger.warning("Attempted to checkout books with null or empty patron ID");
+                throw new IllegalArgumentException("Patron ID cannot be null or empty");
+            }
+            validateBatch(isbns, mode);
+            
             Patron patron = patronManager.findPatronById(patronId);
-            logger.info("Book with ISBN " + isbn + " returned by " + patron.getName());
+            if (patron == null) {
+                logger.warning("Patron with ID " + patronId + " not found");
+                LendingStatus[] statuses = new LendingStatus[isbns.size()];
+                Arrays.fill(statuses, LendingStatus.PATRON_NOT_FOUND);
+                return new BatchResult(isbns, statuses);
+            }
+            return processCheckoutBatch(patron, isbns, mode);
+        } finally {
+            checkoutBatchTimer.stop(start);
+        }
+    }
+    
+    /**
+     * Processes checkouts of several books by a patron that the caller has already resolved.
+     * The result reports the ISBN key of each item, so the caller can record the successful
+     * checkouts without resolving the ISBNs again.
+     *
+     * @param patron The patron checking out the books
+     * @param isbns The ISBNs of the books to checkout
+     * @param mode Whether to checkout nothing unless every book can be checked out
+     * @return The result for each ISBN, in the order given
+     * @throws IllegalArgumentException if patron, isbns or mode is null
+     */
+    public BatchResult checkoutBooks(Patron patron, List<String> isbns, BatchMode mode) {
+        long start = checkoutBatchTimer.start();
+        try {
+            if (patron == null) {
+                logger.warning("Attempted to checkout books for null patron");
+                throw new IllegalArgumentException("Patron cannot be null");
+            }
+            validateBatch(isbns, mode);
+            return processCheckoutBatch(patron, isbns, mode);
+        } finally {
+            checkoutBatchTimer.stop(start);
+        }
+    }
+    
+    private void validateBatch(List<String> isbns, BatchMode mode) {
+        if (isbns == null || mode == null) {
+            logger.warning("Attempted to checkout books with null ISBN list or batch mode");
+            throw new IllegalArgumentException("ISBN list and batch mode cannot be null");
+        }
+    }
+    
+    private BatchResult processCheckoutBatch(Patron patron, List<String> isbns, BatchMode mode) {
+        String patronId = patron.getPatronId();
+        LendingStatus[] statuses = new LendingStatus[isbns.size()];
+        if (fines.isBlocked(patronId)) {
+            logger.info("Patron with ID " + patronId + " is blocked by outstanding fines");
+            Arrays.fill(statuses, LendingStatus.PATRON_BLOCKED);
+            return new BatchResult(isbns, statuses);
+        }
+        
+        // Validate every item before touching inventory
+        long[] keys = resolveBatchKeys(isbns, statuses);
+        int remainingLoans = loanLimits.getLimit(patron.getPatronType()) - inventoryManager.getActiveLoanCount(patronId);
+        for (int i = 0; i < keys.length; i++) {
+            if (statuses[i] == null && !inventoryManager.isCirculating(keys[i])) {
+                statuses[i] = LendingStatus.NOT_CIRCULATING;
+            } else if (statuses[i] == null && !inventoryManager.isBookAvailable(keys[i])) {
+                statuses[i] = LendingStatus.ALREADY_BORROWED;
+            } else if (statuses[i] == null && remainingLoans-- <= 0) {
+                statuses[i] = LendingStatus.LOAN_LIMIT_REACHED;
+            }
+        }
+        
+        if (!applyBatchMode(statuses, mode)) {
+            logger.info("Batch checkout for " + patron.getName() + " rejected as a whole");
+            return new BatchResult(isbns, statuses);
+        }
+        
+        boolean[] recorded = inventoryManager.recordCheckouts(patronId, keys, pendingItems(statuses));
+        long now = clock.millis();
+        for (int i = 0; i < statuses.length; i++) {
+            if (statuses[i] == null) {
+                statuses[i] = recorded[i] ? LendingStatus.SUCCESS : LendingStatus.ALREADY_BORROWED;
+                if (recorded[i]) {
+                    openLoan(keys[i], patronId, now);
+                }
+            }
+        }
+        
+        BatchResult result = new BatchResult(isbns, statuses, keys);
+        logger.info(result.getSuccessCount() + " of " + statuses.length + " books checked out by " + patron.getName());
+        return result;
+    }
+    
+    /**
+     * Processes returns of several books, whoever borrowed them.
+     *
+     * @param isbns The ISBNs of the books being returned
+     * @param mode Whether to return nothing unless every book can be returned
+     * @return The result for each ISBN, in the order given
+     * @throws IllegalArgumentException if isbns or mode is null
+     */
+    public BatchResult returnBooks(List<String> isbns, BatchMode mode) {
+        long start = returnBatchTimer.start();
+        try {
+            return processReturnBatch(isbns, mode);
+        } finally {
+            returnBatchTimer.stop(start);
+        }
+    }
+    
+    private BatchResult processReturnBatch(List<String> isbns, BatchMode mode) {
+        if (isbns == null || mode == null) {
+            logger.warning("Attempted to return books with null ISBN list or batch mode");
+            throw new IllegalArgumentException("ISBN list and batch mode cannot be null");
+        }
+        
+        LendingStatus[] statuses = new LendingStatus[isbns.size()];
+        long[] keys = resolveBatchKeys(isbns, statuses);
+        for (int i = 0; i < keys.length; i++) {
+            if (statuses[i] == null && inventoryManager.getCurrentBorrower(keys[i]) == null) {
+                statuses[i] = LendingStatus.NOT_BORROWED;
+            }
+        }
+        
+        if (!applyBatchMode(statuses, mode)) {
+            logger.info("Batch return rejected as a whole");
+            return new BatchResult(isbns, statuses);
+        }
+        
+        String[] returnedBy = inventoryManager.recordReturns(keys, pendingItems(statuses));
+        long now = clock.millis();
+        for (int i = 0; i < statuses.length; i++) {
+            if (statuses[i] == null) {
+                statuses[i] = returnedBy[i] != null ? LendingStatus.SUCCESS : LendingStatus.NOT_BORROWED;
+                if (returnedBy[i] != null) {
+                    closeLoan(keys[i], now);
+                }
+            }
+        }
+        
+        BatchResult result = new BatchResult(isbns, statuses, keys);
+        logger.info(result.getSuccessCount() + " of " + statuses.length + " books returned");
+        return result;
+    }
+    
+    /**
+     * Renews a loan, moving its due date one loan period further out.
+     *
+     * @param isbn The ISBN of the borrowed book
+     * @param patronId The ID of the patron holding the book
+     * @return true if the loan was renewed, false if there is no such loan or no renewals are left
+     * @throws IllegalArgumentException if isbn or patronId is null/empty
+     */
+    public boolean renewLoan(String isbn, String patronId) {
+        long start = renewTimer.start();
+        try {
+            return processRenewal(isbn, patronId);
+        } finally {
+            renewTimer.stop(start);
+        }
+    }
+    
+    private boolean processRenewal(String isbn, String patronId) {
+        if (isbn == null || isbn.isEmpty()) {
+            logger.warning("Attempted to renew loan with null or empty ISBN");
+            throw new IllegalArgumentException("ISBN cannot be null or empty");
+        }
+        
+        if (patronId == null || patronId.isEmpty()) {
+            logger.warning("Attempted to renew loan with null or empty patron ID");
+            throw new IllegalArgumentException("Patron ID cannot be null or empty");
+        }
+        
+        long key = isbnKeys.existingKeyOf(isbn);
+        Loan loan = key != IsbnKeys.NO_KEY ? loans.find(key) : null;
+        if (loan == null || !loan.getPatronId().equals(patronId)) {
+            logger.info("No loan of ISBN " + isbn + " to patron " + patronId + " to renew");
+            return false;
+        }
+        
+        if (!inventoryManager.isRenewable(key)) {
+            logger.info("Loans of ISBN " + isbn + " cannot be renewed");
+            return false;
+        }
+        
+        if (loan.getRenewals() >= maxRenewals) {
+            logger.info("Loan of ISBN " + isbn + " has no renewals left");
+            return false;
+        }
+        
+        if (fines.isBlocked(patronId)) {
+            logger.info("Patron with ID " + patronId + " is blocked by outstanding fines");
+            return false;
+        }
+        
+        // Fines accrued so far are settled; the renewed loan accrues from its new due date
+        long newDueTime = loan.getDueTimeMillis() + loanPeriod.toMillis();
+        fines.loanClosed(patronId, loan.getDueTimeMillis(), clock.millis());
+        loans.renew(key, newDueTime);
+        fines.loanOpened(patronId, newDueTime);
+        logger.info("Loan of ISBN " + isbn + " renewed by patron " + patronId);
+        return true;
+    }
+    
+    /**
+     * Finds the active loan for a book.
+     *
+     * @param isbn The ISBN of the book
+     * @return The loan, or null if the book is not on loan
+     */
+    public Loan findLoan(String isbn) {
+        long key = isbnKeys.existingKeyOf(isbn);
+        return key != IsbnKeys.NO_KEY ? loans.find(key) : null;
+    }
+    
+    /**
+     * Gets all loans that are overdue as of a given time, earliest due first.
+     *
+     * @param asOf The time to check against
+     * @return The overdue loans
+     */
+    public List<Loan> getOverdueLoans(Instant asOf) {
+        return loans.findOverdue(asOf.toEpochMilli());
+    }
+    
+    /**
+     * Gets all loans due in [from, to), earliest due first.
+     *
+     * @param from The start of the range, inclusive
+     * @param to The end of the range, exclusive
+     * @return The loans due in the range
+     */
+    public List<Loan> getLoansDueBetween(Instant from, Instant to) {
+        return loans.findDueBetween(from.toEpochMilli(), to.toEpochMilli());
+    }
+    
+    /**
+     * Gets all loans that are not yet overdue but fall due within a window from now.
+     *
+     * @param window How far ahead to look, e.g. 24 hours for reminder notices
+     * @return The loans due within the window
+     */
+    public List<Loan> getLoansDueWithin(Duration window) {
+        Instant now = clock.instant();
+        return getLoansDueBetween(now, now.plus(window));
+    }
+    
+    /**
+     * Gets the number of active loans.
+     *
+     * @return The number of active loans
+     */
+    public int getActiveLoanCount() {
+        return loans.size();
+    }
+    
+    /**
+     * Accrues fines up to the current time. Meant to be run on a schedule, e.g. once a day;
+     * only loans whose due date passed since the previous run are visited.
+     *
+     * @return The number of loans that became overdue
+     */
+    public int accrueFines() {
+        long start = accrueFinesTimer.start();
+        try {
+            return fines.tick(clock.millis());
+        } finally {
+            accrueFinesTimer.stop(start);
+        }
+    }
+    
+    /**
+     * Gets a patron's outstanding fine balance as of the last accrual.
+     *
+     * @param patronId The ID of the patron
+     * @return The balance in cents
+     */
+    public long getFineBalance(String patronId) {
+        return fines.getBalance(patronId);
+    }
+    
+    /**
+     * Records a fine payment by a patron.
+     *
+     * @param patronId The ID of the paying patron
+     * @param amountCents The amount paid, in cents
+     * @throws IllegalArgumentException if patronId is null/empty or the amount is not positive
+     */
+    public void payFine(String patronId, long amountCents) {
+        fines.recordPayment(patronId, amountCents);
+        logger.info("Patron " + patronId + " paid " + amountCents + " cents in fines");
+    }
+    
+    public FineEngine getFineEngine() {
+        return fines;
+    }
+    
+    public LoanLimits getLoanLimits() {
+        return loanLimits;
+    }
+    
+    /**
+     * Sets how many times a loan may be renewed.
+     *
+     * @param maxRenewals The maximum number of renewals
+     * @throws IllegalArgumentException if maxRenewals is negative
+     */
+    public void setMaxRenewals(int maxRenewals) {
+        if (maxRenewals < 0) {
+            logger.warning("Attempted to set negative maximum renewals");
+            throw new IllegalArgumentException("Maximum renewals cannot be negative");
+        }
+        this.maxRenewals = maxRenewals;
+    }
+    
+    private void openLoan(long isbnKey, String patronId, long checkoutTime) {
+        long dueTime = checkoutTime + loanPeriod.toMillis();
+        if (loans.open(isbnKey, patronId, checkoutTime, dueTime)) {
+            fines.loanOpened(patronId, dueTime);
+        }
+    }
+    
+    private void closeLoan(long isbnKey, long returnTime) {
+        String patronId = loans.getPatronId(isbnKey);
+        if (patronId != null) {
+            fines.loanClosed(patronId, loans.getDueTime(isbnKey), returnTime);
+            loans.remove(isbnKey);
+        }
+    }
+    
+    /**
+     * Resolves ISBN keys for a batch, marking invalid, unknown and repeated entries.
+     * Entries that are still eligible are left with a null status.
+     */
+    private long[] resolveBatchKeys(List<String> isbns, LendingStatus[] statuses) {
+        long[] keys = new long[isbns.size()];
+        LongHashSet seen = new LongHashSet();
+        for (int i = 0; i < keys.length; i++) {
+            String isbn = isbns.get(i);
+            if (isbn == null || isbn.isEmpty()) {
+                statuses[i] = LendingStatus.INVALID_ISBN;
+                continue;
+            }
+            keys[i] = isbnKeys.existingKeyOf(isbn);
+            if (keys[i] == IsbnKeys.NO_KEY || !inventoryManager.isTracked(keys[i])) {
+                statuses[i] = LendingStatus.BOOK_NOT_FOUND;
+            } else if (!seen.add(keys[i])) {
+                statuses[i] = LendingStatus.DUPLICATE_IN_BATCH;
+            }
+        }
+        return keys;
+    }
+    
+    /**
+     * Applies the batch mode after validation.
+     *
+     * @return false if an all-or-nothing batch must not be processed
+     */
+    private static boolean applyBatchMode(LendingStatus[] statuses, BatchMode mode) {
+        if (mode == BatchMode.BEST_EFFORT) {
+            return true;
+        }
+        
+        boolean anyFailed = false;
+        for (LendingStatus status : statuses) {
+            anyFailed |= status != null;
+        }
+        if (anyFailed) {
+            for (int i = 0; i < statuses.length; i++) {
+                if (statuses[i] == null) {
+                    statuses[i] = LendingStatus.NOT_ATTEMPTED;
+                }
+            }
+        }
+        return !anyFailed;
+    }
+    
+    private static boolean[] pendingItems(LendingStatus[] statuses) {
+        boolean[] pending = new boolean[statuses.length];
+        for (int i = 0; i < statuses.length; i++) {
+            pending[i] = statuses[i] == null;
         }
-        return returnSuccess;
+        return pending;
     }
-}
\ No newline at end of file
+}
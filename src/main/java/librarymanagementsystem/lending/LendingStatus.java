@@ -0,0 +1,22 @@
+package librarymanagementsystem.lending;
+
+/**
+ * Outcome of a single item in a batch checkout or return.
+ */
+public enum LendingStatus {
+    SUCCESS,
+    INVALID_ISBN,
+    BOOK_NOT_FOUND,
+    PATRON_NOT_FOUND,
+    /** The patron's outstanding fines have reached the blocking threshold. */
+    PATRON_BLOCKED,
+    /** The patron already has as many books on loan as their patron type allows. */
+    LOAN_LIMIT_REACHED,
+    /** The lending policy for the book's type does not allow checkouts, e.g. reference-only books. */
+    NOT_CIRCULATING,
+    ALREADY_BORROWED,
+    NOT_BORROWED,
+    DUPLICATE_IN_BATCH,
+    /** The item could have been processed, but another item failed an all-or-nothing batch. */
+    NOT_ATTEMPTED
+}
@@ -0,0 +1,102 @@
+package librarymanagementsystem.lending;
+
+import librarymanagementsystem.utils.IsbnKeys;
+
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Snapshot of an active loan: who holds a book, since when, and when it is due.
+ * Loans are created by {@link LendingManager} on checkout; renewals produce a new snapshot.
+ */
+public class Loan {
+    private final IsbnKeys isbns;
+    private final long isbnKey;
+    private final String patronId;
+    private final long checkoutTime;
+    private final long dueTime;
+    private final int renewals;
+    
+    /**
+     * Constructor for a loan snapshot.
+     *
+     * @param isbns The ISBN keys the book's key refers to
+     * @param isbnKey The ISBN key of the borrowed book, see IsbnKeys
+     * @param patronId The ID of the borrowing patron
+     * @param checkoutTime The checkout time in milliseconds since the epoch
+     * @param dueTime The due time in milliseconds since the epoch
+     * @param renewals The number of times the loan has been renewed
+     */
+    public Loan(IsbnKeys isbns, long isbnKey, String patronId, long checkoutTime, long dueTime, int renewals) {
+        this.isbns = isbns;
+        this.isbnKey = isbnKey;
+        this.patronId = patronId;
+        this.checkoutTime = checkoutTime;
+        this.dueTime = dueTime;
+        this.renewals = renewals;
+    }
+    
+    // Getters
+    public long getIsbnKey() {
+        return isbnKey;
+    }
+    
+    public String getIsbn() {
+        return isbns.toIsbnString(isbnKey);
+    }
+    
+    public String getPatronId() {
+        return patronId;
+    }
+    
+    public Instant getCheckoutTime() {
+        return Instant.ofEpochMilli(checkoutTime);
+    }
+    
+    public Instant getDueDate() {
+        return Instant.ofEpochMilli(dueTime);
+    }
+    
+    public long getDueTimeMillis() {
+        return dueTime;
+    }
+    
+    public int getRenewals() {
+        return renewals;
+    }
+    
+    /**
+     * Checks if the loan is overdue at a given time.
+     *
+     * @param asOf The time to check against
+     * @return true if the due date is before the given time
+     */
+    public boolean isOverdue(Instant asOf) {
+        return dueTime < asOf.toEpochMilli();
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Loan loan = (Loan) o;
+        return isbnKey == loan.isbnKey && checkoutTime == loan.checkoutTime
+                && Objects.equals(patronId, loan.patronId);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(isbnKey, patronId, checkoutTime);
+    }
+    
+    @Override
+    public String toString() {
+        return "Loan{" +
+                "isbn='" + getIsbn() + '\'' +
+                ", patronId='" + patronId + '\'' +
+                ", checkoutTime=" + getCheckoutTime() +
+                ", dueDate=" + getDueDate() +
+                ", renewals=" + renewals +
+                '}';
+    }
+}
@@ -0,0 +1,279 @@
+package librarymanagementsystem.lending;
+
+import librarymanagementsystem.utils.IsbnKeys;
+import librarymanagementsystem.utils.LongHashMap;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * Active loans indexed by ISBN and by due date.
+ * Loans are grouped into one bucket per due day, and the non-empty days are kept in
+ * order, so "overdue as of T" or "due in the next 24 hours" only visits the buckets in
+ * the requested range instead of every loan. Loan entries are recycled after a return,
+ * so the checkout and return paths do not create garbage once warmed up.
+ */
+public class LoanIndex {
+    static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+    
+    private final IsbnKeys isbns;
+    private LongHashMap<Entry> loansByIsbn;
+    private LongHashMap<Bucket> bucketsByDay;
+    private NavigableSet<Long> days; // days that have a bucket, in order
+    private ArrayDeque<Entry> freeEntries;
+    
+    /**
+     * Constructor.
+     *
+     * @param isbns The ISBN keys that loan snapshots resolve their ISBNs with
+     */
+    public LoanIndex(IsbnKeys isbns) {
+        this.isbns = isbns;
+        this.loansByIsbn = new LongHashMap<>();
+        this.bucketsByDay = new LongHashMap<>();
+        this.days = new TreeSet<>();
+        this.freeEntries = new ArrayDeque<>();
+    }
+    
+    /**
+     * Opens a loan for a book.
+     *
+     * @param isbnKey The ISBN key of the book, see IsbnKeys
+     * @param patronId The ID of the borrowing patron
+     * @param checkoutTime The checkout time in milliseconds since the epoch
+     * @param dueTime The due time in milliseconds since the epoch
+     * @return false if the book already has an active loan
+     */
+    public boolean open(long isbnKey, String patronId, long checkoutTime, long dueTime) {
+        if (loansByIsbn.containsKey(isbnKey)) {
+            return false;
+        }
+        
+        Entry entry = freeEntries.isEmpty() ? new Entry() : freeEntries.pop();
+        entry.isbnKey = isbnKey;
+        entry.patronId = patronId;
+        entry.checkoutTime = checkoutTime;
+        entry.dueTime = dueTime;
+        entry.renewals = 0;
+        loansByIsbn.put(isbnKey, entry);
+        addToBucket(entry);
+        return true;
+    }
+    
+    /**
+     * Closes the active loan for a book.
+     *
+     * @param isbnKey The ISBN key of the book
+     * @return A snapshot of the closed loan, or null if the book had no active loan
+     */
+    public Loan close(long isbnKey) {
+        Entry entry = loansByIsbn.remove(isbnKey);
+        if (entry == null) {
+            return null;
+        }
+        
+        Loan loan = entry.snapshot(isbns);
+        release(entry);
+        return loan;
+    }
+    
+    /**
+     * Closes the active loan for a book without producing a snapshot.
+     *
+     * @param isbnKey The ISBN key of the book
+     * @return true if the book had an active loan
+     */
+    public boolean remove(long isbnKey) {
+        Entry entry = loansByIsbn.remove(isbnKey);
+        if (entry == null) {
+            return false;
+        }
+        release(entry);
+        return true;
+    }
+    
+    /**
+     * Moves the due date of an active loan and counts it as a renewal.
+     *
+     * @param isbnKey The ISBN key of the book
+     * @param newDueTime The new due time in milliseconds since the epoch
+     * @return A snapshot of the renewed loan, or null if the book had no active loan
+     */
+    public Loan renew(long isbnKey, long newDueTime) {
+        Entry entry = loansByIsbn.get(isbnKey);
+        if (entry == null) {
+            return null;
+        }
+        
+        removeFromBucket(entry);
+        entry.dueTime = newDueTime;
+        entry.renewals++;
+        addToBucket(entry);
+        return entry.snapshot(isbns);
+    }
+    
+    /**
+     * Finds the active loan for a book.
+     *
+     * @param isbnKey The ISBN key of the book
+     * @return A snapshot of the loan, or null if the book is not on loan
+     */
+    public Loan find(long isbnKey) {
+        Entry entry = loansByIsbn.get(isbnKey);
+        return entry != null ? entry.snapshot(isbns) : null;
+    }
+    
+    /**
+     * Gets the due time of an active loan without producing a snapshot.
+     *
+     * @param isbnKey The ISBN key of the book
+     * @return The due time in milliseconds since the epoch, or {@link Long#MIN_VALUE} if the book is not on loan
+     */
+    public long getDueTime(long isbnKey) {
+        Entry entry = loansByIsbn.get(isbnKey);
+        return entry != null ? entry.dueTime : Long.MIN_VALUE;
+    }
+    
+    /**
+     * Gets the borrower of an active loan without producing a snapshot.
+     *
+     * @param isbnKey The ISBN key of the book
+     * @return The ID of the borrowing patron, or null if the book is not on loan
+     */
+    public String getPatronId(long isbnKey) {
+        Entry entry = loansByIsbn.get(isbnKey);
+        return entry != null ? entry.patronId : null;
+    }
+    
+    /**
+     * Finds all loans due strictly before a given time, earliest due first.
+     *
+     * @param asOf The time in milliseconds since the epoch
+     * @return The overdue loans
+     */
+    public List<Loan> findOverdue(long asOf) {
+        return findDueBetween(Long.MIN_VALUE, asOf);
+    }
+    
+    /**
+     * Finds all loans with a due time in [from, to), earliest due first.
+     *
+     * @param from The start of the range in milliseconds since the epoch, inclusive
+     * @param to The end of the range in milliseconds since the epoch, exclusive
+     * @return The loans due in the range
+     */
+    public List<Loan> findDueBetween(long from, long to) {
+        List<Loan> result = new ArrayList<>();
+        if (from >= to || days.isEmpty()) {
+            return result;
+        }
+        
+        long firstDay = Math.max(dayOf(from), days.first());
+        long lastDay = Math.min(dayOf(to - 1), days.last());
+        if (firstDay > lastDay) {
+            return result;
+        }
+        Iterator<Long> inRange = days.subSet(firstDay, true, lastDay, true).iterator();
+        while (inRange.hasNext()) {
+            long day = inRange.next();
+            Bucket bucket = bucketsByDay.get(day);
+            if (bucket.size == 0) {
+                // Drop empty buckets lazily, off the checkout and return paths
+                bucketsByDay.remove(day);
+                inRange.remove();
+                continue;
+            }
+            for (int i = 0; i < bucket.size; i++) {
+                Entry entry = bucket.entries[i];
+                if (entry.dueTime >= from && entry.dueTime < to) {
+                    result.add(entry.snapshot(isbns));
+                }
+            }
+        }
+        result.sort(Comparator.comparingLong(Loan::getDueTimeMillis));
+        return result;
+    }
+    
+    /**
+     * Gets the number of active loans.
+     *
+     * @return The number of active loans
+     */
+    public int size() {
+        return loansByIsbn.size();
+    }
+    
+    private void release(Entry entry) {
+        removeFromBucket(entry);
+        entry.patronId = null;
+        freeEntries.push(entry);
+    }
+    
+    private void addToBucket(Entry entry) {
+        long day = dayOf(entry.dueTime);
+        Bucket bucket = bucketsByDay.get(day);
+        if (bucket == null) {
+            bucket = new Bucket();
+            bucketsByDay.put(day, bucket);
+            days.add(day);
+        }
+        bucket.add(entry);
+    }
+    
+    private void removeFromBucket(Entry entry) {
+        Bucket bucket = bucketsByDay.get(dayOf(entry.dueTime));
+        if (bucket != null) {
+            bucket.remove(entry);
+        }
+    }
+    
+    static long dayOf(long time) {
+        return Math.floorDiv(time, DAY_MILLIS);
+    }
+    
+    /**
+     * Mutable loan state, recycled between loans.
+     */
+    private static class Entry {
+        private long isbnKey;
+        private String patronId;
+        private long checkoutTime;
+        private long dueTime;
+        private int renewals;
+        private int bucketPosition;
+        
+        Loan snapshot(IsbnKeys isbns) {
+            return new Loan(isbns, isbnKey, patronId, checkoutTime, dueTime, renewals);
+        }
+    }
+    
+    /**
+     * Unordered loans due on one day; removal swaps the last entry into the gap.
+     */
+    private static class Bucket {
+        private Entry[] entries = new Entry[4];
+        private int size;
+        
+        void add(Entry entry) {
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, size * 2);
+            }
+            entry.bucketPosition = size;
+            entries[size++] = entry;
+        }
+        
+        void remove(Entry entry) {
+            int position = entry.bucketPosition;
+            Entry last = entries[--size];
+            entries[position] = last;
+            last.bucketPosition = position;
+            entries[size] = null;
+        }
+    }
+}
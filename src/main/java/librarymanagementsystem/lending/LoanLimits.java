@@ -0,0 +1,59 @@
+package librarymanagementsystem.lending;
+
+import librarymanagementsystem.model.PatronType;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Maximum number of simultaneous loans for each patron type.
+ */
+public class LoanLimits {
+    private static final Logger logger = Logger.getLogger(LoanLimits.class.getName());
+    
+    private Map<PatronType, Integer> limits;
+    
+    /**
+     * Constructor initializes the default limits.
+     */
+    public LoanLimits() {
+        this.limits = new EnumMap<>(PatronType.class);
+        limits.put(PatronType.STANDARD, 10);
+        limits.put(PatronType.CHILD, 5);
+        limits.put(PatronType.STUDENT, 15);
+        limits.put(PatronType.FACULTY, 30);
+    }
+    
+    /**
+     * Gets the loan limit for a patron type.
+     *
+     * @param type The patron type
+     * @return The maximum number of simultaneous loans
+     */
+    public int getLimit(PatronType type) {
+        return limits.get(type);
+    }
+    
+    /**
+     * Sets the loan limit for a patron type.
+     *
+     * @param type The patron type
+     * @param limit The maximum number of simultaneous loans
+     * @throws IllegalArgumentException if type is null or limit is negative
+     */
+    public void setLimit(PatronType type, int limit) {
+        if (type == null) {
+            logger.warning("Attempted to set loan limit for null patron type");
+            throw new IllegalArgumentException("Patron type cannot be null");
+        }
+        
+        if (limit < 0) {
+            logger.warning("Attempted to set negative loan limit for " + type);
+            throw new IllegalArgumentException("Loan limit cannot be negative");
+        }
+        
+        limits.put(type, limit);
+        logger.info("Loan limit for " + type + " set to " + limit);
+    }
+}
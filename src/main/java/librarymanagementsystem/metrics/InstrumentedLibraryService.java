@@ -0,0 +1,573 @@
+package librarymanagementsystem.metrics;
+
+import librarymanagementsystem.lending.BatchMode;
+import librarymanagementsystem.lending.BatchResult;
+import librarymanagementsystem.lending.Loan;
+import librarymanagementsystem.model.Book;
+import librarymanagementsystem.model.Patron;
+import librarymanagementsystem.search.BookQuery;
+import librarymanagementsystem.search.FacetCounts;
+import librarymanagementsystem.search.Ranking;
+import librarymanagementsystem.services.LibraryService;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Decorator that times every {@link LibraryService} operation and counts operations that throw.
+ * Timers are named "service.&lt;method&gt;" and record nothing while the registry is disabled.
+ */
+public class InstrumentedLibraryService implements LibraryService {
+    private final LibraryService delegate;
+    private final Timer addBookTimer;
+    private final Timer removeBookTimer;
+    private final Timer updateBookTimer;
+    private final Timer findBookByIsbnTimer;
+    private final Timer findBooksByTitleTimer;
+    private final Timer findBooksByAuthorTimer;
+    private final Timer findBooksByTitleRankedTimer;
+    private final Timer findBooksByAuthorRankedTimer;
+    private final Timer findBooksFuzzyTimer;
+    private final Timer findBooksTimer;
+    private final Timer getFacetsTimer;
+    private final Timer findBooksByYearTimer;
+    private final Timer suggestCompletionsTimer;
+    private final Timer getAllBooksTimer;
+    private final Timer addPatronTimer;
+    private final Timer updatePatronTimer;
+    private final Timer findPatronByIdTimer;
+    private final Timer findPatronByEmailTimer;
+    private final Timer findPatronsByPhoneTimer;
+    private final Timer findPatronsByNamePrefixTimer;
+    private final Timer getAllPatronsTimer;
+    private final Timer checkoutBookTimer;
+    private final Timer returnBookTimer;
+    private final Timer checkoutBooksTimer;
+    private final Timer returnBooksTimer;
+    private final Timer renewLoanTimer;
+    private final Timer findLoanTimer;
+    private final Timer getOverdueLoansTimer;
+    private final Timer getLoansDueWithinTimer;
+    private final Timer accrueFinesTimer;
+    private final Timer getFineBalanceTimer;
+    private final Timer payFineTimer;
+    private final Timer getAvailableBookCountTimer;
+    private final Timer getAvailableBooksTimer;
+    private final Timer getBorrowedBooksTimer;
+    
+    /**
+     * Constructor wrapping a library service.
+     *
+     * @param delegate The service to instrument
+     * @param registry The registry to record into
+     * @throws IllegalArgumentException if delegate or registry is null
+     */
+    public InstrumentedLibraryService(LibraryService delegate, MetricsRegistry registry) {
+        if (delegate == null || registry == null) {
+            throw new IllegalArgumentException("Delegate service and metrics registry cannot be null");
+        }
+        
+        this.delegate = delegate;
+        this.addBookTimer = registry.timer("service.addBook");
+        this.removeBookTimer = registry.timer("service.removeBook");
+        this.updateBookTimer = registry.timer("service.updateBook");
+        this.findBookByIsbnTimer = registry.timer("service.findBookByIsbn");
+        this.findBooksByTitleTimer = registry.timer("service.findBooksByTitle");
+        this.findBooksByAuthorTimer = registry.timer("service.findBooksByAuthor");
+        this.findBooksByTitleRankedTimer = registry.timer("service.findBooksByTitleRanked");
+        this.findBooksByAuthorRankedTimer = registry.timer("service.findBooksByAuthorRanked");
+        this.findBooksFuzzyTimer = registry.timer("service.findBooksFuzzy");
+        this.findBooksTimer = registry.timer("service.findBooks");
+        this.getFacetsTimer = registry.timer("service.getFacets");
+        this.findBooksByYearTimer = registry.timer("service.findBooksByYear");
+        this.suggestCompletionsTimer = registry.timer("service.suggestCompletions");
+        this.getAllBooksTimer = registry.timer("service.getAllBooks");
+        this.addPatronTimer = registry.timer("service.addPatron");
+        this.updatePatronTimer = registry.timer("service.updatePatron");
+        this.findPatronByIdTimer = registry.timer("service.findPatronById");
+        this.findPatronByEmailTimer = registry.timer("service.findPatronByEmail");
+        this.findPatronsByPhoneTimer = registry.timer("service.findPatronsByPhone");
+        this.findPatronsByNamePrefixTimer = registry.timer("service.findPatronsByNamePrefix");
+        this.getAllPatronsTimer = registry.timer("service.getAllPatrons");
+        this.checkoutBookTimer = registry.timer("service.checkoutBook");
+        this.returnBookTimer = registry.timer("service.returnBook");
+        this.checkoutBooksTimer = registry.timer("service.checkoutBooks");
+        this.returnBooksTimer = registry.timer("service.returnBooks");
+        this.renewLoanTimer = registry.timer("service.renewLoan");
+        this.findLoanTimer = registry.timer("service.findLoan");
+        this.getOverdueLoansTimer = registry.timer("service.getOverdueLoans");
+        this.getLoansDueWithinTimer = registry.timer("service.getLoansDueWithin");
+        this.accrueFinesTimer = registry.timer("service.accrueFines");
+        this.getFineBalanceTimer = registry.timer("service.getFineBalance");
+        this.payFineTimer = registry.timer("service.payFine");
+        this.getAvailableBookCountTimer = registry.timer("service.getAvailableBookCount");
+        this.getAvailableBooksTimer = registry.timer("service.getAvailableBooks");
+        this.getBorrowedBooksTimer = registry.timer("service.getBorrowedBooks");
+    }
+    
+    // Book Management
+    
+    @Override
+    public void addBook(Book book) {
+        long start = addBookTimer.start();
+        try {
+            delegate.addBook(book);
+        } catch (RuntimeException e) {
+            addBookTimer.recordError();
+            throw e;
+        } finally {
+            addBookTimer.stop(start);
+        }
+    }
+    
+    @Override
+    public void removeBook(String isbn) {
+        long start = removeBookTimer.start();
+        try {
+            delegate.removeBook(isbn);
+        } catch (RuntimeException e) {
+            removeBookTimer.recordError();
+            throw e;
+        } finally {
+            removeBookTimer.stop(start);
+        }
+    }
+    
+    @Override
+    public void updateBook(String isbn, Book updatedBook) {
+        long start = updateBookTimer.start();
+        try {
+            delegate.updateBook(isbn, updatedBook);
+        } catch (RuntimeException e) {
+            updateBookTimer.recordError();
+            throw e;
+        } finally {
+            updateBookTimer.stop(start);
+        }
+    }
+    
+    @Override
+    public Book findBookByIsbn(String isbn) {
+        long start = findBookByIsbnTimer.start();
+        try {
+            return delegate.findBookByIsbn(isbn);
+        } catch (RuntimeException e) {
+            findBookByIsbnTimer.recordError();
+            throw e;
+        } finally {
+            findBookByIsbnTimer.stop(start);
+        }
+    }
+    
+    @Override
+    public List<Book> findBooksByTitle(String title) {
+        long start = findBooksByTitleTimer.start();
+        try {
+            return delegate.findBooksByTitle(title);
+        } catch (RuntimeException e) {
+            findBooksByTitleTimer.recordError();
+            throw e;
+        } finally {
+            findBooksByTitleTimer.stop(start);
+        }
+    }
+    
+    @Override
+    public List<Book> findBooksByAuthor(String author) {
+        long start = findBooksByAuthorTimer.start();
+        try {
+            return delegate.findBooksByAuthor(author);
+        } catch (RuntimeException e) {
+            findBooksByAuthorTimer.recordError();
+            throw e;
+        } finally {
+            findBooksByAuthorTimer.stop(start);
+        }
+    }
+    
+    @Override
+    public List<Book> findBooksByTitle(String title, Ranking ranking, int maxResults) {
+        long start = findBooksByTitleRankedTimer.start();
+        try {
+            return delegate.findBooksByTitle(title, ranking, maxResults);
+        } catch (RuntimeException e) {
+            findBooksByTitleRankedTimer.recordError();
+            throw e;
+        } finally {
+            findBooksByTitleRankedTimer.stop(start);
+        }
+    }
+    
+    @Override
+    public List<Book> findBooksByAuthor(String author, Ranking ranking, int maxResults) {
+        long start = findBooksByAuthorRankedTimer.start();
+        try {
+            return delegate.findBooksByAuthor(author, ranking, maxResults);
+        } catch (RuntimeException e) {
+            findBooksByAuthorRankedTimer.recordError();
+            throw e;
+        } finally {
+            findBooksByAuthorRankedTimer.stop(start);
+        }
+    }
+    
+    @Override
+    public List<Book> findBooksFuzzy(String text, int maxResults) {
+        long start = findBooksFuzzyTimer.start();
+        try {
+            return delegate.findBooksFuzzy(text, maxResults);
+        } catch (RuntimeException e) {
+            findBooksFuzzyTimer.recordError();
+            throw e;
+        } finally {
+            findBooksFuzzyTimer.stop(start);
+        }
+    }
+    
+    @Override
+    public List<Book> findBooks(BookQuery query) {
+        long start = findBooksTimer.start();
+        try {
+            return delegate.findBooks(query);
+        } catch (RuntimeException e) {
+            findBooksTimer.recordError();
+            throw e;
+        } finally {
+            findBooksTimer.stop(start);
+        }
+    }
+    
+    @Override
+    public FacetCounts getFacets(BookQuery query) {
+        long start = getFacetsTimer.start();
+        try {
+            return delegate.getFacets(query);
+        } catch (RuntimeException e) {
+            getFacetsTimer.recordError();
+            throw e;
+        } finally {
+            getFacetsTimer.stop(start);
+        }
+    }
+    
+    @Override
+    public List<Book> findBooksByYear(int fromYear, int toYear, boolean newestFirst, int maxResults) {
+        long start = findBooksByYearTimer.start();
+        try {
+            return delegate.findBooksByYear(fromYear, toYear, newestFirst, maxResults);
+        } catch (RuntimeException e) {
+            findBooksByYearTimer.recordError();
+            throw e;
+        } finally {
+            findBooksByYearTimer.stop(start);
+        }
+    }
+    
+    @Override
+    public List<String> suggestCompletions(String prefix, int maxResults) {
+        long start = suggestCompletionsTimer.start();
+        try {
+            return delegate.suggestCompletions(prefix, maxResults);
+        } catch (RuntimeException e) {
+            suggestCompletionsTimer.recordError();
+            throw e;
+        } finally {
+            suggestCompletionsTimer.stop(start);
+        }
+    }
+    
+    @Override
+    public List<Book> getAllBooks() {
+        long start = getAllBooksTimer.start();
+        try {
+            return delegate.getAllBooks();
+        } catch (RuntimeException e) {
+            getAllBooksTimer.recordError();
+            throw e;
+        } finally {
+            getAllBooksTimer.stop(start);
+        }
+    }
+    
+    // Patron Management
+    
+    @Override
+    public void addPatron(Patron patron) {
+        long start = addPatronTimer.start();
+        try {
+            delegate.addPatron(patron);
+        } catch (RuntimeException e) {
+            addPatronTimer.recordError();
+            throw e;
+        } finally {
+            addPatronTimer.stop(start);
+        }
+    }
+    
+    @Override
+    public void updatePatron(String patronId, Patron updatedPatron) {
+        long start = updatePatronTimer.start();
+        try {
+            delegate.updatePatron(patronId, updatedPatron);
+        } catch (RuntimeException e) {
+            updatePatronTimer.recordError();
+            throw e;
+        } finally {
+            updatePatronTimer.stop(start);
+        }
+    }
+    
+    @Override
+    public Patron findPatronById(String patronId) {
+        long start = findPatronByIdTimer.start();
+        try {
+            return delegate.findPatronById(patronId);
+        } catch (RuntimeException e) {
+            findPatronByIdTimer.recordError();
+            throw e;
+        } finally {
+            findPatronByIdTimer.stop(start);
+        }
+    }
+    
+    @Override
+    public Patron findPatronByEmail(String email) {
+        long start = findPatronByEmailTimer.start();
+        try {
+            return delegate.findPatronByEmail(email);
+        } catch (RuntimeException e) {
+            findPatronByEmailTimer.recordError();
+            throw e;
+        } finally {
+            findPatronByEmailTimer.stop(start);
+        }
+    }
+    
+    @Override
+    public List<Patron> findPatronsByPhone(String phoneNumber) {
+        long start = findPatronsByPhoneTimer.start();
+        try {
+            return delegate.findPatronsByPhone(phoneNumber);
+        } catch (RuntimeException e) {
+            findPatronsByPhoneTimer.recordError();
+            throw e;
+        } finally {
+            findPatronsByPhoneTimer.stop(start);
+        }
+    }
+    
+    @Override
+    public List<Patron> findPatronsByNamePrefix(String prefix) {
+        long start = findPatronsByNamePrefixTimer.start();
+        try {
+            return delegate.findPatronsByNamePrefix(prefix);
+        } catch (RuntimeException e) {
+            findPatronsByNamePrefixTimer.recordError();
+            throw e;
+        } finally {
+            findPatronsByNamePrefixTimer.stop(start);
+        }
+    }
+    
+    @Override
+    public List<Patron> getAllPatrons() {
+        long start = getAllPatronsTimer.start();
+        try {
+            return delegate.getAllPatrons();
+        } catch (RuntimeException e) {
+            getAllPatronsTimer.recordError();
+            throw e;
+        } finally {
+            getAllPatronsTimer.stop(start);
+        }
+    }
+    
+    // Lending Process
+    
+    @Override
+    public boolean checkoutBook(String isbn, String patronId) {
+        long start = checkoutBookTimer.start();
+        try {
+            return delegate.checkoutBook(isbn, patronId);
+        } catch (RuntimeException e) {
+            checkoutBookTimer.recordError();
+            throw e;
+        } finally {
+            checkoutBookTimer.stop(start);
+        }
+    }
+    
+    @Override
+    public boolean returnBook(String isbn, String patronId) {
+        long start = returnBookTimer.start();
+        try {
+            return delegate.returnBook(isbn, patronId);
+        } catch (RuntimeException e) {
+            returnBookTimer.recordError();
+            throw e;
+        } finally {
+            returnBookTimer.stop(start);
+        }
+    }
+    
+    @Override
+    public BatchResult checkoutBooks(String patronId, List<String> isbns, BatchMode mode) {
+        long start = checkoutBooksTimer.start();
+        try {
+            return delegate.checkoutBooks(patronId, isbns, mode);
+        } catch (RuntimeException e) {
+            checkoutBooksTimer.recordError();
+            throw e;
+        } finally {
+            checkoutBooksTimer.stop(start);
+        }
+    }
+    
+    @Override
+    public BatchResult returnBooks(List<String> isbns, BatchMode mode) {
+        long start = returnBooksTimer.start();
+        try {
+            return delegate.returnBooks(isbns, mode);
+        } catch (RuntimeException e) {
+            returnBooksTimer.recordError();
+            throw e;
+        } finally {
+            returnBooksTimer.stop(start);
+        }
+    }
+    
+    @Override
+    public boolean renewLoan(String isbn, String patronId) {
+        long start = renewLoanTimer.start();
+        try {
+            return delegate.renewLoan(isbn, patronId);
+        } catch (RuntimeException e) {
+            renewLoanTimer.recordError();
+            throw e;
+        } finally {
+            renewLoanTimer.stop(start);
+        }
+    }
+    
+    @Override
+    public Loan findLoan(String isbn) {
+        long start = findLoanTimer.start();
+        try {
+            return delegate.findLoan(isbn);
+        } catch (RuntimeException e) {
+            findLoanTimer.recordError();
+            throw e;
+        } finally {
+            findLoanTimer.stop(start);
+        }
+    }
+    
+    @Override
+    public List<Loan> getOverdueLoans(Instant asOf) {
+        long start = getOverdueLoansTimer.start();
+        try {
+            return delegate.getOverdueLoans(asOf);
+        } catch (RuntimeException e) {
+            getOverdueLoansTimer.recordError();
+            throw e;
+        } finally {
+            getOverdueLoansTimer.stop(start);
+        }
+    }
+    
+    @Override
+    public List<Loan> getLoansDueWithin(Duration window) {
+        long start = getLoansDueWithinTimer.start();
+        try {
+            return delegate.getLoansDueWithin(window);
+        } catch (RuntimeException e) {
+            getLoansDueWithinTimer.recordError();
+            throw e;
+        } finally {
+            getLoansDueWithinTimer.stop(start);
+        }
+    }
+    
+    // Fines
+    
+    @Override
+    public int accrueFines() {
+        long start = accrueFinesTimer.start();
+        try {
+            return delegate.accrueFines();
+        } catch (RuntimeException e) {
+            accrueFinesTimer.recordError();
+            throw e;
+        } finally {
+            accrueFinesTimer.stop(start);
+        }
+    }
+    
+    @Override
+    public long getFineBalance(String patronId) {
+        long start = getFineBalanceTimer.start();
+        try {
+            return delegate.getFineBalance(patronId);
+        } catch (RuntimeException e) {
+            getFineBalanceTimer.recordError();
+            throw e;
+        } finally {
+            getFineBalanceTimer.stop(start);
+        }
+    }
+    
+    @Override
+    public void payFine(String patronId, long amountCents) {
+        long start = payFineTimer.start();
+        try {
+            delegate.payFine(patronId, amountCents);
+        } catch (RuntimeException e) {
+            payFineTimer.recordError();
+            throw e;
+        } finally {
+            payFineTimer.stop(start);
+        }
+    }
+    
+    // Inventory Management
+    
+    @Override
+    public int getAvailableBookCount(String isbn) {
+        long start = getAvailableBookCountTimer.start();
+        try {
+            return delegate.getAvailableBookCount(isbn);
+        } catch (RuntimeException e) {
+            getAvailableBookCountTimer.recordError();
+            throw e;
+        } finally {
+            getAvailableBookCountTimer.stop(start);
+        }
+    }
+    
+    @Override
+    public List<Book> getAvailableBooks() {
+        long start = getAvailableBooksTimer.start();
+        try {
+            return delegate.getAvailableBooks();
+        } catch (RuntimeException e) {
+            getAvailableBooksTimer.recordError();
+            throw e;
+        } finally {
+            getAvailableBooksTimer.stop(start);
+        }
+    }
+    
+    @Override
+    public List<Book> getBorrowedBooks() {
+        long start = getBorrowedBooksTimer.start();
+        try {
+            return delegate.getBorrowedBooks();
+        } catch (RuntimeException e) {
+            getBorrowedBooksTimer.recordError();
+            throw e;
+        } finally {
+            getBorrowedBooksTimer.stop(start);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package librarymanagementsystem.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Concurrent latency histogram with logarithmic buckets, in the style of HdrHistogram.
+ * Each power of two is split into {@value #SUB_BUCKETS} linear sub-buckets, so any recorded
+ * value is reported within 12.5% of its true value while the whole range from 1 ns to
+ * about 18 minutes fits in a few hundred counters.
+ * <p>
+ * Recording is striped: threads are spread over several independent sets of counters,
+ * which are only merged when a snapshot is taken, so concurrent recorders rarely contend.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 40; // values are clamped below 2^40 ns
+    private static final long MAX_VALUE = (1L << MAX_EXPONENT) - 1;
+    private static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+    private static final int MAX_STRIPES = 8;
+    
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    
+    public LatencyHistogram() {
+        int stripeCount = Math.min(MAX_STRIPES, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1) * 2);
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.stripeMask = stripeCount - 1;
+    }
+    
+    /**
+     * Records one value.
+     *
+     * @param nanos The latency in nanoseconds; negative values are recorded as zero
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, Math.min(nanos, MAX_VALUE));
+        Stripe stripe = stripes[(int) Thread.currentThread().getId() & stripeMask];
+        stripe.counts.incrementAndGet(bucketOf(value));
+        stripe.total.addAndGet(value);
+        long max = stripe.max.get();
+        while (value > max && !stripe.max.compareAndSet(max, value)) {
+            max = stripe.max.get();
+        }
+    }
+    
+    /**
+     * Merges the stripes into a point-in-time copy of the counts.
+     * Values recorded while the snapshot is taken may or may not be included.
+     *
+     * @return The merged histogram
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+        long total = 0;
+        long max = 0;
+        for (Stripe stripe : stripes) {
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                counts[i] += stripe.counts.get(i);
+            }
+            total += stripe.total.get();
+            max = Math.max(max, stripe.max.get());
+        }
+        return new Snapshot(counts, total, max);
+    }
+    
+    /**
+     * Clears all recorded values.
+     */
+    public void reset() {
+        for (Stripe stripe : stripes) {
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                stripe.counts.set(i, 0);
+            }
+            stripe.total.set(0);
+            stripe.max.set(0);
+        }
+    }
+    
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+    
+    static long highestValueIn(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int subBucket = bucket % SUB_BUCKETS;
+        long lowest = (long) (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+        return lowest + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+    
+    /**
+     * Counters owned by a subset of recording threads.
+     */
+    private static class Stripe {
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+        private final AtomicLong total = new AtomicLong();
+        private final AtomicLong max = new AtomicLong();
+    }
+    
+    /**
+     * Immutable merged view of a histogram.
+     */
+    public static class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long total;
+        private final long max;
+        
+        Snapshot(long[] counts, long total, long max) {
+            long count = 0;
+            for (long bucketCount : counts) {
+                count += bucketCount;
+            }
+            this.counts = counts;
+            this.count = count;
+            this.total = total;
+            this.max = max;
+        }
+        
+        // Getters
+        public long getCount() {
+            return count;
+        }
+        
+        public long getMax() {
+            return max;
+        }
+        
+        public double getMean() {
+            return count == 0 ? 0 : (double) total / count;
+        }
+        
+        /**
+         * Gets the value at a percentile, reported as the highest value of its bucket.
+         *
+         * @param percentile The percentile, from 0 to 100
+         * @return The value in nanoseconds, or 0 if nothing was recorded
+         */
+        public long getValueAtPercentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(highestValueIn(i), max);
+                }
+            }
+            return max;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package librarymanagementsystem.metrics;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JMX view of a {@link MetricsRegistry}.
+ */
+public interface LibraryMetricsMXBean {
+    boolean isEnabled();
+    void setEnabled(boolean enabled);
+    List<OperationSummary> getOperations();
+    Map<String, Double> getGauges();
+    void reset();
+}
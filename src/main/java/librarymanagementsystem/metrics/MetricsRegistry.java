@@ -0,0 +1,164 @@
+package librarymanagementsystem.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.DoubleSupplier;
+import java.util.logging.Logger;
+
+/**
+ * Named operation timers for the library and its managers.
+ * Metrics are off by default: components create their timers up front, and until the
+ * registry is enabled every timer call reduces to a single volatile read.
+ * Components can also register gauges, values such as cache hit counts that they keep
+ * anyway and that are only read when a snapshot is taken.
+ */
+public class MetricsRegistry {
+    private static final Logger logger = Logger.getLogger(MetricsRegistry.class.getName());
+    private static final MetricsRegistry DEFAULT = new MetricsRegistry();
+    
+    /** Name under which {@link #registerMBean()} publishes the registry. */
+    public static final String MBEAN_NAME = "librarymanagementsystem:type=Metrics";
+    
+    private final Map<String, Timer> timers;
+    private final Map<String, DoubleSupplier> gauges;
+    private volatile boolean enabled;
+    
+    public MetricsRegistry() {
+        this.timers = new ConcurrentSkipListMap<>();
+        this.gauges = new ConcurrentSkipListMap<>();
+    }
+    
+    /**
+     * Gets the registry shared by the library's managers.
+     *
+     * @return The default registry
+     */
+    public static MetricsRegistry getDefault() {
+        return DEFAULT;
+    }
+    
+    /**
+     * Gets the timer for an operation, creating it on first use.
+     *
+     * @param name The operation name, e.g. "lending.checkout"
+     * @return The timer
+     * @throws IllegalArgumentException if name is null or empty
+     */
+    public Timer timer(String name) {
+        if (name == null || name.isEmpty()) {
+            logger.warning("Attempted to create timer with null or empty name");
+            throw new IllegalArgumentException("Timer name cannot be null or empty");
+        }
+        return timers.computeIfAbsent(name, n -> new Timer(n, this));
+    }
+    
+    /**
+     * Registers a gauge, replacing any gauge registered under the same name before. Gauges
+     * are read whenever a snapshot is taken, whether or not the registry is enabled.
+     *
+     * @param name The gauge name, e.g. "search.queryCache.hits"
+     * @param value Reads the current value; must be safe to call from any thread
+     * @throws IllegalArgumentException if name is null or empty, or value is null
+     */
+    public void gauge(String name, DoubleSupplier value) {
+        if (name == null || name.isEmpty() || value == null) {
+            logger.warning("Attempted to register gauge with null or empty name or value");
+            throw new IllegalArgumentException("Gauge name and value cannot be null or empty");
+        }
+        gauges.put(name, value);
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        logger.info("Metrics " + (enabled ? "enabled" : "disabled"));
+    }
+    
+    /**
+     * Takes a snapshot of every timer that has recorded anything and of every gauge.
+     *
+     * @return The snapshot
+     */
+    public MetricsSnapshot snapshot() {
+        Map<String, OperationSummary> operations = new LinkedHashMap<>();
+        for (Timer timer : timers.values()) {
+            OperationSummary summary = timer.summarize();
+            if (summary.getCount() > 0 || summary.getErrors() > 0) {
+                operations.put(timer.getName(), summary);
+            }
+        }
+        Map<String, Double> gaugeValues = new LinkedHashMap<>();
+        gauges.forEach((name, value) -> gaugeValues.put(name, value.getAsDouble()));
+        return new MetricsSnapshot(Instant.now(), operations, gaugeValues);
+    }
+    
+    /**
+     * Clears all recorded values, keeping the timers. Gauges belong to their components and
+     * are left as they are.
+     */
+    public void reset() {
+        for (Timer timer : timers.values()) {
+            timer.reset();
+        }
+    }
+    
+    /**
+     * Publishes this registry on the platform MBean server under {@link #MBEAN_NAME}.
+     *
+     * @return The name the registry was registered under
+     * @throws IllegalStateException if registration fails, e.g. because the name is taken
+     */
+    public ObjectName registerMBean() {
+        try {
+            ObjectName name = new ObjectName(MBEAN_NAME);
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(new LibraryMetrics(), name);
+            logger.info("Registered metrics MBean " + name);
+            return name;
+        } catch (JMException e) {
+            logger.warning("Failed to register metrics MBean: " + e.getMessage());
+            throw new IllegalStateException("Failed to register metrics MBean", e);
+        }
+    }
+    
+    /**
+     * MXBean adapter for this registry.
+     */
+    private class LibraryMetrics implements LibraryMetricsMXBean {
+        @Override
+        public boolean isEnabled() {
+            return MetricsRegistry.this.isEnabled();
+        }
+        
+        @Override
+        public void setEnabled(boolean enabled) {
+            MetricsRegistry.this.setEnabled(enabled);
+        }
+        
+        @Override
+        public List<OperationSummary> getOperations() {
+            return new ArrayList<>(snapshot().getOperations().values());
+        }
+        
+        @Override
+        public Map<String, Double> getGauges() {
+            return snapshot().getGauges();
+        }
+        
+        @Override
+        public void reset() {
+            MetricsRegistry.this.reset();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package librarymanagementsystem.metrics;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Statistics for all operations and the values of all gauges of a registry at one point in
+ * time.
+ */
+public class MetricsSnapshot {
+    private final Instant takenAt;
+    private final Map<String, OperationSummary> operations;
+    private final Map<String, Double> gauges;
+    
+    MetricsSnapshot(Instant takenAt, Map<String, OperationSummary> operations, Map<String, Double> gauges) {
+        this.takenAt = takenAt;
+        this.operations = Collections.unmodifiableMap(operations);
+        this.gauges = Collections.unmodifiableMap(gauges);
+    }
+    
+    // Getters
+    public Instant getTakenAt() {
+        return takenAt;
+    }
+    
+    /**
+     * Gets the summaries of all operations, ordered by name.
+     *
+     * @return Operation name -> summary
+     */
+    public Map<String, OperationSummary> getOperations() {
+        return operations;
+    }
+    
+    /**
+     * Gets the summary of one operation.
+     *
+     * @param name The operation name
+     * @return The summary, or null if the operation has no timer
+     */
+    public OperationSummary get(String name) {
+        return operations.get(name);
+    }
+    
+    /**
+     * Gets the values of all gauges, ordered by name.
+     *
+     * @return Gauge name -> value
+     */
+    public Map<String, Double> getGauges() {
+        return gauges;
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("Metrics at ").append(takenAt).append('\n');
+        for (OperationSummary summary : operations.values()) {
+            text.append("  ").append(summary).append('\n');
+        }
+        gauges.forEach((name, value) -> text.append("  ").append(name).append(": ").append(value).append('\n'));
+        return text.toString();
+    }
+}
@@ -0,0 +1,74 @@
+package librarymanagementsystem.metrics;
+
+/**
+ * Point-in-time statistics for one operation. Latencies are in microseconds.
+ * The getters follow JavaBean conventions so summaries can be exposed through JMX.
+ */
+public class OperationSummary {
+    private static final double NANOS_PER_MICRO = 1000.0;
+    
+    private final String name;
+    private final long count;
+    private final long errors;
+    private final double meanMicros;
+    private final double p50Micros;
+    private final double p90Micros;
+    private final double p99Micros;
+    private final double p999Micros;
+    private final double maxMicros;
+    
+    OperationSummary(String name, LatencyHistogram.Snapshot histogram, long errors) {
+        this.name = name;
+        this.count = histogram.getCount();
+        this.errors = errors;
+        this.meanMicros = histogram.getMean() / NANOS_PER_MICRO;
+        this.p50Micros = histogram.getValueAtPercentile(50) / NANOS_PER_MICRO;
+        this.p90Micros = histogram.getValueAtPercentile(90) / NANOS_PER_MICRO;
+        this.p99Micros = histogram.getValueAtPercentile(99) / NANOS_PER_MICRO;
+        this.p999Micros = histogram.getValueAtPercentile(99.9) / NANOS_PER_MICRO;
+        this.maxMicros = histogram.getMax() / NANOS_PER_MICRO;
+    }
+    
+    // Getters
+    public String getName() {
+        return name;
+    }
+    
+    public long getCount() {
+        return count;
+    }
+    
+    public long getErrors() {
+        return errors;
+    }
+    
+    public double getMeanMicros() {
+        return meanMicros;
+    }
+    
+    public double getP50Micros() {
+        return p50Micros;
+    }
+    
+    public double getP90Micros() {
+        return p90Micros;
+    }
+    
+    public double getP99Micros() {
+        return p99Micros;
+    }
+    
+    public double getP999Micros() {
+        return p999Micros;
+    }
+    
+    public double getMaxMicros() {
+        return maxMicros;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("%-36s count=%d errors=%d mean=%.1fus p50=%.1fus p99=%.1fus p99.9=%.1fus max=%.1fus",
+                name, count, errors, meanMicros, p50Micros, p99Micros, p999Micros, maxMicros);
+    }
+}
@@ -0,0 +1,70 @@
+package librarymanagementsystem.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram and error counter for one named operation.
+ * Callers bracket the operation with {@link #start()} and {@link #stop(long)}; while the
+ * owning registry is disabled, {@code start()} returns 0 and nothing is recorded, so an
+ * unused timer costs one volatile read per operation.
+ */
+public class Timer {
+    private final String name;
+    private final MetricsRegistry registry;
+    private final LatencyHistogram histogram;
+    private final LongAdder errors;
+    
+    Timer(String name, MetricsRegistry registry) {
+        this.name = name;
+        this.registry = registry;
+        this.histogram = new LatencyHistogram();
+        this.errors = new LongAdder();
+    }
+    
+    /**
+     * Starts timing an operation.
+     *
+     * @return The start time to pass to {@link #stop(long)}, or 0 if metrics are disabled
+     */
+    public long start() {
+        return registry.isEnabled() ? System.nanoTime() : 0;
+    }
+    
+    /**
+     * Stops timing an operation and records its latency.
+     *
+     * @param start The value returned by {@link #start()}
+     */
+    public void stop(long start) {
+        if (start != 0) {
+            histogram.record(System.nanoTime() - start);
+        }
+    }
+    
+    /**
+     * Counts a failed operation, e.g. one that threw an exception.
+     */
+    public void recordError() {
+        if (registry.isEnabled()) {
+            errors.increment();
+        }
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     * Summarizes the recorded latencies and errors.
+     *
+     * @return The summary
+     */
+    public OperationSummary summarize() {
+        return new OperationSummary(name, histogram.snapshot(), errors.sum());
+    }
+    
+    void reset() {
+        histogram.reset();
+        errors.reset();
+    }
+}
@@ -0,0 +1,79 @@
+package librarymanagementsystem.model;
+
+import librarymanagementsystem.utils.LongHashSet;
+
+import java.util.Arrays;
+
+/**
+ * Append-only log of the distinct books a patron has borrowed.
+ * Each entry stores only the ISBN key and the time of the first checkout in primitive arrays,
+ * so the log never keeps Book objects alive; readers resolve the keys against the catalog.
+ * Membership is checked through a hash set of ISBN keys in O(1).
+ */
+public class BorrowingHistory {
+    private static final int INITIAL_CAPACITY = 8;
+    
+    private long[] isbnKeys;
+    private long[] timestamps;
+    private int size;
+    private LongHashSet borrowed;
+    
+    public BorrowingHistory() {
+        this.isbnKeys = new long[INITIAL_CAPACITY];
+        this.timestamps = new long[INITIAL_CAPACITY];
+        this.borrowed = new LongHashSet();
+    }
+    
+    /**
+     * Appends a book to the log unless it has been borrowed before.
+     *
+     * @param key The ISBN key of the book, see IsbnKeys
+     * @param timestamp The checkout time in milliseconds since the epoch
+     * @return true if the book was appended, false if it was already in the history
+     */
+    public boolean record(long key, long timestamp) {
+        if (!borrowed.add(key)) {
+            return false;
+        }
+        
+        if (size == isbnKeys.length) {
+            int capacity = size * 2;
+            isbnKeys = Arrays.copyOf(isbnKeys, capacity);
+            timestamps = Arrays.copyOf(timestamps, capacity);
+        }
+        isbnKeys[size] = key;
+        timestamps[size] = timestamp;
+        size++;
+        return true;
+    }
+    
+    /**
+     * Checks whether a book is in the history.
+     *
+     * @param key The ISBN key of the book, see IsbnKeys
+     * @return true if the book has been borrowed before
+     */
+    public boolean contains(long key) {
+        return borrowed.contains(key);
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public long getIsbnKey(int index) {
+        checkIndex(index);
+        return isbnKeys[index];
+    }
+    
+    public long getTimestamp(int index) {
+        checkIndex(index);
+        return timestamps[index];
+    }
+    
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+    }
+}
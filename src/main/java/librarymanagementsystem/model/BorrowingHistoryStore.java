@@ -0,0 +1,26 @@
+package librarymanagementsystem.model;
+
+/**
+ * Storage for patron borrowing history kept outside the Patron objects themselves,
+ * keyed by patron ID. Entries are ISBN keys (see IsbnKeys) with checkout timestamps.
+ */
+public interface BorrowingHistoryStore {
+    void append(String patronId, long isbnKey, long timestamp);
+    int size(String patronId);
+    boolean contains(String patronId, long isbnKey);
+    
+    /**
+     * Visits a patron's entries from oldest to newest.
+     *
+     * @param patronId The ID of the patron
+     * @param visitor The visitor receiving each entry
+     */
+    void forEach(String patronId, EntryVisitor visitor);
+    
+    /**
+     * Receives history entries without boxing.
+     */
+    interface EntryVisitor {
+        void visit(long isbnKey, long timestamp);
+    }
+}
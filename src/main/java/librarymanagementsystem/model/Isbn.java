@@ -0,0 +1,188 @@
+package librarymanagementsystem.model;
+
+/**
+ * Immutable ISBN value.
+ * Both ISBN-10 and ISBN-13 inputs (with or without hyphens or spaces) are validated once
+ * and normalized to the 13-digit EAN form, which is held as a primitive long.
+ */
+public final class Isbn {
+    /** Returned by {@link #parseToLong(CharSequence)} for text that is not a valid ISBN. */
+    public static final long INVALID = -1L;
+
+    private final long value;
+
+    private Isbn(long value) {
+        this.value = value;
+    }
+
+    /**
+     * Parses and validates an ISBN-10 or ISBN-13.
+     *
+     * @param text The ISBN text, optionally containing hyphens or spaces
+     * @return The normalized ISBN
+     * @throws IllegalArgumentException if the text is not a valid ISBN
+     */
+    public static Isbn parse(String text) {
+        long value = parseToLong(text);
+        if (value == INVALID) {
+            throw new IllegalArgumentException("Invalid ISBN: " + text);
+        }
+        return new Isbn(value);
+    }
+
+    /**
+     * Creates an ISBN from its 13-digit numeric form.
+     *
+     * @param value The 13-digit ISBN
+     * @return The ISBN
+     * @throws IllegalArgumentException if the value is not a valid ISBN-13
+     */
+    public static Isbn of(long value) {
+        if (!isValid13(value)) {
+            throw new IllegalArgumentException("Invalid ISBN-13: " + value);
+        }
+        return new Isbn(value);
+    }
+
+    /**
+     * Checks whether text is a valid ISBN-10 or ISBN-13.
+     *
+     * @param text The text to check
+     * @return true if the text is a valid ISBN
+     */
+    public static boolean isValid(CharSequence text) {
+        return parseToLong(text) != INVALID;
+    }
+
+    /**
+     * Parses an ISBN-10 or ISBN-13 into its 13-digit numeric form without allocating.
+     *
+     * @param text The ISBN text, optionally containing hyphens or spaces
+     * @return The 13-digit ISBN, or {@link #INVALID}
+     */
+    public static long parseToLong(CharSequence text) {
+        if (text == null) {
+            return INVALID;
+        }
+
+        long digits = 0;
+        int count = 0;
+        boolean checkIsX = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '-' || c == ' ') {
+                continue;
+            }
+            if (checkIsX || count == 13) {
+                return INVALID;
+            }
+            if (c >= '0' && c <= '9') {
+                digits = digits * 10 + (c - '0');
+            } else if ((c == 'X' || c == 'x') && count == 9) {
+                checkIsX = true; // only valid as the ISBN-10 check digit
+            } else {
+                return INVALID;
+            }
+            count++;
+        }
+
+        if (count == 10) {
+            return fromIsbn10(digits, checkIsX);
+        }
+        if (count == 13 && !checkIsX && isValid13(digits)) {
+            return digits;
+        }
+        return INVALID;
+    }
+
+    private static long fromIsbn10(long digits, boolean checkIsX) {
+        // digits holds the first nine digits when the check digit is X, all ten otherwise
+        long body = checkIsX ? digits : digits / 10;
+        int check = checkIsX ? 10 : (int) (digits % 10);
+
+        int sum = 0;
+        long remaining = body;
+        for (int weight = 2; weight <= 10; weight++) {
+            sum += weight * (int) (remaining % 10);
+            remaining /= 10;
+        }
+        if ((sum + check) % 11 != 0) {
+            return INVALID;
+        }
+
+        long prefixed = 978_000_000_000_0L + body * 10;
+        return prefixed + checkDigit13(prefixed / 10);
+    }
+
+    private static boolean isValid13(long value) {
+        if (value < 978_000_000_000_0L || value > 979_999_999_999_9L) {
+            return false;
+        }
+        return checkDigit13(value / 10) == value % 10;
+    }
+
+    private static int checkDigit13(long firstTwelve) {
+        int sum = 0;
+        long remaining = firstTwelve;
+        for (int i = 0; i < 12; i++) {
+            int digit = (int) (remaining % 10);
+            sum += (i % 2 == 0) ? digit * 3 : digit; // weights alternate 1,3 from the left
+            remaining /= 10;
+        }
+        return (10 - sum % 10) % 10;
+    }
+
+    // Getters
+    public long toLong() {
+        return value;
+    }
+
+    /**
+     * Formats the ISBN as 13 digits without separators.
+     *
+     * @return The ISBN-13 string
+     */
+    public String toIsbn13() {
+        return Long.toString(value);
+    }
+
+    /**
+     * Formats the ISBN in its ISBN-10 form, if it has one.
+     *
+     * @return The ISBN-10 string, or null for 979-prefixed ISBNs
+     */
+    public String toIsbn10() {
+        if (value / 1_000_000_000_0L != 978) {
+            return null;
+        }
+
+        long body = (value / 10) % 1_000_000_000L;
+        int sum = 0;
+        long remaining = body;
+        for (int weight = 2; weight <= 10; weight++) {
+            sum += weight * (int) (remaining % 10);
+            remaining /= 10;
+        }
+        int check = (11 - sum % 11) % 11;
+        String digits = String.format("%09d", body);
+        return digits + (check == 10 ? "X" : Integer.toString(check));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Isbn isbn = (Isbn) o;
+        return value == isbn.value;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(value);
+    }
+
+    @Override
+    public String toString() {
+        return toIsbn13();
+    }
+}
@@ -1,8 +1,13 @@
 package librarymanagementsystem.model;
 
+import librarymanagementsystem.utils.IsbnKeys;
+import librarymanagementsystem.utils.LongHashSet;
+
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.LongFunction;
 
 /**
  * Represents a library patron/member.
@@ -13,7 +18,11 @@ public class Patron {
     private String email;
     private String phoneNumber;
     private String patronId;
-    private List<Book> borrowingHistory;
+    private PatronType patronType;
+    private BorrowingHistory borrowingHistory;
+    private IsbnKeys isbns; // Keys of the library the patron is registered with
+    private BorrowingHistoryStore historyStore; // Optional external (e.g. off-heap) history storage
+    private LongFunction<Book> bookResolver; // Resolves history ISBN keys against the library's catalog
     
     /**
      * Constructor for creating a new patron.
@@ -24,11 +33,27 @@ public class Patron {
      * @param patronId The unique identifier for the patron
      */
     public Patron(String name, String email, String phoneNumber, String patronId) {
+        this(name, email, phoneNumber, patronId, PatronType.STANDARD);
+    }
+    
+    /**
+     * Constructor for creating a new patron of a specific membership type.
+     *
+     * @param name The name of the patron
+     * @param email The email of the patron
+     * @param phoneNumber The phone number of the patron
+     * @param patronId The unique identifier for the patron
+     * @param patronType The membership type, which determines lending limits
+     */
+    public Patron(String name, String email, String phoneNumber, String patronId, PatronType patronType) {
         this.name = name;
         this.email = email;
         this.phoneNumber = phoneNumber;
         this.patronId = patronId;
-        this.borrowingHistory = new ArrayList<>();
+        this.patronType = patronType != null ? patronType : PatronType.STANDARD;
+        this.borrowingHistory = new BorrowingHistory();
+        this.isbns = new IsbnKeys();
+        this.bookResolver = key -> null;
     }
     
     // Getters
@@ -48,8 +73,39 @@ public class Patron {
         return patronId;
     }
     
+    public PatronType getPatronType() {
+        return patronType;
+    }
+    
+    /**
+     * Gets the books the patron has borrowed, in the order they were first borrowed.
+     * The history only keeps ISBN keys, which are resolved against the catalog of the library
+     * the patron is registered with; books no longer in the catalog are left out.
+     *
+     * @return A read-only list of the borrowed books
+     */
     public List<Book> getBorrowingHistory() {
-        return new ArrayList<>(borrowingHistory); // Return a copy to maintain encapsulation
+        if (historyStore != null) {
+            return readHistoryStore();
+        }
+        List<Book> books = new ArrayList<>(borrowingHistory.size());
+        for (int i = 0; i < borrowingHistory.size(); i++) {
+            Book book = bookResolver.apply(borrowingHistory.getIsbnKey(i));
+            if (book != null) {
+                books.add(book);
+            }
+        }
+        return Collections.unmodifiableList(books);
+    }
+    
+    /**
+     * Gets the on-heap history log with ISBN keys and first-checkout timestamps.
+     * The log is empty once the patron uses a history store.
+     *
+     * @return The patron's on-heap borrowing history
+     */
+    public BorrowingHistory getBorrowingLog() {
+        return borrowingHistory;
     }
     
     // Setters
@@ -65,17 +121,123 @@ public class Patron {
         this.phoneNumber = phoneNumber;
     }
     
+    public void setPatronType(PatronType patronType) {
+        this.patronType = patronType != null ? patronType : PatronType.STANDARD;
+    }
+    
     /**
      * Adds a book to the patron's borrowing history.
      *
      * @param book The book to add to the borrowing history
      */
     public void addToBorrowingHistory(Book book) {
-        if (!borrowingHistory.contains(book)) {
-            borrowingHistory.add(book);
+        addToBorrowingHistory(book, System.currentTimeMillis());
+    }
+    
+    /**
+     * Adds a book to the patron's borrowing history with an explicit checkout time.
+     * Books already in the history are not added again.
+     *
+     * @param book The book to add to the borrowing history
+     * @param timestamp The checkout time in milliseconds since the epoch
+     */
+    public void addToBorrowingHistory(Book book, long timestamp) {
+        addToBorrowingHistory(isbns.keyOf(book.getIsbn()), timestamp);
+    }
+    
+    /**
+     * Adds a book whose ISBN key is already known to the patron's borrowing history.
+     *
+     * @param isbnKey The ISBN key of the book in the patron's {@link IsbnKeys}
+     * @param timestamp The checkout time in milliseconds since the epoch
+     */
+    public void addToBorrowingHistory(long isbnKey, long timestamp) {
+        if (historyStore != null) {
+            historyStore.append(patronId, isbnKey, timestamp);
+        } else {
+            borrowingHistory.record(isbnKey, timestamp);
         }
     }
     
+    /**
+     * Checks in constant time whether the patron has borrowed a book before.
+     *
+     * @param isbn The ISBN of the book
+     * @return true if the book is in the borrowing history
+     */
+    public boolean hasBorrowed(String isbn) {
+        long key = isbns.existingKeyOf(isbn);
+        if (key == IsbnKeys.NO_KEY) {
+            return false;
+        }
+        return historyStore != null ? historyStore.contains(patronId, key) : borrowingHistory.contains(key);
+    }
+    
+    /**
+     * Binds the patron to the library it is registered with: the history is keyed by the
+     * library's ISBN keys and read back against its catalog. Entries already in the history
+     * are re-keyed. Must be called before a history store is attached, since the store is
+     * keyed by the library's keys.
+     *
+     * @param isbns The ISBN keys of the library
+     * @param bookResolver Resolves ISBN keys to the books of the library's catalog
+     */
+    public void useCatalog(IsbnKeys isbns, LongFunction<Book> bookResolver) {
+        if (isbns == null || bookResolver == null) {
+            throw new IllegalArgumentException("ISBN keys and book resolver cannot be null");
+        }
+        this.bookResolver = bookResolver;
+        if (isbns == this.isbns) {
+            return;
+        }
+        
+        BorrowingHistory rekeyed = new BorrowingHistory();
+        for (int i = 0; i < borrowingHistory.size(); i++) {
+            long key = isbns.keyOf(this.isbns.toIsbnString(borrowingHistory.getIsbnKey(i)));
+            rekeyed.record(key, borrowingHistory.getTimestamp(i));
+        }
+        this.isbns = isbns;
+        this.borrowingHistory = rekeyed;
+    }
+    
+    /**
+     * Moves the patron's borrowing history into an external store, so the Patron object
+     * only holds active state. Existing entries are copied into the store.
+     *
+     * @param store The store to keep the history in
+     * @param bookResolver Resolves ISBN keys back to books when the history is read
+     */
+    public void useHistoryStore(BorrowingHistoryStore store, LongFunction<Book> bookResolver) {
+        if (store == null || bookResolver == null) {
+            throw new IllegalArgumentException("History store and book resolver cannot be null");
+        }
+        if (store == historyStore) {
+            return;
+        }
+        
+        for (int i = 0; i < borrowingHistory.size(); i++) {
+            store.append(patronId, borrowingHistory.getIsbnKey(i), borrowingHistory.getTimestamp(i));
+        }
+        this.historyStore = store;
+        this.bookResolver = bookResolver;
+        this.borrowingHistory = new BorrowingHistory();
+    }
+    
+    private List<Book> readHistoryStore() {
+        // The store holds every loan; keep the first borrow of each title, as the log does
+        List<Book> books = new ArrayList<>();
+        LongHashSet seen = new LongHashSet();
+        historyStore.forEach(patronId, (isbnKey, timestamp) -> {
+            if (seen.add(isbnKey)) {
+                Book book = bookResolver.apply(isbnKey);
+                if (book != null) {
+                    books.add(book);
+                }
+            }
+        });
+        return Collections.unmodifiableList(books);
+    }
+    
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -96,7 +258,8 @@ public class Patron {
                 ", email='" + email + '\'' +
                 ", phoneNumber='" + phoneNumber + '\'' +
                 ", patronId='" + patronId + '\'' +
-                ", borrowingHistory=" + borrowingHistory.size() + " books" +
+                ", patronType=" + patronType +
+                ", borrowingHistory=" + (historyStore != null ? historyStore.size(patronId) : borrowingHistory.size()) + " books" +
                 '}';
     }
 }
\ No newline at end of file
@@ -0,0 +1,11 @@
+package librarymanagementsystem.model;
+
+/**
+ * Membership categories of library patrons, used to apply different lending policies.
+ */
+public enum PatronType {
+    STANDARD,
+    CHILD,
+    STUDENT,
+    FACULTY
+}
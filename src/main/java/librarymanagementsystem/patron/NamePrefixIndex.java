@@ -0,0 +1,137 @@
+package librarymanagementsystem.patron;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Trie mapping name keys to patron IDs, supporting prefix lookups.
+ * Finding the node for a prefix costs O(prefix length); the matches are then collected
+ * from that node's subtree.
+ */
+public class NamePrefixIndex {
+    private Node root;
+    
+    public NamePrefixIndex() {
+        this.root = new Node();
+    }
+    
+    /**
+     * Adds a patron ID under a key.
+     *
+     * @param key The normalized key
+     * @param patronId The ID of the patron
+     */
+    public void add(String key, String patronId) {
+        Node node = root;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.childFor(key.charAt(i), true);
+        }
+        if (node.patronIds == null) {
+            node.patronIds = new LinkedHashSet<>();
+        }
+        node.patronIds.add(patronId);
+    }
+    
+    /**
+     * Removes a patron ID from a key, pruning nodes that no longer lead anywhere.
+     *
+     * @param key The normalized key
+     * @param patronId The ID of the patron
+     */
+    public void remove(String key, String patronId) {
+        Deque<Node> path = new ArrayDeque<>();
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            path.push(node);
+            node = node.childFor(key.charAt(i), false);
+        }
+        if (node == null || node.patronIds == null || !node.patronIds.remove(patronId)) {
+            return;
+        }
+        
+        for (int i = key.length() - 1; i >= 0 && node.isEmpty(); i--) {
+            Node parent = path.pop();
+            parent.removeChild(key.charAt(i));
+            node = parent;
+        }
+    }
+    
+    /**
+     * Finds the IDs of all patrons with a key starting with the given prefix.
+     *
+     * @param prefix The normalized prefix
+     * @return The matching patron IDs, in insertion order per key
+     */
+    public Set<String> findByPrefix(String prefix) {
+        Set<String> result = new LinkedHashSet<>();
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.childFor(prefix.charAt(i), false);
+        }
+        if (node == null) {
+            return result;
+        }
+        
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(node);
+        while (!pending.isEmpty()) {
+            Node current = pending.pop();
+            if (current.patronIds != null) {
+                result.addAll(current.patronIds);
+            }
+            for (int i = current.childCount - 1; i >= 0; i--) {
+                pending.push(current.children[i]);
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Trie node with children kept in arrays sorted by label.
+     */
+    private static class Node {
+        private char[] labels = new char[0];
+        private Node[] children = new Node[0];
+        private int childCount;
+        private Set<String> patronIds;
+        
+        Node childFor(char label, boolean create) {
+            int index = Arrays.binarySearch(labels, 0, childCount, label);
+            if (index >= 0) {
+                return children[index];
+            }
+            if (!create) {
+                return null;
+            }
+            
+            int insertAt = -index - 1;
+            if (childCount == labels.length) {
+                labels = Arrays.copyOf(labels, Math.max(2, childCount * 2));
+                children = Arrays.copyOf(children, labels.length);
+            }
+            System.arraycopy(labels, insertAt, labels, insertAt + 1, childCount - insertAt);
+            System.arraycopy(children, insertAt, children, insertAt + 1, childCount - insertAt);
+            Node child = new Node();
+            labels[insertAt] = label;
+            children[insertAt] = child;
+            childCount++;
+            return child;
+        }
+        
+        void removeChild(char label) {
+            int index = Arrays.binarySearch(labels, 0, childCount, label);
+            if (index >= 0) {
+                System.arraycopy(labels, index + 1, labels, index, childCount - index - 1);
+                System.arraycopy(children, index + 1, children, index, childCount - index - 1);
+                children[--childCount] = null;
+            }
+        }
+        
+        boolean isEmpty() {
+            return childCount == 0 && (patronIds == null || patronIds.isEmpty());
+        }
+    }
+}
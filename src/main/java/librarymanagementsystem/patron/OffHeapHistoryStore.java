@@ -0,0 +1,274 @@
+package librarymanagementsystem.patron;
+
+import librarymanagementsystem.model.BorrowingHistoryStore;
+import librarymanagementsystem.utils.LongList;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Borrowing history store that keeps every loan record outside the Java heap.
+ * Records live in fixed-size segments of direct memory, or of a memory-mapped scratch file,
+ * and each patron's records are chained from newest to oldest. The heap only holds one small,
+ * fixed-size entry per patron: the newest record, the record count and a
+ * {@value #FILTER_BITS}-bit Bloom filter of the ISBN keys borrowed. {@link #contains(String, long)}
+ * answers most misses from the filter alone and only walks the off-heap chain when the filter
+ * reports a possible hit. However long a history grows, it adds nothing to the heap, so it
+ * adds nothing to old-gen size or GC pause time.
+ *
+ * Every checkout is appended; repeat loans of the same title are collapsed when reading.
+ *
+ * The segments live until {@link #close()}, which releases the direct memory, or unmaps the
+ * file, right away instead of waiting for the buffers to be garbage collected. The store
+ * cannot be used after it is closed, so close it only once no patron reads from it.
+ */
+public class OffHeapHistoryStore implements BorrowingHistoryStore, Closeable {
+    private static final Logger logger = Logger.getLogger(OffHeapHistoryStore.class.getName());
+    
+    // Record layout: ISBN key (8 bytes), timestamp (8 bytes), previous record index (4 bytes)
+    private static final int RECORD_SIZE = 20;
+    private static final int KEY_OFFSET = 0;
+    private static final int TIMESTAMP_OFFSET = 8;
+    private static final int PREVIOUS_OFFSET = 16;
+    private static final int RECORDS_PER_SEGMENT = 1 << 16;
+    private static final int SEGMENT_SIZE = RECORD_SIZE * RECORDS_PER_SEGMENT;
+    // Per-patron Bloom filter: two bits per ISBN key
+    private static final int FILTER_BITS = 256;
+    private static final int FILTER_WORDS = FILTER_BITS / Long.SIZE;
+    // Frees a direct or mapped buffer immediately; null if the runtime does not allow it
+    private static final MethodHandle INVOKE_CLEANER = findCleaner();
+    
+    private List<ByteBuffer> segments;
+    private FileChannel channel; // null when using direct memory
+    private Map<String, PatronChain> patronChains;
+    private int recordCount;
+    private boolean closed;
+    
+    /**
+     * Constructor for a store backed by direct (off-heap) memory.
+     */
+    public OffHeapHistoryStore() {
+        this.segments = new ArrayList<>();
+        this.patronChains = new HashMap<>();
+        logger.info("Off-heap history store initialized in direct memory");
+    }
+    
+    /**
+     * Constructor for a store backed by a memory-mapped file, letting the operating system
+     * page history out of RAM. The file is scratch space and is overwritten.
+     *
+     * @param file The file to map
+     * @throws IOException if the file cannot be opened
+     */
+    public OffHeapHistoryStore(Path file) throws IOException {
+        this.segments = new ArrayList<>();
+        this.patronChains = new HashMap<>();
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        logger.info("Off-heap history store initialized with mapped file: " + file);
+    }
+    
+    @Override
+    public synchronized void append(String patronId, long isbnKey, long timestamp) {
+        if (patronId == null || patronId.isEmpty()) {
+            throw new IllegalArgumentException("Patron ID cannot be null or empty");
+        }
+        
+        ensureOpen();
+        
+        int record = recordCount;
+        ByteBuffer segment = segmentFor(record);
+        int offset = (record % RECORDS_PER_SEGMENT) * RECORD_SIZE;
+        PatronChain chain = patronChains.computeIfAbsent(patronId, id -> new PatronChain());
+        
+        segment.putLong(offset + KEY_OFFSET, isbnKey);
+        segment.putLong(offset + TIMESTAMP_OFFSET, timestamp);
+        segment.putInt(offset + PREVIOUS_OFFSET, chain.head);
+        chain.head = record;
+        chain.count++;
+        chain.add(isbnKey);
+        recordCount++;
+    }
+    
+    @Override
+    public synchronized int size(String patronId) {
+        ensureOpen();
+        PatronChain chain = patronChains.get(patronId);
+        return chain != null ? chain.count : 0;
+    }
+    
+    @Override
+    public synchronized boolean contains(String patronId, long isbnKey) {
+        ensureOpen();
+        PatronChain chain = patronChains.get(patronId);
+        if (chain == null || !chain.mightContain(isbnKey)) {
+            return false;
+        }
+        
+        // Confirm a possible hit against the records; recent titles are found first
+        for (int record = chain.head; record >= 0; record = previous(record)) {
+            ByteBuffer segment = segments.get(record / RECORDS_PER_SEGMENT);
+            if (segment.getLong((record % RECORDS_PER_SEGMENT) * RECORD_SIZE + KEY_OFFSET) == isbnKey) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    @Override
+    public synchronized void forEach(String patronId, EntryVisitor visitor) {
+        ensureOpen();
+        PatronChain chain = patronChains.get(patronId);
+        if (chain == null) {
+            return;
+        }
+        
+        // The chain runs newest to oldest; collect record indexes to replay oldest first
+        LongList records = new LongList(chain.count);
+        for (int record = chain.head; record >= 0; record = previous(record)) {
+            records.add(record);
+        }
+        for (int i = records.size() - 1; i >= 0; i--) {
+            int record = (int) records.get(i);
+            ByteBuffer segment = segments.get(record / RECORDS_PER_SEGMENT);
+            int offset = (record % RECORDS_PER_SEGMENT) * RECORD_SIZE;
+            visitor.visit(segment.getLong(offset + KEY_OFFSET), segment.getLong(offset + TIMESTAMP_OFFSET));
+        }
+    }
+    
+    /**
+     * Gets the total number of records held off-heap.
+     *
+     * @return The number of records
+     */
+    public synchronized int getRecordCount() {
+        return recordCount;
+    }
+    
+    /**
+     * Releases the segments and closes the mapped file, if any. Later calls on the store
+     * throw IllegalStateException.
+     *
+     * @throws IOException if the mapped file cannot be closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (ByteBuffer segment : segments) {
+            release(segment);
+        }
+        segments = null;
+        patronChains = null;
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+        logger.info("Off-heap history store closed");
+    }
+    
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("History store is closed");
+        }
+    }
+    
+    private int previous(int record) {
+        ByteBuffer segment = segments.get(record / RECORDS_PER_SEGMENT);
+        return segment.getInt((record % RECORDS_PER_SEGMENT) * RECORD_SIZE + PREVIOUS_OFFSET);
+    }
+    
+    private ByteBuffer segmentFor(int record) {
+        int index = record / RECORDS_PER_SEGMENT;
+        if (index == segments.size()) {
+            segments.add(allocateSegment(index));
+        }
+        return segments.get(index);
+    }
+    
+    private static void release(ByteBuffer segment) {
+        if (INVOKE_CLEANER == null) {
+            return; // freed once the buffer is garbage collected
+        }
+        try {
+            INVOKE_CLEANER.invokeExact(segment);
+        } catch (Throwable e) {
+            logger.warning("Could not release history segment: " + e.getMessage());
+        }
+    }
+    
+    private static MethodHandle findCleaner() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            return MethodHandles.lookup()
+                    .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(theUnsafe.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            logger.fine("Direct buffers will be released by the garbage collector: " + e);
+            return null;
+        }
+    }
+    
+    private ByteBuffer allocateSegment(int index) {
+        if (channel == null) {
+            return ByteBuffer.allocateDirect(SEGMENT_SIZE);
+        }
+        try {
+            return channel.map(FileChannel.MapMode.READ_WRITE, (long) index * SEGMENT_SIZE, SEGMENT_SIZE);
+        } catch (IOException e) {
+            logger.warning("Could not map history segment " + index + ": " + e.getMessage());
+            throw new IllegalStateException("Could not map history segment", e);
+        }
+    }
+    
+    /**
+     * Heap-side entry of one patron: the newest record, the number of records and a Bloom
+     * filter of the ISBN keys among them.
+     */
+    private static final class PatronChain {
+        private final long[] filter = new long[FILTER_WORDS];
+        private int head = -1;
+        private int count;
+        
+        void add(long isbnKey) {
+            long hash = hash(isbnKey);
+            setBit((int) (hash >>> 56));
+            setBit((int) (hash >>> 48) & 0xFF);
+        }
+        
+        boolean mightContain(long isbnKey) {
+            long hash = hash(isbnKey);
+            return isSet((int) (hash >>> 56)) && isSet((int) (hash >>> 48) & 0xFF);
+        }
+        
+        private void setBit(int bit) {
+            filter[bit >>> 6] |= 1L << bit;
+        }
+        
+        private boolean isSet(int bit) {
+            return (filter[bit >>> 6] & (1L << bit)) != 0;
+        }
+        
+        private static long hash(long key) {
+            key *= 0x9E3779B97F4A7C15L;
+            return key ^ (key >>> 29);
+        }
+    }
+}
@@ -2,11 +2,18 @@ package librarymanagementsystem.patron;
 
 import librarymanagementsystem.model.Patron;
 import librarymanagementsystem.model.Book;
+import librarymanagementsystem.model.BorrowingHistoryStore;
+import librarymanagementsystem.utils.IsbnKeys;
 
 import java.util.Map;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
 import java.util.logging.Logger;
 
 /**
@@ -18,12 +25,46 @@ public class PatronManager {
     
     // Map of patrons by patron ID
     private Map<String, Patron> patrons;
+    // Secondary indexes, maintained on add and update
+    private Map<String, Set<String>> emailIndex; // normalized email -> patron IDs
+    private Map<String, Set<String>> phoneIndex; // phone digits -> patron IDs
+    private NamePrefixIndex nameIndex; // normalized name and each later word -> patron IDs
+    // Keys each patron was indexed under, so updates remove exactly what was added
+    private Map<String, String[]> indexedKeys;
+    // Keys and catalog of the library, which patron histories are keyed by and read against
+    private IsbnKeys isbns;
+    private LongFunction<Book> catalog;
+    // Optional external storage for borrowing history, shared by all patrons
+    private BorrowingHistoryStore historyStore;
+    private LongFunction<Book> bookResolver;
     
     /**
      * Constructor initializes the patron data structure.
      */
     public PatronManager() {
+        this(new IsbnKeys(), key -> null);
+    }
+    
+    /**
+     * Constructor for the patrons of a library. Their histories keep only ISBN keys, which
+     * are resolved against the catalog when a history is read.
+     *
+     * @param isbns The ISBN keys of the library
+     * @param catalog Resolves ISBN keys to the books of the library's catalog
+     * @throws IllegalArgumentException if isbns or catalog is null
+     */
+    public PatronManager(IsbnKeys isbns, LongFunction<Book> catalog) {
+        if (isbns == null || catalog == null) {
+            logger.warning("Attempted to create patron manager with null ISBN keys or catalog");
+            throw new IllegalArgumentException("ISBN keys and catalog cannot be null");
+        }
+        this.isbns = isbns;
+        this.catalog = catalog;
         this.patrons = new HashMap<>();
+        this.emailIndex = new HashMap<>();
+        this.phoneIndex = new HashMap<>();
+        this.nameIndex = new NamePrefixIndex();
+        this.indexedKeys = new HashMap<>();
         logger.info("Patron manager initialized");
     }
     
@@ -44,7 +85,9 @@ public class PatronManager {
             throw new IllegalArgumentException("Patron with ID " + patron.getPatronId() + " already exists");
         }
         
+        attachToLibrary(patron);
         patrons.put(patron.getPatronId(), patron);
+        indexPatron(patron.getPatronId(), patron);
         logger.info("Added patron: " + patron.getName());
     }
     
@@ -71,10 +114,132 @@ public class PatronManager {
             throw new IllegalArgumentException("Patron with ID " + patronId + " not found");
         }
         
+        attachToLibrary(updatedPatron);
         patrons.put(patronId, updatedPatron);
+        unindexPatron(patronId);
+        indexPatron(patronId, updatedPatron);
         logger.info("Updated patron with ID: " + patronId);
     }
     
+    /**
+     * Keeps the borrowing history of all current and future patrons in an external store
+     * (for example an {@link OffHeapHistoryStore}) instead of inside each Patron object.
+     *
+     * @param store The history store to use
+     * @param bookResolver Resolves ISBN keys from the store back to books
+     * @throws IllegalArgumentException if store or bookResolver is null
+     */
+    public void useHistoryStore(BorrowingHistoryStore store, LongFunction<Book> bookResolver) {
+        if (store == null || bookResolver == null) {
+            logger.warning("Attempted to use null history store or book resolver");
+            throw new IllegalArgumentException("History store and book resolver cannot be null");
+        }
+        
+        this.historyStore = store;
+        this.bookResolver = bookResolver;
+        for (Patron patron : patrons.values()) {
+            attachToLibrary(patron);
+        }
+        logger.info("Patron borrowing history moved to external store");
+    }
+    
+    private void indexPatron(String patronId, Patron patron) {
+        String email = normalizeEmail(patron.getEmail());
+        String phone = normalizePhone(patron.getPhoneNumber());
+        String name = normalizeName(patron.getName());
+        
+        if (email != null) {
+            emailIndex.computeIfAbsent(email, key -> new LinkedHashSet<>()).add(patronId);
+        }
+        if (phone != null) {
+            phoneIndex.computeIfAbsent(phone, key -> new LinkedHashSet<>()).add(patronId);
+        }
+        if (name != null) {
+            forEachNameKey(name, key -> nameIndex.add(key, patronId));
+        }
+        indexedKeys.put(patronId, new String[] {email, phone, name});
+    }
+    
+    private void unindexPatron(String patronId) {
+        String[] keys = indexedKeys.remove(patronId);
+        if (keys == null) {
+            return;
+        }
+        
+        if (keys[0] != null) {
+            Set<String> patronIds = emailIndex.get(keys[0]);
+            if (patronIds != null && patronIds.remove(patronId) && patronIds.isEmpty()) {
+                emailIndex.remove(keys[0]);
+            }
+        }
+        if (keys[1] != null) {
+            Set<String> patronIds = phoneIndex.get(keys[1]);
+            if (patronIds != null && patronIds.remove(patronId) && patronIds.isEmpty()) {
+                phoneIndex.remove(keys[1]);
+            }
+        }
+        if (keys[2] != null) {
+            forEachNameKey(keys[2], key -> nameIndex.remove(key, patronId));
+        }
+    }
+    
+    /**
+     * Applies an action to the full name and to each suffix starting at a later word,
+     * so "aarav patel" is found by both "aar" and "pat".
+     */
+    private static void forEachNameKey(String name, Consumer<String> action) {
+        action.accept(name);
+        for (int i = name.indexOf(' '); i >= 0; i = name.indexOf(' ', i + 1)) {
+            action.accept(name.substring(i + 1));
+        }
+    }
+    
+    private List<Patron> resolvePatrons(Set<String> patronIds) {
+        List<Patron> result = new ArrayList<>(patronIds.size());
+        for (String patronId : patronIds) {
+            Patron patron = patrons.get(patronId);
+            if (patron != null) {
+                result.add(patron);
+            }
+        }
+        return result;
+    }
+    
+    private static String normalizeEmail(String email) {
+        if (email == null || email.trim().isEmpty()) {
+            return null;
+        }
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+    
+    private static String normalizePhone(String phoneNumber) {
+        if (phoneNumber == null) {
+            return null;
+        }
+        StringBuilder digits = new StringBuilder(phoneNumber.length());
+        for (int i = 0; i < phoneNumber.length(); i++) {
+            char c = phoneNumber.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            }
+        }
+        return digits.length() > 0 ? digits.toString() : null;
+    }
+    
+    private static String normalizeName(String name) {
+        if (name == null || name.trim().isEmpty()) {
+            return null;
+        }
+        return name.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+    
+    private void attachToLibrary(Patron patron) {
+        patron.useCatalog(isbns, catalog);
+        if (historyStore != null) {
+            patron.useHistoryStore(historyStore, bookResolver);
+        }
+    }
+    
     /**
      * Finds a patron by their ID.
      *
@@ -91,6 +256,50 @@ public class PatronManager {
         return patrons.get(patronId);
     }
     
+    /**
+     * Finds a patron by email address, ignoring case and surrounding whitespace. Patrons
+     * may share an address (e.g. members of one household); the one registered with it
+     * first is returned.
+     *
+     * @param email The email address to look up
+     * @return The patron with the given email, or null if not found
+     */
+    public Patron findPatronByEmail(String email) {
+        String key = normalizeEmail(email);
+        if (key == null) {
+            return null;
+        }
+        
+        Set<String> patronIds = emailIndex.get(key);
+        return patronIds != null ? patrons.get(patronIds.iterator().next()) : null;
+    }
+    
+    /**
+     * Finds patrons by phone number, comparing digits only.
+     *
+     * @param phoneNumber The phone number to look up
+     * @return The patrons with the given phone number
+     */
+    public List<Patron> findPatronsByPhone(String phoneNumber) {
+        String key = normalizePhone(phoneNumber);
+        Set<String> patronIds = key != null ? phoneIndex.get(key) : null;
+        return patronIds != null ? resolvePatrons(patronIds) : new ArrayList<>();
+    }
+    
+    /**
+     * Finds patrons whose name, or any word of it, starts with the given prefix.
+     *
+     * @param prefix The name prefix to look up, case-insensitive
+     * @return The matching patrons
+     */
+    public List<Patron> findPatronsByNamePrefix(String prefix) {
+        String key = normalizeName(prefix);
+        if (key == null) {
+            return new ArrayList<>();
+        }
+        return resolvePatrons(nameIndex.findByPrefix(key));
+    }
+    
     /**
      * Gets all patrons in the system.
      *
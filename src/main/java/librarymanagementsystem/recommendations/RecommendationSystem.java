@@ -1,14 +1,16 @@
 package librarymanagementsystem.recommendations;
 
+import librarymanagementsystem.metrics.MetricsRegistry;
+import librarymanagementsystem.metrics.Timer;
 import librarymanagementsystem.model.Book;
 import librarymanagementsystem.model.Patron;
+import librarymanagementsystem.search.BookQuery;
 import librarymanagementsystem.services.LibraryService;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * Recommendation system based on patron borrowing history.
@@ -17,18 +19,32 @@ import java.util.stream.Collectors;
 public class RecommendationSystem {
     private Map<String, List<String>> authorPreferences; // Patron ID -> Authors they've borrowed
     private Map<String, List<String>> bookPreferences;   // Patron ID -> Books they've borrowed
+    private Timer updatePreferencesTimer; // inactive unless metrics are enabled
+    private Timer recommendTimer;
     
     public RecommendationSystem() {
         this.authorPreferences = new HashMap<>();
         this.bookPreferences = new HashMap<>();
+        this.updatePreferencesTimer = MetricsRegistry.getDefault().timer("recommendation.updatePreferences");
+        this.recommendTimer = MetricsRegistry.getDefault().timer("recommendation.generate");
     }
     
     /**
      * Updates the recommendation system with a patron's borrowing history.
+     * The history is read once per call, from the patron's history store when one is in use.
      *
      * @param patron The patron whose history to update
      */
     public void updatePreferences(Patron patron) {
+        long start = updatePreferencesTimer.start();
+        try {
+            processPreferences(patron);
+        } finally {
+            updatePreferencesTimer.stop(start);
+        }
+    }
+    
+    private void processPreferences(Patron patron) {
         if (patron == null) {
             return;
         }
@@ -61,6 +77,15 @@ public class RecommendationSystem {
      * @return A list of recommended books
      */
     public List<Book> generateRecommendations(Patron patron, LibraryService libraryService, int maxRecommendations) {
+        long start = recommendTimer.start();
+        try {
+            return processRecommendations(patron, libraryService, maxRecommendations);
+        } finally {
+            recommendTimer.stop(start);
+        }
+    }
+    
+    private List<Book> processRecommendations(Patron patron, LibraryService libraryService, int maxRecommendations) {
         if (patron == null || libraryService == null || maxRecommendations <= 0) {
             return new ArrayList<>();
         }
@@ -72,28 +97,29 @@ public class RecommendationSystem {
         List<String> preferredAuthors = authorPreferences.getOrDefault(patronId, new ArrayList<>());
         List<String> borrowedBooks = bookPreferences.getOrDefault(patronId, new ArrayList<>());
         
-        // Get all books from the library
-        List<Book> allBooks = libraryService.getAllBooks();
-        
-        // First, recommend books by the same authors
+        // First, recommend books by the same authors, looked up in the author index
         for (String author : preferredAuthors) {
-            List<Book> booksByAuthor = allBooks.stream()
-                    .filter(book -> book.getAuthor().equals(author))
-                    .filter(book -> !borrowedBooks.contains(book.getIsbn())) // Don't recommend already borrowed books
-                    .collect(Collectors.toList());
+            if (recommendations.size() >= maxRecommendations) {
+                break;
+            }
+            if (author == null || author.isEmpty()) {
+                continue;
+            }
             
-            for (Book book : booksByAuthor) {
-                if (recommendations.size() < maxRecommendations && !recommendations.contains(book)) {
+            for (Book book : libraryService.findBooks(new BookQuery().author(author))) {
+                if (recommendations.size() < maxRecommendations
+                        && !borrowedBooks.contains(book.getIsbn()) // Don't recommend already borrowed books
+                        && !recommendations.contains(book)) {
                     recommendations.add(book);
                 }
             }
         }
         
-        // If we still need more recommendations, add some popular books
+        // If we still need more recommendations, add the newest books
         if (recommendations.size() < maxRecommendations) {
-            // In a real system, we might track popularity by borrowing frequency
-            // For now, we'll just add some books that haven't been borrowed by this patron
-            for (Book book : allBooks) {
+            // Enough candidates that skipping already borrowed or recommended books still fills the list
+            int candidates = maxRecommendations + borrowedBooks.size();
+            for (Book book : libraryService.findBooksByYear(Integer.MIN_VALUE, Integer.MAX_VALUE, true, candidates)) {
                 if (recommendations.size() >= maxRecommendations) {
                     break;
                 }
@@ -1,14 +1,18 @@
 package librarymanagementsystem.reservation;
 
+import librarymanagementsystem.events.ActivityStream;
+import librarymanagementsystem.events.EventType;
+import librarymanagementsystem.metrics.MetricsRegistry;
+import librarymanagementsystem.metrics.Timer;
 import librarymanagementsystem.model.Book;
 import librarymanagementsystem.model.Patron;
 import librarymanagementsystem.notifications.NotificationObserver;
 import librarymanagementsystem.notifications.PatronNotificationObserver;
+import librarymanagementsystem.utils.IsbnKeys;
+import librarymanagementsystem.utils.LongHashMap;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.logging.Logger;
 
 /**
@@ -18,14 +22,38 @@ import java.util.logging.Logger;
 public class ReservationSystem {
     private static final Logger logger = Logger.getLogger(ReservationSystem.class.getName());
     
-    // Maps ISBN to list of patrons who have reserved the book
-    private Map<String, List<Patron>> reservations;
-    // Maps ISBN to list of observers to notify when book becomes available
-    private Map<String, List<NotificationObserver>> notificationObservers;
+    // Maps ISBN key to list of patrons who have reserved the book
+    private LongHashMap<List<Patron>> reservations;
+    // Maps ISBN key to list of observers to notify when book becomes available
+    private LongHashMap<List<NotificationObserver>> notificationObservers;
+    // Operation timers, inactive unless metrics are enabled
+    private Timer reserveTimer;
+    private Timer notifyTimer;
+    private ActivityStream events; // receives reservation events
+    private IsbnKeys isbns; // those of the stream
     
     public ReservationSystem() {
-        this.reservations = new HashMap<>();
-        this.notificationObservers = new HashMap<>();
+        this(new ActivityStream());
+    }
+    
+    /**
+     * Constructor that publishes reservations to a shared activity stream.
+     *
+     * @param events The stream to publish to
+     * @throws IllegalArgumentException if events is null
+     */
+    public ReservationSystem(ActivityStream events) {
+        if (events == null) {
+            logger.warning("Attempted to create reservation system with null activity stream");
+            throw new IllegalArgumentException("Activity stream cannot be null");
+        }
+        
+        this.events = events;
+        this.isbns = events.getIsbnKeys();
+        this.reservations = new LongHashMap<>();
+        this.notificationObservers = new LongHashMap<>();
+        this.reserveTimer = MetricsRegistry.getDefault().timer("reservation.reserve");
+        this.notifyTimer = MetricsRegistry.getDefault().timer("reservation.notify");
     }
     
     /**
@@ -36,6 +64,15 @@ public class ReservationSystem {
      * @return true if reservation was successful, false otherwise
      */
     public boolean reserveBook(String isbn, Patron patron) {
+        long start = reserveTimer.start();
+        try {
+            return processReservation(isbn, patron);
+        } finally {
+            reserveTimer.stop(start);
+        }
+    }
+    
+    private boolean processReservation(String isbn, Patron patron) {
         if (isbn == null || isbn.isEmpty()) {
             logger.warning("Attempted to reserve book with null or empty ISBN");
             throw new IllegalArgumentException("ISBN cannot be null or empty");
@@ -47,21 +84,25 @@ public class ReservationSystem {
         }
         
         // Initialize lists if they don't exist
-        reservations.putIfAbsent(isbn, new ArrayList<>());
-        notificationObservers.putIfAbsent(isbn, new ArrayList<>());
+        long key = isbns.keyOf(isbn);
+        if (!reservations.containsKey(key)) {
+            reservations.put(key, new ArrayList<>());
+            notificationObservers.put(key, new ArrayList<>());
+        }
         
         // Check if patron already has a reservation for this book
-        if (reservations.get(isbn).contains(patron)) {
+        if (reservations.get(key).contains(patron)) {
             logger.info("Patron " + patron.getName() + " already has a reservation for book " + isbn);
             return false;
         }
         
         // Add reservation
-        reservations.get(isbn).add(patron);
+        reservations.get(key).add(patron);
         
         // Add observer for notifications
         NotificationObserver observer = new PatronNotificationObserver(patron);
-        notificationObservers.get(isbn).add(observer);
+        notificationObservers.get(key).add(observer);
+        events.publish(EventType.RESERVATION, key, patron.getPatronId());
         
         logger.info("Book " + isbn + " reserved for patron " + patron.getName());
         return true;
@@ -73,12 +114,22 @@ public class ReservationSystem {
      * @param isbn The ISBN of the book that became available
      */
     public void notifyBookAvailable(String isbn) {
+        long start = notifyTimer.start();
+        try {
+            processAvailability(isbn);
+        } finally {
+            notifyTimer.stop(start);
+        }
+    }
+    
+    private void processAvailability(String isbn) {
         if (isbn == null || isbn.isEmpty()) {
             logger.warning("Attempted to notify for book with null or empty ISBN");
             throw new IllegalArgumentException("ISBN cannot be null or empty");
         }
         
-        List<NotificationObserver> observers = notificationObservers.get(isbn);
+        long key = isbns.existingKeyOf(isbn);
+        List<NotificationObserver> observers = notificationObservers.get(key);
         if (observers == null || observers.isEmpty()) {
             logger.info("No reservations for book " + isbn);
             return;
@@ -90,8 +141,8 @@ public class ReservationSystem {
         }
         
         // Clear reservations and observers for this book
-        reservations.remove(isbn);
-        notificationObservers.remove(isbn);
+        reservations.remove(key);
+        notificationObservers.remove(key);
         
         logger.info("Notified patrons that book " + isbn + " is available");
     }
@@ -107,7 +158,7 @@ public class ReservationSystem {
             return false;
         }
         
-        List<Patron> patrons = reservations.get(isbn);
+        List<Patron> patrons = reservations.get(isbns.existingKeyOf(isbn));
         return patrons != null && !patrons.isEmpty();
     }
     
@@ -122,7 +173,7 @@ public class ReservationSystem {
             return 0;
         }
         
-        List<Patron> patrons = reservations.get(isbn);
+        List<Patron> patrons = reservations.get(isbns.existingKeyOf(isbn));
         return patrons != null ? patrons.size() : 0;
     }
 }
\ No newline at end of file
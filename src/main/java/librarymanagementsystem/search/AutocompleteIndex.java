@@ -0,0 +1,390 @@
+package librarymanagementsystem.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+/**
+ * Popularity-ranked prefix completion over catalog titles and author names.
+ * <p>
+ * Terms live in a compressed (radix) trie whose edges carry whole runs of characters, so the
+ * trie has at most about two nodes per term. Every node whose subtree holds more terms than
+ * the cached suggestion count keeps its own best suggestions, ordered by weight; smaller
+ * subtrees are cheap to walk directly. A keystroke therefore costs one walk down the prefix
+ * plus reading a cached list, independent of catalog size. Adding, removing or re-weighting a
+ * term refreshes the cached lists along its path only.
+ * <p>
+ * The same text added several times (for instance one author's many books) is a single term
+ * that stays in the index until every reference is removed.
+ * <p>
+ * Suggesting only reads the trie, so concurrent searches can share the index as long as
+ * writers are locked out; {@link LendingIndexer} applies checkout weights under such a lock.
+ */
+public class AutocompleteIndex {
+    /** Default number of suggestions cached per node. */
+    public static final int DEFAULT_CACHED_SUGGESTIONS = 10;
+    
+    private static final Comparator<Term> BY_RANK = Comparator.comparingLong((Term term) -> term.weight).reversed()
+            .thenComparing(term -> term.key);
+    
+    private final int cachedSuggestions;
+    private final Node root;
+    private final Map<String, Term> terms; // normalized text -> term
+    
+    public AutocompleteIndex() {
+        this(DEFAULT_CACHED_SUGGESTIONS);
+    }
+    
+    /**
+     * Constructor with an explicit number of suggestions cached per node. Requests for more
+     * suggestions than this are still answered, by walking the matching subtree.
+     *
+     * @param cachedSuggestions The number of suggestions cached per node
+     */
+    public AutocompleteIndex(int cachedSuggestions) {
+        if (cachedSuggestions <= 0) {
+            throw new IllegalArgumentException("Cached suggestions must be positive");
+        }
+        this.cachedSuggestions = cachedSuggestions;
+        this.root = new Node("", null);
+        this.terms = new HashMap<>();
+    }
+    
+    /**
+     * Adds a reference to a text, creating its term if needed.
+     *
+     * @param text The title or author name
+     */
+    public void add(String text) {
+        String key = SearchNormalizer.normalizeWords(text);
+        if (key.isEmpty()) {
+            return;
+        }
+        
+        Term term = terms.get(key);
+        if (term != null) {
+            term.references++;
+            return;
+        }
+        term = new Term(key, text);
+        terms.put(key, term);
+        insert(term);
+    }
+    
+    /**
+     * Removes a reference to a text, dropping its term once no references remain.
+     *
+     * @param text The title or author name
+     */
+    public void remove(String text) {
+        String key = SearchNormalizer.normalizeWords(text);
+        Term term = terms.get(key);
+        if (term == null || --term.references > 0) {
+            return;
+        }
+        terms.remove(key);
+        delete(term);
+    }
+    
+    /**
+     * Raises the weight of a text, e.g. each time a book with that title or author is borrowed.
+     *
+     * @param text The title or author name
+     * @param delta The amount to add to the weight
+     */
+    public void addWeight(String text, long delta) {
+        Term term = terms.get(SearchNormalizer.normalizeWords(text));
+        if (term != null && delta != 0) {
+            term.weight += delta;
+            refresh(term.node);
+        }
+    }
+    
+    /**
+     * Gets the weight of a text.
+     *
+     * @param text The title or author name
+     * @return The weight, or -1 if the text is not indexed
+     */
+    public long getWeight(String text) {
+        Term term = terms.get(SearchNormalizer.normalizeWords(text));
+        return term != null ? term.weight : -1;
+    }
+    
+    /**
+     * Suggests completions for a prefix, heaviest first.
+     *
+     * @param prefix The text typed so far
+     * @param limit The maximum number of suggestions
+     * @return The suggested texts, as they were first added
+     */
+    public List<String> suggest(String prefix, int limit) {
+        if (prefix == null || limit <= 0) {
+            throw new IllegalArgumentException("Prefix cannot be null and limit must be positive");
+        }
+        
+        List<String> suggestions = new ArrayList<>();
+        Node node = find(SearchNormalizer.normalizeWords(prefix));
+        if (node == null) {
+            return suggestions;
+        }
+        
+        if (node.top != null && limit <= node.top.length) {
+            for (int i = 0; i < limit && i < node.top.length; i++) {
+                suggestions.add(node.top[i].text);
+            }
+            return suggestions;
+        }
+        
+        // Small subtree, or more suggestions requested than are cached
+        PriorityQueue<Term> best = new PriorityQueue<>(BY_RANK.reversed());
+        collect(node, term -> {
+            best.add(term);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        });
+        Term[] ranked = best.toArray(new Term[0]);
+        Arrays.sort(ranked, BY_RANK);
+        for (Term term : ranked) {
+            suggestions.add(term.text);
+        }
+        return suggestions;
+    }
+    
+    /**
+     * Gets the number of distinct terms.
+     *
+     * @return The number of terms
+     */
+    public int size() {
+        return terms.size();
+    }
+    
+    /**
+     * Finds the node whose subtree holds exactly the terms starting with a prefix.
+     */
+    private Node find(String prefix) {
+        Node node = root;
+        int matched = 0;
+        while (matched < prefix.length()) {
+            Node child = node.childFor(prefix.charAt(matched));
+            if (child == null) {
+                return null;
+            }
+            int common = commonPrefix(child.edge, prefix, matched);
+            if (matched + common == prefix.length()) {
+                return child; // the prefix ends on or inside this edge
+            }
+            if (common < child.edge.length()) {
+                return null;
+            }
+            matched += common;
+            node = child;
+        }
+        return node;
+    }
+    
+    private void insert(Term term) {
+        String key = term.key;
+        Node node = root;
+        int matched = 0;
+        while (matched < key.length()) {
+            Node child = node.childFor(key.charAt(matched));
+            if (child == null) {
+                child = new Node(key.substring(matched), node);
+                node.addChild(child);
+                node = child;
+                matched = key.length();
+                break;
+            }
+            int common = commonPrefix(child.edge, key, matched);
+            if (common < child.edge.length()) {
+                child = split(child, common);
+            }
+            matched += common;
+            node = child;
+        }
+        node.term = term;
+        term.node = node;
+        refresh(node);
+    }
+    
+    private void delete(Term term) {
+        Node node = term.node;
+        node.term = null;
+        term.node = null;
+        
+        Node refreshFrom = node;
+        if (node.childCount == 0 && node != root) {
+            Node parent = node.parent;
+            parent.removeChild(node);
+            refreshFrom = parent;
+            if (parent != root && parent.term == null && parent.childCount == 1) {
+                refreshFrom = merge(parent);
+            }
+        } else if (node.childCount == 1 && node != root) {
+            refreshFrom = merge(node);
+        }
+        refresh(refreshFrom);
+    }
+    
+    /**
+     * Splits a node's edge so that its first characters become a new parent node.
+     */
+    private Node split(Node child, int length) {
+        Node parent = child.parent;
+        Node middle = new Node(child.edge.substring(0, length), parent);
+        parent.replaceChild(child, middle);
+        child.edge = child.edge.substring(length);
+        child.parent = middle;
+        middle.addChild(child);
+        middle.count = child.count;
+        middle.top = child.top;
+        return middle;
+    }
+    
+    /**
+     * Folds a node without a term into its only child.
+     *
+     * @return The child, which now takes the node's place
+     */
+    private Node merge(Node node) {
+        Node child = node.children[0];
+        Node parent = node.parent;
+        child.edge = node.edge + child.edge;
+        child.parent = parent;
+        parent.replaceChild(node, child);
+        return child;
+    }
+    
+    /**
+     * Recomputes term counts and cached suggestions from a node up to the root.
+     */
+    private void refresh(Node node) {
+        for (Node current = node; current != null; current = current.parent) {
+            int count = current.term != null ? 1 : 0;
+            for (int i = 0; i < current.childCount; i++) {
+                count += current.children[i].count;
+            }
+            current.count = count;
+            current.top = count > cachedSuggestions ? computeTop(current) : null;
+        }
+    }
+    
+    private Term[] computeTop(Node node) {
+        List<Term> candidates = new ArrayList<>();
+        if (node.term != null) {
+            candidates.add(node.term);
+        }
+        for (int i = 0; i < node.childCount; i++) {
+            Node child = node.children[i];
+            if (child.top != null) {
+                candidates.addAll(Arrays.asList(child.top));
+            } else {
+                collect(child, candidates::add);
+            }
+        }
+        candidates.sort(BY_RANK);
+        return candidates.subList(0, Math.min(cachedSuggestions, candidates.size())).toArray(new Term[0]);
+    }
+    
+    private static void collect(Node node, Consumer<Term> consumer) {
+        if (node.term != null) {
+            consumer.accept(node.term);
+        }
+        for (int i = 0; i < node.childCount; i++) {
+            collect(node.children[i], consumer);
+        }
+    }
+    
+    private static int commonPrefix(String edge, String text, int offset) {
+        int length = Math.min(edge.length(), text.length() - offset);
+        int i = 0;
+        while (i < length && edge.charAt(i) == text.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+    
+    /**
+     * A distinct completion.
+     */
+    private static class Term {
+        final String key;
+        final String text;
+        int references = 1;
+        long weight;
+        Node node;
+        
+        Term(String key, String text) {
+            this.key = key;
+            this.text = text;
+        }
+    }
+    
+    /**
+     * Radix trie node with children kept sorted by the first character of their edge.
+     */
+    private static class Node {
+        String edge;
+        Node parent;
+        Node[] children = new Node[0];
+        int childCount;
+        Term term;
+        int count; // terms in this subtree
+        Term[] top; // best terms of the subtree, or null for small subtrees
+        
+        Node(String edge, Node parent) {
+            this.edge = edge;
+            this.parent = parent;
+        }
+        
+        Node childFor(char label) {
+            int index = indexOf(label);
+            return index >= 0 ? children[index] : null;
+        }
+        
+        void addChild(Node child) {
+            int insertAt = -indexOf(child.edge.charAt(0)) - 1;
+            if (childCount == children.length) {
+                children = Arrays.copyOf(children, Math.max(2, childCount * 2));
+            }
+            System.arraycopy(children, insertAt, children, insertAt + 1, childCount - insertAt);
+            children[insertAt] = child;
+            childCount++;
+        }
+        
+        void replaceChild(Node child, Node replacement) {
+            children[indexOf(child.edge.charAt(0))] = replacement;
+        }
+        
+        void removeChild(Node child) {
+            int index = indexOf(child.edge.charAt(0));
+            System.arraycopy(children, index + 1, children, index, childCount - index - 1);
+            children[--childCount] = null;
+        }
+        
+        private int indexOf(char label) {
+            int low = 0;
+            int high = childCount - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char midLabel = children[mid].edge.charAt(0);
+                if (midLabel < label) {
+                    low = mid + 1;
+                } else if (midLabel > label) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -low - 1;
+        }
+    }
+}
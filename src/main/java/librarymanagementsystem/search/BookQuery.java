@@ -0,0 +1,138 @@
+package librarymanagementsystem.search;
+
+import librarymanagementsystem.utils.BookFactory;
+
+/**
+ * Criteria for a combined catalog search. Every criterion that is set must match;
+ * criteria left unset match every book.
+ * <p>
+ * Criteria are set by chaining, for example
+ * {@code new BookQuery().author("Ursula K. Le Guin").publishedBetween(1960, 1980).availableOnly()}.
+ */
+public class BookQuery {
+    private String author;
+    private String titleContains;
+    private BookFactory.BookType type;
+    private int minYear = Integer.MIN_VALUE;
+    private int maxYear = Integer.MAX_VALUE;
+    private boolean availableOnly;
+    
+    /**
+     * Matches books by an author, ignoring case and punctuation.
+     *
+     * @param author The author's name
+     * @return This query
+     */
+    public BookQuery author(String author) {
+        if (author == null || author.isEmpty()) {
+            throw new IllegalArgumentException("Author cannot be null or empty");
+        }
+        this.author = author;
+        return this;
+    }
+    
+    /**
+     * Matches books whose title contains a phrase, ignoring case and punctuation.
+     *
+     * @param text The phrase
+     * @return This query
+     */
+    public BookQuery titleContains(String text) {
+        if (text == null || text.isEmpty()) {
+            throw new IllegalArgumentException("Title text cannot be null or empty");
+        }
+        this.titleContains = text;
+        return this;
+    }
+    
+    /**
+     * Matches books of one type.
+     *
+     * @param type The book type
+     * @return This query
+     */
+    public BookQuery type(BookFactory.BookType type) {
+        if (type == null) {
+            throw new IllegalArgumentException("Book type cannot be null");
+        }
+        this.type = type;
+        return this;
+    }
+    
+    /**
+     * Matches books published within a range of years.
+     *
+     * @param fromYear The first year (inclusive)
+     * @param toYear The last year (inclusive)
+     * @return This query
+     */
+    public BookQuery publishedBetween(int fromYear, int toYear) {
+        if (toYear < fromYear) {
+            throw new IllegalArgumentException("Year range end cannot be before its start");
+        }
+        this.minYear = fromYear;
+        this.maxYear = toYear;
+        return this;
+    }
+    
+    /**
+     * Matches books published in or after a year.
+     *
+     * @param year The first year (inclusive)
+     * @return This query
+     */
+    public BookQuery publishedSince(int year) {
+        return publishedBetween(year, maxYear);
+    }
+    
+    /**
+     * Matches only books that are not currently borrowed.
+     *
+     * @return This query
+     */
+    public BookQuery availableOnly() {
+        this.availableOnly = true;
+        return this;
+    }
+    
+    // Getters
+    public String getAuthor() {
+        return author;
+    }
+    
+    public String getTitleContains() {
+        return titleContains;
+    }
+    
+    public BookFactory.BookType getType() {
+        return type;
+    }
+    
+    public int getMinYear() {
+        return minYear;
+    }
+    
+    public int getMaxYear() {
+        return maxYear;
+    }
+    
+    public boolean hasYearRange() {
+        return minYear != Integer.MIN_VALUE || maxYear != Integer.MAX_VALUE;
+    }
+    
+    public boolean isAvailableOnly() {
+        return availableOnly;
+    }
+    
+    @Override
+    public String toString() {
+        return "BookQuery{" +
+                "author='" + author + '\'' +
+                ", titleContains='" + titleContains + '\'' +
+                ", type=" + type +
+                ", minYear=" + minYear +
+                ", maxYear=" + maxYear +
+                ", availableOnly=" + availableOnly +
+                '}';
+    }
+}
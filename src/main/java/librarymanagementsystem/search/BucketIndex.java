@@ -0,0 +1,121 @@
+package librarymanagementsystem.search;
+
+import librarymanagementsystem.utils.RoaringBitmap;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.IntPredicate;
+
+/**
+ * Range index over an integer field, such as publication years or checkout counts.
+ * <p>
+ * Documents are bucketed by value in a sorted map, one compressed bitmap per value, so a range
+ * query only touches the values inside the range, and walking the buckets in either direction
+ * yields documents ordered by value. Within a bucket, documents come in the order they were
+ * indexed, or the reverse when walking in descending order.
+ */
+public class BucketIndex {
+    private final TreeMap<Integer, RoaringBitmap> buckets = new TreeMap<>();
+    private int size;
+    
+    /**
+     * Adds a document.
+     *
+     * @param value The value of the document's field
+     * @param doc The document ID
+     */
+    public void add(int value, int doc) {
+        if (buckets.computeIfAbsent(value, v -> new RoaringBitmap()).add(doc)) {
+            size++;
+        }
+    }
+    
+    /**
+     * Removes a document.
+     *
+     * @param value The value it was added with
+     * @param doc The document ID
+     * @return true if the document was indexed under that value
+     */
+    public boolean remove(int value, int doc) {
+        RoaringBitmap docs = buckets.get(value);
+        if (docs == null || !docs.remove(doc)) {
+            return false;
+        }
+        if (docs.isEmpty()) {
+            buckets.remove(value);
+        }
+        size--;
+        return true;
+    }
+    
+    /**
+     * Counts the documents with a value within a range.
+     *
+     * @param from The first value (inclusive)
+     * @param to The last value (inclusive)
+     * @return The number of documents
+     */
+    public int count(int from, int to) {
+        if (to < from) {
+            return 0;
+        }
+        int count = 0;
+        for (RoaringBitmap docs : buckets.subMap(from, true, to, true).values()) {
+            count += docs.cardinality();
+        }
+        return count;
+    }
+    
+    /**
+     * Gets the documents with a value within a range.
+     *
+     * @param from The first value (inclusive)
+     * @param to The last value (inclusive)
+     * @return A new bitmap of the documents
+     */
+    public RoaringBitmap docs(int from, int to) {
+        RoaringBitmap result = new RoaringBitmap();
+        if (to < from) {
+            return result;
+        }
+        for (RoaringBitmap docs : buckets.subMap(from, true, to, true).values()) {
+            result = result.or(docs);
+        }
+        return result;
+    }
+    
+    /**
+     * Visits the documents with a value within a range, ordered by value, until the visitor
+     * returns false. Only the buckets reached are read.
+     *
+     * @param from The first value (inclusive)
+     * @param to The last value (inclusive)
+     * @param descending true to start from the highest value
+     * @param visitor The visitor
+     */
+    public void forEachInRange(int from, int to, boolean descending, IntPredicate visitor) {
+        if (to < from) {
+            return;
+        }
+        NavigableMap<Integer, RoaringBitmap> range = buckets.subMap(from, true, to, true);
+        for (Map.Entry<Integer, RoaringBitmap> bucket : (descending ? range.descendingMap() : range).entrySet()) {
+            boolean completed = descending
+                    ? bucket.getValue().forEachDescendingWhile(visitor)
+                    : bucket.getValue().forEachWhile(visitor);
+            if (!completed) {
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Gets the number of indexed documents.
+     *
+     * @return The number of documents
+     */
+    public int size() {
+        return size;
+    }
+}
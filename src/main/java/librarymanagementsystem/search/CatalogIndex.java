@@ -0,0 +1,384 @@
+package librarymanagementsystem.search;
+
+import librarymanagementsystem.model.Book;
+import librarymanagementsystem.utils.BookFactory;
+import librarymanagementsystem.utils.IsbnKeys;
+import librarymanagementsystem.utils.LongIntHashMap;
+import librarymanagementsystem.utils.LongList;
+import librarymanagementsystem.utils.RoaringBitmap;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.LongPredicate;
+
+/**
+ * Field indexes over the catalog for {@link QueryEngine}.
+ * <p>
+ * Every book gets a dense document ID when it is added, and the per-document fields used
+ * for filtering live in plain arrays indexed by ID. Authors, book types, publication decades
+ * and availability map to compressed bitmaps of document IDs, so combining criteria and
+ * counting facets are bitmap intersections. Publication years and checkout counts go into
+ * {@link BucketIndex}es for range queries and listings ordered by year or popularity.
+ * <p>
+ * Availability and checkouts are not derived from the books themselves: books start out
+ * available and never borrowed, and the owner of the index reports changes through
+ * {@link #setAvailable(long, boolean)} and {@link #recordCheckouts(long, int)}, see
+ * {@link LendingIndexer}.
+ * <p>
+ * Queries only read the index, so concurrent searches can share it as long as writers are
+ * locked out.
+ * <p>
+ * A replaced book keeps its document ID. Removed books leave unused IDs behind until they
+ * outnumber the live ones, and then the index is rebuilt without them.
+ */
+public class CatalogIndex {
+    /** Returned for ISBN keys that are not indexed. */
+    public static final int NO_DOC = LongIntHashMap.NO_VALUE;
+    
+    private static final int MIN_COMPACT_SIZE = 1024;
+    
+    private LongIntHashMap docsByKey;
+    private long[] keys; // document ID -> ISBN key, NO_KEY once removed
+    private int[] years;
+    private int[] checkouts;
+    private String[] authors; // document ID -> normalized author
+    private BookFactory.BookType[] types;
+    private int nextDoc;
+    private int size;
+    private RoaringBitmap liveDocs;
+    private RoaringBitmap availableDocs;
+    private Map<String, RoaringBitmap> byAuthor;
+    private Map<BookFactory.BookType, RoaringBitmap> byType;
+    private TreeMap<Integer, RoaringBitmap> byDecade;
+    private BucketIndex byYear;
+    private BucketIndex byCheckouts;
+    
+    public CatalogIndex() {
+        clear();
+    }
+    
+    /**
+     * Indexes a book, replacing what was indexed for its key before. A replaced book keeps
+     * its document ID, availability and checkout count; a new one starts out available and
+     * unborrowed.
+     *
+     * @param key The ISBN key of the book, see IsbnKeys
+     * @param book The book
+     * @return The document ID of the book
+     */
+    public int add(long key, Book book) {
+        int doc = docsByKey.get(key);
+        if (doc != NO_DOC) {
+            unpostFields(doc);
+        } else {
+            doc = newDoc(key, true, 0);
+        }
+        postFields(doc, SearchNormalizer.normalizeWords(book.getAuthor()), BookFactory.typeOf(book),
+                book.getPublicationYear());
+        return doc;
+    }
+    
+    /**
+     * Removes a book from the index.
+     *
+     * @param key The ISBN key of the book
+     * @return true if the book was indexed
+     */
+    public boolean remove(long key) {
+        int doc = docsByKey.remove(key);
+        if (doc == NO_DOC) {
+            return false;
+        }
+        
+        unpostFields(doc);
+        liveDocs.remove(doc);
+        availableDocs.remove(doc);
+        byCheckouts.remove(checkouts[doc], doc);
+        keys[doc] = IsbnKeys.NO_KEY;
+        authors[doc] = null;
+        types[doc] = null;
+        size--;
+        int stale = nextDoc - size;
+        if (stale > MIN_COMPACT_SIZE && stale > size) {
+            rebuild();
+        }
+        return true;
+    }
+    
+    /**
+     * Records whether a book is available for borrowing.
+     *
+     * @param key The ISBN key of the book
+     * @param available true if the book is available
+     * @return true if the book is indexed
+     */
+    public boolean setAvailable(long key, boolean available) {
+        int doc = docsByKey.get(key);
+        if (doc == NO_DOC) {
+            return false;
+        }
+        if (available) {
+            availableDocs.add(doc);
+        } else {
+            availableDocs.remove(doc);
+        }
+        return true;
+    }
+    
+    /**
+     * Counts checkouts of a book towards its popularity.
+     *
+     * @param key The ISBN key of the book
+     * @param count The number of checkouts
+     * @return true if the book is indexed
+     */
+    public boolean recordCheckouts(long key, int count) {
+        int doc = docsByKey.get(key);
+        if (doc == NO_DOC) {
+            return false;
+        }
+        byCheckouts.remove(checkouts[doc], doc);
+        checkouts[doc] += count;
+        byCheckouts.add(checkouts[doc], doc);
+        return true;
+    }
+    
+    /**
+     * Gets the document ID of a book.
+     *
+     * @param key The ISBN key of the book
+     * @return The document ID, or {@link #NO_DOC}
+     */
+    public int docOf(long key) {
+        return docsByKey.get(key);
+    }
+    
+    /**
+     * Gets the ISBN key of a document.
+     *
+     * @param doc The document ID
+     * @return The ISBN key, or IsbnKeys.NO_KEY if the document was removed
+     */
+    public long keyOf(int doc) {
+        return keys[doc];
+    }
+    
+    /**
+     * Gets the number of indexed books.
+     *
+     * @return The number of books
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Gets the documents of every indexed book.
+     *
+     * @return The live documents; must not be modified
+     */
+    public RoaringBitmap liveDocs() {
+        return liveDocs;
+    }
+    
+    /**
+     * Gets the documents of the books currently available.
+     *
+     * @return The available documents; must not be modified
+     */
+    public RoaringBitmap availableDocs() {
+        return availableDocs;
+    }
+    
+    /**
+     * Gets the documents of the books of one type.
+     *
+     * @param type The book type
+     * @return The documents; must not be modified
+     */
+    public RoaringBitmap typeDocs(BookFactory.BookType type) {
+        return byType.get(type);
+    }
+    
+    /**
+     * Gets the documents of each publication decade that has books, keyed by the decade's
+     * first year, e.g. 1990 for 1990 to 1999.
+     *
+     * @return The documents per decade, in ascending order; must not be modified
+     */
+    public SortedMap<Integer, RoaringBitmap> decadeDocs() {
+        return byDecade;
+    }
+    
+    /**
+     * Gets the decade a year falls in.
+     *
+     * @param year The year
+     * @return The first year of its decade
+     */
+    public static int decadeOf(int year) {
+        return Math.floorDiv(year, 10) * 10;
+    }
+    
+    /**
+     * Lists books published within a range of years, ordered by year.
+     *
+     * @param fromYear The first year (inclusive)
+     * @param toYear The last year (inclusive)
+     * @param newestFirst true to list the latest years first
+     * @param limit The maximum number of books to list
+     * @return The ISBN keys of the books
+     */
+    public LongList keysByYear(int fromYear, int toYear, boolean newestFirst, int limit) {
+        return collect(byYear, fromYear, toYear, newestFirst, key -> true, limit);
+    }
+    
+    /**
+     * Lists the most recently published books that pass a filter, newest first. Books are
+     * tested in that order and the walk stops once enough have passed, so a broad filter
+     * only reads the newest few books.
+     *
+     * @param filter The test taking ISBN keys
+     * @param limit The maximum number of books to list
+     * @return The ISBN keys of the books
+     */
+    public LongList newestMatching(LongPredicate filter, int limit) {
+        return collect(byYear, Integer.MIN_VALUE, Integer.MAX_VALUE, true, filter, limit);
+    }
+    
+    /**
+     * Lists the most borrowed books that pass a filter, most checkouts first. Like
+     * {@link #newestMatching(LongPredicate, int)}, the walk stops once enough books have passed.
+     *
+     * @param filter The test taking ISBN keys
+     * @param limit The maximum number of books to list
+     * @return The ISBN keys of the books
+     */
+    public LongList mostBorrowedMatching(LongPredicate filter, int limit) {
+        return collect(byCheckouts, 0, Integer.MAX_VALUE, true, filter, limit);
+    }
+    
+    int yearOf(int doc) {
+        return years[doc];
+    }
+    
+    RoaringBitmap authorDocs(String author) {
+        RoaringBitmap docs = byAuthor.get(SearchNormalizer.normalizeWords(author));
+        return docs != null ? docs : new RoaringBitmap();
+    }
+    
+    BucketIndex yearIndex() {
+        return byYear;
+    }
+    
+    private LongList collect(BucketIndex index, int from, int to, boolean descending,
+            LongPredicate filter, int limit) {
+        LongList collected = new LongList();
+        if (limit > 0) {
+            index.forEachInRange(from, to, descending, doc -> {
+                if (filter.test(keys[doc])) {
+                    collected.add(keys[doc]);
+                }
+                return collected.size() < limit;
+            });
+        }
+        return collected;
+    }
+    
+    /**
+     * Assigns the next document ID to a key, with the state that is not derived from the book.
+     */
+    private int newDoc(long key, boolean available, int borrowed) {
+        if (nextDoc == keys.length) {
+            int capacity = keys.length * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            years = Arrays.copyOf(years, capacity);
+            checkouts = Arrays.copyOf(checkouts, capacity);
+            authors = Arrays.copyOf(authors, capacity);
+            types = Arrays.copyOf(types, capacity);
+        }
+        
+        int doc = nextDoc++;
+        keys[doc] = key;
+        checkouts[doc] = borrowed;
+        docsByKey.put(key, doc);
+        size++;
+        liveDocs.add(doc);
+        if (available) {
+            availableDocs.add(doc);
+        }
+        byCheckouts.add(borrowed, doc);
+        return doc;
+    }
+    
+    private void postFields(int doc, String author, BookFactory.BookType type, int year) {
+        authors[doc] = author;
+        types[doc] = type;
+        years[doc] = year;
+        byAuthor.computeIfAbsent(author, a -> new RoaringBitmap()).add(doc);
+        byType.get(type).add(doc);
+        byDecade.computeIfAbsent(decadeOf(year), d -> new RoaringBitmap()).add(doc);
+        byYear.add(year, doc);
+    }
+    
+    private void unpostFields(int doc) {
+        removePosting(byAuthor, authors[doc], doc);
+        byType.get(types[doc]).remove(doc);
+        removePosting(byDecade, decadeOf(years[doc]), doc);
+        byYear.remove(years[doc], doc);
+    }
+    
+    private void clear() {
+        this.docsByKey = new LongIntHashMap();
+        this.keys = new long[16];
+        this.years = new int[16];
+        this.checkouts = new int[16];
+        this.authors = new String[16];
+        this.types = new BookFactory.BookType[16];
+        this.liveDocs = new RoaringBitmap();
+        this.availableDocs = new RoaringBitmap();
+        this.byAuthor = new HashMap<>();
+        this.byType = new EnumMap<>(BookFactory.BookType.class);
+        this.byDecade = new TreeMap<>();
+        this.byYear = new BucketIndex();
+        this.byCheckouts = new BucketIndex();
+        this.nextDoc = 0;
+        this.size = 0;
+        for (BookFactory.BookType type : BookFactory.BookType.values()) {
+            byType.put(type, new RoaringBitmap());
+        }
+    }
+    
+    /**
+     * Reassigns document IDs without the gaps left by removals, keeping each book's
+     * availability and checkout count.
+     */
+    private void rebuild() {
+        long[] oldKeys = keys;
+        int[] oldYears = years;
+        int[] oldCheckouts = checkouts;
+        String[] oldAuthors = authors;
+        BookFactory.BookType[] oldTypes = types;
+        RoaringBitmap oldAvailable = availableDocs;
+        int oldCount = nextDoc;
+        clear();
+        for (int old = 0; old < oldCount; old++) {
+            if (oldKeys[old] != IsbnKeys.NO_KEY) {
+                int doc = newDoc(oldKeys[old], oldAvailable.contains(old), oldCheckouts[old]);
+                postFields(doc, oldAuthors[old], oldTypes[old], oldYears[old]);
+            }
+        }
+    }
+    
+    private static <K> void removePosting(Map<K, RoaringBitmap> postings, K value, int doc) {
+        RoaringBitmap docs = postings.get(value);
+        docs.remove(doc);
+        if (docs.isEmpty()) {
+            postings.remove(value);
+        }
+    }
+}
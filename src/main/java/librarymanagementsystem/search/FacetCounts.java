@@ -0,0 +1,64 @@
+package librarymanagementsystem.search;
+
+import librarymanagementsystem.utils.BookFactory;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Counts of the books matching a query, broken down by type, publication decade and
+ * availability.
+ */
+public class FacetCounts {
+    private final int total;
+    private final int available;
+    private final Map<BookFactory.BookType, Integer> typeCounts;
+    private final SortedMap<Integer, Integer> decadeCounts;
+    
+    FacetCounts(int total, int available, Map<BookFactory.BookType, Integer> typeCounts,
+            SortedMap<Integer, Integer> decadeCounts) {
+        this.total = total;
+        this.available = available;
+        this.typeCounts = Collections.unmodifiableMap(typeCounts);
+        this.decadeCounts = Collections.unmodifiableSortedMap(decadeCounts);
+    }
+    
+    // Getters
+    public int getTotal() {
+        return total;
+    }
+    
+    public int getAvailable() {
+        return available;
+    }
+    
+    /**
+     * Gets the number of matching books of each type, including types with none.
+     *
+     * @return The counts per type
+     */
+    public Map<BookFactory.BookType, Integer> getTypeCounts() {
+        return typeCounts;
+    }
+    
+    /**
+     * Gets the number of matching books per publication decade, keyed by the decade's first
+     * year. Decades without matching books are left out.
+     *
+     * @return The counts per decade, in ascending order
+     */
+    public SortedMap<Integer, Integer> getDecadeCounts() {
+        return decadeCounts;
+    }
+    
+    @Override
+    public String toString() {
+        return "FacetCounts{" +
+                "total=" + total +
+                ", available=" + available +
+                ", typeCounts=" + typeCounts +
+                ", decadeCounts=" + decadeCounts +
+                '}';
+    }
+}
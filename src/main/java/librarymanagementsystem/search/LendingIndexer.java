@@ -0,0 +1,197 @@
+package librarymanagementsystem.search;
+
+import librarymanagementsystem.events.ActivityEvent;
+import librarymanagementsystem.events.ActivityStream;
+import librarymanagementsystem.events.EventHandler;
+import librarymanagementsystem.events.EventType;
+import librarymanagementsystem.events.Subscription;
+import librarymanagementsystem.model.Book;
+import librarymanagementsystem.utils.IsbnKeys;
+import librarymanagementsystem.utils.LongIntHashMap;
+import librarymanagementsystem.utils.LongList;
+import librarymanagementsystem.utils.LongMap;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.logging.Logger;
+
+/**
+ * Applies lending activity to the search indexes, off the lending path.
+ * <p>
+ * Checkouts and returns only publish to the {@link ActivityStream}; the indexer reads it
+ * through a lossless subscription and applies them to the availability and checkout counts
+ * of a {@link CatalogIndex} and the completion weights of an {@link AutocompleteIndex},
+ * holding the write side of the lock that every writer of those indexes holds. Each book is
+ * lent out as a single copy, so a checkout makes it unavailable and a return available again.
+ * Events are applied in batches, with the activity of one book within a batch folded into a
+ * single change, on one daemon thread shared by all indexers. It runs
+ * when a reader needs the events applied or when the stream is half a buffer ahead, never on
+ * the reader's own thread.
+ * <p>
+ * Readers call {@link #awaitCurrent()} before taking the read lock, so a search sees every
+ * checkout and return that completed before it started. Catalog writers call {@link #applyPending()}
+ * under the write lock before changing the catalog, so events are applied against the
+ * catalog they were published for.
+ */
+public class LendingIndexer implements Runnable {
+    private static final Logger logger = Logger.getLogger(LendingIndexer.class.getName());
+    
+    private static final int BATCH_EVENTS = 1024;
+    // Availability of a book at the end of a batch
+    private static final byte UNCHANGED = 0;
+    private static final byte AVAILABLE = 1;
+    private static final byte BORROWED = 2;
+    private static final long WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(20);
+    private static final ExecutorService UPDATER = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "library-index-updater");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    private final ActivityStream events;
+    private final LongMap<Book> books;
+    private final CatalogIndex catalogIndex;
+    private final AutocompleteIndex completions;
+    private final ReadWriteLock lock;
+    private final Subscription feed;
+    private final EventHandler handler;
+    private final AtomicBoolean scheduled;
+    private final LongList batchKeys; // books lent or returned in the current batch
+    private final int[] batchCheckouts; // batchKeys index -> checkouts in the batch
+    private final byte[] batchAvailability; // batchKeys index -> availability after the batch
+    private LongIntHashMap batchSlots; // ISBN key -> batchKeys index
+    private volatile long applied; // events before this sequence are applied
+    
+    /**
+     * Constructor; the indexer applies every event published from now on.
+     *
+     * @param events The stream to read
+     * @param books The catalog, to resolve the books that events refer to
+     * @param catalogIndex The index to keep availability and checkout counts in
+     * @param completions The completions to weigh by checkouts
+     * @param lock The lock guarding the indexes
+     */
+    public LendingIndexer(ActivityStream events, LongMap<Book> books, CatalogIndex catalogIndex,
+            AutocompleteIndex completions, ReadWriteLock lock) {
+        this.events = events;
+        this.books = books;
+        this.catalogIndex = catalogIndex;
+        this.completions = completions;
+        this.lock = lock;
+        this.scheduled = new AtomicBoolean();
+        this.batchKeys = new LongList(BATCH_EVENTS);
+        this.batchCheckouts = new int[BATCH_EVENTS];
+        this.batchAvailability = new byte[BATCH_EVENTS];
+        this.batchSlots = new LongIntHashMap();
+        this.handler = this::collect;
+        this.feed = events.subscribeLossless(this::schedule);
+        this.applied = feed.getPosition();
+    }
+    
+    /**
+     * Waits until every event published before the call has been applied. Must not be called
+     * while holding the lock.
+     */
+    public void awaitCurrent() {
+        long target = events.getPublishedCount();
+        while (applied < target) {
+            schedule();
+            LockSupport.parkNanos(WAIT_NANOS);
+        }
+    }
+    
+    /**
+     * Applies the events published so far. The caller must hold the write lock.
+     */
+    public void applyPending() {
+        while (applyBatch() > 0) {
+            // keep going until the feed is drained
+        }
+    }
+    
+    /**
+     * Drains the feed on the shared updater thread.
+     */
+    @Override
+    public void run() {
+        while (true) {
+            int delivered;
+            lock.writeLock().lock();
+            try {
+                delivered = applyBatch();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (applied < events.getPublishedCount()) {
+                if (delivered == 0) {
+                    LockSupport.parkNanos(WAIT_NANOS); // a publisher is still writing its event
+                }
+                continue;
+            }
+            
+            scheduled.set(false);
+            // An event published after the check above may have found the flag still set
+            if (applied >= events.getPublishedCount() || !scheduled.compareAndSet(false, true)) {
+                return;
+            }
+        }
+    }
+    
+    private void schedule() {
+        if (!scheduled.get() && scheduled.compareAndSet(false, true)) {
+            UPDATER.execute(this);
+        }
+    }
+    
+    private int applyBatch() {
+        int delivered = feed.poll(handler, BATCH_EVENTS);
+        for (int i = 0; i < batchKeys.size(); i++) {
+            long key = batchKeys.get(i);
+            try {
+                if (batchAvailability[i] != UNCHANGED) {
+                    catalogIndex.setAvailable(key, batchAvailability[i] == AVAILABLE);
+                }
+                Book book = batchCheckouts[i] > 0 ? books.get(key) : null;
+                if (book != null) {
+                    catalogIndex.recordCheckouts(key, batchCheckouts[i]);
+                    completions.addWeight(book.getTitle(), batchCheckouts[i]);
+                    completions.addWeight(book.getAuthor(), batchCheckouts[i]);
+                }
+            } catch (RuntimeException e) {
+                logger.severe("Failed to index lending of " + events.getIsbnKeys().toIsbnString(key) + ": " + e);
+            }
+        }
+        if (!batchKeys.isEmpty()) {
+            batchKeys.clear();
+            batchSlots = new LongIntHashMap();
+        }
+        applied = feed.getPosition();
+        return delivered;
+    }
+    
+    private void collect(ActivityEvent event) {
+        if (event.getType() == EventType.CHECKOUT) {
+            int slot = slotOf(event.getIsbnKey());
+            batchCheckouts[slot]++;
+            batchAvailability[slot] = BORROWED;
+        } else if (event.getType() == EventType.RETURN) {
+            batchAvailability[slotOf(event.getIsbnKey())] = AVAILABLE;
+        }
+    }
+    
+    private int slotOf(long key) {
+        int slot = batchSlots.get(key);
+        if (slot == LongIntHashMap.NO_VALUE) {
+            slot = batchKeys.size();
+            batchKeys.add(key);
+            batchCheckouts[slot] = 0;
+            batchAvailability[slot] = UNCHANGED;
+            batchSlots.put(key, slot);
+        }
+        return slot;
+    }
+}
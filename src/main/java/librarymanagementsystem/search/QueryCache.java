@@ -0,0 +1,302 @@
+package librarymanagementsystem.search;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of query results with a W-TinyLFU admission policy.
+ * <p>
+ * New entries go into a small LRU window, which absorbs bursts of one-off queries. An entry
+ * leaving the window only enters the main area if it has been requested more often than the
+ * entry it would evict there, judged by a compact frequency sketch that also counts queries
+ * which are not cached. The main area is a segmented LRU: entries hit a second time move from
+ * probation into a protected segment, so a scan of new queries cannot flush the popular ones.
+ * The sketch halves all counts periodically, so frequencies follow changes in popularity.
+ * <p>
+ * Every entry belongs to a generation, typically the catalog's modification count. Reading or
+ * writing with a newer generation drops all entries, while the sketch keeps its counts so the
+ * popular queries are admitted again right away.
+ *
+ * @param <K> The query type
+ * @param <V> The result type
+ */
+public class QueryCache<K, V> {
+    /** Default maximum number of cached results. */
+    public static final int DEFAULT_CAPACITY = 1024;
+    
+    private static final int WINDOW_PERCENT = 1;
+    private static final int PROTECTED_PERCENT = 80;
+    
+    private final int capacity;
+    private final int windowCapacity;
+    private final int protectedCapacity;
+    private final FrequencySketch sketch;
+    private final LinkedHashMap<K, V> window;
+    private final LinkedHashMap<K, V> probation;
+    private final LinkedHashMap<K, V> protectedArea;
+    private long generation;
+    private long hits;
+    private long misses;
+    private long evictions;
+    
+    public QueryCache() {
+        this(DEFAULT_CAPACITY);
+    }
+    
+    /**
+     * Constructor with an explicit capacity.
+     *
+     * @param capacity The maximum number of cached results
+     */
+    public QueryCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.windowCapacity = Math.max(1, capacity * WINDOW_PERCENT / 100);
+        int mainCapacity = capacity - windowCapacity;
+        this.protectedCapacity = mainCapacity * PROTECTED_PERCENT / 100;
+        this.sketch = new FrequencySketch(capacity);
+        this.window = new LinkedHashMap<>(16, 0.75f, true);
+        this.probation = new LinkedHashMap<>(16, 0.75f, true);
+        this.protectedArea = new LinkedHashMap<>(16, 0.75f, true);
+    }
+    
+    /**
+     * Looks up a result, counting the request towards the query's frequency.
+     *
+     * @param key The query
+     * @param generation The current generation
+     * @return The cached result, or null if there is none for this generation
+     */
+    public synchronized V get(K key, long generation) {
+        sketch.increment(key);
+        if (generation < this.generation) {
+            misses++;
+            return null;
+        }
+        advanceTo(generation);
+        
+        V value = window.get(key);
+        if (value == null) {
+            value = protectedArea.get(key);
+        }
+        if (value == null) {
+            value = probation.remove(key);
+            if (value != null) {
+                promote(key, value);
+            }
+        }
+        if (value != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return value;
+    }
+    
+    /**
+     * Caches a result computed for a generation. Results for an older generation than the
+     * cache has seen are ignored.
+     *
+     * @param key The query
+     * @param value The result
+     * @param generation The generation the result was computed for
+     */
+    public synchronized void put(K key, V value, long generation) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException("Key and value cannot be null");
+        }
+        if (generation < this.generation) {
+            return;
+        }
+        advanceTo(generation);
+        
+        if (window.containsKey(key)) {
+            window.put(key, value);
+        } else if (probation.containsKey(key)) {
+            probation.put(key, value);
+        } else if (protectedArea.containsKey(key)) {
+            protectedArea.put(key, value);
+        } else {
+            window.put(key, value);
+            if (window.size() > windowCapacity) {
+                Map.Entry<K, V> candidate = removeEldest(window);
+                admit(candidate.getKey(), candidate.getValue());
+            }
+        }
+    }
+    
+    /**
+     * Drops every cached result, keeping the frequency counts.
+     */
+    public synchronized void clear() {
+        window.clear();
+        probation.clear();
+        protectedArea.clear();
+    }
+    
+    /**
+     * Gets the number of cached results.
+     *
+     * @return The number of results
+     */
+    public synchronized int size() {
+        return window.size() + probation.size() + protectedArea.size();
+    }
+    
+    public int getCapacity() {
+        return capacity;
+    }
+    
+    public synchronized long getHitCount() {
+        return hits;
+    }
+    
+    public synchronized long getMissCount() {
+        return misses;
+    }
+    
+    /**
+     * Gets the number of results that left the cache to make room, or were refused
+     * admission, excluding generation changes.
+     *
+     * @return The number of evictions
+     */
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+    
+    /**
+     * Gets the fraction of lookups answered from the cache.
+     *
+     * @return The hit rate between 0 and 1, or 0 before the first lookup
+     */
+    public synchronized double getHitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0.0 : (double) hits / requests;
+    }
+    
+    private void advanceTo(long generation) {
+        if (generation > this.generation) {
+            clear();
+            this.generation = generation;
+        }
+    }
+    
+    /**
+     * Moves an entry hit in probation into the protected segment, demoting the least recently
+     * used protected entry if the segment overflows.
+     */
+    private void promote(K key, V value) {
+        protectedArea.put(key, value);
+        if (protectedArea.size() > protectedCapacity) {
+            Map.Entry<K, V> demoted = removeEldest(protectedArea);
+            probation.put(demoted.getKey(), demoted.getValue());
+        }
+    }
+    
+    /**
+     * Lets an entry leaving the window into the main area if there is room, or if it is
+     * requested more often than the main area's eviction victim.
+     */
+    private void admit(K key, V value) {
+        int mainCapacity = capacity - windowCapacity;
+        if (mainCapacity == 0) {
+            evictions++;
+            return;
+        }
+        if (probation.size() + protectedArea.size() < mainCapacity) {
+            probation.put(key, value);
+            return;
+        }
+        
+        LinkedHashMap<K, V> victims = probation.isEmpty() ? protectedArea : probation;
+        K victim = victims.keySet().iterator().next();
+        evictions++;
+        if (sketch.frequency(key) > sketch.frequency(victim)) {
+            victims.remove(victim);
+            probation.put(key, value);
+        }
+    }
+    
+    private static <K, V> Map.Entry<K, V> removeEldest(LinkedHashMap<K, V> segment) {
+        Iterator<Map.Entry<K, V>> eldest = segment.entrySet().iterator();
+        Map.Entry<K, V> entry = eldest.next();
+        Map.Entry<K, V> copy = Map.entry(entry.getKey(), entry.getValue());
+        eldest.remove();
+        return copy;
+    }
+    
+    /**
+     * Count-min sketch of 4-bit counters, packed sixteen to a long. Each key is counted in
+     * four rows and its estimate is the smallest of them, which overestimates only on
+     * collisions in every row.
+     */
+    private static final class FrequencySketch {
+        private static final long[] SEEDS = {
+            0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L
+        };
+        private static final long RESET_MASK = 0x7777777777777777L;
+        
+        private final long[] table;
+        private final int sampleSize;
+        private int additions;
+        
+        FrequencySketch(int capacity) {
+            int words = Integer.highestOneBit(Math.max(16, capacity) - 1) << 1;
+            this.table = new long[words];
+            this.sampleSize = 10 * Math.max(16, capacity);
+        }
+        
+        int frequency(Object key) {
+            int hash = key.hashCode();
+            int frequency = Integer.MAX_VALUE;
+            for (int row = 0; row < SEEDS.length; row++) {
+                frequency = Math.min(frequency, counterAt(hash, row));
+            }
+            return frequency;
+        }
+        
+        void increment(Object key) {
+            int hash = key.hashCode();
+            boolean added = false;
+            for (int row = 0; row < SEEDS.length; row++) {
+                int index = indexOf(hash, row);
+                int shift = shiftOf(hash, row);
+                if (((table[index] >>> shift) & 0xF) < 15) {
+                    table[index] += 1L << shift;
+                    added = true;
+                }
+            }
+            if (added && ++additions == sampleSize) {
+                halve();
+            }
+        }
+        
+        private int counterAt(int hash, int row) {
+            return (int) ((table[indexOf(hash, row)] >>> shiftOf(hash, row)) & 0xF);
+        }
+        
+        private int indexOf(int hash, int row) {
+            long mixed = (hash + SEEDS[row]) * SEEDS[row];
+            return (int) (mixed >>> 40) & (table.length - 1);
+        }
+        
+        private int shiftOf(int hash, int row) {
+            long mixed = (hash + SEEDS[row]) * SEEDS[row];
+            return (int) ((mixed >>> 20) & 0xF) << 2;
+        }
+        
+        /**
+         * Halves every counter, so old popularity fades.
+         */
+        private void halve() {
+            for (int i = 0; i < table.length; i++) {
+                table[i] = (table[i] >>> 1) & RESET_MASK;
+            }
+            additions = sampleSize / 2;
+        }
+    }
+}
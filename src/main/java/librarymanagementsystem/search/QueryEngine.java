@@ -0,0 +1,326 @@
+package librarymanagementsystem.search;
+
+import librarymanagementsystem.utils.BookFactory;
+import librarymanagementsystem.utils.LongList;
+import librarymanagementsystem.utils.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Plans and runs multi-criteria catalog searches described by a {@link BookQuery}.
+ * <p>
+ * Each criterion of a query estimates how many books it matches. The most selective one
+ * drives the search and provides the first candidate set; a publication year range does so
+ * by uniting its year buckets, which is only worth it when the range is the most selective.
+ * The other criteria backed by a bitmap in the {@link CatalogIndex} are then intersected
+ * smallest first, so every intersection works on the smallest candidate set so far and an
+ * empty one ends the search early. A year range or title phrase that does not drive is checked
+ * per remaining document instead; a title phrase is estimated from the shortest trigram posting
+ * list of the phrase, so its matches are only collected when it drives. A query without
+ * criteria starts from every document.
+ */
+public class QueryEngine {
+    private final CatalogIndex index;
+    private final TrigramIndex titleIndex;
+    
+    /**
+     * Constructor.
+     *
+     * @param index The field indexes of the catalog
+     * @param titleIndex The trigram index over titles, used for title phrases
+     */
+    public QueryEngine(CatalogIndex index, TrigramIndex titleIndex) {
+        this.index = index;
+        this.titleIndex = titleIndex;
+    }
+    
+    /**
+     * Plans a query without running it.
+     *
+     * @param query The query
+     * @return The plan
+     */
+    public QueryPlan plan(BookQuery query) {
+        if (query == null) {
+            throw new IllegalArgumentException("Query cannot be null");
+        }
+        
+        List<Criterion> criteria = new ArrayList<>();
+        if (query.getAuthor() != null) {
+            criteria.add(new BitmapCriterion("author", index.authorDocs(query.getAuthor())));
+        }
+        if (query.getType() != null) {
+            criteria.add(new BitmapCriterion("type=" + query.getType(), index.typeDocs(query.getType())));
+        }
+        if (query.getTitleContains() != null) {
+            criteria.add(new TitleCriterion(query.getTitleContains()));
+        }
+        if (query.hasYearRange()) {
+            criteria.add(new YearCriterion(query.getMinYear(), query.getMaxYear()));
+        }
+        if (query.isAvailableOnly()) {
+            criteria.add(new BitmapCriterion("available", index.availableDocs()));
+        }
+        criteria.sort(Comparator.comparingInt(Criterion::estimate));
+        
+        List<Criterion> bitmaps = new ArrayList<>();
+        List<Criterion> filters = new ArrayList<>();
+        if (!criteria.isEmpty()) {
+            bitmaps.add(criteria.remove(0));
+        }
+        for (Criterion criterion : criteria) {
+            if (criterion.isIndexed()) {
+                bitmaps.add(criterion);
+            } else {
+                filters.add(criterion);
+            }
+        }
+        return new QueryPlan(bitmaps, filters);
+    }
+    
+    /**
+     * Plans and runs a query.
+     *
+     * @param query The query
+     * @return The ISBN keys of the matching books
+     */
+    public LongList execute(BookQuery query) {
+        return plan(query).execute();
+    }
+    
+    /**
+     * Counts the books matching a query by type, by publication decade and by availability.
+     *
+     * @param query The query
+     * @return The facet counts
+     */
+    public FacetCounts facets(BookQuery query) {
+        RoaringBitmap docs = plan(query).matchingDocs();
+        Map<BookFactory.BookType, Integer> byType = new EnumMap<>(BookFactory.BookType.class);
+        for (BookFactory.BookType type : BookFactory.BookType.values()) {
+            byType.put(type, docs.andCardinality(index.typeDocs(type)));
+        }
+        SortedMap<Integer, Integer> byDecade = new TreeMap<>();
+        for (Map.Entry<Integer, RoaringBitmap> decade : index.decadeDocs().entrySet()) {
+            int count = docs.andCardinality(decade.getValue());
+            if (count > 0) {
+                byDecade.put(decade.getKey(), count);
+            }
+        }
+        return new FacetCounts(docs.cardinality(), docs.andCardinality(index.availableDocs()), byType, byDecade);
+    }
+    
+    /**
+     * An ordered query plan: the driving criterion, bitmap intersections smallest first, then
+     * filters.
+     */
+    public class QueryPlan {
+        private final List<Criterion> bitmaps;
+        private final List<Criterion> filters;
+        
+        private QueryPlan(List<Criterion> bitmaps, List<Criterion> filters) {
+            this.bitmaps = bitmaps;
+            this.filters = filters;
+        }
+        
+        /**
+         * Runs the plan.
+         *
+         * @return The ISBN keys of the matching books, in the order they were indexed
+         */
+        public LongList execute() {
+            LongList results = new LongList();
+            matchingDocs().forEach(doc -> results.add(index.keyOf(doc)));
+            return results;
+        }
+        
+        /**
+         * Gets the matching documents. The result may be a bitmap of the index itself, so it
+         * must not be modified.
+         */
+        private RoaringBitmap matchingDocs() {
+            RoaringBitmap docs = bitmaps.isEmpty() ? index.liveDocs() : bitmaps.get(0).bitmap();
+            for (int i = 1; i < bitmaps.size() && !docs.isEmpty(); i++) {
+                docs = docs.and(bitmaps.get(i).bitmap());
+            }
+            if (filters.isEmpty() || docs.isEmpty()) {
+                return docs;
+            }
+            
+            RoaringBitmap filtered = new RoaringBitmap();
+            docs.forEach(doc -> {
+                for (Criterion filter : filters) {
+                    if (!filter.test(doc)) {
+                        return;
+                    }
+                }
+                filtered.add(doc);
+            });
+            return filtered;
+        }
+        
+        /**
+         * Describes the steps of the plan in the order they run, each with its estimate,
+         * e.g. {@code "scan author(3)"}, {@code "and available(120)"}, {@code "filter year(40)"}.
+         *
+         * @return The steps
+         */
+        public List<String> getSteps() {
+            List<String> steps = new ArrayList<>();
+            if (bitmaps.isEmpty()) {
+                steps.add("scan all(" + index.size() + ")");
+            }
+            for (int i = 0; i < bitmaps.size(); i++) {
+                steps.add((i == 0 ? "scan " : "and ") + bitmaps.get(i));
+            }
+            for (Criterion filter : filters) {
+                steps.add("filter " + filter);
+            }
+            return Collections.unmodifiableList(steps);
+        }
+        
+        @Override
+        public String toString() {
+            return String.join(" -> ", getSteps());
+        }
+    }
+    
+    /**
+     * One condition of a query.
+     */
+    private abstract static class Criterion {
+        private final String name;
+        
+        Criterion(String name) {
+            this.name = name;
+        }
+        
+        /** Estimated number of matching books. */
+        abstract int estimate();
+        
+        /** Whether the matching documents are already at hand as a bitmap. */
+        abstract boolean isIndexed();
+        
+        /** Matching documents, materialized on demand if the criterion is not indexed. */
+        abstract RoaringBitmap bitmap();
+        
+        abstract boolean test(int doc);
+        
+        @Override
+        public String toString() {
+            return name + "(" + estimate() + ")";
+        }
+    }
+    
+    private static class BitmapCriterion extends Criterion {
+        private final RoaringBitmap docs;
+        private final int estimate;
+        
+        BitmapCriterion(String name, RoaringBitmap docs) {
+            super(name);
+            this.docs = docs;
+            this.estimate = docs.cardinality();
+        }
+        
+        @Override
+        int estimate() {
+            return estimate;
+        }
+        
+        @Override
+        boolean isIndexed() {
+            return true;
+        }
+        
+        @Override
+        RoaringBitmap bitmap() {
+            return docs;
+        }
+        
+        @Override
+        boolean test(int doc) {
+            return docs.contains(doc);
+        }
+    }
+    
+    private class YearCriterion extends Criterion {
+        private final int minYear;
+        private final int maxYear;
+        private final int estimate;
+        
+        YearCriterion(int minYear, int maxYear) {
+            super("year");
+            this.minYear = minYear;
+            this.maxYear = maxYear;
+            this.estimate = index.yearIndex().count(minYear, maxYear);
+        }
+        
+        @Override
+        int estimate() {
+            return estimate;
+        }
+        
+        @Override
+        boolean isIndexed() {
+            return false;
+        }
+        
+        @Override
+        RoaringBitmap bitmap() {
+            return index.yearIndex().docs(minYear, maxYear);
+        }
+        
+        @Override
+        boolean test(int doc) {
+            int year = index.yearOf(doc);
+            return year >= minYear && year <= maxYear;
+        }
+    }
+    
+    private class TitleCriterion extends Criterion {
+        private final String text;
+        private final String pattern;
+        private final int estimate;
+        
+        TitleCriterion(String text) {
+            super("title");
+            this.text = text;
+            this.pattern = SearchNormalizer.normalizeWords(text);
+            this.estimate = titleIndex.estimateContaining(pattern);
+        }
+        
+        @Override
+        int estimate() {
+            return estimate;
+        }
+        
+        @Override
+        boolean isIndexed() {
+            return false;
+        }
+        
+        @Override
+        RoaringBitmap bitmap() {
+            RoaringBitmap docs = new RoaringBitmap();
+            for (TrigramIndex.Match match : titleIndex.search(text, 0, Integer.MAX_VALUE)) {
+                int doc = index.docOf(match.getKey());
+                if (doc != CatalogIndex.NO_DOC) {
+                    docs.add(doc);
+                }
+            }
+            return docs;
+        }
+        
+        @Override
+        boolean test(int doc) {
+            return titleIndex.textContains(index.keyOf(doc), pattern);
+        }
+    }
+}
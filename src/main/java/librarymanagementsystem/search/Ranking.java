@@ -0,0 +1,13 @@
+package librarymanagementsystem.search;
+
+/**
+ * Orders in which ranked searches return their matches.
+ */
+public enum Ranking {
+    /** Best matches first: exact, then at the start, then at the start of a word, then anywhere. */
+    RELEVANCE,
+    /** Most borrowed books first. */
+    POPULARITY,
+    /** Most recently published books first. */
+    RECENCY
+}
@@ -0,0 +1,69 @@
+package librarymanagementsystem.search;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Normalizes catalog text and queries into search keys, so that matching ignores case,
+ * compatibility variants (ligatures, full-width forms) and diacritics: "Café", "CAFE" and
+ * "cafe" all share the key "cafe". Catalog text is normalized once when a book is indexed and
+ * queries with the same method, so a search compares keys directly.
+ */
+public final class SearchNormalizer {
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    
+    private SearchNormalizer() {
+    }
+    
+    /**
+     * Folds text to its search key: compatibility-decomposed, stripped of diacritics and
+     * case-folded. Text that is plain lowercase ASCII is returned as is.
+     *
+     * @param text The text
+     * @return The search key
+     */
+    public static String normalize(String text) {
+        boolean ascii = true;
+        boolean lowercase = true;
+        for (int i = 0; i < text.length() && ascii; i++) {
+            char c = text.charAt(i);
+            ascii = c < 0x80;
+            lowercase &= c < 'A' || c > 'Z';
+        }
+        if (ascii) {
+            return lowercase ? text : text.toLowerCase(Locale.ROOT);
+        }
+        
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFKD);
+        String stripped = COMBINING_MARKS.matcher(decomposed).replaceAll("");
+        return stripped.toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT); // folds e.g. "ß" to "ss"
+    }
+    
+    /**
+     * Folds text to its search key like {@link #normalize(String)} and also reduces every run
+     * of characters other than letters and digits to a single space, trimming both ends. Used
+     * where matching works on words rather than raw substrings.
+     *
+     * @param text The text
+     * @return The word-level search key
+     */
+    public static String normalizeWords(String text) {
+        String folded = normalize(text);
+        StringBuilder normalized = new StringBuilder(folded.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < folded.length(); i++) {
+            char c = folded.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (pendingSpace && normalized.length() > 0) {
+                    normalized.append(' ');
+                }
+                pendingSpace = false;
+                normalized.append(c);
+            } else {
+                pendingSpace = true;
+            }
+        }
+        return normalized.toString();
+    }
+}
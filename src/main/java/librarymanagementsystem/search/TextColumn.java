@@ -0,0 +1,547 @@
+package librarymanagementsystem.search;
+
+import librarymanagementsystem.utils.BoundedLongHeap;
+import librarymanagementsystem.utils.LongList;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongPredicate;
+
+/**
+ * One text field of the catalog laid out for substring scans.
+ * <p>
+ * The texts are normalized to search keys once when added (see {@link SearchNormalizer}) and
+ * appended to a single character array, so a scan walks memory sequentially instead of
+ * chasing a String per book and normalizing it again on every search. Catalogs larger than
+ * the parallel threshold are scanned in fixed-size chunks of entries spread across a
+ * {@link ForkJoinPool}; smaller ones are scanned on the calling thread, where the cost of
+ * forking would outweigh the work.
+ * <p>
+ * Ranked searches keep only the best matches seen so far in a bounded heap per chunk, so
+ * asking for the top few of a very common phrase does not collect every match first.
+ * <p>
+ * Searches never lock. Each one reads the version of the column that was published last when
+ * it started; writers are serialized and publish a new version with a single volatile write.
+ * The arrays are only ever appended to past the entries a version can see, and a removal is
+ * recorded as the version that removed the entry, so versions already being scanned do not
+ * change: a search running while a text is replaced finds either the old text or the new one.
+ * Books are found by key through an open-addressing table whose slots are only ever filled,
+ * never cleared or moved, so each version can look up the entries it sees without locking.
+ * <p>
+ * Removed and replaced texts leave dead characters behind until enough of them have built
+ * up to compact the arrays, which copies the live entries into new ones.
+ */
+public class TextColumn {
+    /** Default number of entries from which scans run in parallel. */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 32_768;
+    /** Number of entries each parallel task scans. */
+    static final int CHUNK_ENTRIES = 4_096;
+    
+    private static final int MIN_COMPACT_CHARS = 1 << 16;
+    private static final long LIVE = Long.MAX_VALUE; // removal version of a live entry
+    private static final int NO_ENTRY = -1;
+    
+    // Match qualities, best last; a rank packs the quality, the text length and the entry
+    private static final int NO_MATCH = -1;
+    private static final int ANYWHERE = 0;
+    private static final int WORD_START = 1;
+    private static final int PREFIX = 2;
+    private static final int EXACT = 3;
+    private static final int MAX_RANKED_LENGTH = 0xFF_FFFF;
+    
+    private final ForkJoinPool pool;
+    private volatile int parallelThreshold;
+    private volatile Version published; // what searches read
+    
+    // Writer state, guarded by this
+    private char[] chars;
+    private int charCount;
+    private int deadChars;
+    private int[] offsets; // entry -> first character
+    private int[] lengths;
+    private long[] keys; // entry -> ISBN key
+    private AtomicLongArray removedIn; // entry -> version that removed it, or LIVE
+    private int entryCount;
+    private int[] slots; // hash of ISBN key -> entry + 1, 0 if empty; at most half full
+    private int usedSlots;
+    private int size;
+    private long version;
+    
+    public TextColumn() {
+        this(DEFAULT_PARALLEL_THRESHOLD, ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Constructor with an explicit parallel threshold and pool.
+     *
+     * @param parallelThreshold The number of entries from which scans run in parallel
+     * @param pool The pool to run parallel scans on
+     */
+    public TextColumn(int parallelThreshold, ForkJoinPool pool) {
+        if (pool == null) {
+            throw new IllegalArgumentException("Pool cannot be null");
+        }
+        setParallelThreshold(parallelThreshold);
+        this.pool = pool;
+        this.chars = new char[1024];
+        this.offsets = new int[16];
+        this.lengths = new int[16];
+        this.keys = new long[16];
+        this.removedIn = new AtomicLongArray(16);
+        this.slots = new int[32];
+        publish();
+    }
+    
+    /**
+     * Adds the text of a book, replacing any text it had before.
+     *
+     * @param key The ISBN key of the book, see IsbnKeys
+     * @param text The text
+     */
+    public synchronized void add(long key, String text) {
+        String searchKey = SearchNormalizer.normalize(text);
+        version++;
+        int previous = find(slots, keys, removedIn, entryCount, key, version);
+        if (previous != NO_ENTRY) {
+            markRemoved(previous);
+        }
+        if (charCount + searchKey.length() > chars.length) {
+            chars = Arrays.copyOf(chars, Math.max(chars.length * 2, charCount + searchKey.length()));
+        }
+        if (entryCount == keys.length) {
+            offsets = Arrays.copyOf(offsets, entryCount * 2);
+            lengths = Arrays.copyOf(lengths, entryCount * 2);
+            keys = Arrays.copyOf(keys, entryCount * 2);
+            removedIn = copyOf(removedIn, entryCount, entryCount * 2);
+        }
+        
+        searchKey.getChars(0, searchKey.length(), chars, charCount);
+        offsets[entryCount] = charCount;
+        lengths[entryCount] = searchKey.length();
+        keys[entryCount] = key;
+        removedIn.set(entryCount, LIVE);
+        if ((usedSlots + 1) * 2 > slots.length) {
+            rebuildSlots(size + 1);
+        }
+        insert(slots, key, entryCount);
+        usedSlots++;
+        charCount += searchKey.length();
+        entryCount++;
+        size++;
+        publish();
+        compactIfSparse();
+    }
+    
+    /**
+     * Removes the text of a book.
+     *
+     * @param key The ISBN key of the book
+     * @return true if the book had a text
+     */
+    public synchronized boolean remove(long key) {
+        int entry = find(slots, keys, removedIn, entryCount, key, version);
+        if (entry == NO_ENTRY) {
+            return false;
+        }
+        
+        version++;
+        markRemoved(entry);
+        publish();
+        compactIfSparse();
+        return true;
+    }
+    
+    /**
+     * Finds the books whose text contains a phrase, ignoring case and diacritics.
+     *
+     * @param phrase The phrase to look for
+     * @return The ISBN keys of the matching books, in the order their texts were added
+     */
+    public LongList findContaining(String phrase) {
+        if (phrase == null) {
+            throw new IllegalArgumentException("Phrase cannot be null");
+        }
+        
+        char[] needle = SearchNormalizer.normalize(phrase).toCharArray();
+        Version current = published;
+        if (current.entryCount < parallelThreshold) {
+            LongList matches = new LongList();
+            current.scan(needle, 0, current.entryCount, matches);
+            return matches;
+        }
+        return pool.invoke(new ScanTask(current, needle, 0, current.entryCount));
+    }
+    
+    /**
+     * Finds the books whose text best matches a phrase. Texts equal to the phrase come first,
+     * then texts starting with it, then texts with a word starting with it, then texts
+     * containing it anywhere; shorter texts come first among equal matches, then texts added
+     * earlier. The scan stops early once it holds enough exact matches.
+     *
+     * @param phrase The phrase to look for
+     * @param limit The maximum number of books to find
+     * @return The ISBN keys of the best matching books, best first
+     */
+    public LongList findMostRelevant(String phrase, int limit) {
+        if (phrase == null) {
+            throw new IllegalArgumentException("Phrase cannot be null");
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        
+        char[] needle = SearchNormalizer.normalize(phrase).toCharArray();
+        Version current = published;
+        BoundedLongHeap best = current.entryCount < parallelThreshold
+                ? current.rank(needle, 0, current.entryCount, limit)
+                : pool.invoke(new RankTask(current, needle, 0, current.entryCount, limit));
+        long[] ranks = best.toSortedArray();
+        LongList matches = new LongList(ranks.length);
+        for (long rank : ranks) {
+            matches.add(current.keys[Integer.MAX_VALUE - (int) (rank & Integer.MAX_VALUE)]);
+        }
+        return matches;
+    }
+    
+    /**
+     * Gets a test for whether a book's text contains a phrase, ignoring case and diacritics.
+     * The phrase is normalized once, so the test suits checking many books. Like a scan, the
+     * test reads the version published when it was created and never locks.
+     *
+     * @param phrase The phrase to look for
+     * @return A test taking ISBN keys; false for books without a text
+     */
+    public LongPredicate containing(String phrase) {
+        if (phrase == null) {
+            throw new IllegalArgumentException("Phrase cannot be null");
+        }
+        
+        char[] needle = SearchNormalizer.normalize(phrase).toCharArray();
+        Version current = published;
+        return key -> {
+            int entry = current.entryOf(key);
+            return entry != NO_ENTRY && contains(current.chars, current.offsets[entry], current.lengths[entry], needle);
+        };
+    }
+    
+    /**
+     * Sets the number of entries from which scans run in parallel.
+     *
+     * @param parallelThreshold The threshold; Integer.MAX_VALUE keeps scans sequential
+     */
+    public void setParallelThreshold(int parallelThreshold) {
+        if (parallelThreshold <= 0) {
+            throw new IllegalArgumentException("Parallel threshold must be positive");
+        }
+        this.parallelThreshold = parallelThreshold;
+    }
+    
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+    
+    /**
+     * Gets the number of books with a text.
+     *
+     * @return The number of books
+     */
+    public int size() {
+        return published.size;
+    }
+    
+    private void markRemoved(int entry) {
+        removedIn.set(entry, version);
+        deadChars += lengths[entry];
+        size--;
+    }
+    
+    private void publish() {
+        published = new Version(version, chars, offsets, lengths, keys, removedIn, slots, entryCount, size);
+    }
+    
+    private void compactIfSparse() {
+        if (deadChars > MIN_COMPACT_CHARS && deadChars > charCount - deadChars) {
+            compact();
+        }
+    }
+    
+    /**
+     * Copies the live entries and their characters into new arrays, keeping their order, and
+     * publishes them. Versions published before keep the old arrays.
+     */
+    private void compact() {
+        int capacity = Math.max(16, size);
+        char[] liveChars = new char[Math.max(1024, charCount - deadChars)];
+        int[] liveOffsets = new int[capacity];
+        int[] liveLengths = new int[capacity];
+        long[] liveKeys = new long[capacity];
+        AtomicLongArray liveRemovedIn = new AtomicLongArray(capacity);
+        int liveCount = 0;
+        int liveEntries = 0;
+        for (int entry = 0; entry < entryCount; entry++) {
+            if (removedIn.get(entry) != LIVE) {
+                continue;
+            }
+            System.arraycopy(chars, offsets[entry], liveChars, liveCount, lengths[entry]);
+            liveOffsets[liveEntries] = liveCount;
+            liveLengths[liveEntries] = lengths[entry];
+            liveKeys[liveEntries] = keys[entry];
+            liveRemovedIn.set(liveEntries, LIVE);
+            liveCount += lengths[entry];
+            liveEntries++;
+        }
+        chars = liveChars;
+        offsets = liveOffsets;
+        lengths = liveLengths;
+        keys = liveKeys;
+        removedIn = liveRemovedIn;
+        charCount = liveCount;
+        deadChars = 0;
+        entryCount = liveEntries;
+        rebuildSlots(liveEntries);
+        version++;
+        publish();
+    }
+    
+    /**
+     * Replaces the table with a new one of the live entries, sized to stay at most half full
+     * with the given number of entries. Versions published before keep the old table.
+     */
+    private void rebuildSlots(int expected) {
+        int[] table = new int[Math.max(32, Integer.highestOneBit(Math.max(expected, 1)) * 4)];
+        int used = 0;
+        for (int entry = 0; entry < entryCount; entry++) {
+            if (removedIn.get(entry) == LIVE) {
+                insert(table, keys[entry], entry);
+                used++;
+            }
+        }
+        slots = table;
+        usedSlots = used;
+    }
+    
+    private static void insert(int[] table, long key, int entry) {
+        int mask = table.length - 1;
+        int slot = slotOf(key, mask);
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = entry + 1;
+    }
+    
+    /**
+     * Finds the entry holding a key among the first entryCount entries, skipping entries
+     * removed as of the given version. Entries appended since are in the table too and are
+     * probed past, and a slot is never emptied, so every probe sequence a version relies on
+     * is still intact.
+     *
+     * @return The entry, or NO_ENTRY
+     */
+    private static int find(int[] table, long[] keys, AtomicLongArray removedIn, int entryCount, long key,
+            long version) {
+        int mask = table.length - 1;
+        for (int slot = slotOf(key, mask); table[slot] != 0; slot = (slot + 1) & mask) {
+            int entry = table[slot] - 1;
+            if (entry < entryCount && keys[entry] == key && removedIn.get(entry) > version) {
+                return entry;
+            }
+        }
+        return NO_ENTRY;
+    }
+    
+    private static int slotOf(long key, int mask) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+    
+    private static AtomicLongArray copyOf(AtomicLongArray array, int length, int capacity) {
+        AtomicLongArray copy = new AtomicLongArray(capacity);
+        for (int i = 0; i < length; i++) {
+            copy.set(i, array.get(i));
+        }
+        return copy;
+    }
+    
+    private static boolean contains(char[] chars, int offset, int length, char[] needle) {
+        int last = offset + length - needle.length;
+        for (int start = offset; start <= last; start++) {
+            if (matchesAt(chars, start, needle)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static int matchQuality(char[] chars, int offset, int length, char[] needle) {
+        int quality = NO_MATCH;
+        int last = offset + length - needle.length;
+        for (int start = offset; start <= last; start++) {
+            if (!matchesAt(chars, start, needle)) {
+                continue;
+            }
+            if (start == offset) {
+                return length == needle.length ? EXACT : PREFIX;
+            }
+            if (!Character.isLetterOrDigit(chars[start - 1])) {
+                return WORD_START;
+            }
+            quality = ANYWHERE;
+        }
+        return quality;
+    }
+    
+    private static boolean matchesAt(char[] chars, int start, char[] needle) {
+        for (int i = 0; i < needle.length; i++) {
+            if (chars[start + i] != needle[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * One published version of the column: the entries it can see and the arrays holding
+     * them, which later writes only extend past those entries.
+     */
+    private static final class Version {
+        private final long version;
+        private final char[] chars;
+        private final int[] offsets;
+        private final int[] lengths;
+        private final long[] keys;
+        private final AtomicLongArray removedIn;
+        private final int[] slots;
+        private final int entryCount;
+        private final int size;
+        
+        Version(long version, char[] chars, int[] offsets, int[] lengths, long[] keys,
+                AtomicLongArray removedIn, int[] slots, int entryCount, int size) {
+            this.version = version;
+            this.chars = chars;
+            this.offsets = offsets;
+            this.lengths = lengths;
+            this.keys = keys;
+            this.removedIn = removedIn;
+            this.slots = slots;
+            this.entryCount = entryCount;
+            this.size = size;
+        }
+        
+        /**
+         * Checks whether an entry is part of this version, which entries removed by later
+         * versions still are.
+         */
+        boolean isLive(int entry) {
+            return removedIn.get(entry) > version;
+        }
+        
+        int entryOf(long key) {
+            return find(slots, keys, removedIn, entryCount, key, version);
+        }
+        
+        void scan(char[] needle, int from, int to, LongList matches) {
+            for (int entry = from; entry < to; entry++) {
+                if (isLive(entry) && contains(chars, offsets[entry], lengths[entry], needle)) {
+                    matches.add(keys[entry]);
+                }
+            }
+        }
+        
+        BoundedLongHeap rank(char[] needle, int from, int to, int limit) {
+            BoundedLongHeap best = new BoundedLongHeap(limit);
+            for (int entry = from; entry < to; entry++) {
+                if (!isLive(entry)) {
+                    continue;
+                }
+                int quality = matchQuality(chars, offsets[entry], lengths[entry], needle);
+                if (quality == NO_MATCH) {
+                    continue;
+                }
+                
+                long shortness = MAX_RANKED_LENGTH - Math.min(lengths[entry], MAX_RANKED_LENGTH);
+                best.offer((long) quality << 56 | shortness << 32 | (Integer.MAX_VALUE - entry));
+                if (best.isFull() && best.min() >>> 56 == EXACT) {
+                    break; // later exact matches tie on everything but come later
+                }
+            }
+            return best;
+        }
+    }
+    
+    /**
+     * Scans a range of entries of a version, splitting it in halves down to single chunks.
+     */
+    private static class ScanTask extends RecursiveTask<LongList> {
+        private static final long serialVersionUID = 1L;
+        
+        private final Version version;
+        private final char[] needle;
+        private final int from;
+        private final int to;
+        
+        ScanTask(Version version, char[] needle, int from, int to) {
+            this.version = version;
+            this.needle = needle;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected LongList compute() {
+            if (to - from <= CHUNK_ENTRIES) {
+                LongList matches = new LongList();
+                version.scan(needle, from, to, matches);
+                return matches;
+            }
+            
+            int middle = from + (to - from) / 2;
+            ScanTask left = new ScanTask(version, needle, from, middle);
+            left.fork();
+            LongList matches = new ScanTask(version, needle, middle, to).compute();
+            LongList leftMatches = left.join();
+            for (int i = 0; i < matches.size(); i++) {
+                leftMatches.add(matches.get(i));
+            }
+            return leftMatches;
+        }
+    }
+    
+    /**
+     * Ranks a range of entries like {@link ScanTask} scans them, merging the best matches of
+     * both halves.
+     */
+    private static class RankTask extends RecursiveTask<BoundedLongHeap> {
+        private static final long serialVersionUID = 1L;
+        
+        private final Version version;
+        private final char[] needle;
+        private final int from;
+        private final int to;
+        private final int limit;
+        
+        RankTask(Version version, char[] needle, int from, int to, int limit) {
+            this.version = version;
+            this.needle = needle;
+            this.from = from;
+            this.to = to;
+            this.limit = limit;
+        }
+        
+        @Override
+        protected BoundedLongHeap compute() {
+            if (to - from <= CHUNK_ENTRIES) {
+                return version.rank(needle, from, to, limit);
+            }
+            
+            int middle = from + (to - from) / 2;
+            RankTask left = new RankTask(version, needle, from, middle, limit);
+            left.fork();
+            BoundedLongHeap best = new RankTask(version, needle, middle, to, limit).compute();
+            for (long rank : left.join().toSortedArray()) {
+                best.offer(rank);
+            }
+            return best;
+        }
+    }
+}
@@ -0,0 +1,420 @@
+package librarymanagementsystem.search;
+
+import librarymanagementsystem.utils.IsbnKeys;
+import librarymanagementsystem.utils.LongHashMap;
+import librarymanagementsystem.utils.LongIntHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Trigram index over one text field of the catalog, for typo-tolerant search.
+ * <p>
+ * Every document gets a dense internal ID, and each trigram and bigram of its normalized text
+ * maps to the ascending list of IDs containing it. A query within k edits of part of a text
+ * still shares all but at most qk of its distinct q-grams with that text, so only documents
+ * reaching that count are candidates. Only the qk + 1 shortest posting lists have to be
+ * scanned to find every candidate; the longer, more common ones are only probed by binary
+ * search. Each search uses trigrams or bigrams, whichever needs fewer postings scanned;
+ * bigrams keep a usable count for short queries, such as five letters with one edit, where
+ * trigrams leave none. When neither does, or the lists to scan hold more postings than there
+ * are documents, every text is verified directly instead. Candidates are verified with a
+ * bounded edit distance against the best-matching substring of the text.
+ * <p>
+ * Searches only read the index, so concurrent searches can share it as long as writers are
+ * locked out.
+ * <p>
+ * Removed documents leave stale IDs behind in the posting lists until enough of them have
+ * built up to rebuild the index.
+ */
+public class TrigramIndex {
+    private static final int MIN_COMPACT_SIZE = 1024;
+    private static final Comparator<Match> BY_RELEVANCE = Comparator.comparingInt(Match::getDistance)
+            .thenComparingInt(match -> match.textLength)
+            .thenComparingLong(Match::getKey);
+    
+    private LongHashMap<Postings> trigrams; // trigram -> ascending document IDs
+    private LongHashMap<Postings> bigrams; // bigram -> ascending document IDs
+    private LongIntHashMap idsByKey;
+    private long[] keys; // document ID -> ISBN key, NO_KEY once removed
+    private String[] texts; // document ID -> normalized text
+    private int nextId;
+    private int size;
+    
+    public TrigramIndex() {
+        clear();
+    }
+    
+    /**
+     * Indexes the text of a document, replacing any text it had before.
+     *
+     * @param key The ISBN key of the document, see IsbnKeys
+     * @param text The text to index
+     */
+    public void add(long key, String text) {
+        remove(key);
+        String normalized = SearchNormalizer.normalizeWords(text);
+        if (nextId == keys.length) {
+            keys = Arrays.copyOf(keys, keys.length * 2);
+            texts = Arrays.copyOf(texts, texts.length * 2);
+        }
+        
+        int id = nextId++;
+        keys[id] = key;
+        texts[id] = normalized;
+        idsByKey.put(key, id);
+        size++;
+        for (int i = 0; i + 2 <= normalized.length(); i++) {
+            post(bigrams, gramAt(normalized, i, 2), id);
+            if (i + 3 <= normalized.length()) {
+                post(trigrams, gramAt(normalized, i, 3), id);
+            }
+        }
+    }
+    
+    /**
+     * Removes a document from the index.
+     *
+     * @param key The ISBN key of the document
+     * @return true if the document was indexed
+     */
+    public boolean remove(long key) {
+        int id = idsByKey.remove(key);
+        if (id == LongIntHashMap.NO_VALUE) {
+            return false;
+        }
+        
+        keys[id] = IsbnKeys.NO_KEY;
+        texts[id] = null;
+        size--;
+        int stale = nextId - size;
+        if (stale > MIN_COMPACT_SIZE && stale > size) {
+            rebuild();
+        }
+        return true;
+    }
+    
+    /**
+     * Finds documents whose text contains the query with at most the given number of edits
+     * (insertions, deletions or substitutions), closest matches first.
+     *
+     * @param query The text to look for
+     * @param maxEdits The maximum edit distance
+     * @param limit The maximum number of matches to return
+     * @return The matches, ordered by edit distance, then by text length
+     */
+    public List<Match> search(String query, int maxEdits, int limit) {
+        if (query == null || maxEdits < 0 || limit <= 0) {
+            throw new IllegalArgumentException("Query cannot be null and limits cannot be negative");
+        }
+        
+        String pattern = SearchNormalizer.normalizeWords(query);
+        List<Match> matches = new ArrayList<>();
+        if (pattern.isEmpty()) {
+            return matches;
+        }
+        
+        // Edits to one or two letters would match almost anything; only exact substrings are meaningful
+        collectMatches(pattern, pattern.length() < 3 ? 0 : maxEdits, matches);
+        
+        matches.sort(BY_RELEVANCE);
+        return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+    }
+    
+    /**
+     * Gets the default number of edits tolerated for a query, growing with its length so
+     * short queries do not match almost everything.
+     *
+     * @param query The query text
+     * @return The maximum edit distance to use
+     */
+    public static int defaultMaxEdits(String query) {
+        int length = SearchNormalizer.normalizeWords(query).length();
+        if (length <= 4) {
+            return 0;
+        }
+        return length <= 8 ? 1 : 2;
+    }
+    
+    /**
+     * Gets the number of indexed documents.
+     *
+     * @return The number of documents
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Estimates how many documents contain a normalized pattern exactly, from the shortest
+     * posting list among its trigrams (bigrams for two letters). This is an upper bound: every
+     * match is in that list, and the list may also hold removed documents. Nothing is scanned.
+     *
+     * @param pattern The pattern, normalized as by {@link SearchNormalizer#normalizeWords}
+     * @return At most the number of indexed documents
+     */
+    int estimateContaining(String pattern) {
+        if (pattern.isEmpty()) {
+            return 0;
+        }
+        if (pattern.length() < 2) {
+            return size;
+        }
+        int q = pattern.length() < 3 ? 2 : 3;
+        LongHashMap<Postings> postings = q == 3 ? trigrams : bigrams;
+        int smallest = size;
+        for (int i = 0; i + q <= pattern.length() && smallest > 0; i++) {
+            Postings list = postings.get(gramAt(pattern, i, q));
+            smallest = Math.min(smallest, list != null ? list.size : 0);
+        }
+        return smallest;
+    }
+    
+    /**
+     * Checks whether the text of one document contains a normalized pattern exactly.
+     *
+     * @param key The ISBN key of the document
+     * @param pattern The pattern, normalized as by {@link SearchNormalizer#normalizeWords}
+     * @return true if the document is indexed and its text contains the pattern
+     */
+    boolean textContains(long key, String pattern) {
+        int id = idsByKey.get(key);
+        return id != LongIntHashMap.NO_VALUE && !pattern.isEmpty() && texts[id].contains(pattern);
+    }
+    
+    private void collectMatches(String pattern, int maxEdits, List<Match> matches) {
+        GramPlan plan = GramPlan.cheaper(plan(pattern, 3, maxEdits, trigrams), plan(pattern, 2, maxEdits, bigrams));
+        int[] row = new int[pattern.length() + 1];
+        if (plan == null || plan.scanCost > nextId) {
+            // No count filter applies, or it would scan more postings than there are texts
+            for (int id = 0; id < nextId; id++) {
+                verify(pattern, id, maxEdits, row, matches);
+            }
+            return;
+        }
+        
+        List<Postings> lists = plan.lists;
+        int required = plan.required;
+        int scanned = lists.size() - required + 1;
+        
+        LongIntHashMap candidateIndex = new LongIntHashMap();
+        int[] candidates = new int[16];
+        int[] counts = new int[16];
+        int candidateCount = 0;
+        for (int l = 0; l < scanned; l++) {
+            Postings list = lists.get(l);
+            for (int p = 0; p < list.size; p++) {
+                int id = list.ids[p];
+                int index = candidateIndex.get(id);
+                if (index == LongIntHashMap.NO_VALUE) {
+                    if (candidateCount == candidates.length) {
+                        candidates = Arrays.copyOf(candidates, candidateCount * 2);
+                        counts = Arrays.copyOf(counts, candidateCount * 2);
+                    }
+                    index = candidateCount++;
+                    candidateIndex.put(id, index);
+                    candidates[index] = id;
+                    counts[index] = 0;
+                }
+                counts[index]++;
+            }
+        }
+        for (int l = scanned; l < lists.size(); l++) {
+            Postings list = lists.get(l);
+            for (int c = 0; c < candidateCount; c++) {
+                if (Arrays.binarySearch(list.ids, 0, list.size, candidates[c]) >= 0) {
+                    counts[c]++;
+                }
+            }
+        }
+        
+        for (int c = 0; c < candidateCount; c++) {
+            if (counts[c] >= required) {
+                verify(pattern, candidates[c], maxEdits, row, matches);
+            }
+        }
+    }
+    
+    private void verify(String pattern, int id, int maxEdits, int[] row, List<Match> matches) {
+        if (texts[id] == null) {
+            return;
+        }
+        int distance = substringDistance(pattern, texts[id], maxEdits, row);
+        if (distance <= maxEdits) {
+            matches.add(new Match(keys[id], distance, texts[id].length()));
+        }
+    }
+    
+    /**
+     * Plans a count filter on the pattern's distinct q-grams.
+     *
+     * @return The plan, or null if the pattern is too short for any count to survive the edits
+     */
+    private static GramPlan plan(String pattern, int q, int maxEdits, LongHashMap<Postings> postings) {
+        if (pattern.length() < q) {
+            return null;
+        }
+        long[] grams = new long[pattern.length() - q + 1];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = gramAt(pattern, i, q);
+        }
+        Arrays.sort(grams);
+        List<Postings> lists = new ArrayList<>();
+        for (int i = 0; i < grams.length; i++) {
+            if (i == 0 || grams[i] != grams[i - 1]) {
+                Postings list = postings.get(grams[i]);
+                lists.add(list != null ? list : Postings.EMPTY);
+            }
+        }
+        
+        // Each edit destroys at most q grams of the pattern
+        int required = lists.size() - q * maxEdits;
+        if (required < 1) {
+            return null;
+        }
+        lists.sort(Comparator.comparingInt(list -> list.size));
+        long scanCost = 0;
+        for (int l = 0; l <= lists.size() - required; l++) {
+            scanCost += lists.get(l).size;
+        }
+        return new GramPlan(lists, required, scanCost);
+    }
+    
+    private static void post(LongHashMap<Postings> postings, long gram, int id) {
+        Postings list = postings.get(gram);
+        if (list == null) {
+            list = new Postings();
+            postings.put(gram, list);
+        }
+        list.append(id);
+    }
+    
+    /**
+     * Computes the smallest edit distance between the pattern and any substring of the text,
+     * giving up once it cannot be within the bound.
+     *
+     * @return The distance, or maxEdits + 1 if it exceeds maxEdits
+     */
+    static int substringDistance(String pattern, String text, int maxEdits, int[] row) {
+        int m = pattern.length();
+        for (int i = 0; i <= m; i++) {
+            row[i] = i;
+        }
+        int best = m;
+        for (int j = 0; j < text.length() && best > 0; j++) {
+            char c = text.charAt(j);
+            int diagonal = row[0]; // a match may start anywhere, so row[0] stays 0
+            for (int i = 1; i <= m; i++) {
+                int above = row[i];
+                int substitution = diagonal + (pattern.charAt(i - 1) == c ? 0 : 1);
+                row[i] = Math.min(substitution, Math.min(above, row[i - 1]) + 1);
+                diagonal = above;
+            }
+            best = Math.min(best, row[m]);
+        }
+        return best <= maxEdits ? best : maxEdits + 1;
+    }
+    
+    private static long gramAt(String text, int index, int q) {
+        long gram = 0;
+        for (int i = 0; i < q; i++) {
+            gram = (gram << 16) | text.charAt(index + i);
+        }
+        return gram;
+    }
+    
+    private void clear() {
+        this.trigrams = new LongHashMap<>();
+        this.bigrams = new LongHashMap<>();
+        this.idsByKey = new LongIntHashMap();
+        this.keys = new long[16];
+        this.texts = new String[16];
+        this.nextId = 0;
+        this.size = 0;
+    }
+    
+    /**
+     * Reassigns document IDs without the gaps left by removals.
+     */
+    private void rebuild() {
+        long[] oldKeys = keys;
+        String[] oldTexts = texts;
+        int oldCount = nextId;
+        clear();
+        for (int id = 0; id < oldCount; id++) {
+            if (oldTexts[id] != null) {
+                add(oldKeys[id], oldTexts[id]);
+            }
+        }
+    }
+    
+    /**
+     * A document matching a search.
+     */
+    public static final class Match {
+        private final long key;
+        private final int distance;
+        final int textLength;
+        
+        Match(long key, int distance, int textLength) {
+            this.key = key;
+            this.distance = distance;
+            this.textLength = textLength;
+        }
+        
+        // Getters
+        public long getKey() {
+            return key;
+        }
+        
+        public int getDistance() {
+            return distance;
+        }
+    }
+    
+    /**
+     * Posting lists a search scans and probes, shortest first, and how many of them a
+     * candidate must appear in.
+     */
+    private static final class GramPlan {
+        final List<Postings> lists;
+        final int required;
+        final long scanCost; // postings in the lists that are scanned
+        
+        GramPlan(List<Postings> lists, int required, long scanCost) {
+            this.lists = lists;
+            this.required = required;
+            this.scanCost = scanCost;
+        }
+        
+        static GramPlan cheaper(GramPlan a, GramPlan b) {
+            if (a == null || b == null) {
+                return a != null ? a : b;
+            }
+            return b.scanCost < a.scanCost ? b : a;
+        }
+    }
+    
+    /**
+     * Growable, ascending list of document IDs.
+     */
+    private static final class Postings {
+        static final Postings EMPTY = new Postings();
+        
+        int[] ids = new int[4];
+        int size;
+        
+        void append(int id) {
+            // IDs are handed out in increasing order, so a repeated trigram repeats the last ID
+            if (size > 0 && ids[size - 1] == id) {
+                return;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+    }
+}
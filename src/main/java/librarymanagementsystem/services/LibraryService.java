@@ -1,7 +1,15 @@
 package librarymanagementsystem.services;
 
+import librarymanagementsystem.lending.BatchMode;
+import librarymanagementsystem.lending.BatchResult;
+import librarymanagementsystem.lending.Loan;
 import librarymanagementsystem.model.Book;
 import librarymanagementsystem.model.Patron;
+import librarymanagementsystem.search.BookQuery;
+import librarymanagementsystem.search.FacetCounts;
+import librarymanagementsystem.search.Ranking;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
 
 /**
@@ -17,17 +25,38 @@ public interface LibraryService {
     Book findBookByIsbn(String isbn);
     List<Book> findBooksByTitle(String title);
     List<Book> findBooksByAuthor(String author);
+    List<Book> findBooksByTitle(String title, Ranking ranking, int maxResults);
+    List<Book> findBooksByAuthor(String author, Ranking ranking, int maxResults);
+    List<Book> findBooksFuzzy(String text, int maxResults);
+    List<Book> findBooks(BookQuery query);
+    FacetCounts getFacets(BookQuery query);
+    List<Book> findBooksByYear(int fromYear, int toYear, boolean newestFirst, int maxResults);
+    List<String> suggestCompletions(String prefix, int maxResults);
     List<Book> getAllBooks();
     
     // Patron Management
     void addPatron(Patron patron);
     void updatePatron(String patronId, Patron updatedPatron);
     Patron findPatronById(String patronId);
+    Patron findPatronByEmail(String email);
+    List<Patron> findPatronsByPhone(String phoneNumber);
+    List<Patron> findPatronsByNamePrefix(String prefix);
     List<Patron> getAllPatrons();
     
     // Lending Process
     boolean checkoutBook(String isbn, String patronId);
     boolean returnBook(String isbn, String patronId);
+    BatchResult checkoutBooks(String patronId, List<String> isbns, BatchMode mode);
+    BatchResult returnBooks(List<String> isbns, BatchMode mode);
+    boolean renewLoan(String isbn, String patronId);
+    Loan findLoan(String isbn);
+    List<Loan> getOverdueLoans(Instant asOf);
+    List<Loan> getLoansDueWithin(Duration window);
+    
+    // Fines
+    int accrueFines();
+    long getFineBalance(String patronId);
+    void payFine(String patronId, long amountCents);
     
     // Inventory Management
     int getAvailableBookCount(String isbn);
@@ -1,18 +1,51 @@
 package librarymanagementsystem.services.impl;
 
+import librarymanagementsystem.catalog.CatalogSnapshot;
+import librarymanagementsystem.catalog.CompactCatalog;
+import librarymanagementsystem.catalog.SnapshotCatalog;
+import librarymanagementsystem.events.ActivityStream;
+import librarymanagementsystem.events.EventType;
+import librarymanagementsystem.export.CatalogExporter;
 import librarymanagementsystem.inventory.InventoryManager;
 import librarymanagementsystem.patron.PatronManager;
+import librarymanagementsystem.search.AutocompleteIndex;
+import librarymanagementsystem.search.BookQuery;
+import librarymanagementsystem.search.CatalogIndex;
+import librarymanagementsystem.search.FacetCounts;
+import librarymanagementsystem.search.LendingIndexer;
+import librarymanagementsystem.search.QueryCache;
+import librarymanagementsystem.search.QueryEngine;
+import librarymanagementsystem.search.Ranking;
+import librarymanagementsystem.search.SearchNormalizer;
+import librarymanagementsystem.search.TextColumn;
+import librarymanagementsystem.search.TrigramIndex;
+import librarymanagementsystem.lending.BatchMode;
+import librarymanagementsystem.lending.BatchResult;
 import librarymanagementsystem.lending.LendingManager;
+import librarymanagementsystem.lending.LendingStatus;
+import librarymanagementsystem.lending.Loan;
+import librarymanagementsystem.metrics.MetricsRegistry;
 import librarymanagementsystem.model.Book;
+import librarymanagementsystem.model.BorrowingHistoryStore;
 import librarymanagementsystem.model.Patron;
+import librarymanagementsystem.model.PatronType;
 import librarymanagementsystem.services.LibraryService;
+import librarymanagementsystem.utils.BookFactory;
+import librarymanagementsystem.utils.IsbnKeys;
+import librarymanagementsystem.utils.LongHashSet;
+import librarymanagementsystem.utils.LongList;
+import librarymanagementsystem.utils.LongMap;
 
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
 /**
  * Implementation of the LibraryService interface.
@@ -25,19 +58,69 @@ public class LibraryServiceImpl implements LibraryService {
     private static final Logger logger = Logger.getLogger(LibraryServiceImpl.class.getName());
     
     // Using maps for efficient lookups - demonstrating appropriate data structure usage
-    private Map<String, Book> books; // ISBN -> Book
+    private IsbnKeys isbnKeys; // ISBN and local identifier keys of this library
+    private LongMap<Book> books; // ISBN key -> Book
     private InventoryManager inventoryManager; // Manages book availability and borrowing
     private PatronManager patronManager; // Manages patrons
     private LendingManager lendingManager; // Manages lending operations
+    private Clock clock; // Source of checkout times and due dates
+    private ActivityStream events; // Ordered stream of catalog and lending activity
+    private TextColumn titleColumn; // Normalized titles for substring scans
+    private TextColumn authorColumn; // Normalized authors for substring scans
+    private QueryCache<String, LongList> queryCache; // Title and author search results by normalized query
+    private volatile long catalogGeneration; // Bumped after every catalog change, invalidating queryCache
+    private TrigramIndex titleIndex; // Typo-tolerant search over titles
+    private TrigramIndex authorIndex; // Typo-tolerant search over authors
+    private AutocompleteIndex completions; // Popularity-ranked title and author completions
+    private CatalogIndex catalogIndex; // Field and availability bitmaps for combined searches
+    private QueryEngine queryEngine;
+    private ReentrantReadWriteLock indexLock; // Held by writers of the indexes below and by searches reading them
+    private LendingIndexer lendingIndexer; // Applies checkouts and returns to catalogIndex and completions
     
     /**
      * Constructor initializes the data structures.
      */
     public LibraryServiceImpl() {
-        this.books = new HashMap<>();
-        this.inventoryManager = new InventoryManager();
-        this.patronManager = new PatronManager();
-        this.lendingManager = new LendingManager(inventoryManager, patronManager);
+        this(false);
+    }
+    
+    /**
+     * Constructor that optionally stores the catalog in compact, column-oriented form.
+     * Compact storage trades a small amount of CPU per lookup (books are materialized as
+     * views) for a much smaller heap footprint on very large catalogs. Otherwise the catalog
+     * is a {@link SnapshotCatalog}, whose readers never lock and can take consistent snapshots.
+     *
+     * @param compactCatalog true to use {@link CompactCatalog} for book storage
+     */
+    public LibraryServiceImpl(boolean compactCatalog) {
+        this(compactCatalog, Clock.systemUTC());
+    }
+    
+    /**
+     * Constructor with an explicit clock for checkout times and due dates.
+     *
+     * @param compactCatalog true to use {@link CompactCatalog} for book storage
+     * @param clock The clock to use
+     */
+    public LibraryServiceImpl(boolean compactCatalog, Clock clock) {
+        this.isbnKeys = new IsbnKeys();
+        this.books = compactCatalog ? new CompactCatalog(isbnKeys) : new SnapshotCatalog();
+        this.clock = clock;
+        this.events = new ActivityStream(ActivityStream.DEFAULT_CAPACITY, isbnKeys);
+        this.titleColumn = new TextColumn();
+        this.authorColumn = new TextColumn();
+        this.queryCache = new QueryCache<>();
+        this.titleIndex = new TrigramIndex();
+        this.authorIndex = new TrigramIndex();
+        this.completions = new AutocompleteIndex();
+        this.inventoryManager = new InventoryManager(events);
+        this.catalogIndex = new CatalogIndex();
+        this.queryEngine = new QueryEngine(catalogIndex, titleIndex);
+        this.indexLock = new ReentrantReadWriteLock();
+        this.lendingIndexer = new LendingIndexer(events, books, catalogIndex, completions, indexLock);
+        this.patronManager = new PatronManager(isbnKeys, books::get);
+        this.lendingManager = new LendingManager(inventoryManager, patronManager,
+                clock, LendingManager.DEFAULT_LOAN_PERIOD);
         logger.info("Library service initialized");
     }
     
@@ -50,13 +133,22 @@ public class LibraryServiceImpl implements LibraryService {
             throw new IllegalArgumentException("Book cannot be null");
         }
         
-        if (books.containsKey(book.getIsbn())) {
+        long key = isbnKeys.keyOf(book.getIsbn());
+        if (books.containsKey(key)) {
             logger.warning("Book with ISBN " + book.getIsbn() + " already exists");
             throw new IllegalArgumentException("Book with ISBN " + book.getIsbn() + " already exists");
         }
         
-        books.put(book.getIsbn(), book);
-        inventoryManager.initializeBookInventory(book.getIsbn());
+        events.checkAccepting();
+        lockIndexes();
+        try {
+            books.put(key, book);
+            indexBook(key, book);
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+        inventoryManager.initializeBookInventory(book.getIsbn(), BookFactory.typeOf(book));
+        events.publish(EventType.BOOK_ADDED, key, null);
         logger.info("Added book: " + book.getTitle());
     }
     
@@ -67,7 +159,8 @@ public class LibraryServiceImpl implements LibraryService {
             throw new IllegalArgumentException("ISBN cannot be null or empty");
         }
         
-        if (!books.containsKey(isbn)) {
+        long key = isbnKeys.existingKeyOf(isbn);
+        if (!books.containsKey(key)) {
             logger.warning("Book with ISBN " + isbn + " not found");
             throw new IllegalArgumentException("Book with ISBN " + isbn + " not found");
         }
@@ -78,8 +171,16 @@ public class LibraryServiceImpl implements LibraryService {
             throw new IllegalStateException("Cannot remove book as it is currently borrowed");
         }
         
-        books.remove(isbn);
+        events.checkAccepting();
+        lockIndexes();
+        try {
+            unindexBook(key, books.get(key));
+            books.remove(key);
+        } finally {
+            indexLock.writeLock().unlock();
+        }
         inventoryManager.removeBookFromInventory(isbn);
+        events.publish(EventType.BOOK_REMOVED, key, null);
         logger.info("Removed book with ISBN: " + isbn);
     }
     
@@ -95,12 +196,22 @@ public class LibraryServiceImpl implements LibraryService {
             throw new IllegalArgumentException("Updated book cannot be null");
         }
         
-        if (!books.containsKey(isbn)) {
+        long key = isbnKeys.existingKeyOf(isbn);
+        if (!books.containsKey(key)) {
             logger.warning("Book with ISBN " + isbn + " not found");
             throw new IllegalArgumentException("Book with ISBN " + isbn + " not found");
         }
         
-        books.put(isbn, updatedBook);
+        lockIndexes();
+        try {
+            Book previous = books.put(key, updatedBook);
+            indexBook(key, updatedBook);
+            completions.remove(previous.getTitle()); // after adding the new texts, so an unchanged one keeps its weight
+            completions.remove(previous.getAuthor());
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+        inventoryManager.initializeBookInventory(isbn, BookFactory.typeOf(updatedBook)); // the type may have changed
         logger.info("Updated book with ISBN: " + isbn);
     }
     
@@ -111,7 +222,7 @@ public class LibraryServiceImpl implements LibraryService {
             throw new IllegalArgumentException("ISBN cannot be null or empty");
         }
         
-        return books.get(isbn);
+        return books.get(isbnKeys.existingKeyOf(isbn));
     }
     
     @Override
@@ -121,9 +232,7 @@ public class LibraryServiceImpl implements LibraryService {
             throw new IllegalArgumentException("Title cannot be null or empty");
         }
         
-        return books.values().stream()
-                .filter(book -> book.getTitle().toLowerCase().contains(title.toLowerCase()))
-                .collect(Collectors.toList());
+        return booksOf(cachedScan("title:", titleColumn, title));
     }
     
     @Override
@@ -133,9 +242,189 @@ public class LibraryServiceImpl implements LibraryService {
             throw new IllegalArgumentException("Author cannot be null or empty");
         }
         
-        return books.values().stream()
-                .filter(book -> book.getAuthor().toLowerCase().contains(author.toLowerCase()))
-                .collect(Collectors.toList());
+        return booksOf(cachedScan("author:", authorColumn, author));
+    }
+    
+    @Override
+    public List<Book> findBooksByTitle(String title, Ranking ranking, int maxResults) {
+        if (title == null || title.isEmpty()) {
+            logger.warning("Attempted to find books with null or empty title");
+            throw new IllegalArgumentException("Title cannot be null or empty");
+        }
+        
+        return booksOf(rankedScan(titleColumn, title, ranking, maxResults));
+    }
+    
+    @Override
+    public List<Book> findBooksByAuthor(String author, Ranking ranking, int maxResults) {
+        if (author == null || author.isEmpty()) {
+            logger.warning("Attempted to find books with null or empty author");
+            throw new IllegalArgumentException("Author cannot be null or empty");
+        }
+        
+        return booksOf(rankedScan(authorColumn, author, ranking, maxResults));
+    }
+    
+    @Override
+    public List<Book> findBooksFuzzy(String text, int maxResults) {
+        if (text == null || text.isEmpty()) {
+            logger.warning("Attempted to search books with null or empty text");
+            throw new IllegalArgumentException("Search text cannot be null or empty");
+        }
+        if (maxResults <= 0) {
+            logger.warning("Attempted to search books with non-positive result limit: " + maxResults);
+            throw new IllegalArgumentException("Maximum results must be positive");
+        }
+        
+        int maxEdits = TrigramIndex.defaultMaxEdits(text);
+        List<TrigramIndex.Match> matches;
+        indexLock.readLock().lock();
+        try {
+            matches = new ArrayList<>(titleIndex.search(text, maxEdits, maxResults));
+            matches.addAll(authorIndex.search(text, maxEdits, maxResults));
+        } finally {
+            indexLock.readLock().unlock();
+        }
+        matches.sort(Comparator.comparingInt(TrigramIndex.Match::getDistance)); // stable, so title matches win ties
+        
+        List<Book> result = new ArrayList<>();
+        LongHashSet seen = new LongHashSet();
+        for (int i = 0; i < matches.size() && result.size() < maxResults; i++) {
+            long key = matches.get(i).getKey();
+            Book book = books.get(key);
+            if (book != null && seen.add(key)) {
+                result.add(book);
+            }
+        }
+        return result;
+    }
+    
+    @Override
+    public List<Book> findBooks(BookQuery query) {
+        if (query == null) {
+            logger.warning("Attempted to find books with null query");
+            throw new IllegalArgumentException("Query cannot be null");
+        }
+        
+        lendingIndexer.awaitCurrent();
+        indexLock.readLock().lock();
+        try {
+            return booksOf(queryEngine.execute(query));
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Explains how {@link #findBooks(BookQuery)} would run a query: which criterion drives
+     * the search and the order in which the others are checked.
+     *
+     * @param query The query
+     * @return The query plan
+     */
+    public QueryEngine.QueryPlan planQuery(BookQuery query) {
+        if (query == null) {
+            logger.warning("Attempted to plan null query");
+            throw new IllegalArgumentException("Query cannot be null");
+        }
+        lendingIndexer.awaitCurrent();
+        indexLock.readLock().lock();
+        try {
+            return queryEngine.plan(query);
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public FacetCounts getFacets(BookQuery query) {
+        if (query == null) {
+            logger.warning("Attempted to count facets for null query");
+            throw new IllegalArgumentException("Query cannot be null");
+        }
+        
+        lendingIndexer.awaitCurrent();
+        indexLock.readLock().lock();
+        try {
+            return queryEngine.facets(query);
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public List<Book> findBooksByYear(int fromYear, int toYear, boolean newestFirst, int maxResults) {
+        if (toYear < fromYear) {
+            logger.warning("Attempted to find books with inverted year range: " + fromYear + " to " + toYear);
+            throw new IllegalArgumentException("Year range end cannot be before its start");
+        }
+        if (maxResults <= 0) {
+            logger.warning("Attempted to find books with non-positive result limit: " + maxResults);
+            throw new IllegalArgumentException("Maximum results must be positive");
+        }
+        
+        indexLock.readLock().lock();
+        try {
+            return booksOf(catalogIndex.keysByYear(fromYear, toYear, newestFirst, maxResults));
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Scans a column for a phrase, reusing the result of an identical earlier search if the
+     * catalog has not changed since.
+     */
+    private LongList cachedScan(String field, TextColumn column, String phrase) {
+        String cacheKey = field + SearchNormalizer.normalize(phrase);
+        long generation = catalogGeneration;
+        LongList keys = queryCache.get(cacheKey, generation);
+        if (keys == null) {
+            keys = column.findContaining(phrase);
+            queryCache.put(cacheKey, keys, generation);
+        }
+        return keys;
+    }
+    
+    /**
+     * Finds the top matches of a phrase in a column. Relevance keeps the best matches of a
+     * scan in a bounded heap; popularity and recency walk the books in that order and stop
+     * after the first matches, so none of them collects every match.
+     */
+    private LongList rankedScan(TextColumn column, String phrase, Ranking ranking, int maxResults) {
+        if (ranking == null) {
+            logger.warning("Attempted to search books with null ranking");
+            throw new IllegalArgumentException("Ranking cannot be null");
+        }
+        if (maxResults <= 0) {
+            logger.warning("Attempted to search books with non-positive result limit: " + maxResults);
+            throw new IllegalArgumentException("Maximum results must be positive");
+        }
+        
+        if (ranking == Ranking.RELEVANCE) {
+            return column.findMostRelevant(phrase, maxResults);
+        }
+        // Popularity reads borrow counts as the lending indexer has applied them so far; a
+        // ranking does not wait for checkouts still in flight
+        indexLock.readLock().lock();
+        try {
+            return ranking == Ranking.POPULARITY
+                    ? catalogIndex.mostBorrowedMatching(column.containing(phrase), maxResults)
+                    : catalogIndex.newestMatching(column.containing(phrase), maxResults);
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+    
+    private List<Book> booksOf(LongList keys) {
+        List<Book> result = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            Book book = books.get(keys.get(i));
+            if (book != null) {
+                result.add(book);
+            }
+        }
+        return result;
     }
     
     @Override
@@ -143,6 +432,82 @@ public class LibraryServiceImpl implements LibraryService {
         return new ArrayList<>(books.values());
     }
     
+    /**
+     * Streams the whole catalog to a channel without copying it first. A snapshot catalog is
+     * exported as it was when the export started; a compact catalog must not be changed
+     * until the export returns.
+     *
+     * @param exporter The exporter, which sets the format and compression
+     * @param channel The channel to write to; left open
+     * @return The number of books written
+     * @throws IOException if the channel cannot be written
+     */
+    public long exportCatalog(CatalogExporter exporter, WritableByteChannel channel) throws IOException {
+        if (exporter == null || channel == null) {
+            logger.warning("Attempted to export catalog with null exporter or channel");
+            throw new IllegalArgumentException("Exporter and channel cannot be null");
+        }
+        
+        return exporter.export(readView(), channel);
+    }
+    
+    @Override
+    public List<String> suggestCompletions(String prefix, int maxResults) {
+        if (prefix == null) {
+            logger.warning("Attempted to suggest completions for null prefix");
+            throw new IllegalArgumentException("Prefix cannot be null");
+        }
+        if (maxResults <= 0) {
+            logger.warning("Attempted to suggest completions with non-positive result limit: " + maxResults);
+            throw new IllegalArgumentException("Maximum results must be positive");
+        }
+        
+        // Suggestions run on every keystroke, so they rank by the popularity applied so far
+        // instead of waiting for the lending indexer to catch up
+        indexLock.readLock().lock();
+        try {
+            return completions.suggest(prefix, maxResults);
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Takes the index write lock for a catalog change, first applying the lending activity
+     * published before it so that activity is indexed against the catalog it happened in.
+     */
+    private void lockIndexes() {
+        indexLock.writeLock().lock();
+        lendingIndexer.applyPending();
+    }
+    
+    /**
+     * Indexes a book, replacing what was indexed for its key before; the catalog index keeps
+     * the availability and checkout count of a replaced book. Completions are counted per
+     * reference, so the caller removes those of a replaced book.
+     */
+    private void indexBook(long key, Book book) {
+        titleColumn.add(key, book.getTitle());
+        authorColumn.add(key, book.getAuthor());
+        titleIndex.add(key, book.getTitle());
+        authorIndex.add(key, book.getAuthor());
+        catalogIndex.add(key, book);
+        completions.add(book.getTitle());
+        completions.add(book.getAuthor());
+        catalogGeneration++; // last, so a scan cached under the old generation is never stale
+    }
+    
+    private void unindexBook(long key, Book book) {
+        titleColumn.remove(key);
+        authorColumn.remove(key);
+        titleIndex.remove(key);
+        authorIndex.remove(key);
+        catalogIndex.remove(key);
+        completions.remove(book.getTitle());
+        completions.remove(book.getAuthor());
+        catalogGeneration++;
+    }
+    
     // Patron Management
     
     @Override
@@ -160,32 +525,235 @@ public class LibraryServiceImpl implements LibraryService {
         return patronManager.findPatronById(patronId);
     }
     
+    @Override
+    public Patron findPatronByEmail(String email) {
+        return patronManager.findPatronByEmail(email);
+    }
+    
+    @Override
+    public List<Patron> findPatronsByPhone(String phoneNumber) {
+        return patronManager.findPatronsByPhone(phoneNumber);
+    }
+    
+    @Override
+    public List<Patron> findPatronsByNamePrefix(String prefix) {
+        return patronManager.findPatronsByNamePrefix(prefix);
+    }
+    
     @Override
     public List<Patron> getAllPatrons() {
         return patronManager.getAllPatrons();
     }
     
+    /**
+     * Gets the stream of catalog and lending activity. Components such as reservations can
+     * publish to it, and consumers subscribe instead of polling the service.
+     *
+     * @return The activity stream
+     */
+    public ActivityStream getActivityStream() {
+        return events;
+    }
+    
+    /**
+     * Gets an immutable view of the catalog as it is now. Later changes are not visible in
+     * the snapshot, so reports can make many calls against one consistent catalog version.
+     *
+     * @return The current catalog snapshot
+     * @throws IllegalStateException if the service uses the compact catalog
+     */
+    public CatalogSnapshot getCatalogSnapshot() {
+        if (!(books instanceof SnapshotCatalog)) {
+            logger.warning("Attempted to take a catalog snapshot in compact catalog mode");
+            throw new IllegalStateException("Catalog snapshots are not available in compact catalog mode");
+        }
+        return ((SnapshotCatalog) books).snapshot();
+    }
+    
+    /**
+     * Waits until the search indexes reflect every checkout and return made so far.
+     * Completions and popularity rankings do not wait for the lending indexer on their own,
+     * so a caller that needs them to include its own checkouts calls this first.
+     */
+    public void awaitLendingIndexed() {
+        lendingIndexer.awaitCurrent();
+    }
+    
+    /**
+     * Keeps patron borrowing history in an external store, such as an off-heap
+     * {@link librarymanagementsystem.patron.OffHeapHistoryStore}, resolving entries
+     * against this library's catalog when the history is read.
+     *
+     * @param historyStore The history store to use
+     */
+    public void useHistoryStore(BorrowingHistoryStore historyStore) {
+        patronManager.useHistoryStore(historyStore, books::get);
+    }
+    
+    /**
+     * Sets the maximum number of simultaneous loans for a patron type.
+     *
+     * @param type The patron type
+     * @param limit The maximum number of simultaneous loans
+     */
+    public void setLoanLimit(PatronType type, int limit) {
+        lendingManager.getLoanLimits().setLimit(type, limit);
+    }
+    
+    /**
+     * Registers the hit, miss and eviction counts and the hit rate of the query cache as
+     * gauges, replacing those of any library service registered before. Nothing is registered
+     * unless this is called; the gauges keep the cache reachable for as long as the registry
+     * holds them.
+     *
+     * @param registry The registry to register with
+     */
+    public void registerQueryCacheGauges(MetricsRegistry registry) {
+        registry.gauge("search.queryCache.hits", queryCache::getHitCount);
+        registry.gauge("search.queryCache.misses", queryCache::getMissCount);
+        registry.gauge("search.queryCache.evictions", queryCache::getEvictionCount);
+        registry.gauge("search.queryCache.hitRate", queryCache::getHitRate);
+    }
+    
+    /**
+     * Gets the cache of title and author search results, e.g. to read its hit rate.
+     *
+     * @return The query cache
+     */
+    public QueryCache<String, LongList> getQueryCache() {
+        return queryCache;
+    }
+    
+    /**
+     * Sets the catalog size from which title and author substring searches are spread across
+     * the common fork/join pool; smaller catalogs are searched on the calling thread.
+     *
+     * @param threshold The number of books, see {@link TextColumn#DEFAULT_PARALLEL_THRESHOLD}
+     */
+    public void setParallelScanThreshold(int threshold) {
+        titleColumn.setParallelThreshold(threshold);
+        authorColumn.setParallelThreshold(threshold);
+    }
+    
+    /**
+     * Changes the lending flags for a type of book, including books already in the catalog.
+     *
+     * @param type The book type
+     * @param flags The combination of {@link librarymanagementsystem.inventory.LendingPolicy#CIRCULATING}
+     *              and {@link librarymanagementsystem.inventory.LendingPolicy#RENEWABLE}
+     */
+    public void setLendingFlags(BookFactory.BookType type, byte flags) {
+        inventoryManager.setLendingFlags(type, flags);
+    }
+    
     // Lending Process
     
     @Override
     public boolean checkoutBook(String isbn, String patronId) {
-        // First, we need to add the book to the patron's borrowing history
-        // This is a bit of a design challenge since we need to get the actual book object
-        Book book = books.get(isbn);
-        if (book != null) {
-            Patron patron = patronManager.findPatronById(patronId);
-            if (patron != null) {
-                patron.addToBorrowingHistory(book);
-            }
+        if (isbn == null || isbn.isEmpty()) {
+            logger.warning("Attempted to checkout book with null or empty ISBN");
+            throw new IllegalArgumentException("ISBN cannot be null or empty");
+        }
+        
+        if (patronId == null || patronId.isEmpty()) {
+            logger.warning("Attempted to checkout book with null or empty patron ID");
+            throw new IllegalArgumentException("Patron ID cannot be null or empty");
         }
         
-        // Then process the checkout through the lending manager
-        return lendingManager.checkoutBook(isbn, patronId);
+        // Resolve the patron and ISBN key once and pass them through the lending pipeline
+        Patron patron = patronManager.findPatronById(patronId);
+        if (patron == null) {
+            logger.warning("Patron with ID " + patronId + " not found");
+            return false;
+        }
+        long key = isbnKeys.existingKeyOf(isbn);
+        if (lendingManager.checkout(patron, key) != LendingStatus.SUCCESS) {
+            return false;
+        }
+        
+        // Only a successful checkout becomes part of the patron's borrowing history
+        patron.addToBorrowingHistory(key, clock.millis());
+        return true;
     }
     
     @Override
     public boolean returnBook(String isbn, String patronId) {
-        return lendingManager.returnBook(isbn, patronId);
+        if (isbn == null || isbn.isEmpty()) {
+            logger.warning("Attempted to return book with null or empty ISBN");
+            throw new IllegalArgumentException("ISBN cannot be null or empty");
+        }
+        
+        if (patronId == null || patronId.isEmpty()) {
+            logger.warning("Attempted to return book with null or empty patron ID");
+            throw new IllegalArgumentException("Patron ID cannot be null or empty");
+        }
+        
+        Patron patron = patronManager.findPatronById(patronId);
+        if (patron == null) {
+            logger.warning("Patron with ID " + patronId + " not found");
+            return false;
+        }
+        return lendingManager.checkin(patron, isbnKeys.existingKeyOf(isbn)) == LendingStatus.SUCCESS;
+    }
+    
+    @Override
+    public BatchResult checkoutBooks(String patronId, List<String> isbns, BatchMode mode) {
+        Patron patron = patronId != null && !patronId.isEmpty() ? patronManager.findPatronById(patronId) : null;
+        if (patron == null) {
+            return lendingManager.checkoutBooks(patronId, isbns, mode); // reports the missing patron
+        }
+        BatchResult result = lendingManager.checkoutBooks(patron, isbns, mode);
+        
+        // Record the successful checkouts in the patron's borrowing history
+        long now = clock.millis();
+        for (int i = 0; i < result.size(); i++) {
+            if (result.isSuccess(i)) {
+                patron.addToBorrowingHistory(result.getIsbnKey(i), now);
+            }
+        }
+        return result;
+    }
+    
+    @Override
+    public BatchResult returnBooks(List<String> isbns, BatchMode mode) {
+        return lendingManager.returnBooks(isbns, mode);
+    }
+    
+    @Override
+    public boolean renewLoan(String isbn, String patronId) {
+        return lendingManager.renewLoan(isbn, patronId);
+    }
+    
+    @Override
+    public Loan findLoan(String isbn) {
+        return lendingManager.findLoan(isbn);
+    }
+    
+    @Override
+    public List<Loan> getOverdueLoans(Instant asOf) {
+        return lendingManager.getOverdueLoans(asOf);
+    }
+    
+    @Override
+    public List<Loan> getLoansDueWithin(Duration window) {
+        return lendingManager.getLoansDueWithin(window);
+    }
+    
+    // Fines
+    
+    @Override
+    public int accrueFines() {
+        return lendingManager.accrueFines();
+    }
+    
+    @Override
+    public long getFineBalance(String patronId) {
+        return lendingManager.getFineBalance(patronId);
+    }
+    
+    @Override
+    public void payFine(String patronId, long amountCents) {
+        lendingManager.payFine(patronId, amountCents);
     }
     
     // Inventory Management
@@ -197,7 +765,7 @@ public class LibraryServiceImpl implements LibraryService {
             throw new IllegalArgumentException("ISBN cannot be null or empty");
         }
         
-        if (!books.containsKey(isbn)) {
+        if (!books.containsKey(isbnKeys.existingKeyOf(isbn))) {
             logger.warning("Book with ISBN " + isbn + " not found");
             return 0;
         }
@@ -207,11 +775,33 @@ public class LibraryServiceImpl implements LibraryService {
     
     @Override
     public List<Book> getAvailableBooks() {
-        return inventoryManager.getAvailableBooks(books);
+        lendingIndexer.awaitCurrent();
+        LongMap<Book> view = readView();
+        List<Book> available = new ArrayList<>();
+        indexLock.readLock().lock();
+        try {
+            catalogIndex.availableDocs().forEach(doc -> {
+                Book book = view.get(catalogIndex.keyOf(doc));
+                if (book != null) {
+                    available.add(book);
+                }
+            });
+        } finally {
+            indexLock.readLock().unlock();
+        }
+        return available;
     }
     
     @Override
     public List<Book> getBorrowedBooks() {
-        return inventoryManager.getBorrowedBooks(books);
+        return inventoryManager.getBorrowedBooks(readView());
+    }
+    
+    /**
+     * Gets the catalog as a single consistent view for multi-step reads, since each scan
+     * would otherwise see the catalog as of the moment it ran.
+     */
+    private LongMap<Book> readView() {
+        return books instanceof SnapshotCatalog ? ((SnapshotCatalog) books).snapshot() : books;
     }
 }
\ No newline at end of file
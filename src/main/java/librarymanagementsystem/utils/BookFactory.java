@@ -34,6 +34,25 @@ public class BookFactory {
         }
     }
     
+    /**
+     * Determines the type of an existing book.
+     *
+     * @param book The book to inspect
+     * @return The type matching the book's class
+     */
+    public static BookType typeOf(Book book) {
+        if (book instanceof FictionBook) {
+            return BookType.FICTION;
+        }
+        if (book instanceof NonFictionBook) {
+            return BookType.NON_FICTION;
+        }
+        if (book instanceof ReferenceBook) {
+            return BookType.REFERENCE;
+        }
+        return BookType.GENERAL;
+    }
+    
     /**
      * Enum representing different types of books.
      */
@@ -0,0 +1,126 @@
+package librarymanagementsystem.utils;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the largest long values offered to it, up to a fixed capacity.
+ * <p>
+ * The values are held in a binary min-heap, so the smallest kept value is the one a better
+ * offer displaces, and offering costs O(log capacity) regardless of how many values are seen.
+ * The heap's array grows with the values kept, so a generous capacity costs nothing until
+ * that many values are offered.
+ */
+public class BoundedLongHeap {
+    private static final int INITIAL_LENGTH = 16;
+    
+    private final int capacity;
+    private long[] heap;
+    private int size;
+    
+    /**
+     * Constructor.
+     *
+     * @param capacity The number of values to keep
+     */
+    public BoundedLongHeap(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.heap = new long[Math.min(capacity, INITIAL_LENGTH)];
+    }
+    
+    /**
+     * Offers a value, keeping it if the heap is not full or it is larger than the smallest
+     * value kept.
+     *
+     * @param value The value
+     * @return true if the value was kept
+     */
+    public boolean offer(long value) {
+        if (size < capacity) {
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, (int) Math.min(capacity, 2L * heap.length));
+            }
+            heap[size] = value;
+            siftUp(size++);
+            return true;
+        }
+        if (value <= heap[0]) {
+            return false;
+        }
+        heap[0] = value;
+        siftDown(0);
+        return true;
+    }
+    
+    /**
+     * Gets the smallest value kept.
+     *
+     * @return The smallest value
+     */
+    public long min() {
+        if (size == 0) {
+            throw new IllegalStateException("Heap is empty");
+        }
+        return heap[0];
+    }
+    
+    public boolean isFull() {
+        return size == capacity;
+    }
+    
+    public int getCapacity() {
+        return capacity;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Gets the values kept, largest first.
+     *
+     * @return A new array of the values
+     */
+    public long[] toSortedArray() {
+        long[] values = Arrays.copyOf(heap, size);
+        Arrays.sort(values);
+        for (int i = 0, j = values.length - 1; i < j; i++, j--) {
+            long value = values[i];
+            values[i] = values[j];
+            values[j] = value;
+        }
+        return values;
+    }
+    
+    private void siftUp(int index) {
+        long value = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (heap[parent] <= value) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = value;
+    }
+    
+    private void siftDown(int index) {
+        long value = heap[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (value <= heap[child]) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = value;
+    }
+}
@@ -0,0 +1,178 @@
+package librarymanagementsystem.utils;
+
+import librarymanagementsystem.model.Isbn;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps ISBN strings to primitive long keys for use in {@link LongMap}s.
+ * Valid ISBN-10/13 values are keyed by their 13-digit form, so the same title entered with
+ * or without hyphens (or as ISBN-10) resolves to one key. Identifiers that are not valid
+ * ISBNs (local call numbers, legacy codes) are kept exactly as given, case and hyphens
+ * included, and get negative keys: up to {@value #MAX_PACKED_LENGTH} letters, digits and
+ * hyphens are packed into the key itself, so they need no table and mean the same in every
+ * library and process. Only longer identifiers, or ones with other characters, are interned
+ * into a table held by this instance, so each library keeps its own and it goes away with
+ * the library. They are only interned by {@link #keyOf(String)}, which is meant for paths that
+ * store the identifier; lookups use {@link #existingKeyOf(String)} so unknown identifiers are
+ * never registered.
+ */
+public final class IsbnKeys {
+    /** Key returned for identifiers that have never been registered. Never a valid key. */
+    public static final long NO_KEY = 0L;
+    /** Longest local identifier that is packed into its key. */
+    public static final int MAX_PACKED_LENGTH = 10;
+    
+    private static final String DIGITS = "-0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+    private static final int RADIX = DIGITS.length();
+    /** Largest packed value; interned keys lie below its negation. */
+    private static final long MAX_PACKED = maxPacked();
+    
+    private volatile ConcurrentHashMap<String, Long> localKeys; // created on first use
+    private final List<String> localIds = new ArrayList<>();
+    
+    /**
+     * Gets the key for an identifier, registering it if it is a new local identifier.
+     *
+     * @param isbn The ISBN or local identifier
+     * @return The key for the identifier
+     * @throws IllegalArgumentException if isbn is null or empty
+     */
+    public long keyOf(String isbn) {
+        if (isbn == null || isbn.isEmpty()) {
+            throw new IllegalArgumentException("ISBN cannot be null or empty");
+        }
+        
+        long key = tableFreeKeyOf(isbn);
+        if (key != NO_KEY) {
+            return key;
+        }
+        ConcurrentHashMap<String, Long> existing = localKeys;
+        Long interned = existing != null ? existing.get(isbn) : null;
+        return interned != null ? interned : registerLocalId(isbn);
+    }
+    
+    /**
+     * Gets the key for an identifier without registering it.
+     *
+     * @param isbn The ISBN or local identifier
+     * @return The key, or {@link #NO_KEY} if the identifier is null, empty or unknown
+     */
+    public long existingKeyOf(String isbn) {
+        if (isbn == null || isbn.isEmpty()) {
+            return NO_KEY;
+        }
+        
+        long key = tableFreeKeyOf(isbn);
+        if (key != NO_KEY) {
+            return key;
+        }
+        ConcurrentHashMap<String, Long> existing = localKeys;
+        Long interned = existing != null ? existing.get(isbn) : null;
+        return interned != null ? interned : NO_KEY;
+    }
+    
+    /**
+     * Converts a key back to its canonical identifier string.
+     *
+     * @param key A key returned by {@link #keyOf(String)} of this instance
+     * @return The 13-digit ISBN, or the local identifier as it was registered
+     */
+    public String toIsbnString(long key) {
+        if (key > 0) {
+            return Long.toString(key);
+        }
+        if (key >= -MAX_PACKED) {
+            return unpack(-key);
+        }
+        synchronized (localIds) {
+            return localIds.get((int) (-key - MAX_PACKED - 1));
+        }
+    }
+    
+    /**
+     * Gets the key of an identifier that needs no table: a valid ISBN, or a local identifier
+     * short enough to pack.
+     *
+     * @return The key, or NO_KEY if the identifier has to be interned
+     */
+    private static long tableFreeKeyOf(String isbn) {
+        long key = Isbn.parseToLong(isbn);
+        return key != Isbn.INVALID ? key : pack(isbn);
+    }
+    
+    private long registerLocalId(String localId) {
+        synchronized (localIds) {
+            if (localKeys == null) {
+                localKeys = new ConcurrentHashMap<>();
+            }
+            Long existing = localKeys.get(localId);
+            if (existing != null) {
+                return existing;
+            }
+            localIds.add(localId);
+            long key = -MAX_PACKED - localIds.size();
+            localKeys.put(localId, key);
+            return key;
+        }
+    }
+    
+    /**
+     * Packs an identifier of up to {@value #MAX_PACKED_LENGTH} ASCII letters, digits and
+     * hyphens into a negative key, reading it as a bijective base-63 numeral so that every
+     * such string, including ones with leading zeros, has its own value.
+     *
+     * @return The key, or NO_KEY if the identifier cannot be packed
+     */
+    private static long pack(String id) {
+        if (id.length() > MAX_PACKED_LENGTH) {
+            return NO_KEY;
+        }
+        long value = 0;
+        for (int i = 0; i < id.length(); i++) {
+            int digit = digitOf(id.charAt(i));
+            if (digit == 0) {
+                return NO_KEY;
+            }
+            value = value * RADIX + digit;
+        }
+        return -value;
+    }
+    
+    /**
+     * Gets the bijective digit of a character, 1 to RADIX, or 0 if it cannot be packed.
+     */
+    private static int digitOf(char c) {
+        if (c == '-') {
+            return 1;
+        } else if (c >= '0' && c <= '9') {
+            return c - '0' + 2;
+        } else if (c >= 'A' && c <= 'Z') {
+            return c - 'A' + 12;
+        } else if (c >= 'a' && c <= 'z') {
+            return c - 'a' + 38;
+        }
+        return 0;
+    }
+    
+    private static String unpack(long value) {
+        char[] chars = new char[MAX_PACKED_LENGTH];
+        int start = chars.length;
+        while (value > 0) {
+            int digit = (int) ((value - 1) % RADIX) + 1;
+            chars[--start] = DIGITS.charAt(digit - 1);
+            value = (value - digit) / RADIX;
+        }
+        return new String(chars, start, chars.length - start);
+    }
+    
+    private static long maxPacked() {
+        long value = 0;
+        for (int i = 0; i < MAX_PACKED_LENGTH; i++) {
+            value = value * RADIX + RADIX;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,207 @@
+package librarymanagementsystem.utils;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Open-addressing hash map with primitive long keys.
+ * Keys and values are kept in parallel arrays (linear probing, backward-shift deletion),
+ * so a lookup costs one multiply-shift hash and no allocation.
+ *
+ * @param <V> The type of mapped values
+ */
+public class LongHashMap<V> implements LongMap<V> {
+    private static final int DEFAULT_CAPACITY = 16;
+    
+    private long[] keys;
+    private Object[] values; // null marks an empty slot
+    private int size;
+    
+    public LongHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+    
+    /**
+     * Constructor sizing the table for an expected number of entries.
+     *
+     * @param expectedSize The number of entries to hold without resizing
+     */
+    public LongHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(DEFAULT_CAPACITY, expectedSize * 2 - 1)) * 2;
+        this.keys = new long[capacity];
+        this.values = new Object[capacity];
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int slot = find(key);
+        return slot >= 0 ? (V) values[slot] : null;
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Value cannot be null");
+        }
+        
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                V previous = (V) values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+        return null;
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int slot = find(key);
+        if (slot < 0) {
+            return null;
+        }
+        
+        V previous = (V) values[slot];
+        deleteSlot(slot);
+        return previous;
+    }
+    
+    @Override
+    public boolean containsKey(long key) {
+        return find(key) >= 0;
+    }
+    
+    @Override
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Removes all entries.
+     */
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(EntryConsumer<? super V> consumer) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (values[slot] != null) {
+                consumer.accept(keys[slot], (V) values[slot]);
+            }
+        }
+    }
+    
+    @Override
+    public Collection<V> values() {
+        return new AbstractCollection<V>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new ValueIterator();
+            }
+            
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+    
+    private int find(long key) {
+        int mask = keys.length - 1;
+        for (int slot = hash(key) & mask; values[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+    
+    private void deleteSlot(int slot) {
+        // Shift back later entries of the probe sequence so lookups never see a gap
+        int mask = keys.length - 1;
+        int next = (slot + 1) & mask;
+        while (values[next] != null) {
+            int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - slot) & mask)) {
+                keys[slot] = keys[next];
+                values[slot] = values[next];
+                slot = next;
+            }
+            next = (next + 1) & mask;
+        }
+        values[slot] = null;
+        size--;
+    }
+    
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[capacity];
+        values = new Object[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != null) {
+                int slot = hash(oldKeys[i]) & mask;
+                while (values[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+    
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+    
+    /**
+     * Iterates values in table order.
+     */
+    private class ValueIterator implements Iterator<V> {
+        private int nextSlot = advance(0);
+        
+        private int advance(int from) {
+            int slot = from;
+            while (slot < values.length && values[slot] == null) {
+                slot++;
+            }
+            return slot;
+        }
+        
+        @Override
+        public boolean hasNext() {
+            return nextSlot < values.length;
+        }
+        
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            V value = (V) values[nextSlot];
+            nextSlot = advance(nextSlot + 1);
+            return value;
+        }
+    }
+}
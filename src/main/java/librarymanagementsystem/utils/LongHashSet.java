@@ -0,0 +1,79 @@
+package librarymanagementsystem.utils;
+
+/**
+ * Open-addressing hash set of primitive long values.
+ * Supports adding and membership checks only, which is all append-only logs need.
+ */
+public class LongHashSet {
+    private static final int DEFAULT_CAPACITY = 16;
+    
+    private long[] elements;
+    private boolean[] used;
+    private int size;
+    
+    public LongHashSet() {
+        this.elements = new long[DEFAULT_CAPACITY];
+        this.used = new boolean[DEFAULT_CAPACITY];
+    }
+    
+    /**
+     * Adds a value to the set.
+     *
+     * @param value The value to add
+     * @return true if the value was not already present
+     */
+    public boolean add(long value) {
+        int mask = elements.length - 1;
+        int slot = hash(value) & mask;
+        while (used[slot]) {
+            if (elements[slot] == value) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        
+        elements[slot] = value;
+        used[slot] = true;
+        if (++size * 2 > elements.length) {
+            resize(elements.length * 2);
+        }
+        return true;
+    }
+    
+    public boolean contains(long value) {
+        int mask = elements.length - 1;
+        for (int slot = hash(value) & mask; used[slot]; slot = (slot + 1) & mask) {
+            if (elements[slot] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    private void resize(int capacity) {
+        long[] oldElements = elements;
+        boolean[] oldUsed = used;
+        elements = new long[capacity];
+        used = new boolean[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldElements.length; i++) {
+            if (oldUsed[i]) {
+                int slot = hash(oldElements[i]) & mask;
+                while (used[slot]) {
+                    slot = (slot + 1) & mask;
+                }
+                elements[slot] = oldElements[i];
+                used[slot] = true;
+            }
+        }
+    }
+    
+    private static int hash(long value) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,138 @@
+package librarymanagementsystem.utils;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from primitive long keys to non-negative int values.
+ * Used for dense slot numbers, such as a book's inventory slot, where boxing every
+ * lookup into an Integer would create garbage on hot paths.
+ */
+public class LongIntHashMap {
+    /** Returned by lookups for keys that are not in the map. */
+    public static final int NO_VALUE = -1;
+    
+    private static final int DEFAULT_CAPACITY = 16;
+    
+    private long[] keys;
+    private int[] values; // NO_VALUE marks an empty slot
+    private int size;
+    
+    public LongIntHashMap() {
+        this.keys = new long[DEFAULT_CAPACITY];
+        this.values = new int[DEFAULT_CAPACITY];
+        Arrays.fill(values, NO_VALUE);
+    }
+    
+    /**
+     * Gets the value for a key.
+     *
+     * @param key The key
+     * @return The value, or {@link #NO_VALUE} if the key is not in the map
+     */
+    public int get(long key) {
+        int mask = keys.length - 1;
+        for (int slot = hash(key) & mask; values[slot] != NO_VALUE; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+        }
+        return NO_VALUE;
+    }
+    
+    /**
+     * Maps a key to a value.
+     *
+     * @param key The key
+     * @param value The value, which must not be negative
+     * @return The previous value, or {@link #NO_VALUE}
+     * @throws IllegalArgumentException if the value is negative
+     */
+    public int put(long key, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Value cannot be negative");
+        }
+        
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (values[slot] != NO_VALUE) {
+            if (keys[slot] == key) {
+                int previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+        return NO_VALUE;
+    }
+    
+    /**
+     * Removes a key.
+     *
+     * @param key The key
+     * @return The removed value, or {@link #NO_VALUE}
+     */
+    public int remove(long key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (values[slot] != NO_VALUE && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (values[slot] == NO_VALUE) {
+            return NO_VALUE;
+        }
+        
+        int previous = values[slot];
+        // Shift back later entries of the probe sequence so lookups never see a gap
+        int next = (slot + 1) & mask;
+        while (values[next] != NO_VALUE) {
+            int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - slot) & mask)) {
+                keys[slot] = keys[next];
+                values[slot] = values[next];
+                slot = next;
+            }
+            next = (next + 1) & mask;
+        }
+        values[slot] = NO_VALUE;
+        size--;
+        return previous;
+    }
+    
+    public boolean containsKey(long key) {
+        return get(key) != NO_VALUE;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, NO_VALUE);
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != NO_VALUE) {
+                int slot = hash(oldKeys[i]) & mask;
+                while (values[slot] != NO_VALUE) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+    
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,78 @@
+package librarymanagementsystem.utils;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive long values.
+ */
+public class LongList {
+    private long[] elements;
+    private int size;
+    
+    public LongList() {
+        this(8);
+    }
+    
+    public LongList(int initialCapacity) {
+        this.elements = new long[Math.max(1, initialCapacity)];
+    }
+    
+    public void add(long value) {
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, size + (size >> 1) + 1);
+        }
+        elements[size++] = value;
+    }
+    
+    public long get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return elements[index];
+    }
+    
+    public int indexOf(long value) {
+        for (int i = 0; i < size; i++) {
+            if (elements[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    public boolean contains(long value) {
+        return indexOf(value) >= 0;
+    }
+    
+    /**
+     * Removes the first occurrence of a value, preserving the order of the remaining elements.
+     *
+     * @param value The value to remove
+     * @return true if the value was found and removed
+     */
+    public boolean removeValue(long value) {
+        int index = indexOf(value);
+        if (index < 0) {
+            return false;
+        }
+        System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+        size--;
+        return true;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    public void clear() {
+        size = 0;
+    }
+    
+    public long[] toArray() {
+        return Arrays.copyOf(elements, size);
+    }
+}
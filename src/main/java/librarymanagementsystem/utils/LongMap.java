@@ -0,0 +1,28 @@
+package librarymanagementsystem.utils;
+
+import java.util.Collection;
+
+/**
+ * A map keyed by primitive long values, avoiding boxing and String hashing on lookups.
+ * Null values are not permitted.
+ *
+ * @param <V> The type of mapped values
+ */
+public interface LongMap<V> {
+    V get(long key);
+    V put(long key, V value);
+    V remove(long key);
+    boolean containsKey(long key);
+    int size();
+    Collection<V> values();
+    void forEach(EntryConsumer<? super V> consumer);
+    
+    /**
+     * Receives the entries of a LongMap without boxing the keys.
+     *
+     * @param <V> The type of mapped values
+     */
+    interface EntryConsumer<V> {
+        void accept(long key, V value);
+    }
+}
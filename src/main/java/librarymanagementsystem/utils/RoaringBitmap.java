@@ -0,0 +1,583 @@
+package librarymanagementsystem.utils;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+/**
+ * Compressed bitmap of non-negative int values, in the style of Roaring bitmaps.
+ * <p>
+ * Values are split by their upper 16 bits into chunks of 65536. Each chunk is stored as a
+ * sorted array of its lower 16 bits while it holds at most 4096 values, and as a plain
+ * 65536-bit bitmap once it holds more; both take at most 8KB. Sparse sets therefore cost two
+ * bytes per value and dense ones one bit, and intersections work chunk by chunk, word by
+ * word for dense chunks.
+ */
+public class RoaringBitmap {
+    private static final int ARRAY_MAX_SIZE = 4096;
+    
+    private char[] highs; // upper 16 bits of each chunk, ascending
+    private Container[] containers;
+    private int chunkCount;
+    
+    public RoaringBitmap() {
+        this.highs = new char[4];
+        this.containers = new Container[4];
+    }
+    
+    /**
+     * Adds a value.
+     *
+     * @param value The value, which must not be negative
+     * @return true if the value was not already present
+     */
+    public boolean add(int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Value cannot be negative: " + value);
+        }
+        
+        char high = (char) (value >>> 16);
+        int index = indexOf(high);
+        if (index < 0) {
+            index = -index - 1;
+            insertChunk(index, high, new ArrayContainer());
+        }
+        
+        Container container = containers[index];
+        int before = container.cardinality();
+        container = container.add((char) value);
+        containers[index] = container;
+        return container.cardinality() > before;
+    }
+    
+    /**
+     * Removes a value.
+     *
+     * @param value The value
+     * @return true if the value was present
+     */
+    public boolean remove(int value) {
+        if (value < 0) {
+            return false;
+        }
+        
+        int index = indexOf((char) (value >>> 16));
+        if (index < 0) {
+            return false;
+        }
+        
+        Container container = containers[index];
+        int before = container.cardinality();
+        container = container.remove((char) value);
+        if (container.cardinality() == before) {
+            return false;
+        }
+        if (container.cardinality() == 0) {
+            removeChunk(index);
+        } else {
+            containers[index] = container;
+        }
+        return true;
+    }
+    
+    public boolean contains(int value) {
+        if (value < 0) {
+            return false;
+        }
+        int index = indexOf((char) (value >>> 16));
+        return index >= 0 && containers[index].contains((char) value);
+    }
+    
+    /**
+     * Gets the number of values.
+     *
+     * @return The cardinality
+     */
+    public int cardinality() {
+        int cardinality = 0;
+        for (int i = 0; i < chunkCount; i++) {
+            cardinality += containers[i].cardinality();
+        }
+        return cardinality;
+    }
+    
+    public boolean isEmpty() {
+        return chunkCount == 0;
+    }
+    
+    /**
+     * Intersects this bitmap with another.
+     *
+     * @param other The other bitmap
+     * @return A new bitmap holding the values present in both
+     */
+    public RoaringBitmap and(RoaringBitmap other) {
+        RoaringBitmap result = new RoaringBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < chunkCount && j < other.chunkCount) {
+            if (highs[i] < other.highs[j]) {
+                i++;
+            } else if (highs[i] > other.highs[j]) {
+                j++;
+            } else {
+                Container container = containers[i].and(other.containers[j]);
+                if (container.cardinality() > 0) {
+                    result.insertChunk(result.chunkCount, highs[i], container);
+                }
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Unites this bitmap with another.
+     *
+     * @param other The other bitmap
+     * @return A new bitmap holding the values present in either
+     */
+    public RoaringBitmap or(RoaringBitmap other) {
+        RoaringBitmap result = new RoaringBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < chunkCount || j < other.chunkCount) {
+            if (j == other.chunkCount || (i < chunkCount && highs[i] < other.highs[j])) {
+                result.insertChunk(result.chunkCount, highs[i], containers[i].copy());
+                i++;
+            } else if (i == chunkCount || highs[i] > other.highs[j]) {
+                result.insertChunk(result.chunkCount, other.highs[j], other.containers[j].copy());
+                j++;
+            } else {
+                result.insertChunk(result.chunkCount, highs[i], containers[i].or(other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Counts the values present in both this bitmap and another, without building the
+     * intersection.
+     *
+     * @param other The other bitmap
+     * @return The cardinality of the intersection
+     */
+    public int andCardinality(RoaringBitmap other) {
+        int cardinality = 0;
+        int i = 0;
+        int j = 0;
+        while (i < chunkCount && j < other.chunkCount) {
+            if (highs[i] < other.highs[j]) {
+                i++;
+            } else if (highs[i] > other.highs[j]) {
+                j++;
+            } else {
+                cardinality += containers[i].andCardinality(other.containers[j]);
+                i++;
+                j++;
+            }
+        }
+        return cardinality;
+    }
+    
+    /**
+     * Calls a consumer for each value, in ascending order.
+     *
+     * @param consumer The consumer
+     */
+    public void forEach(IntConsumer consumer) {
+        for (int i = 0; i < chunkCount; i++) {
+            containers[i].forEach(highs[i] << 16, consumer);
+        }
+    }
+    
+    /**
+     * Visits values in ascending order until the visitor returns false.
+     *
+     * @param visitor The visitor
+     * @return true if every value was visited
+     */
+    public boolean forEachWhile(IntPredicate visitor) {
+        for (int i = 0; i < chunkCount; i++) {
+            if (!containers[i].forEachWhile(highs[i] << 16, visitor, false)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Visits values in descending order until the visitor returns false.
+     *
+     * @param visitor The visitor
+     * @return true if every value was visited
+     */
+    public boolean forEachDescendingWhile(IntPredicate visitor) {
+        for (int i = chunkCount - 1; i >= 0; i--) {
+            if (!containers[i].forEachWhile(highs[i] << 16, visitor, true)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    public int[] toArray() {
+        int[] values = new int[cardinality()];
+        int[] position = new int[1];
+        forEach(value -> values[position[0]++] = value);
+        return values;
+    }
+    
+    private int indexOf(char high) {
+        return Arrays.binarySearch(highs, 0, chunkCount, high);
+    }
+    
+    private void insertChunk(int index, char high, Container container) {
+        if (chunkCount == highs.length) {
+            highs = Arrays.copyOf(highs, chunkCount * 2);
+            containers = Arrays.copyOf(containers, chunkCount * 2);
+        }
+        System.arraycopy(highs, index, highs, index + 1, chunkCount - index);
+        System.arraycopy(containers, index, containers, index + 1, chunkCount - index);
+        highs[index] = high;
+        containers[index] = container;
+        chunkCount++;
+    }
+    
+    private void removeChunk(int index) {
+        System.arraycopy(highs, index + 1, highs, index, chunkCount - index - 1);
+        System.arraycopy(containers, index + 1, containers, index, chunkCount - index - 1);
+        containers[--chunkCount] = null;
+    }
+    
+    /**
+     * The lower 16 bits of the values in one chunk. Mutators return the container to keep
+     * using, which differs from the receiver when the representation changes.
+     */
+    private abstract static class Container {
+        abstract Container add(char low);
+        
+        abstract Container remove(char low);
+        
+        abstract boolean contains(char low);
+        
+        abstract int cardinality();
+        
+        abstract Container and(Container other);
+        
+        abstract int andCardinality(Container other);
+        
+        abstract Container or(Container other);
+        
+        abstract Container copy();
+        
+        abstract void forEach(int base, IntConsumer consumer);
+        
+        abstract boolean forEachWhile(int base, IntPredicate visitor, boolean descending);
+    }
+    
+    private static final class ArrayContainer extends Container {
+        char[] values;
+        int size;
+        
+        ArrayContainer() {
+            this(new char[4], 0);
+        }
+        
+        ArrayContainer(char[] values, int size) {
+            this.values = values;
+            this.size = size;
+        }
+        
+        @Override
+        Container add(char low) {
+            int index = Arrays.binarySearch(values, 0, size, low);
+            if (index >= 0) {
+                return this;
+            }
+            if (size == ARRAY_MAX_SIZE) {
+                return toBitmap().add(low);
+            }
+            
+            index = -index - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_MAX_SIZE, size * 2));
+            }
+            System.arraycopy(values, index, values, index + 1, size - index);
+            values[index] = low;
+            size++;
+            return this;
+        }
+        
+        @Override
+        Container remove(char low) {
+            int index = Arrays.binarySearch(values, 0, size, low);
+            if (index >= 0) {
+                System.arraycopy(values, index + 1, values, index, size - index - 1);
+                size--;
+            }
+            return this;
+        }
+        
+        @Override
+        boolean contains(char low) {
+            return Arrays.binarySearch(values, 0, size, low) >= 0;
+        }
+        
+        @Override
+        int cardinality() {
+            return size;
+        }
+        
+        @Override
+        Container and(Container other) {
+            char[] result = new char[size];
+            int count = 0;
+            if (other instanceof BitmapContainer) {
+                for (int i = 0; i < size; i++) {
+                    if (other.contains(values[i])) {
+                        result[count++] = values[i];
+                    }
+                }
+            } else {
+                ArrayContainer array = (ArrayContainer) other;
+                int i = 0;
+                int j = 0;
+                while (i < size && j < array.size) {
+                    if (values[i] < array.values[j]) {
+                        i++;
+                    } else if (values[i] > array.values[j]) {
+                        j++;
+                    } else {
+                        result[count++] = values[i];
+                        i++;
+                        j++;
+                    }
+                }
+            }
+            return new ArrayContainer(result, count);
+        }
+        
+        @Override
+        int andCardinality(Container other) {
+            int count = 0;
+            if (other instanceof BitmapContainer) {
+                for (int i = 0; i < size; i++) {
+                    if (other.contains(values[i])) {
+                        count++;
+                    }
+                }
+                return count;
+            }
+            
+            ArrayContainer array = (ArrayContainer) other;
+            int i = 0;
+            int j = 0;
+            while (i < size && j < array.size) {
+                if (values[i] < array.values[j]) {
+                    i++;
+                } else if (values[i] > array.values[j]) {
+                    j++;
+                } else {
+                    count++;
+                    i++;
+                    j++;
+                }
+            }
+            return count;
+        }
+        
+        @Override
+        Container or(Container other) {
+            if (other instanceof BitmapContainer) {
+                return other.or(this);
+            }
+            
+            ArrayContainer array = (ArrayContainer) other;
+            char[] result = new char[size + array.size];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < size || j < array.size) {
+                if (j == array.size || (i < size && values[i] < array.values[j])) {
+                    result[count++] = values[i++];
+                } else if (i == size || values[i] > array.values[j]) {
+                    result[count++] = array.values[j++];
+                } else {
+                    result[count++] = values[i++];
+                    j++;
+                }
+            }
+            ArrayContainer union = new ArrayContainer(result, count);
+            return count > ARRAY_MAX_SIZE ? union.toBitmap() : union;
+        }
+        
+        @Override
+        Container copy() {
+            return new ArrayContainer(Arrays.copyOf(values, Math.max(4, size)), size);
+        }
+        
+        @Override
+        void forEach(int base, IntConsumer consumer) {
+            for (int i = 0; i < size; i++) {
+                consumer.accept(base | values[i]);
+            }
+        }
+        
+        @Override
+        boolean forEachWhile(int base, IntPredicate visitor, boolean descending) {
+            for (int i = 0; i < size; i++) {
+                if (!visitor.test(base | values[descending ? size - 1 - i : i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        private BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < size; i++) {
+                bitmap.add(values[i]);
+            }
+            return bitmap;
+        }
+    }
+    
+    private static final class BitmapContainer extends Container {
+        final long[] words = new long[1024];
+        int cardinality;
+        
+        @Override
+        Container add(char low) {
+            long bit = 1L << low;
+            if ((words[low >>> 6] & bit) == 0) {
+                words[low >>> 6] |= bit;
+                cardinality++;
+            }
+            return this;
+        }
+        
+        @Override
+        Container remove(char low) {
+            long bit = 1L << low;
+            if ((words[low >>> 6] & bit) != 0) {
+                words[low >>> 6] &= ~bit;
+                cardinality--;
+                if (cardinality <= ARRAY_MAX_SIZE / 2) {
+                    return toArray(); // shrink with some slack so add/remove at the edge does not thrash
+                }
+            }
+            return this;
+        }
+        
+        @Override
+        boolean contains(char low) {
+            return (words[low >>> 6] & (1L << low)) != 0;
+        }
+        
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+        
+        @Override
+        Container and(Container other) {
+            if (other instanceof ArrayContainer) {
+                return other.and(this);
+            }
+            
+            BitmapContainer bitmap = (BitmapContainer) other;
+            BitmapContainer result = new BitmapContainer();
+            for (int i = 0; i < words.length; i++) {
+                result.words[i] = words[i] & bitmap.words[i];
+                result.cardinality += Long.bitCount(result.words[i]);
+            }
+            return result.cardinality <= ARRAY_MAX_SIZE ? result.toArray() : result;
+        }
+        
+        @Override
+        int andCardinality(Container other) {
+            if (other instanceof ArrayContainer) {
+                return other.andCardinality(this);
+            }
+            
+            BitmapContainer bitmap = (BitmapContainer) other;
+            int count = 0;
+            for (int i = 0; i < words.length; i++) {
+                count += Long.bitCount(words[i] & bitmap.words[i]);
+            }
+            return count;
+        }
+        
+        @Override
+        Container or(Container other) {
+            BitmapContainer result = (BitmapContainer) copy();
+            if (other instanceof ArrayContainer) {
+                ArrayContainer array = (ArrayContainer) other;
+                for (int i = 0; i < array.size; i++) {
+                    result.add(array.values[i]);
+                }
+                return result;
+            }
+            
+            BitmapContainer bitmap = (BitmapContainer) other;
+            result.cardinality = 0;
+            for (int i = 0; i < words.length; i++) {
+                result.words[i] |= bitmap.words[i];
+                result.cardinality += Long.bitCount(result.words[i]);
+            }
+            return result;
+        }
+        
+        @Override
+        Container copy() {
+            BitmapContainer copy = new BitmapContainer();
+            System.arraycopy(words, 0, copy.words, 0, words.length);
+            copy.cardinality = cardinality;
+            return copy;
+        }
+        
+        @Override
+        void forEach(int base, IntConsumer consumer) {
+            for (int i = 0; i < words.length; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    consumer.accept(base | (i << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+        
+        @Override
+        boolean forEachWhile(int base, IntPredicate visitor, boolean descending) {
+            for (int n = 0; n < words.length; n++) {
+                int i = descending ? words.length - 1 - n : n;
+                long word = words[i];
+                while (word != 0) {
+                    int bit = descending ? 63 - Long.numberOfLeadingZeros(word) : Long.numberOfTrailingZeros(word);
+                    if (!visitor.test(base | (i << 6) | bit)) {
+                        return false;
+                    }
+                    word &= ~(1L << bit);
+                }
+            }
+            return true;
+        }
+        
+        private ArrayContainer toArray() {
+            char[] values = new char[Math.max(4, cardinality)];
+            int count = 0;
+            for (int i = 0; i < words.length; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    values[count++] = (char) ((i << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return new ArrayContainer(values, count);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package librarymanagementsystem;
+
+import librarymanagementsystem.events.ActivityEvent;
+import librarymanagementsystem.events.ActivityStream;
+import librarymanagementsystem.events.EventType;
+import librarymanagementsystem.events.Subscription;
+import librarymanagementsystem.model.Book;
+import librarymanagementsystem.model.Patron;
+import librarymanagementsystem.reservation.ReservationSystem;
+import librarymanagementsystem.services.impl.LibraryServiceImpl;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit tests for the activity event stream.
+ */
+public class ActivityStreamTest {
+    
+    @Test
+    public void testLibraryActivityIsPublishedInOrder() {
+        // Given
+        LibraryServiceImpl libraryService = new LibraryServiceImpl();
+        ReservationSystem reservationSystem = new ReservationSystem(libraryService.getActivityStream());
+        Subscription subscription = libraryService.getActivityStream().subscribe();
+        Patron patron = new Patron("Test Patron", "test@example.com", "123-456-7890", "P001");
+        libraryService.addPatron(patron);
+        
+        // When
+        libraryService.addBook(new Book("Book 1", "Author", "ISBN1", 2001));
+        libraryService.checkoutBook("ISBN1", "P001");
+        reservationSystem.reserveBook("ISBN1", patron);
+        libraryService.returnBook("ISBN1", "P001");
+        libraryService.removeBook("ISBN1");
+        List<ActivityEvent> events = new ArrayList<>();
+        int polled = subscription.poll(event -> events.add(event.copy()), 100);
+        
+        // Then
+        assertEquals(5, polled);
+        assertEquals(EventType.BOOK_ADDED, events.get(0).getType());
+        assertEquals(EventType.CHECKOUT, events.get(1).getType());
+        assertEquals("P001", events.get(1).getPatronId());
+        assertEquals(EventType.RESERVATION, events.get(2).getType());
+        assertEquals(EventType.RETURN, events.get(3).getType());
+        assertEquals(EventType.BOOK_REMOVED, events.get(4).getType());
+        assertEquals(libraryService.getActivityStream().getIsbnKeys().existingKeyOf("ISBN1"), events.get(4).getIsbnKey());
+        assertEquals(0, subscription.getBacklog());
+    }
+    
+    @Test
+    public void testSubscribersPollIndependentlyInBatches() {
+        // Given
+        ActivityStream stream = new ActivityStream(64);
+        Subscription fast = stream.subscribe();
+        Subscription slow = stream.subscribe();
+        for (int i = 0; i < 10; i++) {
+            stream.publish(EventType.CHECKOUT, i + 1, "P" + i);
+        }
+        
+        // When
+        int fastCount = fast.poll(event -> { }, 100);
+        List<Long> slowSequences = new ArrayList<>();
+        int firstBatch = slow.poll(event -> slowSequences.add(event.getSequence()), 4);
+        
+        // Then
+        assertEquals(10, fastCount);
+        assertEquals(4, firstBatch);
+        assertEquals(6, slow.getBacklog());
+        assertEquals(6, slow.poll(event -> slowSequences.add(event.getSequence()), 100));
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i, slowSequences.get(i).longValue());
+        }
+    }
+    
+    @Test
+    public void testSlowSubscriberDetectsOverrun() {
+        // Given
+        ActivityStream stream = new ActivityStream(8);
+        Subscription subscription = stream.subscribe();
+        
+        // When: three times the buffer is published before the subscriber polls
+        for (int i = 0; i < 24; i++) {
+            stream.publish(EventType.RETURN, i + 1, "P001");
+        }
+        List<Long> sequences = new ArrayList<>();
+        subscription.poll(event -> sequences.add(event.getSequence()), 100);
+        
+        // Then: only the last buffer's worth is delivered, the rest is reported as missed
+        assertEquals(16, subscription.getMissedCount());
+        assertEquals(8, sequences.size());
+        assertEquals(16L, sequences.get(0).longValue());
+        assertEquals(23L, sequences.get(7).longValue());
+    }
+    
+    @Test
+    public void testConcurrentPublishersAreNeverLost() throws InterruptedException {
+        // Given
+        ActivityStream stream = new ActivityStream(1 << 16);
+        Subscription subscription = stream.subscribe();
+        Thread[] producers = new Thread[4];
+        for (int t = 0; t < producers.length; t++) {
+            String patronId = "P" + t;
+            producers[t] = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    stream.publish(EventType.CHECKOUT, i + 1, patronId);
+                }
+            });
+        }
+        
+        // When
+        long[] next = {0};
+        boolean[] ordered = {true};
+        for (Thread producer : producers) {
+            producer.start();
+        }
+        while (next[0] < 40_000) {
+            subscription.poll(event -> {
+                ordered[0] &= event.getSequence() == next[0];
+                next[0]++;
+            }, 256);
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        
+        // Then
+        assertTrue(ordered[0]);
+        assertEquals(0, subscription.getMissedCount());
+        assertEquals(40_000, stream.getPublishedCount());
+    }
+    
+    @Test
+    public void testLosslessSubscriberHoldsPublishersBack() throws InterruptedException {
+        // Given
+        ActivityStream stream = new ActivityStream(8);
+        Subscription lossless = stream.subscribeLossless();
+        Subscription lossy = stream.subscribe();
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < 1_000; i++) {
+                stream.publish(EventType.CHECKOUT, i + 1, "P001");
+            }
+        });
+        
+        // When: the subscriber reads a few events at a time while the producer runs far ahead
+        long[] next = {0};
+        boolean[] ordered = {true};
+        producer.start();
+        while (next[0] < 1_000) {
+            lossless.poll(event -> {
+                ordered[0] &= event.getSequence() == next[0];
+                next[0]++;
+            }, 3);
+            Thread.yield();
+        }
+        producer.join();
+        lossless.close();
+        for (int i = 0; i < 100; i++) {
+            stream.publish(EventType.RETURN, i + 1, "P001");
+        }
+        lossy.poll(event -> { }, 10_000);
+        
+        // Then: nothing was lost, and a closed subscription no longer holds publishers back
+        assertTrue(ordered[0]);
+        assertEquals(0, lossless.getMissedCount());
+        assertEquals(1_100, stream.getPublishedCount());
+        assertTrue(lossy.getMissedCount() > 0);
+    }
+    
+    @Test
+    public void testHaltedStreamRefusesActivity() {
+        // Given
+        LibraryServiceImpl libraryService = new LibraryServiceImpl();
+        libraryService.addPatron(new Patron("Test Patron", "test@example.com", "123-456-7890", "P001"));
+        libraryService.addBook(new Book("Test Book", "Test Author", "ISBN1", 2023));
+        Subscription lossless = libraryService.getActivityStream().subscribeLossless();
+        
+        // When
+        lossless.halt(new IOException("disk full"));
+        
+        // Then
+        assertEquals("disk full", libraryService.getActivityStream().getHaltCause().getMessage());
+        assertThrows(IllegalStateException.class, () -> libraryService.checkoutBook("ISBN1", "P001"));
+        assertThrows(IllegalStateException.class,
+                () -> libraryService.addBook(new Book("Other Book", "Test Author", "ISBN2", 2023)));
+        assertEquals(1, libraryService.getAvailableBookCount("ISBN1"));
+        assertNull(libraryService.findBookByIsbn("ISBN2"));
+        assertThrows(IllegalStateException.class, () -> libraryService.getActivityStream().subscribe().halt(new RuntimeException()));
+    }
+}
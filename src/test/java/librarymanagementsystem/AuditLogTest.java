@@ -0,0 +1,213 @@
+package librarymanagementsystem;
+
+import librarymanagementsystem.audit.AuditLog;
+import librarymanagementsystem.audit.AuditRecord;
+import librarymanagementsystem.audit.AuditWriter;
+import librarymanagementsystem.events.EventType;
+import librarymanagementsystem.model.Book;
+import librarymanagementsystem.model.Patron;
+import librarymanagementsystem.services.impl.LibraryServiceImpl;
+import librarymanagementsystem.utils.IsbnKeys;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Unit tests for the on-disk audit log.
+ */
+public class AuditLogTest {
+    
+    private static final long START = 1_700_000_000_000L;
+    
+    @Test
+    public void testRangeQueriesAcrossBlocksAndSegments(@TempDir Path tempDir) throws Exception {
+        // Given
+        IsbnKeys keys = new IsbnKeys();
+        long bookKey = keys.keyOf("978-0-306-40615-7");
+        long localKey = keys.keyOf("audit/local/1");
+        try (AuditLog log = new AuditLog(tempDir, 8, 256, keys)) {
+            for (int i = 0; i < 100; i++) {
+                log.append(i % 2 == 0 ? EventType.CHECKOUT : EventType.RETURN,
+                        i % 10 == 0 ? localKey : bookKey, "P" + (i % 3), START + i * 1000L);
+            }
+            log.append(EventType.BOOK_ADDED, bookKey, null, START + 100_000L);
+            
+            // When
+            List<AuditRecord> range = log.findBetween(Instant.ofEpochMilli(START + 10_000L),
+                    Instant.ofEpochMilli(START + 20_000L));
+            List<AuditRecord> patron = log.findByPatron("P1", Instant.ofEpochMilli(START),
+                    Instant.ofEpochMilli(START + 200_000L));
+            List<AuditRecord> local = log.findByIsbn("audit/local/1", Instant.ofEpochMilli(START),
+                    Instant.ofEpochMilli(START + 200_000L));
+            
+            // Then
+            assertTrue(log.getSegmentCount() > 1);
+            assertEquals(101, log.getRecordCount());
+            assertEquals(10, range.size());
+            assertEquals(START + 10_000L, range.get(0).getTimestamp());
+            assertEquals(33, patron.size());
+            assertTrue(patron.stream().allMatch(r -> "P1".equals(r.getPatronId())));
+            assertEquals(10, local.size());
+            assertEquals("audit/local/1", local.get(0).getIsbn());
+            assertTrue(log.findByIsbn("AUDIT/LOCAL/1", Instant.ofEpochMilli(START),
+                    Instant.ofEpochMilli(START + 200_000L)).isEmpty());
+            List<AuditRecord> added = log.findBetween(Instant.ofEpochMilli(START + 100_000L),
+                    Instant.ofEpochMilli(START + 100_001L));
+            assertEquals(new AuditRecord(EventType.BOOK_ADDED, bookKey, null, START + 100_000L), added.get(0));
+            assertTrue(log.findByIsbn("audit/never/logged", Instant.ofEpochMilli(START),
+                    Instant.ofEpochMilli(START + 200_000L)).isEmpty());
+            assertEquals(IsbnKeys.NO_KEY, keys.existingKeyOf("audit/never/logged"));
+        }
+    }
+    
+    @Test
+    public void testReopenRebuildsIndexAndDropsTornBlock(@TempDir Path tempDir) throws Exception {
+        // Given
+        long bookKey = new IsbnKeys().keyOf("978-0-306-40615-7");
+        try (AuditLog log = new AuditLog(tempDir, 16, AuditLog.DEFAULT_SEGMENT_BYTES)) {
+            for (int i = 0; i < 40; i++) {
+                log.append(EventType.CHECKOUT, bookKey, "P001", START + i);
+            }
+        }
+        Path segment;
+        try (Stream<Path> files = Files.list(tempDir)) {
+            segment = files.collect(Collectors.toList()).get(0);
+        }
+        long intactSize = Files.size(segment);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[] {0x41, 0x55, 0x44, 0x54, 0, 0, 1}));
+        }
+        
+        // When
+        try (AuditLog log = new AuditLog(tempDir, 16, AuditLog.DEFAULT_SEGMENT_BYTES)) {
+            log.append(EventType.RETURN, bookKey, "P001", START + 40);
+            log.flush();
+            
+            // Then
+            assertEquals(41, log.getRecordCount());
+            List<AuditRecord> records = log.findByPatron("P001", Instant.ofEpochMilli(START),
+                    Instant.ofEpochMilli(START + 41));
+            assertEquals(41, records.size());
+            assertEquals(EventType.RETURN, records.get(40).getType());
+            assertTrue(Files.size(segment) > intactSize);
+        }
+    }
+    
+    @Test
+    public void testExpiredSegmentsAreDeleted(@TempDir Path tempDir) throws Exception {
+        // Given
+        long bookKey = new IsbnKeys().keyOf("978-0-306-40615-7");
+        try (AuditLog log = new AuditLog(tempDir, 4, 64)) {
+            for (int i = 0; i < 20; i++) {
+                log.append(EventType.CHECKOUT, bookKey, "P001", START + i * 1000L);
+            }
+            log.flush();
+            int segmentsBefore = log.getSegmentCount();
+            
+            // When
+            int deleted = log.deleteSegmentsBefore(Instant.ofEpochMilli(START + 10_000L));
+            
+            // Then
+            assertTrue(deleted > 0);
+            assertEquals(segmentsBefore - deleted, log.getSegmentCount());
+            List<AuditRecord> remaining = log.findBetween(Instant.ofEpochMilli(START),
+                    Instant.ofEpochMilli(START + 20_000L));
+            assertEquals(log.getRecordCount(), remaining.size());
+            assertTrue(remaining.get(0).getTimestamp() >= START + 8_000L);
+            assertEquals(START + 19_000L, remaining.get(remaining.size() - 1).getTimestamp());
+        }
+    }
+    
+    @Test
+    public void testWriterRecordsLibraryActivity(@TempDir Path tempDir) throws Exception {
+        // Given
+        LibraryServiceImpl libraryService = new LibraryServiceImpl();
+        libraryService.addPatron(new Patron("Test Patron", "test@example.com", "123-456-7890", "P001"));
+        try (AuditLog log = new AuditLog(tempDir, libraryService.getActivityStream().getIsbnKeys())) {
+            AuditWriter writer = new AuditWriter(libraryService.getActivityStream(), log);
+            writer.start();
+            
+            // When
+            libraryService.addBook(new Book("Test Book", "Test Author", "978-0-306-40615-7", 2023));
+            libraryService.checkoutBook("978-0-306-40615-7", "P001");
+            libraryService.returnBook("978-0-306-40615-7", "P001");
+            writer.close();
+            
+            // Then
+            List<AuditRecord> history = log.findByIsbn("0-306-40615-2", Instant.EPOCH, Instant.now().plusSeconds(1));
+            assertEquals(3, history.size());
+            assertEquals(EventType.BOOK_ADDED, history.get(0).getType());
+            assertEquals(EventType.CHECKOUT, history.get(1).getType());
+            assertEquals("P001", history.get(1).getPatronId());
+            assertEquals(EventType.RETURN, history.get(2).getType());
+            assertEquals(0, writer.getMissedCount());
+        }
+    }
+    
+    @Test
+    public void testTruncatedBlockFailsQueryInsteadOfLooping(@TempDir Path tempDir) throws Exception {
+        // Given: a block whose header claims only half of its compressed bytes
+        long bookKey = new IsbnKeys().keyOf("978-0-306-40615-7");
+        try (AuditLog log = new AuditLog(tempDir, 64, AuditLog.DEFAULT_SEGMENT_BYTES)) {
+            for (int i = 0; i < 64; i++) {
+                log.append(EventType.CHECKOUT, bookKey, "P" + i, START + i);
+            }
+        }
+        Path segment;
+        try (Stream<Path> files = Files.list(tempDir)) {
+            segment = files.collect(Collectors.toList()).get(0);
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer length = ByteBuffer.allocate(4);
+            channel.read(length, 4);
+            length.flip();
+            int halved = length.getInt() / 2;
+            channel.write(ByteBuffer.allocate(4).putInt(halved).flip(), 4);
+        }
+        
+        // When
+        try (AuditLog log = new AuditLog(tempDir, 64, AuditLog.DEFAULT_SEGMENT_BYTES)) {
+            
+            // Then
+            assertThrows(IOException.class, () -> log.findBetween(Instant.ofEpochMilli(START),
+                    Instant.ofEpochMilli(START + 64)));
+        }
+    }
+    
+    @Test
+    public void testWriterFailureStopsUnauditedCheckouts(@TempDir Path tempDir) throws Exception {
+        // Given
+        LibraryServiceImpl libraryService = new LibraryServiceImpl();
+        libraryService.addPatron(new Patron("Test Patron", "test@example.com", "123-456-7890", "P001"));
+        libraryService.addBook(new Book("Book 1", "Test Author", "ISBN1", 2023));
+        libraryService.addBook(new Book("Book 2", "Test Author", "ISBN2", 2023));
+        AuditLog log = new AuditLog(tempDir, libraryService.getActivityStream().getIsbnKeys());
+        AuditWriter writer = new AuditWriter(libraryService.getActivityStream(), log);
+        writer.start();
+        
+        // When: the log goes away underneath the writer
+        log.close();
+        libraryService.checkoutBook("ISBN1", "P001");
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (writer.getFailure() == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        
+        // Then
+        assertNotNull(writer.getFailure());
+        assertThrows(IllegalStateException.class, () -> libraryService.checkoutBook("ISBN2", "P001"));
+        assertEquals(1, libraryService.getAvailableBookCount("ISBN2"));
+        assertThrows(IOException.class, writer::close);
+    }
+}
@@ -0,0 +1,172 @@
+package librarymanagementsystem;
+
+import librarymanagementsystem.model.Book;
+import librarymanagementsystem.model.Patron;
+import librarymanagementsystem.search.AutocompleteIndex;
+import librarymanagementsystem.services.impl.LibraryServiceImpl;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+/**
+ * Unit tests for prefix autocompletion.
+ */
+public class AutocompleteIndexTest {
+    
+    @Test
+    public void testSuggestionsAreRankedByWeight() {
+        // Given
+        AutocompleteIndex index = new AutocompleteIndex(2);
+        for (String title : Arrays.asList("The Hobbit", "The Road", "The Stand", "Dune", "The Hours")) {
+            index.add(title);
+        }
+        index.addWeight("The Stand", 5);
+        index.addWeight("the road", 3);
+        index.addWeight("The Hours", 1);
+        
+        // When
+        List<String> cached = index.suggest("th", 2);
+        List<String> walked = index.suggest("THE ", 10);
+        
+        // Then
+        assertEquals(Arrays.asList("The Stand", "The Road"), cached);
+        assertEquals(Arrays.asList("The Stand", "The Road", "The Hours", "The Hobbit"), walked);
+        assertEquals(Arrays.asList("Dune"), index.suggest("d", 5));
+        assertTrue(index.suggest("x", 5).isEmpty());
+    }
+    
+    @Test
+    public void testTermsStayUntilLastReferenceIsRemoved() {
+        // Given
+        AutocompleteIndex index = new AutocompleteIndex();
+        index.add("Ursula K. Le Guin");
+        index.add("Ursula K. Le Guin");
+        index.add("Ursula Vernon");
+        
+        // When
+        index.remove("Ursula K. Le Guin");
+        List<String> afterFirst = index.suggest("ursula", 5);
+        index.remove("Ursula K. Le Guin");
+        
+        // Then
+        assertEquals(2, afterFirst.size());
+        assertEquals(Arrays.asList("Ursula Vernon"), index.suggest("ursula", 5));
+        assertEquals(1, index.size());
+        assertEquals(-1, index.getWeight("Ursula K. Le Guin"));
+    }
+    
+    @Test
+    public void testRandomOperationsMatchBruteForce() {
+        // Given
+        AutocompleteIndex index = new AutocompleteIndex(3);
+        Map<String, Long> expected = new HashMap<>();
+        Random random = new Random(7);
+        
+        for (int step = 0; step < 5_000; step++) {
+            // When
+            String term = randomTerm(random);
+            int action = random.nextInt(4);
+            if (action == 0 && expected.containsKey(term)) {
+                index.remove(term);
+                expected.remove(term);
+            } else if (action == 1 && expected.containsKey(term)) {
+                long delta = random.nextInt(5) + 1;
+                index.addWeight(term, delta);
+                expected.merge(term, delta, Long::sum);
+            } else if (!expected.containsKey(term)) {
+                index.add(term);
+                expected.put(term, 0L);
+            }
+            
+            // Then
+            if (step % 50 == 0) {
+                String prefix = randomTerm(random).substring(0, random.nextInt(3));
+                int limit = random.nextInt(6) + 1;
+                List<String> brute = expected.entrySet().stream()
+                        .filter(entry -> entry.getKey().startsWith(prefix))
+                        .sorted((a, b) -> a.getValue().equals(b.getValue())
+                                ? a.getKey().compareTo(b.getKey())
+                                : Long.compare(b.getValue(), a.getValue()))
+                        .limit(limit)
+                        .map(Map.Entry::getKey)
+                        .collect(Collectors.toList());
+                assertEquals(brute, index.suggest(prefix, limit), "prefix '" + prefix + "'");
+            }
+        }
+        assertEquals(expected.size(), index.size());
+    }
+    
+    @Test
+    public void testLibraryServiceWeighsCompletionsByCheckouts() {
+        // Given
+        LibraryServiceImpl libraryService = new LibraryServiceImpl();
+        libraryService.addPatron(new Patron("Test Patron", "test@example.com", "123-456-7890", "P001"));
+        libraryService.addBook(new Book("Dune", "Frank Herbert", "ISBN1", 1965));
+        libraryService.addBook(new Book("Dune Messiah", "Frank Herbert", "ISBN2", 1969));
+        libraryService.addBook(new Book("Dubliners", "James Joyce", "ISBN3", 1914));
+        
+        // When
+        for (int i = 0; i < 3; i++) {
+            libraryService.checkoutBook("ISBN2", "P001");
+            libraryService.returnBook("ISBN2", "P001");
+        }
+        libraryService.checkoutBook("ISBN3", "P001");
+        libraryService.awaitLendingIndexed();
+        List<String> suggestions = libraryService.suggestCompletions("du", 10);
+        libraryService.returnBook("ISBN3", "P001");
+        libraryService.removeBook("ISBN3");
+        
+        // Then
+        assertEquals(Arrays.asList("Dune Messiah", "Dubliners", "Dune"), suggestions);
+        assertEquals(Arrays.asList("Frank Herbert"), libraryService.suggestCompletions("frank", 10));
+        assertEquals(Arrays.asList("Dune Messiah", "Dune"), libraryService.suggestCompletions("du", 10));
+    }
+    
+    @Test
+    public void testCompletionsCountEveryCheckoutWhileBeingRead() throws Exception {
+        // Given
+        LibraryServiceImpl libraryService = new LibraryServiceImpl();
+        libraryService.addPatron(new Patron("Test Patron", "test@example.com", "123-456-7890", "P001"));
+        libraryService.addBook(new Book("Dune", "Frank Herbert", "ISBN1", 1965));
+        libraryService.addBook(new Book("Dubliners", "James Joyce", "ISBN2", 1914));
+        ExecutorService lender = Executors.newSingleThreadExecutor();
+        
+        try {
+            // When: far more checkouts than the activity stream holds, the older ones first
+            Future<?> lending = lender.submit(() -> {
+                for (int i = 0; i < 15_000; i++) {
+                    String isbn = i < 10_000 ? "ISBN1" : "ISBN2";
+                    assertTrue(libraryService.checkoutBook(isbn, "P001"));
+                    assertTrue(libraryService.returnBook(isbn, "P001"));
+                }
+            });
+            while (!lending.isDone()) {
+                assertEquals(2, libraryService.suggestCompletions("du", 10).size());
+            }
+            lending.get();
+            
+            // Then
+            assertEquals(Arrays.asList("Dune", "Dubliners"), libraryService.suggestCompletions("du", 10));
+        } finally {
+            lender.shutdown();
+        }
+    }
+    
+    private static String randomTerm(Random random) {
+        StringBuilder term = new StringBuilder();
+        int length = random.nextInt(5) + 2;
+        for (int i = 0; i < length; i++) {
+            term.append((char) ('a' + random.nextInt(3)));
+        }
+        return term.toString();
+    }
+}
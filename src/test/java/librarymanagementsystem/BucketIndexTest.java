@@ -0,0 +1,94 @@
+package librarymanagementsystem;
+
+import librarymanagementsystem.model.Book;
+import librarymanagementsystem.model.Patron;
+import librarymanagementsystem.recommendations.RecommendationSystem;
+import librarymanagementsystem.search.BucketIndex;
+import librarymanagementsystem.services.impl.LibraryServiceImpl;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Unit tests for the bucketed range index and listing books by year.
+ */
+public class BucketIndexTest {
+    
+    @Test
+    public void testRangeQueriesCountAndCollectDocuments() {
+        // Given
+        BucketIndex index = new BucketIndex();
+        for (int doc = 0; doc < 1_000; doc++) {
+            index.add(1900 + doc % 100, doc);
+        }
+        
+        // When
+        index.remove(1950, 50);
+        index.remove(1950, 51); // indexed under 1951
+        
+        // Then
+        assertEquals(999, index.size());
+        assertEquals(209, index.count(1950, 1970));
+        assertEquals(209, index.docs(1950, 1970).cardinality());
+        assertFalse(index.docs(1950, 1970).contains(50));
+        assertTrue(index.docs(1951, 1951).contains(51));
+        assertEquals(0, index.count(2000, 2100));
+        assertEquals(0, index.count(1970, 1950));
+    }
+    
+    @Test
+    public void testOrderedIterationStopsAtTheLimit() {
+        // Given
+        BucketIndex index = new BucketIndex();
+        index.add(1990, 0);
+        index.add(2005, 1);
+        index.add(1990, 2);
+        index.add(2020, 3);
+        index.add(1871, 4);
+        
+        // When
+        List<Integer> newest = new ArrayList<>();
+        index.forEachInRange(Integer.MIN_VALUE, Integer.MAX_VALUE, true, doc -> newest.add(doc) && newest.size() < 4);
+        List<Integer> oldest = new ArrayList<>();
+        index.forEachInRange(1900, 2010, false, oldest::add);
+        
+        // Then
+        assertEquals(Arrays.asList(3, 1, 2, 0), newest);
+        assertEquals(Arrays.asList(0, 2, 1), oldest);
+    }
+    
+    @Test
+    public void testLibraryServiceListsBooksByYearForRecommendations() {
+        // Given
+        LibraryServiceImpl libraryService = new LibraryServiceImpl();
+        Patron patron = new Patron("Test Patron", "test@example.com", "123-456-7890", "P001");
+        libraryService.addPatron(patron);
+        libraryService.addBook(new Book("Middlemarch", "George Eliot", "ISBN1", 1871));
+        libraryService.addBook(new Book("Dune", "Frank Herbert", "ISBN2", 1965));
+        libraryService.addBook(new Book("Piranesi", "Susanna Clarke", "ISBN3", 2020));
+        libraryService.addBook(new Book("Beloved", "Toni Morrison", "ISBN4", 1987));
+        libraryService.addBook(new Book("Klara and the Sun", "Kazuo Ishiguro", "ISBN5", 2021));
+        
+        // When
+        libraryService.updateBook("ISBN1", new Book("Middlemarch", "George Eliot", "ISBN1", 1872));
+        libraryService.checkoutBook("ISBN5", "P001");
+        RecommendationSystem recommendationSystem = new RecommendationSystem();
+        recommendationSystem.updatePreferences(patron);
+        List<Book> recommendations = recommendationSystem.generateRecommendations(patron, libraryService, 2);
+        
+        // Then
+        assertEquals(Arrays.asList("Dune", "Beloved"), titles(libraryService.findBooksByYear(1950, 1999, false, 10)));
+        assertEquals(Arrays.asList("Klara and the Sun", "Piranesi"), titles(libraryService.findBooksByYear(1800, 2100, true, 2)));
+        assertEquals(Arrays.asList("Middlemarch"), titles(libraryService.findBooksByYear(1872, 1872, true, 5)));
+        assertEquals(Arrays.asList("Piranesi", "Beloved"), titles(recommendations));
+        assertThrows(IllegalArgumentException.class, () -> libraryService.findBooksByYear(2000, 1990, true, 5));
+    }
+    
+    private static List<String> titles(List<Book> books) {
+        return books.stream().map(Book::getTitle).collect(Collectors.toList());
+    }
+}
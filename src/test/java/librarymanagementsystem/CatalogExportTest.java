@@ -0,0 +1,127 @@
+package librarymanagementsystem;
+
+import librarymanagementsystem.export.CatalogExporter;
+import librarymanagementsystem.export.ExportFormat;
+import librarymanagementsystem.model.Book;
+import librarymanagementsystem.services.impl.LibraryServiceImpl;
+import librarymanagementsystem.utils.BookFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Unit tests for streaming catalog exports.
+ */
+public class CatalogExportTest {
+    
+    @Test
+    public void testCsvAndJsonLinesEscapeFields() throws IOException {
+        // Given
+        LibraryServiceImpl libraryService = new LibraryServiceImpl();
+        libraryService.addBook(new Book("Dune", "Frank Herbert", "ISBN1", 1965));
+        
+        // When
+        libraryService.updateBook("ISBN1", new Book("Sea, \"Sun\"\nand Sky", "Frank Herbert", "ISBN1", 1965));
+        String csv = export(libraryService, ExportFormat.CSV);
+        String json = export(libraryService, ExportFormat.JSON_LINES);
+        
+        // Then
+        assertEquals("isbn,title,author,publicationYear,type\n"
+                + "ISBN1,\"Sea, \"\"Sun\"\"\nand Sky\",Frank Herbert,1965,GENERAL\n", csv);
+        assertEquals("{\"isbn\":\"ISBN1\",\"title\":\"Sea, \\\"Sun\\\"\\nand Sky\",\"author\":\"Frank Herbert\","
+                + "\"publicationYear\":1965,\"type\":\"GENERAL\"}\n", json);
+    }
+    
+    @Test
+    public void testParallelGzipExportMatchesSequentialExport(@TempDir Path directory) throws IOException {
+        // Given
+        LibraryServiceImpl libraryService = new LibraryServiceImpl(true);
+        for (int i = 0; i < 5_000; i++) {
+            libraryService.addBook(new Book("Book " + i, "Author " + i % 97, "ISBN" + i, 1900 + i % 120));
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        ForkJoinPool single = new ForkJoinPool(1);
+        Path file = directory.resolve("catalog.jsonl.gz");
+        
+        try {
+            // When
+            long written;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                written = libraryService.exportCatalog(new CatalogExporter(ExportFormat.JSON_LINES, true, 37, pool), channel);
+            }
+            ByteArrayOutputStream expected = new ByteArrayOutputStream();
+            libraryService.exportCatalog(new CatalogExporter(ExportFormat.JSON_LINES, false, 1_000, single),
+                    Channels.newChannel(expected));
+            
+            // Then
+            assertEquals(5_000, written);
+            byte[] decompressed;
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+                decompressed = in.readAllBytes();
+            }
+            assertArrayEquals(expected.toByteArray(), decompressed);
+            assertEquals(5_000, new String(decompressed, StandardCharsets.UTF_8).split("\n").length);
+        } finally {
+            pool.shutdown();
+            single.shutdown();
+        }
+    }
+    
+    @Test
+    public void testBinaryExportWritesHeaderAndRecords() throws IOException {
+        // Given
+        LibraryServiceImpl libraryService = new LibraryServiceImpl();
+        libraryService.addBook(BookFactory.createBook("Beloved", "Toni Morrison", "ISBN1", 1987, BookFactory.BookType.FICTION));
+        String longTitle = "Ω".repeat(40_000); // 80,000 bytes, too long for writeUTF
+        libraryService.addBook(BookFactory.createBook(longTitle, "Anonymous", "ISBN2", 2001, BookFactory.BookType.FICTION));
+        
+        // When
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        libraryService.exportCatalog(new CatalogExporter(ExportFormat.BINARY, false), Channels.newChannel(bytes));
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        
+        // Then
+        assertEquals(CatalogExporter.BINARY_MAGIC, in.readInt());
+        assertEquals(CatalogExporter.BINARY_VERSION, in.readInt());
+        assertEquals("ISBN1", readString(in));
+        assertEquals(3, in.readByte());
+        assertEquals("Beloved", readString(in));
+        assertEquals("Toni Morrison", readString(in));
+        assertEquals(1987, in.readInt());
+        assertEquals(BookFactory.BookType.FICTION.ordinal(), in.readByte());
+        assertEquals("ISBN2", readString(in));
+        assertEquals(3, in.readByte());
+        assertEquals(longTitle, readString(in));
+        assertEquals("Anonymous", readString(in));
+        assertEquals(2001, in.readInt());
+        assertEquals(BookFactory.BookType.FICTION.ordinal(), in.readByte());
+        assertEquals(-1, in.read());
+        assertThrows(IllegalArgumentException.class, () -> libraryService.exportCatalog(null, Channels.newChannel(bytes)));
+    }
+    
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] utf8 = new byte[in.readInt()];
+        in.readFully(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+    
+    private static String export(LibraryServiceImpl libraryService, ExportFormat format) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        libraryService.exportCatalog(new CatalogExporter(format, false), Channels.newChannel(bytes));
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+}
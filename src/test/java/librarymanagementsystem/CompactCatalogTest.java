@@ -0,0 +1,117 @@
+package librarymanagementsystem;
+
+import librarymanagementsystem.catalog.CompactCatalog;
+import librarymanagementsystem.model.Book;
+import librarymanagementsystem.model.FictionBook;
+import librarymanagementsystem.model.ReferenceBook;
+import librarymanagementsystem.services.LibraryService;
+import librarymanagementsystem.services.impl.LibraryServiceImpl;
+import librarymanagementsystem.utils.BookFactory;
+import librarymanagementsystem.utils.IsbnKeys;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Unit tests for the CompactCatalog storage.
+ */
+public class CompactCatalogTest {
+    private final IsbnKeys keys = new IsbnKeys();
+
+
+    @Test
+    public void testViewsRoundTripAllFields() {
+        // Given
+        CompactCatalog catalog = new CompactCatalog(keys);
+        Book book = BookFactory.createBook("The God of Small Things", "Arundhati Roy",
+                "978-0-679-45732-2", 1997, BookFactory.BookType.FICTION);
+
+        // When
+        catalog.put(keys.keyOf(book.getIsbn()), book);
+        Book view = catalog.get(keys.keyOf("978-0-679-45732-2"));
+
+        // Then
+        assertTrue(view instanceof FictionBook);
+        assertEquals("The God of Small Things", view.getTitle());
+        assertEquals("Arundhati Roy", view.getAuthor());
+        assertEquals("978-0-679-45732-2", view.getIsbn());
+        assertEquals(1997, view.getPublicationYear());
+        assertEquals(book, view);
+    }
+
+    @Test
+    public void testIsbnFormattingIsPreserved() {
+        // Given
+        CompactCatalog catalog = new CompactCatalog(keys);
+        catalog.put(keys.keyOf("0-306-40615-2"), new Book("Leading Zero", "Author", "0-306-40615-2", 2000));
+        catalog.put(keys.keyOf("ISBN1"), new Book("Not Numeric", "Author", "ISBN1", 2000));
+
+        // Then
+        assertEquals(2, catalog.size());
+        assertEquals("0-306-40615-2", catalog.get(keys.keyOf("0306406152")).getIsbn());
+        assertEquals("Leading Zero", catalog.get(keys.keyOf("978-0-306-40615-7")).getTitle());
+        assertEquals("ISBN1", catalog.get(keys.keyOf("ISBN1")).getIsbn());
+        assertNull(catalog.get(keys.keyOf("306-40615-2")));
+    }
+
+    @Test
+    public void testAuthorsAreShared() {
+        // Given
+        CompactCatalog catalog = new CompactCatalog(keys);
+        for (int i = 0; i < 100; i++) {
+            String isbn = "978" + (1000000000 + i);
+            catalog.put(keys.keyOf(isbn), new Book("Title " + i, new String("Shared Author"), isbn, 2000));
+        }
+
+        // Then
+        assertEquals(1, catalog.getDistinctAuthorCount());
+        assertSame(catalog.get(keys.keyOf("9781000000000")).getAuthor(),
+                catalog.get(keys.keyOf("9781000000099")).getAuthor());
+    }
+
+    @Test
+    public void testUpdateRemoveAndIterate() {
+        // Given
+        CompactCatalog catalog = new CompactCatalog(keys);
+        for (int i = 0; i < 50; i++) {
+            String isbn = "978-" + (1000000000 + i);
+            catalog.put(keys.keyOf(isbn), new Book("Title " + i, "Author " + (i % 5), isbn, 1950 + i));
+        }
+
+        // When
+        for (int i = 0; i < 50; i += 2) {
+            catalog.remove(keys.keyOf("978-" + (1000000000 + i)));
+        }
+        catalog.put(keys.keyOf("978-1000000001"), new ReferenceBook("Updated", "Editor", "978-1000000001", 2024));
+
+        // Then
+        assertEquals(25, catalog.size());
+        assertNull(catalog.get(keys.keyOf("978-1000000000")));
+        Book updated = catalog.get(keys.keyOf("978-1000000001"));
+        assertTrue(updated instanceof ReferenceBook);
+        assertEquals("Updated", updated.getTitle());
+        Set<String> isbns = new HashSet<>();
+        for (Book book : catalog.values()) {
+            isbns.add(book.getIsbn());
+        }
+        assertEquals(25, isbns.size());
+        assertTrue(isbns.contains("978-1000000049"));
+    }
+
+    @Test
+    public void testLibraryServiceInCompactMode() {
+        // Given
+        LibraryService libraryService = new LibraryServiceImpl(true);
+        Book book = new Book("Test Book", "Test Author", "123-456-789", 2023);
+
+        // When
+        libraryService.addBook(book);
+
+        // Then
+        assertEquals(book, libraryService.findBookByIsbn("123-456-789"));
+        assertEquals(1, libraryService.findBooksByAuthor("test author").size());
+        assertEquals(1, libraryService.getAvailableBooks().size());
+    }
+}
@@ -0,0 +1,108 @@
+package librarymanagementsystem;
+
+import librarymanagementsystem.lending.BatchMode;
+import librarymanagementsystem.lending.BatchResult;
+import librarymanagementsystem.lending.FineEngine;
+import librarymanagementsystem.lending.LendingStatus;
+import librarymanagementsystem.model.Book;
+import librarymanagementsystem.model.Patron;
+import librarymanagementsystem.services.impl.LibraryServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+
+/**
+ * Unit tests for incremental fine accrual.
+ */
+public class FineEngineTest {
+    
+    private static final Instant START = Instant.parse("2024-03-01T10:00:00Z");
+    
+    private MutableClock clock;
+    private LibraryServiceImpl libraryService;
+    
+    @BeforeEach
+    public void setUp() {
+        clock = new MutableClock(START);
+        libraryService = new LibraryServiceImpl(false, clock);
+        libraryService.addPatron(new Patron("Test Patron", "test@example.com", "123-456-7890", "P001"));
+        libraryService.addPatron(new Patron("Other Patron", "other@example.com", "555-000-1111", "P002"));
+        for (int i = 1; i <= 4; i++) {
+            libraryService.addBook(new Book("Book " + i, "Author", "ISBN" + i, 2000 + i));
+        }
+    }
+    
+    @Test
+    public void testFinesAccrueOnTickAndSettleOnReturn() {
+        // Given: two loans due in 14 days
+        libraryService.checkoutBook("ISBN1", "P001");
+        libraryService.checkoutBook("ISBN2", "P001");
+        
+        // When: three days past due
+        clock.advance(Duration.ofDays(17));
+        int newlyOverdue = libraryService.accrueFines();
+        
+        // Then
+        assertEquals(2, newlyOverdue);
+        assertEquals(2 * 3 * FineEngine.DEFAULT_DAILY_FINE_CENTS, libraryService.getFineBalance("P001"));
+        assertEquals(0, libraryService.getFineBalance("P002"));
+        
+        // When: a later tick only adds days, and one book is returned two days after that
+        clock.advance(Duration.ofDays(2));
+        assertEquals(0, libraryService.accrueFines());
+        libraryService.returnBook("ISBN1", "P001");
+        
+        // Then: the returned loan is settled at 5 days, the open one keeps accruing
+        assertEquals(2 * 5 * FineEngine.DEFAULT_DAILY_FINE_CENTS, libraryService.getFineBalance("P001"));
+        clock.advance(Duration.ofDays(1));
+        libraryService.accrueFines();
+        assertEquals(11 * FineEngine.DEFAULT_DAILY_FINE_CENTS, libraryService.getFineBalance("P001"));
+    }
+    
+    @Test
+    public void testReturnBeforeTickIsStillCharged() {
+        // Given
+        libraryService.checkoutBooks("P001", Arrays.asList("ISBN1", "ISBN2"), BatchMode.BEST_EFFORT);
+        
+        // When: returned four days late without any tick in between
+        clock.advance(Duration.ofDays(18));
+        libraryService.returnBooks(Arrays.asList("ISBN1", "ISBN2"), BatchMode.BEST_EFFORT);
+        libraryService.accrueFines();
+        
+        // Then
+        assertEquals(2 * 4 * FineEngine.DEFAULT_DAILY_FINE_CENTS, libraryService.getFineBalance("P001"));
+        
+        // When
+        libraryService.payFine("P001", 200);
+        
+        // Then
+        assertEquals(0, libraryService.getFineBalance("P001"));
+    }
+    
+    @Test
+    public void testPatronOverThresholdIsBlocked() {
+        // Given: a loan that is 40 days overdue
+        libraryService.checkoutBook("ISBN1", "P001");
+        clock.advance(Duration.ofDays(54));
+        libraryService.accrueFines();
+        assertTrue(libraryService.getFineBalance("P001") >= FineEngine.DEFAULT_BLOCK_THRESHOLD_CENTS);
+        
+        // When & Then
+        assertFalse(libraryService.checkoutBook("ISBN2", "P001"));
+        assertFalse(libraryService.renewLoan("ISBN1", "P001"));
+        BatchResult result = libraryService.checkoutBooks("P001", Arrays.asList("ISBN3"), BatchMode.BEST_EFFORT);
+        assertEquals(LendingStatus.PATRON_BLOCKED, result.getStatus(0));
+        assertTrue(libraryService.checkoutBook("ISBN2", "P002"));
+        
+        // When: the fine is paid off
+        libraryService.returnBook("ISBN1", "P001");
+        libraryService.payFine("P001", libraryService.getFineBalance("P001"));
+        
+        // Then
+        assertTrue(libraryService.checkoutBook("ISBN3", "P001"));
+    }
+}
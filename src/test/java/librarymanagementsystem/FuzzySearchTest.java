@@ -0,0 +1,102 @@
+package librarymanagementsystem;
+
+import librarymanagementsystem.model.Book;
+import librarymanagementsystem.search.TrigramIndex;
+import librarymanagementsystem.services.impl.LibraryServiceImpl;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+/**
+ * Unit tests for typo-tolerant search.
+ */
+public class FuzzySearchTest {
+    
+    @Test
+    public void testTrigramIndexRanksCloserMatchesFirst() {
+        // Given
+        TrigramIndex index = new TrigramIndex();
+        index.add(1L, "Harry Potter and the Philosopher's Stone");
+        index.add(2L, "The Pottery Handbook");
+        index.add(3L, "Harry Potter");
+        index.add(4L, "Dune");
+        
+        // When
+        List<TrigramIndex.Match> matches = index.search("hary potter", 2, 10);
+        
+        // Then
+        assertEquals(2, matches.size());
+        assertEquals(3L, matches.get(0).getKey());
+        assertEquals(1, matches.get(0).getDistance());
+        assertEquals(1L, matches.get(1).getKey());
+        assertTrue(index.search("hary potter", 0, 10).isEmpty());
+        assertEquals(1, index.search("harry potter", 0, 1).size());
+    }
+    
+    @Test
+    public void testShortQueriesWithAnEditFallBackToBigrams() {
+        // Given
+        TrigramIndex index = new TrigramIndex();
+        index.add(1L, "Harry Potter");
+        index.add(2L, "Dune");
+        for (int i = 0; i < 200; i++) {
+            index.add(100L + i, "The Book of the Year " + i);
+        }
+        
+        // When: five letters keep no trigram through one edit, but do keep two bigrams
+        List<TrigramIndex.Match> matches = index.search("haxry", 1, 10);
+        
+        // Then
+        assertEquals(1, matches.size());
+        assertEquals(1L, matches.get(0).getKey());
+        assertEquals(1, matches.get(0).getDistance());
+        assertEquals(2L, index.search("dume", 1, 10).get(0).getKey());
+        assertEquals(200, index.search("the", 0, 1_000).size());
+        assertEquals(2L, index.search("un", 0, 10).get(0).getKey());
+        assertTrue(index.search("z", 0, 10).isEmpty());
+    }
+    
+    @Test
+    public void testRemovedAndReplacedTextsAreNotFound() {
+        // Given
+        TrigramIndex index = new TrigramIndex();
+        for (int i = 0; i < 3_000; i++) {
+            index.add(i, "Volume " + i + " of the encyclopedia");
+        }
+        
+        // When
+        for (int i = 0; i < 2_500; i++) {
+            index.remove(i);
+        }
+        index.add(2_999L, "Atlas of the world");
+        
+        // Then
+        assertEquals(500, index.size());
+        assertEquals(499, index.search("encyclopaedia", 2, 1_000).size());
+        assertEquals(2_999L, index.search("atlas of the wrld", 1, 10).get(0).getKey());
+        assertTrue(index.search("volume 12 of", 0, 10).isEmpty());
+    }
+    
+    @Test
+    public void testLibraryServiceFindsMisspelledTitlesAndAuthors() {
+        // Given
+        LibraryServiceImpl libraryService = new LibraryServiceImpl();
+        libraryService.addBook(new Book("The Hobbit", "J.R.R. Tolkien", "ISBN1", 1937));
+        libraryService.addBook(new Book("Dune", "Frank Herbert", "ISBN2", 1965));
+        libraryService.addBook(new Book("Middlemarch", "George Eliot", "ISBN3", 1871));
+        
+        // When
+        List<Book> byAuthor = libraryService.findBooksFuzzy("Tolkin", 10);
+        List<Book> byTitle = libraryService.findBooksFuzzy("midlemarch", 10);
+        libraryService.updateBook("ISBN2", new Book("Dune Messiah", "Frank Herbert", "ISBN2", 1969));
+        
+        // Then
+        assertEquals(1, byAuthor.size());
+        assertEquals("The Hobbit", byAuthor.get(0).getTitle());
+        assertEquals("Middlemarch", byTitle.get(0).getTitle());
+        assertEquals("Dune Messiah", libraryService.findBooksFuzzy("dune mesiah", 10).get(0).getTitle());
+        libraryService.removeBook("ISBN1");
+        assertTrue(libraryService.findBooksFuzzy("Tolkin", 10).isEmpty());
+    }
+}
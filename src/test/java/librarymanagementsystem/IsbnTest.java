@@ -0,0 +1,115 @@
+package librarymanagementsystem;
+
+import librarymanagementsystem.model.Book;
+import librarymanagementsystem.model.Isbn;
+import librarymanagementsystem.services.LibraryService;
+import librarymanagementsystem.services.impl.LibraryServiceImpl;
+import librarymanagementsystem.utils.IsbnKeys;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ISBN parsing and ISBN keys.
+ */
+public class IsbnTest {
+    
+    @Test
+    public void testParseIsbn13() {
+        // When
+        Isbn isbn = Isbn.parse("978-0-306-40615-7");
+        
+        // Then
+        assertEquals(9780306406157L, isbn.toLong());
+        assertEquals("9780306406157", isbn.toIsbn13());
+        assertEquals("0306406152", isbn.toIsbn10());
+    }
+    
+    @Test
+    public void testIsbn10NormalizesToIsbn13() {
+        // Then
+        assertEquals(Isbn.parse("9780306406157"), Isbn.parse("0-306-40615-2"));
+        assertEquals(Isbn.parse("978-0-8044-2957-3"), Isbn.parse("0 8044 2957 X"));
+        assertEquals("080442957X", Isbn.parse("9780804429573").toIsbn10());
+    }
+    
+    @Test
+    public void testInvalidIsbnsAreRejected() {
+        // Then
+        assertFalse(Isbn.isValid("978-0-306-40615-8")); // bad check digit
+        assertFalse(Isbn.isValid("0-306-40615-3"));
+        assertFalse(Isbn.isValid("123-456-789"));
+        assertFalse(Isbn.isValid("ISBN1"));
+        assertFalse(Isbn.isValid("X306406152"));
+        assertThrows(IllegalArgumentException.class, () -> Isbn.parse("not an isbn"));
+    }
+    
+    @Test
+    public void testKeysIgnoreIsbnFormattingButKeepLocalIdsVerbatim() {
+        // Given
+        IsbnKeys keys = new IsbnKeys();
+        
+        // Then
+        assertEquals(keys.keyOf("978-0-306-40615-7"), keys.keyOf("0306406152"));
+        assertNotEquals(keys.keyOf("LOCAL-0042"), keys.keyOf("local0042"));
+        assertNotEquals(keys.keyOf("LOCAL-0042"), keys.keyOf("LOCAL0042"));
+        assertTrue(keys.keyOf("LOCAL-0042") < 0);
+        assertEquals("local-0042", keys.toIsbnString(keys.keyOf("local-0042")));
+        assertEquals(IsbnKeys.NO_KEY, keys.existingKeyOf("never registered id"));
+    }
+    
+    @Test
+    public void testShortLocalIdsArePackedAndLookupsDoNotRegister() {
+        // Given
+        IsbnKeys keys = new IsbnKeys();
+        
+        // When
+        long packed = keys.existingKeyOf("ref-0007");
+        
+        // Then
+        assertTrue(packed < 0);
+        assertEquals(packed, keys.keyOf("ref-0007"));
+        assertEquals(packed, new IsbnKeys().existingKeyOf("ref-0007"));
+        assertNotEquals(packed, keys.existingKeyOf("ref-007"));
+        assertEquals("ref-0007", keys.toIsbnString(packed));
+        assertEquals("zzzzzzzzzz", keys.toIsbnString(keys.existingKeyOf("zzzzzzzzzz")));
+        assertEquals(IsbnKeys.NO_KEY, keys.existingKeyOf("zzzzzzzzzzz"));
+        assertEquals(IsbnKeys.NO_KEY, keys.existingKeyOf("shelf/lookup/only"));
+        assertEquals(IsbnKeys.NO_KEY, keys.existingKeyOf("shelf/lookup/only"));
+        long interned = keys.keyOf("shelf/stored/once");
+        assertTrue(interned < packed);
+        assertEquals("shelf/stored/once", keys.toIsbnString(interned));
+        assertEquals(interned, keys.existingKeyOf("shelf/stored/once"));
+        assertEquals(IsbnKeys.NO_KEY, keys.existingKeyOf("SHELF/STORED/ONCE"));
+    }
+    
+    @Test
+    public void testEachInstanceHasItsOwnLocalIdTable() {
+        // Given
+        IsbnKeys first = new IsbnKeys();
+        IsbnKeys second = new IsbnKeys();
+        
+        // When
+        long key = first.keyOf("branch/annex/0001");
+        
+        // Then
+        assertEquals(IsbnKeys.NO_KEY, second.existingKeyOf("branch/annex/0001"));
+        assertEquals(key, second.keyOf("branch/other/0002"));
+        assertEquals("branch/other/0002", second.toIsbnString(key));
+        assertEquals("branch/annex/0001", first.toIsbnString(key));
+    }
+    
+    @Test
+    public void testSameTitleWithAndWithoutHyphensIsOneBook() {
+        // Given
+        LibraryService libraryService = new LibraryServiceImpl();
+        Book book = new Book("Test Book", "Test Author", "978-0-306-40615-7", 2023);
+        libraryService.addBook(book);
+        
+        // Then
+        assertEquals(book, libraryService.findBookByIsbn("9780306406157"));
+        assertEquals(book, libraryService.findBookByIsbn("0-306-40615-2"));
+        assertThrows(IllegalArgumentException.class, () -> {
+            libraryService.addBook(new Book("Test Book", "Test Author", "9780306406157", 2023));
+        });
+    }
+}
@@ -0,0 +1,64 @@
+package librarymanagementsystem;
+
+import librarymanagementsystem.inventory.LendingPolicy;
+import librarymanagementsystem.lending.BatchMode;
+import librarymanagementsystem.lending.BatchResult;
+import librarymanagementsystem.lending.LendingStatus;
+import librarymanagementsystem.model.Book;
+import librarymanagementsystem.model.Patron;
+import librarymanagementsystem.model.ReferenceBook;
+import librarymanagementsystem.services.impl.LibraryServiceImpl;
+import librarymanagementsystem.utils.BookFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+
+/**
+ * Unit tests for lending policies by book type.
+ */
+public class LendingPolicyTest {
+    
+    private LibraryServiceImpl libraryService;
+    
+    @BeforeEach
+    public void setUp() {
+        libraryService = new LibraryServiceImpl();
+        libraryService.addPatron(new Patron("Test Patron", "test@example.com", "123-456-7890", "P001"));
+        libraryService.addBook(new ReferenceBook("Encyclopedia", "Editors", "REF1", 2020));
+        libraryService.addBook(BookFactory.createBook("Novel", "Author", "FIC1", 2021, BookFactory.BookType.FICTION));
+    }
+    
+    @Test
+    public void testReferenceBooksDoNotCirculate() {
+        // When
+        boolean referenceCheckout = libraryService.checkoutBook("REF1", "P001");
+        BatchResult result = libraryService.checkoutBooks("P001", Arrays.asList("REF1", "FIC1"), BatchMode.BEST_EFFORT);
+        
+        // Then
+        assertFalse(referenceCheckout);
+        assertEquals(LendingStatus.NOT_CIRCULATING, result.getStatus(0));
+        assertEquals(LendingStatus.SUCCESS, result.getStatus(1));
+    }
+    
+    @Test
+    public void testPolicyChangesApplyToExistingBooks() {
+        // Given
+        libraryService.setLendingFlags(BookFactory.BookType.REFERENCE, LendingPolicy.CIRCULATING);
+        libraryService.setLendingFlags(BookFactory.BookType.FICTION, LendingPolicy.CIRCULATING);
+        
+        // When & Then: reference books now circulate, but fiction loans cannot be renewed
+        assertTrue(libraryService.checkoutBook("REF1", "P001"));
+        assertTrue(libraryService.checkoutBook("FIC1", "P001"));
+        assertFalse(libraryService.renewLoan("FIC1", "P001"));
+        
+        // When: a book's type changes on update
+        libraryService.returnBook("FIC1", "P001");
+        libraryService.updateBook("FIC1", new Book("Novel", "Author", "FIC1", 2021));
+        
+        // Then
+        assertTrue(libraryService.checkoutBook("FIC1", "P001"));
+        assertTrue(libraryService.renewLoan("FIC1", "P001"));
+    }
+}
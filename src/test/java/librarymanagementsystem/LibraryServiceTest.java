@@ -1,5 +1,8 @@
 package librarymanagementsystem;
 
+import librarymanagementsystem.lending.BatchMode;
+import librarymanagementsystem.lending.BatchResult;
+import librarymanagementsystem.lending.LendingStatus;
 import librarymanagementsystem.model.Book;
 import librarymanagementsystem.model.Patron;
 import librarymanagementsystem.services.LibraryService;
@@ -8,6 +11,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -133,4 +137,114 @@ public class LibraryServiceTest {
         assertTrue(booksByAuthorA.contains(book1));
         assertTrue(booksByAuthorA.contains(book2));
     }
-}
\ No newline at end of file
+    
+    @Test
+    public void testBorrowingHistoryRecordsOnlySuccessfulCheckouts() {
+        // Given
+        Patron otherPatron = new Patron("Other Patron", "other@example.com", "555-0000", "P002");
+        libraryService.addBook(testBook);
+        libraryService.addPatron(testPatron);
+        libraryService.addPatron(otherPatron);
+        libraryService.checkoutBook("123-456-789", "P001");
+        
+        // When
+        boolean result = libraryService.checkoutBook("123-456-789", "P002");
+        
+        // Then
+        assertFalse(result);
+        assertTrue(otherPatron.getBorrowingHistory().isEmpty());
+        assertTrue(testPatron.hasBorrowed("123-456-789"));
+        assertFalse(testPatron.hasBorrowed("123456789"));
+        List<Book> history = testPatron.getBorrowingHistory();
+        assertEquals(1, history.size());
+        assertThrows(UnsupportedOperationException.class, () -> history.add(testBook));
+    }
+    
+    @Test
+    public void testFindPatronsBySecondaryIndexes() {
+        // Given
+        libraryService.addPatron(testPatron);
+        libraryService.addPatron(new Patron("Priya Sharma", "priya@example.com", "555-5678", "P002"));
+        
+        // When
+        libraryService.updatePatron("P001", new Patron("Aarav Patel", "aarav@example.com", "(555) 1234", "P001"));
+        
+        // Then
+        assertNull(libraryService.findPatronByEmail("test@example.com"));
+        assertEquals("P001", libraryService.findPatronByEmail(" AARAV@example.com").getPatronId());
+        assertEquals(1, libraryService.findPatronsByPhone("555-1234").size());
+        assertTrue(libraryService.findPatronsByPhone("123-456-7890").isEmpty());
+        assertEquals("P001", libraryService.findPatronsByNamePrefix("pat").get(0).getPatronId());
+        assertEquals(1, libraryService.findPatronsByNamePrefix("Priya S").size());
+        assertTrue(libraryService.findPatronsByNamePrefix("test").isEmpty());
+    }
+    
+    @Test
+    public void testPatronsSharingAnEmailStayFindable() {
+        // Given
+        libraryService.addPatron(new Patron("Meera Iyer", "family@example.com", "555-1111", "P001"));
+        libraryService.addPatron(new Patron("Rohan Iyer", "family@example.com", "555-2222", "P002"));
+        
+        // When
+        Patron first = libraryService.findPatronByEmail("family@example.com");
+        libraryService.updatePatron("P002", new Patron("Rohan Iyer", "rohan@example.com", "555-2222", "P002"));
+        
+        // Then
+        assertEquals("P001", first.getPatronId());
+        assertEquals("P001", libraryService.findPatronByEmail("FAMILY@example.com").getPatronId());
+        assertEquals("P002", libraryService.findPatronByEmail("rohan@example.com").getPatronId());
+    }
+    
+    @Test
+    public void testBatchCheckoutBestEffort() {
+        // Given
+        libraryService.addBook(new Book("Book 1", "Author A", "ISBN1", 2023));
+        libraryService.addBook(new Book("Book 2", "Author A", "ISBN2", 2023));
+        libraryService.addPatron(testPatron);
+        
+        // When
+        BatchResult result = libraryService.checkoutBooks("P001",
+                Arrays.asList("ISBN1", "missing", "ISBN2", "ISBN1"), BatchMode.BEST_EFFORT);
+        
+        // Then
+        assertEquals(Arrays.asList(LendingStatus.SUCCESS, LendingStatus.BOOK_NOT_FOUND,
+                LendingStatus.SUCCESS, LendingStatus.DUPLICATE_IN_BATCH), result.getStatuses());
+        assertEquals(2, libraryService.getBorrowedBooks().size());
+        assertEquals(2, testPatron.getBorrowingHistory().size());
+    }
+    
+    @Test
+    public void testBatchCheckoutAllOrNothing() {
+        // Given
+        libraryService.addBook(new Book("Book 1", "Author A", "ISBN1", 2023));
+        libraryService.addBook(new Book("Book 2", "Author A", "ISBN2", 2023));
+        libraryService.addPatron(testPatron);
+        libraryService.checkoutBook("ISBN2", "P001");
+        
+        // When
+        BatchResult result = libraryService.checkoutBooks("P001",
+                Arrays.asList("ISBN1", "ISBN2"), BatchMode.ALL_OR_NOTHING);
+        
+        // Then
+        assertEquals(LendingStatus.NOT_ATTEMPTED, result.getStatus(0));
+        assertEquals(LendingStatus.ALREADY_BORROWED, result.getStatus(1));
+        assertEquals(1, libraryService.getAvailableBookCount("ISBN1"));
+    }
+    
+    @Test
+    public void testBatchReturn() {
+        // Given
+        libraryService.addBook(new Book("Book 1", "Author A", "ISBN1", 2023));
+        libraryService.addBook(new Book("Book 2", "Author A", "ISBN2", 2023));
+        libraryService.addPatron(testPatron);
+        libraryService.checkoutBooks("P001", Arrays.asList("ISBN1", "ISBN2"), BatchMode.ALL_OR_NOTHING);
+        
+        // When
+        BatchResult result = libraryService.returnBooks(Arrays.asList("ISBN1", "ISBN2"), BatchMode.BEST_EFFORT);
+        
+        // Then
+        assertTrue(result.isAllSuccessful());
+        assertEquals(2, libraryService.getAvailableBooks().size());
+        assertFalse(libraryService.returnBook("ISBN1", "P001"));
+    }
+}
@@ -0,0 +1,70 @@
+package librarymanagementsystem;
+
+import librarymanagementsystem.lending.BatchMode;
+import librarymanagementsystem.lending.BatchResult;
+import librarymanagementsystem.lending.LendingStatus;
+import librarymanagementsystem.model.Book;
+import librarymanagementsystem.model.Patron;
+import librarymanagementsystem.model.PatronType;
+import librarymanagementsystem.services.impl.LibraryServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+
+/**
+ * Unit tests for per-patron-type loan limits.
+ */
+public class LoanLimitsTest {
+    
+    private LibraryServiceImpl libraryService;
+    
+    @BeforeEach
+    public void setUp() {
+        libraryService = new LibraryServiceImpl();
+        libraryService.addPatron(new Patron("Child Patron", "child@example.com", "555-000-0001", "C001", PatronType.CHILD));
+        libraryService.addPatron(new Patron("Faculty Patron", "prof@example.com", "555-000-0002", "F001", PatronType.FACULTY));
+        for (int i = 1; i <= 6; i++) {
+            libraryService.addBook(new Book("Book " + i, "Author", "ISBN" + i, 2000 + i));
+        }
+        libraryService.setLoanLimit(PatronType.CHILD, 2);
+    }
+    
+    @Test
+    public void testCheckoutStopsAtLimitAndResumesAfterReturn() {
+        // When
+        assertTrue(libraryService.checkoutBook("ISBN1", "C001"));
+        assertTrue(libraryService.checkoutBook("ISBN2", "C001"));
+        
+        // Then
+        assertFalse(libraryService.checkoutBook("ISBN3", "C001"));
+        assertTrue(libraryService.checkoutBook("ISBN3", "F001"));
+        
+        // When
+        libraryService.returnBook("ISBN1", "C001");
+        
+        // Then
+        assertTrue(libraryService.checkoutBook("ISBN4", "C001"));
+    }
+    
+    @Test
+    public void testBatchCheckoutRespectsLimit() {
+        // Given
+        libraryService.checkoutBook("ISBN1", "C001");
+        
+        // When
+        BatchResult allOrNothing = libraryService.checkoutBooks("C001", Arrays.asList("ISBN2", "ISBN3"), BatchMode.ALL_OR_NOTHING);
+        BatchResult bestEffort = libraryService.checkoutBooks("C001", Arrays.asList("ISBN2", "ISBN3"), BatchMode.BEST_EFFORT);
+        
+        // Then
+        assertEquals(0, allOrNothing.getSuccessCount());
+        assertEquals(LendingStatus.LOAN_LIMIT_REACHED, allOrNothing.getStatus(1));
+        assertEquals(LendingStatus.SUCCESS, bestEffort.getStatus(0));
+        assertEquals(LendingStatus.LOAN_LIMIT_REACHED, bestEffort.getStatus(1));
+        
+        // When & Then: batch returns release the counter too
+        libraryService.returnBooks(Arrays.asList("ISBN1", "ISBN2"), BatchMode.BEST_EFFORT);
+        assertTrue(libraryService.checkoutBooks("C001", Arrays.asList("ISBN5", "ISBN6"), BatchMode.ALL_OR_NOTHING).isAllSuccessful());
+    }
+}
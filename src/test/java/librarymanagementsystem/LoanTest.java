@@ -0,0 +1,115 @@
+package librarymanagementsystem;
+
+import librarymanagementsystem.lending.BatchMode;
+import librarymanagementsystem.lending.LendingManager;
+import librarymanagementsystem.lending.Loan;
+import librarymanagementsystem.model.Book;
+import librarymanagementsystem.model.Patron;
+import librarymanagementsystem.services.impl.LibraryServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Unit tests for loan records and the due-date index.
+ */
+public class LoanTest {
+    
+    private static final Instant START = Instant.parse("2024-03-01T10:00:00Z");
+    
+    private MutableClock clock;
+    private LibraryServiceImpl libraryService;
+    
+    @BeforeEach
+    public void setUp() {
+        clock = new MutableClock(START);
+        libraryService = new LibraryServiceImpl(false, clock);
+        libraryService.addPatron(new Patron("Test Patron", "test@example.com", "123-456-7890", "P001"));
+        for (int i = 1; i <= 5; i++) {
+            libraryService.addBook(new Book("Book " + i, "Author", "ISBN" + i, 2000 + i));
+        }
+    }
+    
+    @Test
+    public void testCheckoutCreatesLoanAndReturnRemovesIt() {
+        // When
+        libraryService.checkoutBook("ISBN1", "P001");
+        Loan loan = libraryService.findLoan("ISBN1");
+        
+        // Then
+        assertNotNull(loan);
+        assertEquals("P001", loan.getPatronId());
+        assertEquals(START, loan.getCheckoutTime());
+        assertEquals(START.plus(LendingManager.DEFAULT_LOAN_PERIOD), loan.getDueDate());
+        assertEquals(0, loan.getRenewals());
+        
+        // When
+        libraryService.returnBook("ISBN1", "P001");
+        
+        // Then
+        assertNull(libraryService.findLoan("ISBN1"));
+    }
+    
+    @Test
+    public void testOverdueAndDueSoonQueries() {
+        // Given: loans taken out on different days
+        libraryService.checkoutBook("ISBN1", "P001");
+        clock.advance(Duration.ofDays(3));
+        libraryService.checkoutBook("ISBN2", "P001");
+        clock.advance(Duration.ofDays(5));
+        libraryService.checkoutBooks("P001", Arrays.asList("ISBN3", "ISBN4"), BatchMode.BEST_EFFORT);
+        
+        // When: a little over 16 days after the first checkout
+        clock.set(START.plus(Duration.ofDays(16)).plus(Duration.ofHours(1)));
+        List<Loan> overdue = libraryService.getOverdueLoans(clock.instant());
+        List<Loan> dueSoon = libraryService.getLoansDueWithin(Duration.ofDays(1));
+        
+        // Then
+        assertEquals(1, overdue.size());
+        assertEquals("ISBN1", overdue.get(0).getIsbn());
+        assertEquals(1, dueSoon.size());
+        assertEquals("ISBN2", dueSoon.get(0).getIsbn());
+        
+        // When: much later, everything is overdue in due-date order
+        List<Loan> allOverdue = libraryService.getOverdueLoans(START.plus(Duration.ofDays(60)));
+        
+        // Then
+        assertEquals(4, allOverdue.size());
+        assertEquals("ISBN1", allOverdue.get(0).getIsbn());
+        assertEquals("ISBN2", allOverdue.get(1).getIsbn());
+        
+        // When: returned books drop out of the index
+        libraryService.returnBooks(Arrays.asList("ISBN1", "ISBN3"), BatchMode.BEST_EFFORT);
+        
+        // Then
+        assertEquals(2, libraryService.getOverdueLoans(START.plus(Duration.ofDays(60))).size());
+    }
+    
+    @Test
+    public void testRenewalMovesDueDateAndIsLimited() {
+        // Given
+        libraryService.checkoutBook("ISBN1", "P001");
+        Instant firstDue = libraryService.findLoan("ISBN1").getDueDate();
+        
+        // When
+        boolean renewed = libraryService.renewLoan("ISBN1", "P001");
+        
+        // Then
+        assertTrue(renewed);
+        Loan loan = libraryService.findLoan("ISBN1");
+        assertEquals(1, loan.getRenewals());
+        assertEquals(firstDue.plus(LendingManager.DEFAULT_LOAN_PERIOD), loan.getDueDate());
+        assertTrue(libraryService.getOverdueLoans(firstDue.plusSeconds(1)).isEmpty());
+        
+        // Then: another patron cannot renew, and renewals run out
+        assertFalse(libraryService.renewLoan("ISBN1", "P002"));
+        assertTrue(libraryService.renewLoan("ISBN1", "P001"));
+        assertFalse(libraryService.renewLoan("ISBN1", "P001"));
+        assertFalse(libraryService.renewLoan("ISBN5", "P001"));
+    }
+}
@@ -0,0 +1,140 @@
+package librarymanagementsystem;
+
+import librarymanagementsystem.metrics.InstrumentedLibraryService;
+import librarymanagementsystem.metrics.LatencyHistogram;
+import librarymanagementsystem.metrics.MetricsRegistry;
+import librarymanagementsystem.metrics.MetricsSnapshot;
+import librarymanagementsystem.metrics.Timer;
+import librarymanagementsystem.model.Book;
+import librarymanagementsystem.model.Patron;
+import librarymanagementsystem.services.LibraryService;
+import librarymanagementsystem.services.impl.LibraryServiceImpl;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Unit tests for operation metrics.
+ */
+public class MetricsTest {
+    
+    @Test
+    public void testHistogramPercentilesAreWithinBucketPrecision() {
+        // Given
+        LatencyHistogram histogram = new LatencyHistogram();
+        
+        // When: 1..10000 microseconds
+        for (int i = 1; i <= 10_000; i++) {
+            histogram.record(i * 1000L);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        
+        // Then
+        assertEquals(10_000, snapshot.getCount());
+        assertEquals(10_000_000L, snapshot.getMax());
+        assertEquals(5_000_500.0, snapshot.getMean(), 1.0);
+        assertEquals(5_000_000.0, snapshot.getValueAtPercentile(50), 5_000_000.0 * 0.125);
+        assertEquals(9_900_000.0, snapshot.getValueAtPercentile(99), 9_900_000.0 * 0.125);
+    }
+    
+    @Test
+    public void testInstrumentedServiceRecordsOnlyWhenEnabled() {
+        // Given
+        MetricsRegistry registry = new MetricsRegistry();
+        LibraryService libraryService = new InstrumentedLibraryService(new LibraryServiceImpl(), registry);
+        libraryService.addPatron(new Patron("Test Patron", "test@example.com", "123-456-7890", "P001"));
+        
+        // When: disabled by default
+        libraryService.addBook(new Book("Book 1", "Author", "ISBN1", 2001));
+        
+        // Then
+        assertTrue(registry.snapshot().getOperations().isEmpty());
+        
+        // When
+        registry.setEnabled(true);
+        libraryService.addBook(new Book("Book 2", "Author", "ISBN2", 2002));
+        libraryService.checkoutBook("ISBN2", "P001");
+        assertThrows(IllegalArgumentException.class, () -> libraryService.addBook(new Book("Book 2", "Author", "ISBN2", 2002)));
+        MetricsSnapshot snapshot = registry.snapshot();
+        
+        // Then
+        assertEquals(2, snapshot.get("service.addBook").getCount());
+        assertEquals(1, snapshot.get("service.addBook").getErrors());
+        assertEquals(1, snapshot.get("service.checkoutBook").getCount());
+        assertTrue(snapshot.get("service.checkoutBook").getMaxMicros() > 0);
+        assertNull(snapshot.get("service.returnBook"));
+    }
+    
+    @Test
+    public void testManagerTimersAndMBean() throws Exception {
+        // Given
+        MetricsRegistry registry = MetricsRegistry.getDefault();
+        LibraryService libraryService = new LibraryServiceImpl();
+        libraryService.addPatron(new Patron("Test Patron", "test@example.com", "123-456-7890", "P001"));
+        libraryService.addBook(new Book("Book 1", "Author", "ISBN1", 2001));
+        ObjectName name = registry.registerMBean();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        
+        try {
+            // When
+            server.setAttribute(name, new javax.management.Attribute("Enabled", true));
+            libraryService.checkoutBook("ISBN1", "P001");
+            libraryService.returnBook("ISBN1", "P001");
+            
+            // Then
+            Timer checkout = registry.timer("lending.checkout");
+            assertEquals(1, checkout.summarize().getCount());
+            assertEquals(1, registry.snapshot().get("inventory.recordReturn").getCount());
+            CompositeData[] operations = (CompositeData[]) server.getAttribute(name, "Operations");
+            boolean found = false;
+            for (CompositeData operation : operations) {
+                found |= "lending.checkin".equals(operation.get("name")) && (Long) operation.get("count") == 1;
+            }
+            assertTrue(found);
+        } finally {
+            registry.setEnabled(false);
+            registry.reset();
+            server.unregisterMBean(name);
+        }
+    }
+    
+    @Test
+    public void testQueryCacheGaugesAreExported() throws Exception {
+        // Given
+        MetricsRegistry registry = new MetricsRegistry();
+        LibraryServiceImpl libraryService = new LibraryServiceImpl();
+        libraryService.addBook(new Book("Dune", "Frank Herbert", "ISBN1", 1965));
+        libraryService.registerQueryCacheGauges(registry);
+        
+        // When: metrics stay disabled, gauges are read anyway
+        libraryService.findBooksByTitle("dune");
+        libraryService.findBooksByTitle("DUNE");
+        MetricsSnapshot snapshot = registry.snapshot();
+        
+        // Then
+        assertEquals(1.0, snapshot.getGauges().get("search.queryCache.hits"));
+        assertEquals(1.0, snapshot.getGauges().get("search.queryCache.misses"));
+        assertEquals(0.0, snapshot.getGauges().get("search.queryCache.evictions"));
+        assertEquals(0.5, snapshot.getGauges().get("search.queryCache.hitRate"));
+        assertFalse(MetricsRegistry.getDefault().snapshot().getGauges().containsKey("search.queryCache.hitRate"));
+        
+        // When
+        ObjectName name = registry.registerMBean();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            TabularData gauges = (TabularData) server.getAttribute(name, "Gauges");
+            
+            // Then
+            assertEquals(4, gauges.size());
+            CompositeData hits = gauges.get(new Object[] {"search.queryCache.hits"});
+            assertEquals(1.0, hits.get("value"));
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+}
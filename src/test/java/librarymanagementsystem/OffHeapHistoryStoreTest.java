@@ -0,0 +1,109 @@
+package librarymanagementsystem;
+
+import librarymanagementsystem.model.Book;
+import librarymanagementsystem.model.Patron;
+import librarymanagementsystem.patron.OffHeapHistoryStore;
+import librarymanagementsystem.recommendations.RecommendationSystem;
+import librarymanagementsystem.services.impl.LibraryServiceImpl;
+import librarymanagementsystem.utils.LongList;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Unit tests for the off-heap borrowing history store.
+ */
+public class OffHeapHistoryStoreTest {
+    
+    @Test
+    public void testRecordsAreReadBackOldestFirst() throws Exception {
+        try (OffHeapHistoryStore store = new OffHeapHistoryStore()) {
+            // Given
+            for (int i = 0; i < 100_000; i++) {
+                store.append(i % 2 == 0 ? "P001" : "P002", i, 1000L + i);
+            }
+            
+            // When
+            LongList keys = new LongList();
+            store.forEach("P002", (isbnKey, timestamp) -> keys.add(isbnKey));
+            
+            // Then
+            assertEquals(100_000, store.getRecordCount());
+            assertEquals(50_000, store.size("P002"));
+            assertEquals(1, keys.get(0));
+            assertEquals(99_999, keys.get(keys.size() - 1));
+            assertTrue(store.contains("P001", 99_998));
+            assertFalse(store.contains("P001", 99_999));
+        }
+    }
+    
+    @Test
+    public void testMemoryMappedStore(@TempDir Path tempDir) throws Exception {
+        try (OffHeapHistoryStore store = new OffHeapHistoryStore(tempDir.resolve("history.dat"))) {
+            // When
+            store.append("P001", 42L, 1000L);
+            store.append("P001", 43L, 2000L);
+            
+            // Then
+            assertEquals(2, store.size("P001"));
+            assertTrue(store.contains("P001", 43L));
+            assertEquals(0, store.size("P002"));
+        }
+    }
+    
+    @Test
+    public void testCloseReleasesSegmentsAndRejectsLaterUse() throws Exception {
+        // Given
+        OffHeapHistoryStore store = new OffHeapHistoryStore();
+        for (int i = 0; i < 200_000; i++) {
+            store.append("P001", i % 1000, 1000L + i);
+        }
+        
+        // When
+        boolean borrowed = store.contains("P001", 999);
+        boolean notBorrowed = store.contains("P001", 1000);
+        store.close();
+        store.close();
+        
+        // Then
+        assertTrue(borrowed);
+        assertFalse(notBorrowed);
+        assertThrows(IllegalStateException.class, () -> store.contains("P001", 999));
+        assertThrows(IllegalStateException.class, () -> store.append("P001", 1L, 1L));
+    }
+    
+    @Test
+    public void testPatronHistoryAndRecommendationsReadFromStore() throws Exception {
+        try (OffHeapHistoryStore store = new OffHeapHistoryStore()) {
+            // Given
+            LibraryServiceImpl libraryService = new LibraryServiceImpl();
+            Patron patron = new Patron("Test Patron", "test@example.com", "555-0000", "P001");
+            libraryService.addPatron(patron);
+            libraryService.useHistoryStore(store);
+            libraryService.addBook(new Book("Book 1", "Author A", "ISBN1", 2001));
+            libraryService.addBook(new Book("Book 2", "Author A", "ISBN2", 2002));
+            libraryService.addBook(new Book("Book 3", "Author B", "ISBN3", 2003));
+            
+            // When
+            libraryService.checkoutBook("ISBN1", "P001");
+            libraryService.returnBook("ISBN1", "P001");
+            libraryService.checkoutBook("ISBN1", "P001");
+            
+            // Then
+            assertEquals(2, store.size("P001"));
+            assertTrue(patron.getBorrowingLog().size() == 0);
+            List<Book> history = patron.getBorrowingHistory();
+            assertEquals(1, history.size());
+            assertEquals("Book 1", history.get(0).getTitle());
+            assertTrue(patron.hasBorrowed("ISBN1"));
+            
+            RecommendationSystem recommendationSystem = new RecommendationSystem();
+            recommendationSystem.updatePreferences(patron);
+            List<Book> recommendations = recommendationSystem.generateRecommendations(patron, libraryService, 1);
+            assertEquals("Book 2", recommendations.get(0).getTitle());
+        }
+    }
+}
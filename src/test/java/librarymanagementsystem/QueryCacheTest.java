@@ -0,0 +1,91 @@
+package librarymanagementsystem;
+
+import librarymanagementsystem.model.Book;
+import librarymanagementsystem.search.QueryCache;
+import librarymanagementsystem.services.impl.LibraryServiceImpl;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+/**
+ * Unit tests for the query result cache.
+ */
+public class QueryCacheTest {
+    
+    @Test
+    public void testPopularQueriesSurviveAScanOfOneOffQueries() {
+        // Given
+        QueryCache<String, String> cache = new QueryCache<>(100);
+        Random random = new Random(3);
+        for (int i = 0; i < 2_000; i++) {
+            String popular = "popular " + random.nextInt(50);
+            if (cache.get(popular, 0) == null) {
+                cache.put(popular, popular, 0);
+            }
+        }
+        
+        // When
+        int popularHits = 0;
+        for (int i = 0; i < 20_000; i++) {
+            String oneOff = "one-off " + i;
+            if (cache.get(oneOff, 0) == null) {
+                cache.put(oneOff, oneOff, 0);
+            }
+            if (i % 10 == 0 && cache.get("popular " + random.nextInt(50), 0) != null) {
+                popularHits++;
+            }
+        }
+        
+        // Then
+        assertTrue(popularHits > 1_900, "popular hits: " + popularHits);
+        assertTrue(cache.size() <= cache.getCapacity());
+        assertTrue(cache.getEvictionCount() > 0);
+        assertTrue(cache.getHitRate() > 0 && cache.getHitRate() < 1);
+    }
+    
+    @Test
+    public void testNewGenerationDropsEntries() {
+        // Given
+        QueryCache<String, String> cache = new QueryCache<>(10);
+        cache.put("dune", "result 1", 1);
+        
+        // When
+        String sameGeneration = cache.get("dune", 1);
+        String nextGeneration = cache.get("dune", 2);
+        cache.put("dune", "stale", 1); // computed before the change, ignored
+        
+        // Then
+        assertEquals("result 1", sameGeneration);
+        assertNull(nextGeneration);
+        assertNull(cache.get("dune", 2));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertThrows(IllegalArgumentException.class, () -> new QueryCache<String, String>(0));
+    }
+    
+    @Test
+    public void testLibraryServiceCachesSearchesUntilTheCatalogChanges() {
+        // Given
+        LibraryServiceImpl libraryService = new LibraryServiceImpl();
+        libraryService.addBook(new Book("Dune", "Frank Herbert", "ISBN1", 1965));
+        libraryService.addBook(new Book("Dune Messiah", "Frank Herbert", "ISBN2", 1969));
+        
+        // When
+        int first = libraryService.findBooksByTitle("dune").size();
+        int second = libraryService.findBooksByTitle("DUNE").size();
+        libraryService.addBook(new Book("Children of Dune", "Frank Herbert", "ISBN3", 1976));
+        int afterAdd = libraryService.findBooksByTitle("Dune").size();
+        libraryService.removeBook("ISBN1");
+        int afterRemove = libraryService.findBooksByTitle("Dune").size();
+        
+        // Then
+        assertEquals(2, first);
+        assertEquals(2, second);
+        assertEquals(3, afterAdd);
+        assertEquals(2, afterRemove);
+        assertEquals(1, libraryService.getQueryCache().getHitCount());
+        assertEquals(3, libraryService.getQueryCache().getMissCount());
+        assertEquals(0.25, libraryService.getQueryCache().getHitRate());
+    }
+}
@@ -0,0 +1,241 @@
+package librarymanagementsystem;
+
+import librarymanagementsystem.model.Book;
+import librarymanagementsystem.model.Patron;
+import librarymanagementsystem.search.BookQuery;
+import librarymanagementsystem.search.CatalogIndex;
+import librarymanagementsystem.search.FacetCounts;
+import librarymanagementsystem.search.QueryEngine;
+import librarymanagementsystem.search.Ranking;
+import librarymanagementsystem.search.TrigramIndex;
+import librarymanagementsystem.services.impl.LibraryServiceImpl;
+import librarymanagementsystem.utils.BookFactory;
+import librarymanagementsystem.utils.LongList;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Unit tests for multi-criteria catalog queries.
+ */
+public class QueryEngineTest {
+    
+    @Test
+    public void testMostSelectiveIndexedCriterionDrivesThePlan() {
+        // Given
+        CatalogIndex index = new CatalogIndex();
+        TrigramIndex titles = new TrigramIndex();
+        for (int i = 1; i <= 100; i++) {
+            Book book = BookFactory.createBook("Volume " + i, i <= 3 ? "Ursula K. Le Guin" : "Anonymous",
+                    "ISBN" + i, 1900 + i, i % 2 == 0 ? BookFactory.BookType.FICTION : BookFactory.BookType.REFERENCE);
+            index.add(i, book);
+            titles.add(i, book.getTitle());
+        }
+        QueryEngine engine = new QueryEngine(index, titles);
+        index.setAvailable(2L, false);
+        
+        // When
+        QueryEngine.QueryPlan plan = engine.plan(new BookQuery()
+                .type(BookFactory.BookType.FICTION)
+                .publishedSince(1990)
+                .author("ursula k le guin")
+                .availableOnly());
+        QueryEngine.QueryPlan scan = engine.plan(new BookQuery().publishedBetween(1995, 1997));
+        
+        // Then
+        assertEquals(Arrays.asList("scan author(3)", "and type=FICTION(50)", "and available(99)",
+                "filter year(11)"), plan.getSteps());
+        assertEquals(0, plan.execute().size());
+        assertEquals("scan year(3)", scan.toString());
+        assertArrayEquals(new long[] {95L, 96L, 97L}, scan.execute().toArray());
+        assertArrayEquals(new long[] {2L}, engine.execute(new BookQuery().author("Ursula K. Le Guin")
+                .type(BookFactory.BookType.FICTION)).toArray());
+    }
+    
+    @Test
+    public void testTitlePhraseIsOnlyCollectedWhenItDrives() {
+        // Given
+        CatalogIndex index = new CatalogIndex();
+        TrigramIndex titles = new TrigramIndex();
+        for (int i = 1; i <= 100; i++) {
+            Book book = new Book("Volume " + i, i <= 3 ? "Ursula K. Le Guin" : "Anonymous", "ISBN" + i, 1900 + i);
+            index.add(i, book);
+            titles.add(i, book.getTitle());
+        }
+        QueryEngine engine = new QueryEngine(index, titles);
+        
+        // When
+        QueryEngine.QueryPlan filtered = engine.plan(new BookQuery().author("ursula k le guin").titleContains("Volume"));
+        QueryEngine.QueryPlan driven = engine.plan(new BookQuery().titleContains("volume 10").publishedSince(1950));
+        
+        // Then
+        assertEquals(Arrays.asList("scan author(3)", "filter title(100)"), filtered.getSteps());
+        assertArrayEquals(new long[] {1L, 2L, 3L}, filtered.execute().toArray());
+        assertEquals(Arrays.asList("scan title(2)", "filter year(51)"), driven.getSteps());
+        assertArrayEquals(new long[] {100L}, driven.execute().toArray());
+        assertEquals(0, engine.execute(new BookQuery().author("ursula k le guin").titleContains("volume 4")).size());
+    }
+    
+    @Test
+    public void testReplacedBooksKeepTheirDocumentAndRemovalsAreCompacted() {
+        // Given
+        CatalogIndex index = new CatalogIndex();
+        int first = index.add(1L, new Book("Dune", "Frank Herbert", "ISBN1", 1965));
+        for (long key = 2; key <= 3000; key++) {
+            index.add(key, new Book("Book " + key, "Author", "ISBN" + key, 2000));
+        }
+        index.setAvailable(3000L, false);
+        index.recordCheckouts(3000L, 5);
+        
+        // When
+        for (int i = 0; i < 5000; i++) {
+            index.add(1L, new Book("Dune", i % 2 == 0 ? "F. Herbert" : "Frank Herbert", "ISBN1", 1965));
+        }
+        for (long key = 2; key <= 2500; key++) {
+            index.remove(key);
+        }
+        
+        // Then
+        assertEquals(501, index.size());
+        assertTrue(index.docOf(3000L) < 1500);
+        assertEquals(3000L, index.keyOf(index.docOf(3000L)));
+        assertFalse(index.availableDocs().contains(index.docOf(3000L)));
+        assertArrayEquals(new long[] {3000L}, index.mostBorrowedMatching(key -> true, 1).toArray());
+        assertTrue(index.docOf(1L) <= first);
+        assertEquals(500, index.availableDocs().cardinality());
+    }
+    
+    @Test
+    public void testIndexFollowsRemovedAndReplacedBooks() {
+        // Given
+        CatalogIndex index = new CatalogIndex();
+        QueryEngine engine = new QueryEngine(index, new TrigramIndex());
+        index.add(1L, new Book("Dune", "Frank Herbert", "ISBN1", 1965));
+        index.add(2L, new Book("Dune Messiah", "Frank Herbert", "ISBN2", 1969));
+        index.setAvailable(2L, false);
+        
+        // When
+        index.remove(1L);
+        index.add(2L, new Book("Children of Dune", "Frank Herbert", "ISBN2", 1976));
+        LongList sixties = engine.execute(new BookQuery().author("Frank Herbert").publishedBetween(1960, 1969));
+        LongList seventies = engine.execute(new BookQuery().author("Frank Herbert").publishedBetween(1970, 1979));
+        
+        // Then
+        assertEquals(1, index.size());
+        assertEquals(0, sixties.size());
+        assertArrayEquals(new long[] {2L}, seventies.toArray());
+        assertEquals(CatalogIndex.NO_DOC, index.docOf(1L));
+        assertEquals(0, index.availableDocs().cardinality()); // kept across the replacement
+        assertEquals(1, index.decadeDocs().size());
+    }
+    
+    @Test
+    public void testFacetsCountMatchesByTypeDecadeAndAvailability() {
+        // Given
+        CatalogIndex index = new CatalogIndex();
+        QueryEngine engine = new QueryEngine(index, new TrigramIndex());
+        for (int i = 0; i < 10_000; i++) {
+            BookFactory.BookType type = BookFactory.BookType.values()[i % 4];
+            index.add(i + 1, BookFactory.createBook("Title " + i, "Author " + (i % 7), "ISBN" + i, 1950 + i % 50, type));
+        }
+        for (int i = 0; i < 10_000; i += 3) {
+            index.setAvailable(i + 1, false);
+        }
+        
+        // When
+        FacetCounts all = engine.facets(new BookQuery());
+        FacetCounts fiction = engine.facets(new BookQuery().type(BookFactory.BookType.FICTION).publishedBetween(1960, 1964));
+        
+        // Then
+        assertEquals(10_000, all.getTotal());
+        assertEquals(6_666, all.getAvailable());
+        assertEquals(2_500, (int) all.getTypeCounts().get(BookFactory.BookType.REFERENCE));
+        assertEquals(Arrays.asList(1950, 1960, 1970, 1980, 1990), new ArrayList<>(all.getDecadeCounts().keySet()));
+        assertEquals(2_000, (int) all.getDecadeCounts().get(1980));
+        long expected = IntStream.range(0, 10_000)
+                .filter(i -> i % 4 == 0 && 1950 + i % 50 >= 1960 && 1950 + i % 50 <= 1964)
+                .count();
+        assertEquals(expected, fiction.getTotal());
+        assertEquals(0, (int) fiction.getTypeCounts().get(BookFactory.BookType.GENERAL));
+        assertEquals(Collections.singletonMap(1960, (int) expected), fiction.getDecadeCounts());
+    }
+    
+    @Test
+    public void testLibraryServiceCombinesCriteria() {
+        // Given
+        LibraryServiceImpl libraryService = new LibraryServiceImpl();
+        libraryService.addPatron(new Patron("Test Patron", "test@example.com", "123-456-7890", "P001"));
+        libraryService.addBook(BookFactory.createBook("The Dispossessed", "Ursula K. Le Guin", "ISBN1", 1974,
+                BookFactory.BookType.FICTION));
+        libraryService.addBook(BookFactory.createBook("The Lathe of Heaven", "Ursula K. Le Guin", "ISBN2", 1971,
+                BookFactory.BookType.FICTION));
+        libraryService.addBook(BookFactory.createBook("Steering the Craft", "Ursula K. Le Guin", "ISBN3", 1998,
+                BookFactory.BookType.NON_FICTION));
+        libraryService.addBook(BookFactory.createBook("The Left Hand of Darkness", "Ursula K. Le Guin", "ISBN4", 1969,
+                BookFactory.BookType.FICTION));
+        
+        // When
+        libraryService.checkoutBook("ISBN2", "P001");
+        List<Book> available = libraryService.findBooks(new BookQuery()
+                .author("Ursula K. Le Guin")
+                .type(BookFactory.BookType.FICTION)
+                .publishedSince(1970)
+                .availableOnly());
+        List<Book> titled = libraryService.findBooks(new BookQuery().titleContains("the"));
+        
+        // Then
+        assertEquals(Arrays.asList("The Dispossessed"),
+                available.stream().map(Book::getTitle).collect(Collectors.toList()));
+        assertEquals(4, titled.size());
+        assertEquals("scan available(3) -> and author(4)",
+                libraryService.planQuery(new BookQuery().author("ursula k. le guin").availableOnly()).toString());
+        assertEquals(3, libraryService.getFacets(new BookQuery().author("Ursula K. Le Guin")).getAvailable());
+        assertEquals(3, libraryService.getAvailableBooks().size());
+        assertThrows(IllegalArgumentException.class, () -> libraryService.findBooks(null));
+    }
+    
+    @Test
+    public void testAvailabilityAndCheckoutCountsKeepUpWithConcurrentLending() throws Exception {
+        // Given
+        LibraryServiceImpl libraryService = new LibraryServiceImpl();
+        libraryService.addPatron(new Patron("Test Patron", "test@example.com", "123-456-7890", "P001"));
+        for (int i = 0; i < 20; i++) {
+            libraryService.addBook(new Book("Book " + i, "Author", "ISBN" + i, 2000 + i));
+        }
+        ExecutorService lender = Executors.newSingleThreadExecutor();
+        
+        try {
+            // When: every fourth checkout is of ISBN7, the rest spread over the other books
+            Future<?> lending = lender.submit(() -> {
+                for (int i = 0; i < 12_000; i++) {
+                    String isbn = "ISBN" + (i % 4 == 0 ? 7 : i % 20);
+                    assertTrue(libraryService.checkoutBook(isbn, "P001"));
+                    assertTrue(libraryService.returnBook(isbn, "P001"));
+                }
+            });
+            while (!lending.isDone()) {
+                assertEquals(20, libraryService.getFacets(new BookQuery()).getTotal());
+                assertTrue(libraryService.findBooks(new BookQuery().availableOnly()).size() >= 19);
+                assertTrue(libraryService.getAvailableBooks().size() >= 19);
+            }
+            lending.get();
+            libraryService.checkoutBook("ISBN3", "P001");
+            
+            // Then
+            assertEquals(19, libraryService.getAvailableBooks().size());
+            assertEquals(19, libraryService.getFacets(new BookQuery()).getAvailable());
+            assertEquals("Book 7", libraryService.findBooksByTitle("book", Ranking.POPULARITY, 1).get(0).getTitle());
+        } finally {
+            lender.shutdown();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package librarymanagementsystem;
+
+import librarymanagementsystem.model.Book;
+import librarymanagementsystem.model.Patron;
+import librarymanagementsystem.search.Ranking;
+import librarymanagementsystem.search.TextColumn;
+import librarymanagementsystem.services.impl.LibraryServiceImpl;
+import librarymanagementsystem.utils.BoundedLongHeap;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+/**
+ * Unit tests for top-K searches ranked by relevance, popularity and recency.
+ */
+public class RankedSearchTest {
+    
+    @Test
+    public void testBoundedHeapKeepsTheLargestValues() {
+        // Given
+        BoundedLongHeap heap = new BoundedLongHeap(3);
+        
+        // When
+        for (long value : new long[] {5, 1, 9, 7, 3, 8, 2}) {
+            heap.offer(value);
+        }
+        
+        // Then
+        assertTrue(heap.isFull());
+        assertEquals(7, heap.min());
+        assertArrayEquals(new long[] {9, 8, 7}, heap.toSortedArray());
+        assertFalse(heap.offer(6));
+    }
+    
+    @Test
+    public void testUnboundedLimitsAllocateOnlyWhatIsKept() {
+        // Given
+        BoundedLongHeap heap = new BoundedLongHeap(Integer.MAX_VALUE);
+        LibraryServiceImpl libraryService = new LibraryServiceImpl();
+        libraryService.addBook(new Book("The Hobbit", "J.R.R. Tolkien", "ISBN1", 1937));
+        
+        // When
+        for (long value = 0; value < 100; value++) {
+            heap.offer(value);
+        }
+        List<Book> relevant = libraryService.findBooksByTitle("hobbit", Ranking.RELEVANCE, Integer.MAX_VALUE);
+        List<Book> popular = libraryService.findBooksByTitle("hobbit", Ranking.POPULARITY, Integer.MAX_VALUE);
+        List<Book> recent = libraryService.findBooksByAuthor("tolkien", Ranking.RECENCY, Integer.MAX_VALUE);
+        
+        // Then
+        assertFalse(heap.isFull());
+        assertEquals(100, heap.size());
+        assertEquals(0, heap.min());
+        assertEquals(99, heap.toSortedArray()[0]);
+        assertEquals(1, relevant.size());
+        assertEquals(1, popular.size());
+        assertEquals(1, recent.size());
+    }
+    
+    @Test
+    public void testRelevanceRankingMatchesAcrossParallelChunks() {
+        // Given
+        ForkJoinPool pool = new ForkJoinPool(4);
+        TextColumn parallel = new TextColumn(1, pool);
+        TextColumn sequential = new TextColumn(Integer.MAX_VALUE, pool);
+        for (int i = 0; i < 20_000; i++) {
+            String text = i % 1_000 == 0 ? "Sea of Stories " + i : "Beyond the sea, part " + i;
+            parallel.add(i + 1, text);
+            sequential.add(i + 1, text);
+        }
+        parallel.add(15_001, "Sea");
+        
+        try {
+            // When
+            long[] best = parallel.findMostRelevant("sea", 4).toArray();
+            
+            // Then
+            assertArrayEquals(new long[] {15_001, 1, 1_001, 2_001}, best);
+            assertArrayEquals(new long[] {1, 1_001}, sequential.findMostRelevant("SEA", 2).toArray());
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    @Test
+    public void testLibraryServiceRanksTitleSearches() {
+        // Given
+        LibraryServiceImpl libraryService = new LibraryServiceImpl();
+        libraryService.addPatron(new Patron("Test Patron", "test@example.com", "123-456-7890", "P001"));
+        libraryService.addBook(new Book("The Old Man and the Sea", "Ernest Hemingway", "ISBN1", 1952));
+        libraryService.addBook(new Book("Sea of Tranquility", "Emily St. John Mandel", "ISBN2", 2022));
+        libraryService.addBook(new Book("The Sea, the Sea", "Iris Murdoch", "ISBN3", 1978));
+        libraryService.addBook(new Book("Overseas", "Beatriz Williams", "ISBN4", 2013));
+        libraryService.addBook(new Book("Dune", "Frank Herbert", "ISBN5", 1965));
+        
+        // When
+        libraryService.checkoutBook("ISBN3", "P001");
+        libraryService.returnBook("ISBN3", "P001");
+        libraryService.checkoutBook("ISBN3", "P001");
+        libraryService.checkoutBook("ISBN1", "P001");
+        libraryService.updateBook("ISBN3", new Book("The Sea, the Sea", "Iris Murdoch", "ISBN3", 1978));
+        
+        // Then
+        assertEquals(Arrays.asList("Sea of Tranquility", "The Sea, the Sea", "The Old Man and the Sea"),
+                titles(libraryService.findBooksByTitle("sea", Ranking.RELEVANCE, 3)));
+        assertEquals(Arrays.asList("The Sea, the Sea", "The Old Man and the Sea"),
+                titles(libraryService.findBooksByTitle("SEA", Ranking.POPULARITY, 2)));
+        assertEquals(Arrays.asList("Sea of Tranquility", "Overseas", "The Sea, the Sea", "The Old Man and the Sea"),
+                titles(libraryService.findBooksByTitle("sea", Ranking.RECENCY, 10)));
+        assertEquals(Arrays.asList("Iris Murdoch"),
+                authors(libraryService.findBooksByAuthor("murdoch", Ranking.RELEVANCE, 5)));
+        assertThrows(IllegalArgumentException.class, () -> libraryService.findBooksByTitle("sea", null, 5));
+        assertThrows(IllegalArgumentException.class, () -> libraryService.findBooksByTitle("sea", Ranking.RECENCY, 0));
+    }
+    
+    private static List<String> titles(List<Book> books) {
+        return books.stream().map(Book::getTitle).collect(Collectors.toList());
+    }
+    
+    private static List<String> authors(List<Book> books) {
+        return books.stream().map(Book::getAuthor).collect(Collectors.toList());
+    }
+}
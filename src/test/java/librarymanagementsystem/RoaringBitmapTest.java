@@ -0,0 +1,82 @@
+package librarymanagementsystem;
+
+import librarymanagementsystem.utils.RoaringBitmap;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * Unit tests for the compressed bitmap.
+ */
+public class RoaringBitmapTest {
+    
+    @Test
+    public void testDenseAndSparseChunksSurviveGrowthAndShrinking() {
+        // Given
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (int i = 0; i < 10_000; i++) {
+            bitmap.add(i); // one chunk, dense enough to become a bitmap
+        }
+        bitmap.add(1 << 20);
+        bitmap.add(Integer.MAX_VALUE);
+        
+        // When
+        for (int i = 0; i < 9_000; i++) {
+            bitmap.remove(i); // shrinks back to a sorted array
+        }
+        
+        // Then
+        assertEquals(1_002, bitmap.cardinality());
+        assertTrue(bitmap.contains(9_000));
+        assertFalse(bitmap.contains(8_999));
+        assertTrue(bitmap.contains(Integer.MAX_VALUE));
+        assertFalse(bitmap.add(1 << 20));
+        assertTrue(bitmap.remove(1 << 20));
+        assertFalse(bitmap.remove(1 << 20));
+        assertEquals(9_000, bitmap.toArray()[0]);
+        assertThrows(IllegalArgumentException.class, () -> bitmap.add(-1));
+    }
+    
+    @Test
+    public void testRandomOperationsMatchTreeSet() {
+        // Given
+        Random random = new Random(11);
+        RoaringBitmap left = new RoaringBitmap();
+        RoaringBitmap right = new RoaringBitmap();
+        TreeSet<Integer> expectedLeft = new TreeSet<>();
+        TreeSet<Integer> expectedRight = new TreeSet<>();
+        
+        for (int round = 0; round < 20; round++) {
+            // When
+            for (int i = 0; i < 5_000; i++) {
+                int value = random.nextInt(round % 2 == 0 ? 200_000 : 20_000);
+                boolean useLeft = random.nextBoolean();
+                RoaringBitmap bitmap = useLeft ? left : right;
+                TreeSet<Integer> expected = useLeft ? expectedLeft : expectedRight;
+                if (random.nextInt(3) == 0) {
+                    assertEquals(expected.remove(value), bitmap.remove(value));
+                } else {
+                    assertEquals(expected.add(value), bitmap.add(value));
+                }
+            }
+            
+            // Then
+            TreeSet<Integer> both = new TreeSet<>(expectedLeft);
+            both.retainAll(expectedRight);
+            TreeSet<Integer> either = new TreeSet<>(expectedLeft);
+            either.addAll(expectedRight);
+            assertEquals(expectedLeft.size(), left.cardinality());
+            assertEquals(both.size(), left.andCardinality(right));
+            assertArrayEquals(both.stream().mapToInt(Integer::intValue).toArray(), left.and(right).toArray());
+            assertArrayEquals(either.stream().mapToInt(Integer::intValue).toArray(), left.or(right).toArray());
+            assertArrayEquals(expectedRight.stream().mapToInt(Integer::intValue).toArray(), right.toArray());
+            List<Integer> descending = new ArrayList<>();
+            right.forEachDescendingWhile(value -> descending.add(value) && descending.size() < 100);
+            assertEquals(new ArrayList<>(expectedRight.descendingSet()).subList(0, 100), descending);
+        }
+    }
+}
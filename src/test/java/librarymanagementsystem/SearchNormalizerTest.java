@@ -0,0 +1,57 @@
+package librarymanagementsystem;
+
+import librarymanagementsystem.model.Book;
+import librarymanagementsystem.search.SearchNormalizer;
+import librarymanagementsystem.services.impl.LibraryServiceImpl;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Unit tests for search key normalization.
+ */
+public class SearchNormalizerTest {
+    
+    @Test
+    public void testNormalizeFoldsCaseCompatibilityFormsAndDiacritics() {
+        // Given
+        String plain = "already lowercase";
+        
+        // When
+        String same = SearchNormalizer.normalize(plain);
+        
+        // Then
+        assertSame(plain, same);
+        assertEquals("cafe creme", SearchNormalizer.normalize("Café Crème"));
+        assertEquals("strasse", SearchNormalizer.normalize("STRAßE"));
+        assertEquals("office", SearchNormalizer.normalize("Oﬃce")); // ffi ligature
+        assertEquals("abc", SearchNormalizer.normalize("ＡＢＣ")); // full-width
+        assertEquals("garcia marquez", SearchNormalizer.normalize("GARCÍA MÁRQUEZ"));
+        assertEquals("l etranger", SearchNormalizer.normalizeWords("L'Étranger!"));
+    }
+    
+    @Test
+    public void testLibraryServiceMatchesAcrossAccentsAndCase() {
+        // Given
+        LibraryServiceImpl libraryService = new LibraryServiceImpl();
+        libraryService.addBook(new Book("Cien años de soledad", "Gabriel García Márquez", "ISBN1", 1967));
+        libraryService.addBook(new Book("L'Étranger", "Albert Camus", "ISBN2", 1942));
+        libraryService.addBook(new Book("Les Misérables", "Victor Hugo", "ISBN3", 1862));
+        
+        // When
+        List<Book> byAuthor = libraryService.findBooksByAuthor("garcia marquez");
+        List<Book> byTitle = libraryService.findBooksByTitle("ETRANGER");
+        libraryService.updateBook("ISBN3", new Book("Notre-Dame de Paris", "Victor Hugo", "ISBN3", 1831));
+        
+        // Then
+        assertEquals("Cien años de soledad", byAuthor.get(0).getTitle());
+        assertEquals("L'Étranger", byTitle.get(0).getTitle());
+        assertEquals(1, libraryService.findBooksByTitle("AÑOS").size());
+        assertTrue(libraryService.findBooksByTitle("miserables").isEmpty());
+        assertEquals(1, libraryService.findBooksByTitle("notre-dame").size());
+        assertEquals("L'Étranger", libraryService.findBooksFuzzy("l'etrangér", 5).get(0).getTitle());
+        assertEquals(Arrays.asList("Gabriel García Márquez"), libraryService.suggestCompletions("gabriel garcia", 5));
+    }
+}
@@ -0,0 +1,114 @@
+package librarymanagementsystem;
+
+import librarymanagementsystem.catalog.CatalogSnapshot;
+import librarymanagementsystem.catalog.SnapshotCatalog;
+import librarymanagementsystem.model.Book;
+import librarymanagementsystem.services.impl.LibraryServiceImpl;
+import librarymanagementsystem.utils.LongHashMap;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Unit tests for the copy-on-write snapshot catalog.
+ */
+public class SnapshotCatalogTest {
+    
+    @Test
+    public void testSnapshotsAreIsolatedFromLaterWrites() {
+        // Given
+        SnapshotCatalog catalog = new SnapshotCatalog();
+        catalog.put(1L, new Book("First", "Author", "ISBN1", 2001));
+        catalog.put(2L, new Book("Second", "Author", "ISBN2", 2002));
+        CatalogSnapshot before = catalog.snapshot();
+        
+        // When
+        catalog.remove(1L);
+        catalog.put(2L, new Book("Second Edition", "Author", "ISBN2", 2010));
+        catalog.put(3L, new Book("Third", "Author", "ISBN3", 2003));
+        
+        // Then
+        assertEquals(2, before.size());
+        assertEquals("First", before.get(1L).getTitle());
+        assertEquals("Second", before.get(2L).getTitle());
+        assertNull(before.get(3L));
+        assertEquals(before.getVersion() + 3, catalog.snapshot().getVersion());
+        assertNull(catalog.get(1L));
+        assertEquals("Second Edition", catalog.get(2L).getTitle());
+        assertThrows(UnsupportedOperationException.class, () -> before.remove(2L));
+    }
+    
+    @Test
+    public void testRandomOperationsMatchHashMap() {
+        // Given
+        SnapshotCatalog catalog = new SnapshotCatalog();
+        LongHashMap<Book> expected = new LongHashMap<>();
+        Random random = new Random(42);
+        
+        // When
+        for (int round = 0; round < 20; round++) {
+            catalog.update(batch -> {
+                for (int i = 0; i < 2_000; i++) {
+                    long key = random.nextInt(10_000) - 5_000L;
+                    if (random.nextInt(3) == 0) {
+                        assertEquals(expected.remove(key), batch.remove(key));
+                    } else {
+                        Book book = new Book("Title " + i, "Author", "ISBN" + key, 2000);
+                        assertEquals(expected.put(key, book), batch.put(key, book));
+                    }
+                }
+            });
+        }
+        
+        // Then
+        CatalogSnapshot snapshot = catalog.snapshot();
+        assertEquals(20, snapshot.getVersion());
+        assertEquals(expected.size(), snapshot.size());
+        for (long key = -5_000; key < 5_000; key++) {
+            assertSame(expected.get(key), snapshot.get(key));
+        }
+        Set<Book> values = new HashSet<>(snapshot.values());
+        assertEquals(expected.size(), snapshot.values().stream().count());
+        assertTrue(values.containsAll(expected.values()));
+    }
+    
+    @Test
+    public void testFailedBatchPublishesNothing() {
+        // Given
+        SnapshotCatalog catalog = new SnapshotCatalog();
+        catalog.put(1L, new Book("First", "Author", "ISBN1", 2001));
+        long version = catalog.snapshot().getVersion();
+        
+        // When
+        assertThrows(IllegalArgumentException.class, () -> catalog.update(batch -> {
+            batch.remove(1L);
+            batch.put(2L, null);
+        }));
+        
+        // Then
+        assertEquals(version, catalog.snapshot().getVersion());
+        assertEquals("First", catalog.get(1L).getTitle());
+    }
+    
+    @Test
+    public void testLibraryServiceSnapshot() {
+        // Given
+        LibraryServiceImpl libraryService = new LibraryServiceImpl();
+        libraryService.addBook(new Book("Book 1", "Author", "ISBN1", 2001));
+        CatalogSnapshot snapshot = libraryService.getCatalogSnapshot();
+        
+        // When
+        libraryService.addBook(new Book("Book 2", "Author", "ISBN2", 2002));
+        libraryService.removeBook("ISBN1");
+        
+        // Then
+        assertEquals(1, snapshot.size());
+        assertEquals("Book 1", snapshot.get(libraryService.getActivityStream().getIsbnKeys().existingKeyOf("ISBN1")).getTitle());
+        assertEquals(1, libraryService.getAllBooks().size());
+        assertEquals("Book 2", libraryService.getAllBooks().get(0).getTitle());
+        assertThrows(IllegalStateException.class, () -> new LibraryServiceImpl(true).getCatalogSnapshot());
+    }
+}
@@ -0,0 +1,149 @@
+package librarymanagementsystem;
+
+import librarymanagementsystem.model.Book;
+import librarymanagementsystem.search.TextColumn;
+import librarymanagementsystem.services.impl.LibraryServiceImpl;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.LongPredicate;
+
+/**
+ * Unit tests for substring scans over a text column.
+ */
+public class TextColumnTest {
+    
+    @Test
+    public void testParallelScanMatchesSequentialScan() {
+        // Given
+        ForkJoinPool pool = new ForkJoinPool(4);
+        TextColumn parallel = new TextColumn(1, pool);
+        TextColumn sequential = new TextColumn(Integer.MAX_VALUE, pool);
+        for (int i = 0; i < 50_000; i++) {
+            String text = (i % 7 == 0 ? "The GREAT " : "A small ") + "Book No. " + i;
+            parallel.add(i + 1, text);
+            sequential.add(i + 1, text);
+        }
+        
+        try {
+            // When
+            long[] parallelMatches = parallel.findContaining("great book no. ").toArray();
+            
+            // Then
+            assertArrayEquals(sequential.findContaining("GREAT BOOK NO. ").toArray(), parallelMatches);
+            assertEquals(7_143, parallelMatches.length);
+            assertEquals(8L, parallelMatches[1]);
+            assertEquals(50_000, parallel.findContaining("").size());
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    @Test
+    public void testRemovedAndReplacedTextsAreNotFound() {
+        // Given
+        TextColumn column = new TextColumn();
+        for (int i = 0; i < 20_000; i++) {
+            column.add(i + 1, "Volume " + i + " of the encyclopedia");
+        }
+        
+        // When
+        for (int i = 0; i < 15_000; i++) {
+            column.remove(i + 1); // enough dead characters to compact
+        }
+        column.add(20_000L, "Atlas of the World");
+        
+        // Then
+        assertEquals(5_000, column.size());
+        assertEquals(4_999, column.findContaining("ENCYCLOPEDIA").size());
+        assertArrayEquals(new long[] {20_000L}, column.findContaining("atlas").toArray());
+        assertEquals(0, column.findContaining("volume 12 of").size());
+        assertEquals(15_001L, column.findContaining("volume 15000 of").get(0));
+    }
+    
+    @Test
+    public void testContainingReadsTheColumnAsItWasWhenCreated() {
+        // Given
+        TextColumn column = new TextColumn();
+        for (int i = 0; i < 20_000; i++) {
+            column.add(i + 1, "Volume " + i + " of the encyclopedia");
+        }
+        LongPredicate before = column.containing("encyclopedia");
+        
+        // When
+        for (int i = 0; i < 15_000; i++) {
+            column.remove(i + 1); // enough dead characters to compact
+        }
+        column.add(20_000L, "Atlas of the World");
+        LongPredicate after = column.containing("ENCYCLOPEDIA");
+        
+        // Then
+        assertTrue(before.test(1L));
+        assertTrue(before.test(20_000L));
+        assertFalse(before.test(20_001L));
+        assertFalse(after.test(1L));
+        assertTrue(after.test(15_001L));
+        assertFalse(after.test(20_000L));
+        assertTrue(column.containing("atlas").test(20_000L));
+    }
+    
+    @Test
+    public void testScansSeeEachReplacedTextOnceWhileWritersCompact() throws Exception {
+        // Given
+        ForkJoinPool pool = new ForkJoinPool(4);
+        TextColumn column = new TextColumn(1, pool);
+        for (int i = 0; i < 5_000; i++) {
+            column.add(i + 1, "Filler volume " + i + " of the encyclopedia");
+        }
+        column.add(0L, "Red Lantern");
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        
+        try {
+            // When
+            Future<?> writes = writer.submit(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    column.add(0L, i % 2 == 0 ? "Blue Lantern" : "Red Lantern");
+                    column.add(i % 5_000 + 1, "Filler volume " + i + " of the encyclopedia"); // compacts now and then
+                }
+            });
+            int scans = 0;
+            while (!writes.isDone() || scans == 0) {
+                // Then
+                assertArrayEquals(new long[] {0L}, column.findContaining("lantern").toArray());
+                assertArrayEquals(new long[] {0L}, column.findMostRelevant("LANTERN", 3).toArray());
+                assertEquals(5_000, column.findContaining("encyclopedia").size());
+                scans++;
+            }
+            writes.get();
+            assertEquals(5_001, column.size());
+        } finally {
+            writer.shutdown();
+            pool.shutdown();
+        }
+    }
+    
+    @Test
+    public void testLibraryServiceSearchesInParallelAboveThreshold() {
+        // Given
+        LibraryServiceImpl libraryService = new LibraryServiceImpl();
+        libraryService.setParallelScanThreshold(1);
+        for (int i = 0; i < 10_000; i++) {
+            libraryService.addBook(new Book("Title " + i, i % 2 == 0 ? "Even Author" : "Odd Author", "ISBN" + i, 2000));
+        }
+        
+        // When
+        List<Book> byTitle = libraryService.findBooksByTitle("title 999");
+        List<Book> byAuthor = libraryService.findBooksByAuthor("ODD");
+        
+        // Then
+        assertEquals(11, byTitle.size()); // 999 and 9990 to 9999
+        assertEquals("Title 999", byTitle.get(0).getTitle());
+        assertEquals(5_000, byAuthor.size());
+        assertThrows(IllegalArgumentException.class, () -> libraryService.setParallelScanThreshold(0));
+    }
+}